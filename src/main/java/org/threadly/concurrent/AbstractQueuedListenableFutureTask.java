@@ -0,0 +1,105 @@
+package org.threadly.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import org.threadly.concurrent.future.ListenableFutureTask;
+
+/**
+ * <p>Future returned from submit calls by schedulers which can cancel a queued task in O(1).  It 
+ * holds a reference to the container which is queued for it, so that when canceled the 
+ * container can be marked as canceled, rather than having to search the queues to remove it.  
+ * The reference is also used to decide if the task was removed before it started.  Both removal 
+ * and the start of execution atomically swap out the reference, so only one of them can 
+ * succeed.</p>
+ * 
+ * <p>In general this wont be useful outside of Threadly developers, but must be public since it 
+ * is extended by protected classes of the schedulers.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ * @param <T> The result object type returned by this future
+ * @param <Q> The type of container which is queued to execute this future
+ */
+public abstract class AbstractQueuedListenableFutureTask<T, Q> extends ListenableFutureTask<T> {
+  @SuppressWarnings("rawtypes")
+  private static final AtomicReferenceFieldUpdater<AbstractQueuedListenableFutureTask, 
+                                                   Object> QUEUED;
+  private static final Object REMOVED_MARKER;
+  
+  static {
+    QUEUED = AtomicReferenceFieldUpdater.newUpdater(AbstractQueuedListenableFutureTask.class, 
+                                                    Object.class, "queuedContainer");
+    REMOVED_MARKER = new Object();
+  }
+  
+  private volatile Object queuedContainer;
+  
+  protected AbstractQueuedListenableFutureTask(Runnable task, T result) {
+    super(false, task, result);
+  }
+  
+  protected AbstractQueuedListenableFutureTask(Callable<T> task) {
+    super(false, task);
+  }
+  
+  /**
+   * Invoked once the container has been atomically claimed for removal.  The implementation 
+   * should mark the container as canceled so that it is discarded once it is reached in the 
+   * queue.  After this returns the future will be canceled.
+   * 
+   * @param queuedContainer Container which was queued to execute this future
+   */
+  protected abstract void queuedContainerRemoved(Q queuedContainer);
+  
+  /**
+   * Sets the container which will be queued for this future.  This must be invoked before the 
+   * container is added to the queue.
+   * 
+   * @param queuedContainer Container which will execute this future
+   */
+  protected void setQueuedContainer(Q queuedContainer) {
+    this.queuedContainer = queuedContainer;
+  }
+  
+  /**
+   * Removes the task from the queue by marking its container as canceled, and then cancels this 
+   * future.  This will fail if the task has already started, or was already removed.
+   * 
+   * @return {@code true} if the task was removed before it started
+   */
+  @SuppressWarnings("unchecked")
+  protected boolean removeFromQueue() {
+    Object container = queuedContainer;
+    if (container != null && container != REMOVED_MARKER && 
+        QUEUED.compareAndSet(this, container, REMOVED_MARKER)) {
+      queuedContainerRemoved((Q)container);
+      super.cancel(false);
+      
+      return true;
+    } else {
+      return false;
+    }
+  }
+  
+  @Override
+  public void run() {
+    Object container = queuedContainer;
+    if (container == REMOVED_MARKER || 
+        (container != null && ! QUEUED.compareAndSet(this, container, null))) {
+      // removed from the queue before we could start
+      return;
+    }
+    
+    super.run();
+  }
+  
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    if (removeFromQueue()) {
+      return true;
+    } else {
+      return super.cancel(mayInterruptIfRunning);
+    }
+  }
+}
@@ -0,0 +1,329 @@
+package org.threadly.concurrent;
+
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Base for schedulers which queue tasks and only provide up to {@code maxConcurrency} of them 
+ * to a backing scheduler at once.  Similar to 
+ * {@link org.threadly.concurrent.limiter.SimpleSchedulerLimiter}, except that rather than 
+ * running waiting tasks in the order they were submitted, implementations decide which task to 
+ * run next once a slot opens.  Implementations only need to provide how tasks are queued 
+ * ({@link #queueTask(SlotTaskWrapper)}) and how the next task is chosen 
+ * ({@link #pollNextTask()}).</p>
+ * 
+ * <p>Tasks are submitted through a {@link QueueScheduler}, which tags each task with a key for 
+ * the queue it should wait in.  Scheduled tasks are delayed on the backing scheduler, and then 
+ * queued once their delay has passed.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ * @param <K> Type of key used to identify which queue a task should wait in
+ */
+public abstract class AbstractSlotLimitedScheduler<K> {
+  protected final SimpleSchedulerInterface scheduler;
+  protected final int maxConcurrency;
+  protected final Object queueLock;
+  private int currentlyRunning; // locked around queueLock
+  
+  /**
+   * Constructs a new {@link AbstractSlotLimitedScheduler}.
+   * 
+   * @param scheduler Scheduler to run tasks on, and to delay scheduled tasks on
+   * @param maxConcurrency Maximum quantity of tasks to run in parallel, generally the pool size
+   */
+  protected AbstractSlotLimitedScheduler(SimpleSchedulerInterface scheduler, int maxConcurrency) {
+    ArgumentVerifier.assertNotNull(scheduler, "scheduler");
+    ArgumentVerifier.assertGreaterThanZero(maxConcurrency, "maxConcurrency");
+    
+    this.scheduler = scheduler;
+    this.maxConcurrency = maxConcurrency;
+    queueLock = new Object();
+    currentlyRunning = 0;
+  }
+  
+  /**
+   * Call to check what the maximum concurrency this scheduler will allow.
+   * 
+   * @return maximum concurrent tasks to be run
+   */
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+  
+  /**
+   * Returns how many tasks are currently running.  This will never exceed 
+   * {@link #getMaxConcurrency()}.
+   * 
+   * @return Quantity of tasks currently running
+   */
+  public int getCurrentRunningCount() {
+    synchronized (queueLock) {
+      return currentlyRunning;
+    }
+  }
+  
+  /**
+   * Adds a task which is ready to run to the queue for its key.  This will be invoked while 
+   * holding {@code queueLock}.
+   * 
+   * @param task Task which is ready to run
+   */
+  protected abstract void queueTask(SlotTaskWrapper task);
+  
+  /**
+   * Chooses and removes the next task to run.  This will be invoked while holding 
+   * {@code queueLock}, and only once there is a slot available for the task.
+   * 
+   * @return Next task to run, or {@code null} if there are no waiting tasks
+   */
+  protected abstract SlotTaskWrapper pollNextTask();
+  
+  /**
+   * Provides a task which has been given a slot to the backing scheduler.  This can be 
+   * overridden if the backing scheduler needs additional details from the queue key.
+   * 
+   * @param task Task to be run
+   */
+  protected void executeOnScheduler(SlotTaskWrapper task) {
+    scheduler.execute(task);
+  }
+  
+  /**
+   * Delays a task on the backing scheduler.  This can be overridden if the backing scheduler 
+   * needs additional details from the queue key.
+   * 
+   * @param task Runnable which will queue the task once the delay has passed
+   * @param delayInMillis Time to delay in milliseconds
+   * @param queueKey Key for the queue the task will be added to
+   */
+  protected void scheduleOnScheduler(Runnable task, long delayInMillis, K queueKey) {
+    scheduler.schedule(task, delayInMillis);
+  }
+  
+  /**
+   * Queues the task, and then starts any tasks which there are slots for.
+   * 
+   * @param task Task which is ready to run
+   */
+  protected void addToQueue(SlotTaskWrapper task) {
+    synchronized (queueLock) {
+      queueTask(task);
+    }
+    
+    consumeAvailable();
+  }
+  
+  /**
+   * Provides queued tasks to the backing scheduler while there are slots available for them.
+   */
+  protected void consumeAvailable() {
+    while (true) {
+      SlotTaskWrapper next;
+      synchronized (queueLock) {
+        if (currentlyRunning >= maxConcurrency) {
+          return;
+        }
+        next = pollNextTask();
+        if (next == null) {
+          return;
+        }
+        currentlyRunning++;
+      }
+      
+      executeOnScheduler(next);
+    }
+  }
+  
+  /**
+   * Should be called after every task completes.  This releases the task's slot, then will start 
+   * any waiting tasks.
+   */
+  protected void handleTaskFinished() {
+    synchronized (queueLock) {
+      currentlyRunning--;
+    }
+    
+    consumeAvailable();
+  }
+  
+  /**
+   * <p>Wrapper for tasks run on the backing scheduler.  This ensures that 
+   * {@link #handleTaskFinished()} will be called after the task completes.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class SlotTaskWrapper implements Runnable, RunnableContainerInterface {
+    protected final K queueKey;
+    protected final Runnable task;
+    protected long queueTime;  // locked around queueLock, only set by queues which need it
+    
+    protected SlotTaskWrapper(K queueKey, Runnable task) {
+      this.queueKey = queueKey;
+      this.task = task;
+    }
+    
+    /**
+     * Called immediately after contained task finishes.  That way any additional cleanup needed 
+     * can be run.
+     */
+    protected void doAfterRunTasks() {
+      // nothing in the default implementation
+    }
+    
+    @Override
+    public void run() {
+      try {
+        task.run();
+      } finally {
+        try {
+          doAfterRunTasks();
+        } finally {
+          handleTaskFinished();
+        }
+      }
+    }
+    
+    @Override
+    public Runnable getContainedRunnable() {
+      return task;
+    }
+  }
+  
+  /**
+   * <p>Runnable which is delayed on the backing scheduler, and then adds the task to its 
+   * queue.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class DelayedAddRunnable implements Runnable, RunnableContainerInterface {
+    protected final SlotTaskWrapper task;
+    
+    protected DelayedAddRunnable(SlotTaskWrapper task) {
+      this.task = task;
+    }
+    
+    @Override
+    public void run() {
+      addToQueue(task);
+    }
+    
+    @Override
+    public Runnable getContainedRunnable() {
+      return task.getContainedRunnable();
+    }
+  }
+  
+  /**
+   * <p>Wrapper for recurring tasks that reschedule with a given delay after completing 
+   * execution.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class RecurringDelayWrapper extends SlotTaskWrapper {
+    protected final long recurringDelay;
+    protected final DelayedAddRunnable delayRunnable;
+    
+    protected RecurringDelayWrapper(K queueKey, Runnable task, long recurringDelay) {
+      super(queueKey, task);
+      
+      this.recurringDelay = recurringDelay;
+      delayRunnable = new DelayedAddRunnable(this);
+    }
+    
+    @Override
+    protected void doAfterRunTasks() {
+      if (recurringDelay == 0) {
+        addToQueue(this);
+      } else {
+        scheduleOnScheduler(delayRunnable, recurringDelay, queueKey);
+      }
+    }
+  }
+  
+  /**
+   * <p>Wrapper for recurring tasks that reschedule at a fixed rate after completing execution.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class RecurringRateWrapper extends SlotTaskWrapper {
+    protected final long period;
+    protected final DelayedAddRunnable delayRunnable;
+    private long nextRunTime;
+    
+    protected RecurringRateWrapper(K queueKey, Runnable task, long initialDelay, long period) {
+      super(queueKey, task);
+      
+      this.period = period;
+      delayRunnable = new DelayedAddRunnable(this);
+      nextRunTime = Clock.accurateForwardProgressingMillis() + initialDelay + period;
+    }
+    
+    @Override
+    protected void doAfterRunTasks() {
+      long nextDelay = nextRunTime - Clock.accurateForwardProgressingMillis();
+      nextRunTime += period;
+      if (nextDelay < 1) {
+        addToQueue(this);
+      } else {
+        scheduleOnScheduler(delayRunnable, nextDelay, queueKey);
+      }
+    }
+  }
+  
+  /**
+   * <p>Scheduler which submits all tasks to the queue for a single key.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class QueueScheduler extends AbstractSubmitterScheduler {
+    protected final K queueKey;
+    
+    protected QueueScheduler(K queueKey) {
+      this.queueKey = queueKey;
+    }
+    
+    @Override
+    protected void doSchedule(Runnable task, long delayInMillis) {
+      SlotTaskWrapper stw = new SlotTaskWrapper(queueKey, task);
+      if (delayInMillis == 0) {
+        addToQueue(stw);
+      } else {
+        scheduleOnScheduler(new DelayedAddRunnable(stw), delayInMillis, queueKey);
+      }
+    }
+    
+    @Override
+    public void scheduleWithFixedDelay(Runnable task, long initialDelay, long recurringDelay) {
+      ArgumentVerifier.assertNotNull(task, "task");
+      ArgumentVerifier.assertNotNegative(initialDelay, "initialDelay");
+      ArgumentVerifier.assertNotNegative(recurringDelay, "recurringDelay");
+      
+      RecurringDelayWrapper rdw = new RecurringDelayWrapper(queueKey, task, recurringDelay);
+      if (initialDelay == 0) {
+        addToQueue(rdw);
+      } else {
+        scheduleOnScheduler(rdw.delayRunnable, initialDelay, queueKey);
+      }
+    }
+    
+    @Override
+    public void scheduleAtFixedRate(Runnable task, long initialDelay, long period) {
+      ArgumentVerifier.assertNotNull(task, "task");
+      ArgumentVerifier.assertNotNegative(initialDelay, "initialDelay");
+      ArgumentVerifier.assertGreaterThanZero(period, "period");
+      
+      RecurringRateWrapper rrw = new RecurringRateWrapper(queueKey, task, initialDelay, period);
+      if (initialDelay == 0) {
+        addToQueue(rrw);
+      } else {
+        scheduleOnScheduler(rrw.delayRunnable, initialDelay, queueKey);
+      }
+    }
+  }
+}
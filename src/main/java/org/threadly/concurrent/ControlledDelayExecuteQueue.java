@@ -0,0 +1,170 @@
+package org.threadly.concurrent;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.threadly.concurrent.PriorityScheduler.OneTimeTaskWrapper;
+import org.threadly.concurrent.PriorityScheduler.TaskWrapper;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Applies a {@link ControlledDelayPolicy} to the execute queue of a 
+ * {@link QueueManager}.  This tracks if the queue is overloaded, sheds tasks 
+ * which have waited too long, and holds tasks which are being run newest first.  Without a 
+ * policy this just provides the head of the execute queue.</p>
+ * 
+ * <p>Other than the queues and counters, all state is only accessed by the consumer thread of 
+ * the owning {@link QueueManager}.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+class ControlledDelayExecuteQueue {
+  protected final ConcurrentLinkedQueue<OneTimeTaskWrapper> executeQueue;
+  // holds execute tasks while being run newest first, only added to by the consumer thread
+  protected final LinkedBlockingDeque<OneTimeTaskWrapper> lifoQueue;
+  protected final AtomicLong shedTaskCount;
+  protected volatile ControlledDelayPolicy policy;
+  protected volatile boolean overloaded;  // only changed by the consumer thread
+  private long firstAboveTargetTime;  // only accessed by the consumer thread
+  private boolean lifoQueueInUse;  // only accessed by the consumer thread
+  private boolean peekedLifoQueueTail;  // only accessed by the consumer thread
+  
+  protected ControlledDelayExecuteQueue(ConcurrentLinkedQueue<OneTimeTaskWrapper> executeQueue) {
+    this.executeQueue = executeQueue;
+    lifoQueue = new LinkedBlockingDeque<OneTimeTaskWrapper>();
+    shedTaskCount = new AtomicLong(0);
+    policy = null;
+    overloaded = false;
+    firstAboveTargetTime = 0;
+    lifoQueueInUse = false;
+    peekedLifoQueueTail = false;
+  }
+  
+  /**
+   * Returns the oldest waiting task without changing any state.  This is safe to invoke from 
+   * any thread.
+   * 
+   * @return Oldest waiting execute task, or {@code null} if there are no waiting tasks
+   */
+  protected OneTimeTaskWrapper peekOldestWaiting() {
+    OneTimeTaskWrapper result = lifoQueue.peekFirst();
+    if (result == null) {
+      result = executeQueue.peek();
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Removes a task which was returned from {@link #peek()} from the queue it was found in.
+   * 
+   * @param task Task which was peeked from the execute queues
+   * @return {@code true} if the task was found and removed
+   */
+  protected boolean removePeeked(TaskWrapper task) {
+    if (! lifoQueueInUse) {
+      return executeQueue.remove(task);
+    } else if (peekedLifoQueueTail) {
+      return lifoQueue.removeLastOccurrence(task);
+    } else {
+      return lifoQueue.removeFirstOccurrence(task);
+    }
+  }
+  
+  /**
+   * Returns the next task from the execute queues without removing it.  Without a 
+   * {@link ControlledDelayPolicy} this is just the head of the execute queue.  With a policy 
+   * this checks how long the oldest task has waited to update the overload state.  While 
+   * overloaded tasks which have waited more than twice the target delay are shed, and if 
+   * running in LIFO order the newest task is returned.
+   * 
+   * @return Next execute task to run, or {@code null} if there are no waiting tasks
+   */
+  protected OneTimeTaskWrapper peek() {
+    ControlledDelayPolicy policy = this.policy;
+    if (policy == null) {
+      if (overloaded) {
+        overloaded = false;
+        firstAboveTargetTime = 0;
+      }
+      
+      // if the policy was removed while overloaded, tasks moved for LIFO order are run first
+      return peekOldest();
+    }
+    
+    long now = Clock.accurateForwardProgressingMillis();
+    OneTimeTaskWrapper oldest = peekOldest();
+    if (oldest == null || now - oldest.runTime < policy.targetDelayInMs) {
+      firstAboveTargetTime = 0;
+      if (overloaded) {
+        overloaded = false;
+      }
+      
+      return oldest;
+    } else if (! overloaded) {
+      if (firstAboveTargetTime == 0) {
+        firstAboveTargetTime = now + policy.intervalInMs;
+        
+        return oldest;
+      } else if (now < firstAboveTargetTime) {
+        return oldest;
+      } else {
+        overloaded = true;
+      }
+    }
+    
+    long shedDelay = policy.targetDelayInMs * 2;
+    while (oldest != null && now - oldest.runTime > shedDelay) {
+      if (removePeeked(oldest) && ! oldest.canceled) {
+        oldest.cancel();
+        shedTaskCount.incrementAndGet();
+      }
+      oldest = peekOldest();
+    }
+    
+    if (! policy.lifoWhenOverloaded) {
+      return oldest;
+    }
+    
+    // move any tasks from the execute queue so that the newest task can be taken from the tail
+    OneTimeTaskWrapper tw;
+    while ((tw = executeQueue.poll()) != null) {
+      if (! tw.canceled) {
+        lifoQueue.addLast(tw);
+      }
+    }
+    
+    OneTimeTaskWrapper newest = lifoQueue.peekLast();
+    if (newest == null) {
+      lifoQueueInUse = false;
+      
+      return executeQueue.peek();
+    } else {
+      lifoQueueInUse = true;
+      peekedLifoQueueTail = true;
+      
+      return newest;
+    }
+  }
+  
+  /**
+   * Returns the oldest waiting execute task without removing it.  Tasks which were moved to run 
+   * in LIFO order are older than any in the execute queue, so they are checked first.
+   * 
+   * @return Oldest waiting execute task, or {@code null} if there are no waiting tasks
+   */
+  private OneTimeTaskWrapper peekOldest() {
+    peekedLifoQueueTail = false;
+    if (lifoQueueInUse) {
+      OneTimeTaskWrapper result = lifoQueue.peekFirst();
+      if (result != null) {
+        return result;
+      }
+      lifoQueueInUse = false;
+    }
+    
+    return executeQueue.peek();
+  }
+}
@@ -0,0 +1,96 @@
+package org.threadly.concurrent;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>Settings for managing the execute queues of a {@link PriorityScheduler} when it is 
+ * overloaded, set with {@link PriorityScheduler#setControlledDelayPolicy(ControlledDelayPolicy)}.  
+ * This is modeled after the CoDel (controlled delay) queue management algorithm.</p>
+ * 
+ * <p>As tasks are taken from the execute queue, the time the oldest waiting task has spent in 
+ * the queue is checked.  If this stays above the target delay for a full interval, the queue is 
+ * considered overloaded.  It will remain overloaded until the oldest waiting task is found to 
+ * have waited less than the target delay.  While overloaded, any task which has waited more than 
+ * twice the target delay is shed instead of run.  Shed tasks are canceled, so any futures for 
+ * them will report as canceled.  The quantity of shed tasks can be checked with 
+ * {@link PriorityScheduler#getShedTaskCount()}.</p>
+ * 
+ * <p>If constructed to run in LIFO order when overloaded, the newest waiting task will be run 
+ * next while overloaded.  This keeps the latency low for new tasks (which are the most likely to 
+ * still be useful), while the oldest tasks are shed.  Once no longer overloaded, any remaining 
+ * tasks are run in the order they were submitted again.</p>
+ * 
+ * <p>This only applies to tasks which were provided to run without delay.  Scheduled and 
+ * recurring tasks are never shed.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class ControlledDelayPolicy {
+  protected final long targetDelayInMs;
+  protected final long intervalInMs;
+  protected final boolean lifoWhenOverloaded;
+  
+  /**
+   * Constructs a new {@link ControlledDelayPolicy}.  Tasks will continue to run in the order 
+   * they were submitted while overloaded.
+   * 
+   * @param targetDelayInMs Acceptable time for tasks to wait in the queue
+   * @param intervalInMs Time the queue delay must stay above the target before overloaded
+   */
+  public ControlledDelayPolicy(long targetDelayInMs, long intervalInMs) {
+    this(targetDelayInMs, intervalInMs, false);
+  }
+  
+  /**
+   * Constructs a new {@link ControlledDelayPolicy}.
+   * 
+   * @param targetDelayInMs Acceptable time for tasks to wait in the queue
+   * @param intervalInMs Time the queue delay must stay above the target before overloaded
+   * @param lifoWhenOverloaded {@code true} to run the newest tasks first while overloaded
+   */
+  public ControlledDelayPolicy(long targetDelayInMs, long intervalInMs, 
+                               boolean lifoWhenOverloaded) {
+    ArgumentVerifier.assertGreaterThanZero(targetDelayInMs, "targetDelayInMs");
+    ArgumentVerifier.assertGreaterThanZero(intervalInMs, "intervalInMs");
+    
+    this.targetDelayInMs = targetDelayInMs;
+    this.intervalInMs = intervalInMs;
+    this.lifoWhenOverloaded = lifoWhenOverloaded;
+  }
+  
+  /**
+   * Returns the acceptable time for tasks to wait in the queue.
+   * 
+   * @return Target queue delay in milliseconds
+   */
+  public long getTargetDelayInMs() {
+    return targetDelayInMs;
+  }
+  
+  /**
+   * Returns the time the queue delay must stay above the target before the queue is considered 
+   * overloaded.
+   * 
+   * @return Interval in milliseconds
+   */
+  public long getIntervalInMs() {
+    return intervalInMs;
+  }
+  
+  /**
+   * Checks if the newest tasks will be run first while overloaded.
+   * 
+   * @return {@code true} if tasks run in LIFO order while overloaded
+   */
+  public boolean isLifoWhenOverloaded() {
+    return lifoWhenOverloaded;
+  }
+  
+  @Override
+  public String toString() {
+    return ControlledDelayPolicy.class.getSimpleName() + 
+             "[target=" + targetDelayInMs + "ms, interval=" + intervalInMs + 
+             "ms, lifo=" + lifoWhenOverloaded + ']';
+  }
+}
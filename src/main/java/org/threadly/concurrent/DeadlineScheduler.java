@@ -0,0 +1,384 @@
+package org.threadly.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import org.threadly.concurrent.future.DeadlineListenableFuture.DeadlineTimeoutException;
+import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.concurrent.future.ListenableFutureTask;
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Executor which runs tasks in earliest deadline first order.  Every task is provided with an 
+ * absolute deadline, in the time reference of {@link Clock#accurateForwardProgressingMillis()}.  
+ * Like {@link org.threadly.concurrent.limiter.ExecutorLimiter} this will only provide up to 
+ * {@code maxConcurrency} tasks to the backing executor at once (generally this should match the 
+ * pool size).  Any additional tasks wait, and once a slot opens the waiting task with the 
+ * earliest deadline is run next.  Tasks with the same deadline run in the order they were 
+ * provided.</p>
+ * 
+ * <p>If constructed to drop expired tasks, a task which is past its deadline when it would be 
+ * run is removed instead, without using a slot.  Futures for dropped tasks (as returned from 
+ * {@code submit}) will fail with a {@link DeadlineTimeoutException}.  The quantity of dropped 
+ * tasks can be checked with {@link #getExpiredTaskCount()}.  Under overload this keeps the pool 
+ * running tasks which can still finish in time, rather than tasks whose result is no longer 
+ * useful.</p>
+ * 
+ * <p>Deadlines are only checked before a task is provided to the backing executor.  Once a task 
+ * has started it will run to completion.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class DeadlineScheduler {
+  protected final Executor executor;
+  protected final int maxConcurrency;
+  protected final boolean dropExpiredTasks;
+  protected final Object queueLock;
+  protected final PriorityQueue<DeadlineTaskWrapper> waitingTasks;  // locked around queueLock
+  private long nextSequence;  // locked around queueLock
+  private long expiredTaskCount;  // locked around queueLock
+  private int currentlyRunning; // locked around queueLock
+  
+  /**
+   * Constructs a new {@link DeadlineScheduler}.  Tasks past their deadline will still be run.
+   * 
+   * @param executor Executor to run tasks on
+   * @param maxConcurrency Maximum quantity of tasks to run in parallel, generally the pool size
+   */
+  public DeadlineScheduler(Executor executor, int maxConcurrency) {
+    this(executor, maxConcurrency, false);
+  }
+  
+  /**
+   * Constructs a new {@link DeadlineScheduler}.
+   * 
+   * @param executor Executor to run tasks on
+   * @param maxConcurrency Maximum quantity of tasks to run in parallel, generally the pool size
+   * @param dropExpiredTasks {@code true} to drop tasks which are past their deadline instead of running them
+   */
+  public DeadlineScheduler(Executor executor, int maxConcurrency, boolean dropExpiredTasks) {
+    ArgumentVerifier.assertNotNull(executor, "executor");
+    ArgumentVerifier.assertGreaterThanZero(maxConcurrency, "maxConcurrency");
+    
+    this.executor = executor;
+    this.maxConcurrency = maxConcurrency;
+    this.dropExpiredTasks = dropExpiredTasks;
+    queueLock = new Object();
+    waitingTasks = new PriorityQueue<DeadlineTaskWrapper>();
+    nextSequence = 0;
+    expiredTaskCount = 0;
+    currentlyRunning = 0;
+  }
+  
+  /**
+   * Call to check what the maximum concurrency this scheduler will allow.
+   * 
+   * @return maximum concurrent tasks to be run
+   */
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+  
+  /**
+   * Returns how many tasks are currently running.  This will never exceed 
+   * {@link #getMaxConcurrency()}.
+   * 
+   * @return Quantity of tasks currently running
+   */
+  public int getCurrentRunningCount() {
+    synchronized (queueLock) {
+      return currentlyRunning;
+    }
+  }
+  
+  /**
+   * Returns how many tasks are waiting for a slot to run.
+   * 
+   * @return Quantity of tasks waiting to run
+   */
+  public int getQueuedTaskCount() {
+    synchronized (queueLock) {
+      return waitingTasks.size();
+    }
+  }
+  
+  /**
+   * Returns how many tasks have been dropped because they were past their deadline.  This will 
+   * always be zero unless constructed to drop expired tasks.
+   * 
+   * @return Quantity of tasks dropped without running
+   */
+  public long getExpiredTaskCount() {
+    synchronized (queueLock) {
+      return expiredTaskCount;
+    }
+  }
+  
+  /**
+   * Executes the task once it is the waiting task with the earliest deadline.
+   * 
+   * @param task Task to run
+   * @param deadline Time the task must start by, from {@link Clock#accurateForwardProgressingMillis()}
+   */
+  public void execute(Runnable task, long deadline) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    addToQueue(task, deadline, null);
+  }
+  
+  /**
+   * Submits the task to run once it is the waiting task with the earliest deadline.  If the task 
+   * is dropped because its deadline has passed, the returned future will fail with a 
+   * {@link DeadlineTimeoutException}.
+   * 
+   * @param task Task to run
+   * @param deadline Time the task must start by, from {@link Clock#accurateForwardProgressingMillis()}
+   * @return Future to represent when the execution has completed
+   */
+  public ListenableFuture<?> submit(Runnable task, long deadline) {
+    return submit(task, null, deadline);
+  }
+  
+  /**
+   * Submits the task to run once it is the waiting task with the earliest deadline.  If the task 
+   * is dropped because its deadline has passed, the returned future will fail with a 
+   * {@link DeadlineTimeoutException}.
+   * 
+   * @param <T> type of result for future
+   * @param task Task to run
+   * @param result Result to provide to the future once the task has run
+   * @param deadline Time the task must start by, from {@link Clock#accurateForwardProgressingMillis()}
+   * @return Future to represent when the execution has completed
+   */
+  public <T> ListenableFuture<T> submit(Runnable task, T result, long deadline) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    DeadlineFutureTask<T> lft = new DeadlineFutureTask<T>(task, result);
+    
+    addToQueue(lft, deadline, lft);
+    
+    return lft;
+  }
+  
+  /**
+   * Submits the callable to run once it is the waiting task with the earliest deadline.  If the 
+   * task is dropped because its deadline has passed, the returned future will fail with a 
+   * {@link DeadlineTimeoutException}.
+   * 
+   * @param <T> type of result for future
+   * @param task Callable to run
+   * @param deadline Time the task must start by, from {@link Clock#accurateForwardProgressingMillis()}
+   * @return Future to represent when the execution has completed
+   */
+  public <T> ListenableFuture<T> submit(Callable<T> task, long deadline) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    DeadlineFutureTask<T> lft = new DeadlineFutureTask<T>(task);
+    
+    addToQueue(lft, deadline, lft);
+    
+    return lft;
+  }
+  
+  /**
+   * Returns an executor which runs tasks through this scheduler, with each task's deadline set to 
+   * the provided timeout after it was submitted.  This is useful to provide to code which 
+   * already accepts an executor.
+   * 
+   * @param timeoutInMs Time after submission each task must start by
+   * @return Executor which provides tasks to this scheduler
+   */
+  public SubmitterExecutorInterface getSubmitterExecutorForTimeout(long timeoutInMs) {
+    ArgumentVerifier.assertNotNegative(timeoutInMs, "timeoutInMs");
+    
+    return new TimeoutSubmitterExecutor(timeoutInMs);
+  }
+  
+  /**
+   * Queues the task, and then starts any tasks which there are slots for.
+   * 
+   * @param task Task to run
+   * @param deadline Time the task must start by
+   * @param future Future to fail if the task is dropped, or {@code null}
+   */
+  protected void addToQueue(Runnable task, long deadline, DeadlineFutureTask<?> future) {
+    synchronized (queueLock) {
+      waitingTasks.add(new DeadlineTaskWrapper(task, deadline, nextSequence++, future));
+    }
+    
+    consumeAvailable();
+  }
+  
+  /**
+   * Provides waiting tasks to the backing executor while there are slots available for them.  
+   * Any tasks found to be past their deadline (if dropping expired tasks) are removed, and their 
+   * futures failed once the lock has been released.
+   */
+  protected void consumeAvailable() {
+    List<DeadlineTaskWrapper> expiredTasks = null;
+    try {
+      while (true) {
+        DeadlineTaskWrapper next;
+        synchronized (queueLock) {
+          if (currentlyRunning >= maxConcurrency) {
+            return;
+          }
+          next = waitingTasks.poll();
+          if (dropExpiredTasks) {
+            long now = Clock.accurateForwardProgressingMillis();
+            while (next != null && next.deadline < now) {
+              expiredTaskCount++;
+              if (next.future != null) {
+                if (expiredTasks == null) {
+                  expiredTasks = new ArrayList<DeadlineTaskWrapper>();
+                }
+                expiredTasks.add(next);
+              }
+              next = waitingTasks.poll();
+            }
+          }
+          if (next == null) {
+            return;
+          }
+          currentlyRunning++;
+        }
+        
+        executor.execute(next);
+      }
+    } finally {
+      if (expiredTasks != null) {
+        for (DeadlineTaskWrapper tw : expiredTasks) {
+          tw.future.expire();
+        }
+      }
+    }
+  }
+  
+  /**
+   * Should be called after every task completes.  This releases the task's slot, then will start 
+   * any waiting tasks.
+   */
+  protected void handleTaskFinished() {
+    synchronized (queueLock) {
+      currentlyRunning--;
+    }
+    
+    consumeAvailable();
+  }
+  
+  /**
+   * <p>Wrapper for tasks run on the backing executor.  This orders tasks by deadline (and then by 
+   * the order they were provided), and ensures that {@link #handleTaskFinished()} will be called 
+   * after the task completes.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class DeadlineTaskWrapper implements Runnable, RunnableContainerInterface, 
+                                                 Comparable<DeadlineTaskWrapper> {
+    protected final Runnable task;
+    protected final long deadline;
+    protected final long sequence;
+    protected final DeadlineFutureTask<?> future;
+    
+    protected DeadlineTaskWrapper(Runnable task, long deadline, long sequence, 
+                                  DeadlineFutureTask<?> future) {
+      this.task = task;
+      this.deadline = deadline;
+      this.sequence = sequence;
+      this.future = future;
+    }
+    
+    @Override
+    public void run() {
+      try {
+        task.run();
+      } finally {
+        handleTaskFinished();
+      }
+    }
+    
+    @Override
+    public Runnable getContainedRunnable() {
+      return task;
+    }
+    
+    @Override
+    public int compareTo(DeadlineTaskWrapper o) {
+      if (deadline < o.deadline) {
+        return -1;
+      } else if (deadline > o.deadline) {
+        return 1;
+      } else if (sequence < o.sequence) {
+        return -1;
+      } else if (sequence > o.sequence) {
+        return 1;
+      } else {
+        return 0;
+      }
+    }
+  }
+  
+  /**
+   * <p>Future for submitted tasks, which can be failed if the task is dropped because its 
+   * deadline has passed.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> The result object type returned by this future
+   */
+  protected static class DeadlineFutureTask<T> extends ListenableFutureTask<T> {
+    protected DeadlineFutureTask(Runnable task, T result) {
+      super(false, task, result);
+    }
+    
+    protected DeadlineFutureTask(Callable<T> task) {
+      super(false, task);
+    }
+    
+    /**
+     * Fails the future with a {@link DeadlineTimeoutException}, without running the task.
+     */
+    protected void expire() {
+      setException(new DeadlineTimeoutException());
+    }
+  }
+  
+  /**
+   * <p>Executor which provides tasks to the scheduler with a deadline relative to when they were 
+   * submitted.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class TimeoutSubmitterExecutor extends AbstractSubmitterExecutor {
+    protected final long timeoutInMs;
+    
+    protected TimeoutSubmitterExecutor(long timeoutInMs) {
+      this.timeoutInMs = timeoutInMs;
+    }
+    
+    @Override
+    protected void doExecute(Runnable task) {
+      DeadlineScheduler.this.execute(task, 
+                                     Clock.accurateForwardProgressingMillis() + timeoutInMs);
+    }
+    
+    @Override
+    public <T> ListenableFuture<T> submit(Runnable task, T result) {
+      return DeadlineScheduler.this.submit(task, result, 
+                                           Clock.accurateForwardProgressingMillis() + timeoutInMs);
+    }
+    
+    @Override
+    public <T> ListenableFuture<T> submit(Callable<T> task) {
+      return DeadlineScheduler.this.submit(task, 
+                                           Clock.accurateForwardProgressingMillis() + timeoutInMs);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package org.threadly.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>Scheduler which shares a {@link PrioritySchedulerInterface} fairly between many tenants.  
+ * Like {@link org.threadly.concurrent.limiter.PrioritySchedulerLimiter} this will only provide 
+ * up to {@code maxConcurrency} tasks to the backing scheduler at once.  But rather than waiting 
+ * tasks being run in the order they were submitted, each tenant has its own queue, and tenants 
+ * with waiting tasks take turns using a deficit round robin.  So a tenant which floods its queue 
+ * only delays its own tasks, while other tenants continue to get their share of the pool.</p>
+ * 
+ * <p>Each turn a tenant may run as many tasks as its weight (by default {@code 1}) before the 
+ * next waiting tenant gets a turn.  Weights can be changed with 
+ * {@link #setTenantWeight(Object, int)}, and will apply the next time the tenant becomes active.  
+ * Enqueue and dequeue are both O(1), and tenants with no waiting tasks are not tracked (other 
+ * than a weight if one was set).</p>
+ * 
+ * <p>Tasks are submitted through a scheduler for each tenant, obtained with 
+ * {@link #getSubmitterSchedulerForTenant(Object)}.  Tenant keys are compared with 
+ * {@code equals()}.  If a {@link TaskPriority} is provided for the tenant scheduler, tasks will 
+ * run with that priority on the backing scheduler once they are dequeued.  Scheduled tasks are 
+ * delayed on the backing scheduler, and then queued with their tenant once their delay has 
+ * passed.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class FairTenantScheduler 
+    extends AbstractSlotLimitedScheduler<FairTenantScheduler.TenantKey> {
+  protected static final int DEFAULT_TENANT_WEIGHT = 1;
+  
+  protected final PrioritySchedulerInterface scheduler;
+  protected final Map<Object, TenantQueue> activeTenants;  // locked around queueLock
+  protected final Queue<TenantQueue> tenantRotation;  // locked around queueLock
+  protected final ConcurrentHashMap<Object, Integer> tenantWeights;
+  private int queuedTaskCount;  // locked around queueLock
+  
+  /**
+   * Constructs a new {@link FairTenantScheduler}.
+   * 
+   * @param scheduler Scheduler to run tasks on, and to delay scheduled tasks on
+   * @param maxConcurrency Maximum quantity of tasks to run in parallel, generally the pool size
+   */
+  public FairTenantScheduler(PrioritySchedulerInterface scheduler, int maxConcurrency) {
+    super(scheduler, maxConcurrency);
+    
+    this.scheduler = scheduler;
+    activeTenants = new HashMap<Object, TenantQueue>();
+    tenantRotation = new ArrayDeque<TenantQueue>();
+    tenantWeights = new ConcurrentHashMap<Object, Integer>();
+    queuedTaskCount = 0;
+  }
+  
+  /**
+   * Sets the weight for a tenant.  This is how many tasks the tenant can run each turn, relative 
+   * to other tenants.  If the tenant currently has waiting tasks, the new weight will be used 
+   * once it has no waiting tasks.
+   * 
+   * @param tenant Key for the tenant
+   * @param weight Quantity of tasks the tenant can run each turn, must be at least {@code 1}
+   */
+  public void setTenantWeight(Object tenant, int weight) {
+    ArgumentVerifier.assertNotNull(tenant, "tenant");
+    ArgumentVerifier.assertGreaterThanZero(weight, "weight");
+    
+    if (weight == DEFAULT_TENANT_WEIGHT) {
+      tenantWeights.remove(tenant);
+    } else {
+      tenantWeights.put(tenant, weight);
+    }
+  }
+  
+  /**
+   * Returns the weight for a tenant.  This will be {@code 1} unless changed with 
+   * {@link #setTenantWeight(Object, int)}.
+   * 
+   * @param tenant Key for the tenant
+   * @return Quantity of tasks the tenant can run each turn
+   */
+  public int getTenantWeight(Object tenant) {
+    ArgumentVerifier.assertNotNull(tenant, "tenant");
+    
+    Integer weight = tenantWeights.get(tenant);
+    if (weight == null) {
+      return DEFAULT_TENANT_WEIGHT;
+    } else {
+      return weight;
+    }
+  }
+  
+  /**
+   * Returns a scheduler which queues all tasks for the provided tenant.  Tasks will run with the 
+   * default priority of the backing scheduler.
+   * 
+   * @param tenant Key for the tenant, {@code equals()} will be used to find the tenant's queue
+   * @return Scheduler which runs tasks for the tenant
+   */
+  public SubmitterSchedulerInterface getSubmitterSchedulerForTenant(Object tenant) {
+    return getSubmitterSchedulerForTenant(tenant, scheduler.getDefaultPriority());
+  }
+  
+  /**
+   * Returns a scheduler which queues all tasks for the provided tenant.  Tasks will run with the 
+   * provided priority once they have been dequeued.
+   * 
+   * @param tenant Key for the tenant, {@code equals()} will be used to find the tenant's queue
+   * @param priority Priority to run tasks with on the backing scheduler
+   * @return Scheduler which runs tasks for the tenant
+   */
+  public SubmitterSchedulerInterface getSubmitterSchedulerForTenant(Object tenant, 
+                                                                    TaskPriority priority) {
+    ArgumentVerifier.assertNotNull(tenant, "tenant");
+    if (priority == null) {
+      priority = scheduler.getDefaultPriority();
+    }
+    
+    return new QueueScheduler(new TenantKey(tenant, priority));
+  }
+  
+  /**
+   * Returns how many tasks are waiting for a slot to run across all tenants.  This does not 
+   * include tasks which are still waiting for their scheduled delay.
+   * 
+   * @return Quantity of tasks waiting to run
+   */
+  public int getQueuedTaskCount() {
+    synchronized (queueLock) {
+      return queuedTaskCount;
+    }
+  }
+  
+  /**
+   * Returns how many tasks are waiting for a slot to run for the provided tenant.
+   * 
+   * @param tenant Key for the tenant
+   * @return Quantity of tasks waiting to run for the tenant
+   */
+  public int getTenantQueueDepth(Object tenant) {
+    ArgumentVerifier.assertNotNull(tenant, "tenant");
+    
+    synchronized (queueLock) {
+      TenantQueue tq = activeTenants.get(tenant);
+      if (tq == null) {
+        return 0;
+      } else {
+        return tq.tasks.size();
+      }
+    }
+  }
+  
+  /**
+   * Returns how many tenants currently have tasks waiting to run.
+   * 
+   * @return Quantity of tenants waiting to run tasks
+   */
+  public int getActiveTenantCount() {
+    synchronized (queueLock) {
+      return activeTenants.size();
+    }
+  }
+  
+  @Override
+  protected void queueTask(SlotTaskWrapper task) {
+    Object tenant = task.queueKey.tenant;
+    TenantQueue tq = activeTenants.get(tenant);
+    if (tq == null) {
+      tq = new TenantQueue(tenant, getTenantWeight(tenant));
+      activeTenants.put(tenant, tq);
+      tenantRotation.add(tq);
+    }
+    tq.tasks.add(task);
+    queuedTaskCount++;
+  }
+  
+  @Override
+  protected void executeOnScheduler(SlotTaskWrapper task) {
+    scheduler.execute(task, task.queueKey.priority);
+  }
+  
+  @Override
+  protected void scheduleOnScheduler(Runnable task, long delayInMillis, TenantKey queueKey) {
+    scheduler.schedule(task, delayInMillis, queueKey.priority);
+  }
+  
+  /**
+   * Removes the next task to run from the tenant at the head of the rotation.  Once the tenant 
+   * has used its turn it is moved to the back of the rotation, and once it has no waiting tasks 
+   * it is removed from the rotation.
+   * 
+   * @return Next task to run, or {@code null} if there are no waiting tasks
+   */
+  @Override
+  protected SlotTaskWrapper pollNextTask() {
+    TenantQueue tq = tenantRotation.peek();
+    if (tq == null) {
+      return null;
+    }
+    
+    SlotTaskWrapper result = tq.tasks.poll();
+    queuedTaskCount--;
+    if (tq.tasks.isEmpty()) {
+      tenantRotation.poll();
+      activeTenants.remove(tq.tenant);
+    } else if (--tq.deficit == 0) {
+      tenantRotation.poll();
+      tq.deficit = tq.weight;
+      tenantRotation.add(tq);
+    }
+    
+    return result;
+  }
+  
+  /**
+   * <p>Queue of waiting tasks for a single tenant.  All access must be done while holding 
+   * {@code queueLock}.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class TenantQueue {
+    protected final Object tenant;
+    protected final int weight;
+    protected final Queue<SlotTaskWrapper> tasks;
+    protected int deficit;  // remaining tasks for the current turn
+    
+    protected TenantQueue(Object tenant, int weight) {
+      this.tenant = tenant;
+      this.weight = weight;
+      tasks = new ArrayDeque<SlotTaskWrapper>();
+      deficit = weight;
+    }
+  }
+  
+  /**
+   * <p>Key which tasks for a tenant are queued with.  The tenant is used to find the tenant's 
+   * queue, and the priority is used to run the task on the backing scheduler.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class TenantKey {
+    protected final Object tenant;
+    protected final TaskPriority priority;
+    
+    protected TenantKey(Object tenant, TaskPriority priority) {
+      this.tenant = tenant;
+      this.priority = priority;
+    }
+  }
+}
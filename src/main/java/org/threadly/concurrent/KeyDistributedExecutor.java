@@ -475,6 +475,7 @@ public class KeyDistributedExecutor {
     
     @Override
     public void run() {
+      RunningTaskPublisher taskPublisher = new RunningTaskPublisher();
       int consumedItems = 0;
       // firstTask may be null if we exceeded our maxTasksPerCycle
       if (firstTask != null) {
@@ -484,7 +485,10 @@ public class KeyDistributedExecutor {
         // set to null to allow GC
         firstTask = null;
         
+        // we may be running within a task published by the executor, so restore it when done
+        Object previousTask = taskPublisher.publish(task);
         runTask(task);
+        taskPublisher.restore(previousTask);
       }
       
       while (true) {
@@ -523,7 +527,10 @@ public class KeyDistributedExecutor {
         
         Iterator<Runnable> it = nextQueue.iterator();
         while (it.hasNext()) {
-          runTask(it.next());
+          Runnable task = it.next();
+          Object previousTask = taskPublisher.publish(task);
+          runTask(task);
+          taskPublisher.restore(previousTask);
         }
       }
     }
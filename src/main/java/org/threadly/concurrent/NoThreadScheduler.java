@@ -1,13 +1,19 @@
 package org.threadly.concurrent;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.threadly.concurrent.collections.ConcurrentArrayList;
+import org.threadly.concurrent.collections.ConcurrentArrayList.BatchUpdater;
+import org.threadly.concurrent.collections.ConcurrentArrayList.MutableView;
+import org.threadly.concurrent.future.ListenableFuture;
 import org.threadly.util.ArgumentVerifier;
 import org.threadly.util.ExceptionHandlerInterface;
 import org.threadly.util.ExceptionUtils;
@@ -26,6 +32,17 @@ import org.threadly.util.ListUtils;
  * {@link #tick(ExceptionHandlerInterface)} will not unblock till there is no more work for the 
  * scheduler to currently handle.</p>
  * 
+ * <p>If constructed to batch ticks, each pass of {@link #tick(ExceptionHandlerInterface)} reads 
+ * the time once, and removes every expired one time task from the scheduled queue in a single 
+ * operation.  Those are then run in order along with the tasks submitted for immediate 
+ * execution.  This avoids checking the clock and copying the scheduled queue for each task, which 
+ * is significant when many scheduled tasks are ready at once.</p>
+ * 
+ * <p>Futures returned from this scheduler know which task container they are queued in.  So 
+ * canceling them, or providing them to {@link #remove(Runnable)}, only marks the container as 
+ * canceled.  Canceled containers are discarded once they reach the head of the queue, or 
+ * removed all at once if enough of them accumulate in the scheduled queue.</p>
+ * 
  * @author jent - Mike Jensen
  * @since 2.0.0
  */
@@ -33,12 +50,16 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
                                implements SchedulerServiceInterface {
   protected static final int QUEUE_FRONT_PADDING = 0;
   protected static final int QUEUE_REAR_PADDING = 2;
+  // minimum canceled scheduled tasks before the scheduled queue will be compacted
+  protected static final int CANCELED_TASK_COMPACTION_THRESHOLD = 64;
   
   protected final boolean tickBlocksTillAvailable;
+  protected final boolean batchTicks;
   protected final Object taskNotifyLock;
   protected final ConcurrentLinkedQueue<OneTimeTask> executeQueue;
   protected final ConcurrentArrayList<TaskContainer> scheduledQueue;
-  private volatile boolean tickCanceled;  
+  protected final AtomicInteger canceledScheduledTaskCount;
+  protected volatile boolean tickCanceled;  
   
   /**
    * Constructs a new {@link NoThreadScheduler} scheduler.
@@ -46,10 +67,26 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
    * @param tickBlocksTillAvailable {@code true} if calls to {@link #tick()} should block till there is something to run
    */
   public NoThreadScheduler(boolean tickBlocksTillAvailable) {
+    this(tickBlocksTillAvailable, false);
+  }
+  
+  /**
+   * Constructs a new {@link NoThreadScheduler} scheduler.  If ticks are batched, each pass of 
+   * {@link #tick(ExceptionHandlerInterface)} drains all the tasks which are ready at a single 
+   * point in time.  Once a one time scheduled task has been drained it is considered started, so 
+   * it can no longer be removed with {@link #remove(Runnable)} or {@link #clearTasks()}.
+   * 
+   * @since 3.7.0
+   * @param tickBlocksTillAvailable {@code true} if calls to {@link #tick()} should block till there is something to run
+   * @param batchTicks {@code true} to drain and run ready tasks in batches
+   */
+  public NoThreadScheduler(boolean tickBlocksTillAvailable, boolean batchTicks) {
     this.tickBlocksTillAvailable = tickBlocksTillAvailable;
+    this.batchTicks = batchTicks;
     taskNotifyLock = new Object();
     executeQueue = new ConcurrentLinkedQueue<OneTimeTask>();
     scheduledQueue = new ConcurrentArrayList<TaskContainer>(QUEUE_FRONT_PADDING, QUEUE_REAR_PADDING);
+    canceledScheduledTaskCount = new AtomicInteger(0);
     tickCanceled = false;
   }
 
@@ -136,39 +173,12 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
   public int tick(ExceptionHandlerInterface exceptionHandler) throws InterruptedException {
     int tasks = 0;
     while (true) {  // will break from loop at bottom
-      TaskContainer nextTask;
-      while ((nextTask = getNextTask(true)) != null && ! tickCanceled) {
-        // call will remove task from queue, or reposition as necessary
-        try {
-          nextTask.runTask();
-        } catch (Throwable t) {
-          if (exceptionHandler != null) {
-            exceptionHandler.handleException(t);
-          } else {
-            throw ExceptionUtils.makeRuntime(t);
-          }
-        }
-
-        tasks++;
-      }
+      tasks += runReadyTasks(exceptionHandler);
       
       if (tickBlocksTillAvailable && tasks == 0) {
-        synchronized (taskNotifyLock) {
-          /* we must check the cancelTick once we have the lock 
-           * since that is when the .notify() would happen.
-           */
-          if (tickCanceled) {
-            break;
-          }
-          nextTask = getNextTask(false);
-          if (nextTask == null) {
-            taskNotifyLock.wait();
-          } else {
-            long nextTaskDelay = nextTask.getDelayInMillis();
-            if (nextTaskDelay > 0) {
-              taskNotifyLock.wait(nextTaskDelay);
-            }
-          }
+        if (! waitForTasks()) {
+          // tick was canceled while waiting
+          break;
         }
       } else {
         /* we are ready to return from call, either because we 
@@ -186,10 +196,300 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
     
     return tasks;
   }
+  
+  /**
+   * Runs all the tasks which are currently ready to run.  This is invoked by 
+   * {@link #tick(ExceptionHandlerInterface)} before it considers blocking.
+   * 
+   * @since 3.7.0
+   * @param exceptionHandler Exception handler to provide task failures to, or {@code null}
+   * @return quantity of tasks run
+   */
+  protected int runReadyTasks(ExceptionHandlerInterface exceptionHandler) {
+    int tasks = 0;
+    if (batchTicks) {
+      int batchTasks;
+      while ((batchTasks = runReadyBatch(exceptionHandler)) > 0) {
+        tasks += batchTasks;
+      }
+    } else {
+      TaskContainer nextTask;
+      while ((nextTask = getNextTask(true)) != null && ! tickCanceled) {
+        // call will remove task from queue, or reposition as necessary
+        if (runTask(nextTask, exceptionHandler)) {
+          tasks++;
+        }
+      }
+    }
+    
+    return tasks;
+  }
+  
+  /**
+   * Runs a single task, providing any failure to the exception handler.
+   * 
+   * @param task Task to be run
+   * @param exceptionHandler Exception handler to provide task failures to, or {@code null}
+   * @return {@code true} if the task was run, {@code false} if it was canceled or removed
+   */
+  private static boolean runTask(TaskContainer task, ExceptionHandlerInterface exceptionHandler) {
+    try {
+      return task.runTask();
+    } catch (Throwable t) {
+      if (exceptionHandler != null) {
+        exceptionHandler.handleException(t);
+      } else {
+        throw ExceptionUtils.makeRuntime(t);
+      }
+      
+      return true;
+    }
+  }
+  
+  /**
+   * Blocks till there may be work to do.  This is invoked by 
+   * {@link #tick(ExceptionHandlerInterface)} when constructed to block, and no tasks were run.  
+   * Implementations must return once the next scheduled task is ready, or once 
+   * {@link #notifyQueueUpdate()} has been invoked.
+   * 
+   * @since 3.7.0
+   * @return {@code false} if the tick has been canceled
+   * @throws InterruptedException thrown if thread is interrupted while waiting
+   */
+  protected boolean waitForTasks() throws InterruptedException {
+    synchronized (taskNotifyLock) {
+      /* we must check the cancelTick once we have the lock 
+       * since that is when the .notify() would happen.
+       */
+      if (tickCanceled) {
+        return false;
+      }
+      TaskContainer nextTask = getNextTask(false);
+      if (nextTask == null) {
+        taskNotifyLock.wait();
+      } else {
+        long nextTaskDelay = nextTask.getDelayInMillis();
+        if (nextTaskDelay > 0) {
+          taskNotifyLock.wait(nextTaskDelay);
+        }
+      }
+    }
+    
+    return true;
+  }
+  
+  /**
+   * Runs a single batch of the tasks which are ready at the time this is invoked.  The time is 
+   * only read once, and all ready one time tasks are removed from the scheduled queue in a single 
+   * copy.  Ready tasks are then run in order of their scheduled time, taking tasks submitted for 
+   * immediate execution from the execute queue as they are reached.
+   * 
+   * @param exceptionHandler Exception handler to provide task failures to, or {@code null}
+   * @return quantity of tasks run from the batch
+   */
+  protected int runReadyBatch(ExceptionHandlerInterface exceptionHandler) {
+    final long now = nowInMillis();
+    List<TaskContainer> readyScheduledTasks = drainReadyScheduledTasks(now);
+    List<RecurringTask> ranRecurringTasks = null;
+    int scheduledIndex = 0;
+    int tasks = 0;
+    try {
+      while (! tickCanceled) {
+        TaskContainer nextTask = null;
+        OneTimeTask nextExecuteTask = executeQueue.peek();
+        if (nextExecuteTask != null && nextExecuteTask.runTime > now) {
+          // submitted after this batch started, will be run in the next batch
+          nextExecuteTask = null;
+        }
+        if (scheduledIndex < readyScheduledTasks.size()) {
+          TaskContainer nextScheduledTask = readyScheduledTasks.get(scheduledIndex);
+          if (nextExecuteTask == null || 
+              nextScheduledTask.getRunTime() < nextExecuteTask.runTime) {
+            nextTask = nextScheduledTask;
+            scheduledIndex++;
+            if (nextTask instanceof RecurringTask) {
+              RecurringTask rt = (RecurringTask)nextTask;
+              if (rt.removed) {
+                // recurring tasks are left in the queue, and this one was removed
+                continue;
+              }
+              // all recurring tasks which ran are repositioned together once the batch is done
+              rt.repositionDeferred = true;
+              if (ranRecurringTasks == null) {
+                ranRecurringTasks = new ArrayList<RecurringTask>();
+              }
+              ranRecurringTasks.add(rt);
+            }
+          }
+        }
+        if (nextTask == null) {
+          if (nextExecuteTask == null) {
+            break;
+          }
+          nextTask = nextExecuteTask;
+        }
+        
+        if (runTask(nextTask, exceptionHandler)) {
+          tasks++;
+        }
+      }
+    } finally {
+      // if canceled or a task threw, return any drained tasks which did not get to run
+      for (int i = scheduledIndex; i < readyScheduledTasks.size(); i++) {
+        TaskContainer tc = readyScheduledTasks.get(i);
+        if (tc instanceof OneTimeTask) {
+          ((OneTimeTask)tc).drained = false;
+          addScheduled(tc);
+        }
+      }
+      if (ranRecurringTasks != null) {
+        repositionRecurringTasks(ranRecurringTasks);
+      }
+    }
+    
+    return tasks;
+  }
+  
+  /**
+   * Updates the next run time of recurring tasks which ran during a batch, and moves them to 
+   * their new position in the scheduled queue.  This is done with a single copy of the queue.  
+   * Since ready recurring tasks are kept at the front of the queue, the search for them stops 
+   * once they have all been found.
+   * 
+   * @param ranTasks Recurring tasks which ran in the batch, in the order they ran
+   */
+  private void repositionRecurringTasks(final List<RecurringTask> ranTasks) {
+    scheduledQueue.batchUpdate(new BatchUpdater<TaskContainer>() {
+      @Override
+      public void update(MutableView<TaskContainer> view) {
+        int remainingCount = 0;
+        for (int i = 0; i < ranTasks.size(); i++) {
+          if (! ranTasks.get(i).removed) {
+            remainingCount++;
+          }
+        }
+        
+        int retainedCount = 0;
+        int i = 0;
+        while (remainingCount > 0 && i < view.size()) {
+          TaskContainer tc = view.get(i++);
+          if (tc instanceof RecurringTask && ((RecurringTask)tc).repositionDeferred) {
+            remainingCount--;
+          } else {
+            view.set(retainedCount++, tc);
+          }
+        }
+        if (retainedCount < i) {
+          view.subList(retainedCount, i).clear();
+        }
+        
+        ClockWrapper.stopForcingUpdate();
+        try {
+          for (int j = 0; j < ranTasks.size(); j++) {
+            RecurringTask rt = ranTasks.get(j);
+            rt.repositionDeferred = false;
+            if (! rt.removed) {
+              rt.updateNextRunTime();
+              long nextDelay = Math.max(0, rt.getDelayInMillis());
+              view.add(ListUtils.getInsertionEndIndex(view, nextDelay, true), rt);
+            }
+          }
+        } finally {
+          ClockWrapper.resumeForcingUpdate();
+        }
+      }
+    });
+  }
+  
+  /**
+   * Finds all scheduled tasks ready to run at the provided time.  One time tasks are removed from 
+   * the scheduled queue, while recurring tasks are left so that they can be repositioned once 
+   * they complete.  All modifications are done with a single copy of the queue.
+   * 
+   * @param now Time to compare the run time of tasks against
+   * @return Ready tasks in the order they should run
+   */
+  private List<TaskContainer> drainReadyScheduledTasks(final long now) {
+    TaskContainer firstTask = scheduledQueue.peekFirst();
+    if (firstTask == null || firstTask.getRunTime() > now) {
+      // avoid copying the queue if nothing is ready
+      return Collections.emptyList();
+    }
+    
+    final List<TaskContainer> result = new ArrayList<TaskContainer>();
+    scheduledQueue.batchUpdate(new BatchUpdater<TaskContainer>() {
+      @Override
+      public void update(MutableView<TaskContainer> view) {
+        int readyCount = 0;
+        int retainedCount = 0;
+        while (readyCount < view.size()) {
+          TaskContainer tc = view.get(readyCount);
+          if (tc.getRunTime() > now) {
+            break;
+          }
+          if (tc instanceof OneTimeTask) {
+            if (tc.canceled) {
+              canceledTaskRemoved();
+            } else {
+              ((OneTimeTask)tc).drained = true;
+              result.add(tc);
+            }
+          } else {
+            result.add(tc);
+            // recurring tasks stay at the front, in the same order
+            view.set(retainedCount++, tc);
+          }
+          readyCount++;
+        }
+        if (retainedCount < readyCount) {
+          view.subList(retainedCount, readyCount).clear();
+        }
+      }
+    });
+    
+    return result;
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submit(Runnable task, T result) {
+    return submitScheduled(task, result, 0);
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submit(Callable<T> task) {
+    return submitScheduled(task, 0);
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Runnable task, T result, long delayInMs) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    ArgumentVerifier.assertNotNegative(delayInMs, "delayInMs");
+    
+    QueuedListenableFutureTask<T> qlft = new QueuedListenableFutureTask<T>(task, result);
+    
+    doSchedule(qlft, delayInMs);
+    
+    return qlft;
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Callable<T> task, long delayInMs) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    ArgumentVerifier.assertNotNegative(delayInMs, "delayInMs");
+    
+    QueuedListenableFutureTask<T> qlft = new QueuedListenableFutureTask<T>(task);
+    
+    doSchedule(qlft, delayInMs);
+    
+    return qlft;
+  }
 
   @Override
   protected void doSchedule(Runnable task, long delayInMillis) {
     OneTimeTask taskWrapper = new OneTimeTask(task, delayInMillis);
+    if (task instanceof QueuedListenableFutureTask) {
+      ((QueuedListenableFutureTask<?>)task).setQueuedTask(this, taskWrapper);
+    }
     if (delayInMillis == 0) {
       addImmediateExecute(taskWrapper);
     } else {
@@ -265,24 +565,143 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
     notifyQueueUpdate();
   }
   
+  /**
+   * Removes a task from the queue.  If a future returned from this scheduler is provided, it will 
+   * be marked as canceled without searching the queues.  Otherwise the queues must be searched, 
+   * but once found one time tasks are only marked as canceled, rather than copying the scheduled 
+   * queue to remove them.
+   * 
+   * @param task Task or future to remove
+   * @return {@code true} if the task was found and removed
+   */
   @Override
   public boolean remove(Runnable task) {
-    if (ContainerHelper.remove(executeQueue, task)) {
-      return true;
+    if (task instanceof QueuedListenableFutureTask && 
+        ((QueuedListenableFutureTask<?>)task).scheduler == this) {
+      return ((QueuedListenableFutureTask<?>)task).removeFromQueue();
+    }
+    Iterator<OneTimeTask> executeIt = executeQueue.iterator();
+    while (executeIt.hasNext()) {
+      OneTimeTask ott = executeIt.next();
+      // canceled tasks are left in the queue till they are reached, they can't be removed again
+      if (! ott.canceled && ContainerHelper.isContained(ott.runnable, task) && 
+          executeQueue.remove(ott)) {
+        return true;
+      }
     }
     synchronized (scheduledQueue.getModificationLock()) {
-      return ContainerHelper.remove(scheduledQueue, task);
+      Iterator<TaskContainer> it = scheduledQueue.iterator();
+      while (it.hasNext()) {
+        TaskContainer tc = it.next();
+        if (! tc.canceled && ContainerHelper.isContained(tc.runnable, task)) {
+          removeScheduled(tc);
+          
+          return true;
+        }
+      }
     }
+    
+    return false;
   }
   
   @Override
   public boolean remove(Callable<?> task) {
-    if (ContainerHelper.remove(executeQueue, task)) {
-      return true;
+    Iterator<OneTimeTask> executeIt = executeQueue.iterator();
+    while (executeIt.hasNext()) {
+      OneTimeTask ott = executeIt.next();
+      // canceled tasks are left in the queue till they are reached, they can't be removed again
+      if (! ott.canceled && ContainerHelper.isContained(ott.runnable, task) && 
+          executeQueue.remove(ott)) {
+        return true;
+      }
     }
     synchronized (scheduledQueue.getModificationLock()) {
-      return ContainerHelper.remove(scheduledQueue, task);
+      Iterator<TaskContainer> it = scheduledQueue.iterator();
+      while (it.hasNext()) {
+        TaskContainer tc = it.next();
+        if (! tc.canceled && ContainerHelper.isContained(tc.runnable, task)) {
+          removeScheduled(tc);
+          
+          return true;
+        }
+      }
     }
+    
+    return false;
+  }
+  
+  /**
+   * Removes a task which was found in the scheduled queue.  The modification lock must be held 
+   * while finding and removing the task.  One time tasks are only marked as canceled, while 
+   * recurring tasks are removed from the queue directly.
+   * 
+   * @param tc Task which was found in the scheduled queue
+   */
+  private void removeScheduled(TaskContainer tc) {
+    if (tc instanceof OneTimeTask) {
+      if (tc.runnable instanceof QueuedListenableFutureTask && 
+          ((QueuedListenableFutureTask<?>)tc.runnable).removeFromQueue()) {
+        // future has marked the task as canceled
+        return;
+      }
+      ((OneTimeTask)tc).cancel();
+    } else {
+      ((RecurringTask)tc).removed = true;
+      scheduledQueue.remove(tc);
+    }
+  }
+  
+  /**
+   * Invoked when a task in the scheduled queue has been marked as canceled, but left in the 
+   * queue.  If enough canceled tasks accumulate, they will all be removed with a single copy of 
+   * the queue.
+   */
+  protected void taskCanceled() {
+    int canceledCount = canceledScheduledTaskCount.incrementAndGet();
+    if (canceledCount >= CANCELED_TASK_COMPACTION_THRESHOLD && 
+        canceledCount >= scheduledQueue.size() / 2) {
+      removeCanceledScheduledTasks();
+    }
+  }
+  
+  /**
+   * Invoked when a canceled task has been removed from the scheduled queue.
+   */
+  private void canceledTaskRemoved() {
+    while (true) {
+      int canceledCount = canceledScheduledTaskCount.get();
+      if (canceledCount <= 0 || 
+          canceledScheduledTaskCount.compareAndSet(canceledCount, canceledCount - 1)) {
+        return;
+      }
+    }
+  }
+  
+  /**
+   * Removes all tasks from the scheduled queue which have been canceled.  This results in only a 
+   * single copy of the queue, no matter how many tasks are removed.
+   */
+  protected void removeCanceledScheduledTasks() {
+    scheduledQueue.batchUpdate(new BatchUpdater<TaskContainer>() {
+      @Override
+      public void update(MutableView<TaskContainer> view) {
+        canceledScheduledTaskCount.set(0);
+        
+        int retainedCount = 0;
+        for (int i = 0; i < view.size(); i++) {
+          TaskContainer tc = view.get(i);
+          if (! tc.canceled) {
+            if (retainedCount != i) {
+              view.set(retainedCount, tc);
+            }
+            retainedCount++;
+          }
+        }
+        if (retainedCount < view.size()) {
+          view.subList(retainedCount, view.size()).clear();
+        }
+      }
+    });
   }
 
   @Override
@@ -345,17 +764,12 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
    * @return {@code true} if there are task waiting to run
    */
   public boolean hasTaskReadyToRun() {
-    while (true) {
-      TaskContainer nextExecuteTask = executeQueue.peek();
-      if (nextExecuteTask != null) {
-        if (nextExecuteTask.running) {
-          // loop and retry, should be removed from queue shortly
-          Thread.yield();
-        } else {
-          return true;
-        }
-      } else {
-        break;
+    Iterator<OneTimeTask> executeIt = executeQueue.iterator();
+    while (executeIt.hasNext()) {
+      TaskContainer nextExecuteTask = executeIt.next();
+      // running tasks should be removed from queue shortly
+      if (! nextExecuteTask.running && ! nextExecuteTask.canceled) {
+        return true;
       }
     }
     
@@ -363,7 +777,7 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
       Iterator<TaskContainer> it = scheduledQueue.iterator();
       while (it.hasNext()) {
         TaskContainer scheduledTask = it.next();
-        if (scheduledTask.running) {
+        if (scheduledTask.running || scheduledTask.canceled) {
           continue;
         } else if (scheduledTask.getDelayInMillis() <= 0) {
           return true;
@@ -397,7 +811,7 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
         /* we must use executeQueue.remove(Object) instead of it.remove() 
          * This is to assure it is atomically removed (without executing)
          */
-        if (! tc.running && executeQueue.remove(tc)) {
+        if (! tc.running && executeQueue.remove(tc) && ! tc.canceled) {
           int index = ListUtils.getInsertionEndIndex(containers, tc, true);
           containers.add(index, tc);
         }
@@ -406,12 +820,16 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
       it = scheduledQueue.iterator();
       while (it.hasNext()) {
         TaskContainer tc = it.next();
-        if (! tc.running) {
+        if (tc instanceof RecurringTask) {
+          ((RecurringTask)tc).removed = true;
+        }
+        if (! tc.running && ! tc.canceled) {
           int index = ListUtils.getInsertionEndIndex(containers, tc, true);
           containers.add(index, tc);
         }
       }
       scheduledQueue.clear();
+      canceledScheduledTaskCount.set(0);
     }
       
     List<Runnable> result = new ArrayList<Runnable>(containers.size());
@@ -433,10 +851,12 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
                                                 implements RunnableContainerInterface {
     protected final Runnable runnable;
     protected volatile boolean running;
+    protected volatile boolean canceled;
     
     protected TaskContainer(Runnable runnable) {
       this.runnable = runnable;
       this.running = false;
+      this.canceled = false;
     }
 
     @Override
@@ -444,10 +864,16 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
       return runnable;
     }
     
-    protected void runTask() {
+    /**
+     * Runs the contained task, if {@link #prepareForRun()} allows it.
+     * 
+     * @return {@code true} if the task was run, {@code false} if it was canceled or removed
+     */
+    protected boolean runTask() {
       running = true;
       if (! prepareForRun()) {
-        return;
+        running = false;
+        return false;
       }
       try {
         runnable.run();
@@ -455,6 +881,8 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
         runComplete();
         running = false;
       }
+      
+      return true;
     }
     
     /**
@@ -483,6 +911,13 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
      */
     protected abstract long getDelayInMillis();
     
+    /**
+     * Call to get the absolute time in milliseconds the task should next run at.
+     * 
+     * @return time the task is scheduled to run at
+     */
+    protected abstract long getRunTime();
+    
     @Override
     public long getDelay(TimeUnit timeUnit) {
       return timeUnit.convert(getDelayInMillis(), 
@@ -499,31 +934,62 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
   protected class OneTimeTask extends TaskContainer {
     protected final long delay;
     protected final long runTime;
+    protected boolean drained;  // only accessed by tick thread
     
     public OneTimeTask(Runnable runnable, long delay) {
       super(runnable);
       
       this.delay = delay;
       this.runTime = nowInMillis() + delay;
+      this.drained = false;
+    }
+    
+    /**
+     * Marks the task as canceled.  It will be left in the queue, and discarded once it is reached.
+     */
+    protected void cancel() {
+      canceled = true;
+      if (runnable instanceof Future<?>) {
+        ((Future<?>)runnable).cancel(false);
+      }
+      
+      if (delay != 0) {
+        taskCanceled();
+      }
     }
     
     @Override
     protected boolean prepareForRun() {
       boolean allowRun;
       // can be removed since this is a one time task
-      if (delay == 0) {
+      if (drained) {
+        // already removed from the scheduled queue as part of a batch
+        allowRun = true;
+        if (canceled) {
+          // canceled after being drained, so will not be found in the queue
+          canceledTaskRemoved();
+        }
+      } else if (delay == 0) {
         allowRun = executeQueue.remove(this);
       } else {
         allowRun = scheduledQueue.removeFirstOccurrence(this);
+        if (allowRun && canceled) {
+          canceledTaskRemoved();
+        }
       }
       
-      return allowRun;
+      return allowRun && ! canceled;
     }
 
     @Override
     public long getDelayInMillis() {
       return runTime - nowInMillis();
     }
+    
+    @Override
+    protected long getRunTime() {
+      return runTime;
+    }
   }
   
   /**
@@ -535,23 +1001,39 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
   protected abstract class RecurringTask extends TaskContainer {
     protected final long initialDelay;
     protected long nextRunTime;
+    protected long lastRunCompleteTime;
+    protected volatile boolean removed;  // set while holding the scheduled queue lock
+    protected boolean repositionDeferred;  // only accessed by tick thread
     
     public RecurringTask(Runnable runnable, long initialDelay) {
       super(runnable);
       
       this.initialDelay = initialDelay;
       nextRunTime = nowInMillis() + initialDelay;
+      lastRunCompleteTime = -1;
+      removed = false;
+      repositionDeferred = false;
     }
 
     /**
      * Called when the implementing class should update the variable {@code nextRunTime} to be the 
-     * next absolute time in milliseconds the task should run.
+     * next absolute time in milliseconds the task should run.  When invoked, 
+     * {@code lastRunCompleteTime} will hold the time the last run finished.
      */
     protected abstract void updateNextRunTime();
     
     @Override
     public void runComplete() {
+      lastRunCompleteTime = nowInMillis();
+      if (repositionDeferred) {
+        // the batch this ran in will reposition it once the batch completes
+        return;
+      }
       synchronized (scheduledQueue.getModificationLock()) {
+        if (removed) {
+          // task was removed from queue, do not re-insert
+          return;
+        }
         ClockWrapper.stopForcingUpdate();
         try {
           updateNextRunTime();
@@ -579,6 +1061,11 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
     public long getDelayInMillis() {
       return nextRunTime - nowInMillis();
     }
+    
+    @Override
+    protected long getRunTime() {
+      return nextRunTime;
+    }
   }
   
   /**
@@ -598,7 +1085,7 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
 
     @Override
     protected void updateNextRunTime() {
-      nextRunTime = nowInMillis() + recurringDelay;
+      nextRunTime = lastRunCompleteTime + recurringDelay;
     }
   }
   
@@ -622,4 +1109,43 @@ public class NoThreadScheduler extends AbstractSubmitterScheduler
       nextRunTime += period;
     }
   }
+  
+  /**
+   * <p>Future returned from submit calls to the {@link NoThreadScheduler}.  It holds a reference 
+   * to the {@link OneTimeTask} which is queued for it, so that when canceled the task can be 
+   * marked as canceled in O(1).</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> The result object type returned by this future
+   */
+  protected static class QueuedListenableFutureTask<T> 
+      extends AbstractQueuedListenableFutureTask<T, OneTimeTask> {
+    protected volatile NoThreadScheduler scheduler;
+    
+    protected QueuedListenableFutureTask(Runnable task, T result) {
+      super(task, result);
+    }
+    
+    protected QueuedListenableFutureTask(Callable<T> task) {
+      super(task);
+    }
+    
+    /**
+     * Sets the task which will be queued for this future.  This must be invoked before the task 
+     * is added to the queue.
+     * 
+     * @param scheduler Scheduler the task is being added to
+     * @param queuedTask Task container which will execute this future
+     */
+    protected void setQueuedTask(NoThreadScheduler scheduler, OneTimeTask queuedTask) {
+      this.scheduler = scheduler;
+      setQueuedContainer(queuedTask);
+    }
+    
+    @Override
+    protected void queuedContainerRemoved(OneTimeTask queuedTask) {
+      queuedTask.cancel();
+    }
+  }
 }
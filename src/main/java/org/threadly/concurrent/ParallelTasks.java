@@ -0,0 +1,332 @@
+package org.threadly.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.threadly.concurrent.future.SettableListenableFuture;
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>Class which provides fork/join style parallel execution on top of a 
+ * {@link PrioritySchedulerInterface}.  Normally if a task running on a pool needs to wait for 
+ * subtasks it must block on {@link java.util.concurrent.Future#get()}, which wastes a thread, 
+ * and can deadlock a fixed size pool if all threads end up waiting on subtasks which are still 
+ * queued.</p>
+ * 
+ * <p>Instead this class forks subtasks into the scheduler at the provided {@link TaskPriority}, 
+ * and while the calling thread waits it will execute any of its own subtasks which have not yet 
+ * been started by the pool.  A subtask is only ever run once, either by a pool thread or by the 
+ * waiting thread, whichever claims it first (a queued copy which lost the race does nothing when 
+ * it is dequeued).  Because the calling thread will only block on subtasks which are actively 
+ * being run by another thread, recursive use of these functions from within the same pool can not 
+ * deadlock.  This allows a single pool to be used for both request handling and CPU heavy 
+ * batch computations.</p>
+ * 
+ * <p>If any subtask fails, subtasks which have not started yet will be skipped, and the failure 
+ * will be thrown as the cause of an {@link ExecutionException}.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class ParallelTasks {
+  protected final PrioritySchedulerInterface scheduler;
+  protected final TaskPriority priority;
+  
+  /**
+   * Constructs a new {@link ParallelTasks} which will fork subtasks into the provided scheduler at 
+   * the scheduler's default priority.
+   * 
+   * @param scheduler Scheduler to execute subtasks on
+   */
+  public ParallelTasks(PrioritySchedulerInterface scheduler) {
+    this(scheduler, null);
+  }
+  
+  /**
+   * Constructs a new {@link ParallelTasks} which will fork subtasks into the provided scheduler at 
+   * the provided priority.
+   * 
+   * @param scheduler Scheduler to execute subtasks on
+   * @param priority Priority to submit subtasks with, {@code null} to use the default priority
+   */
+  public ParallelTasks(PrioritySchedulerInterface scheduler, TaskPriority priority) {
+    ArgumentVerifier.assertNotNull(scheduler, "scheduler");
+    if (priority == null) {
+      priority = scheduler.getDefaultPriority();
+    }
+    
+    this.scheduler = scheduler;
+    this.priority = priority;
+  }
+  
+  /**
+   * Returns the priority subtasks will be submitted into the scheduler with.
+   * 
+   * @return Priority subtasks are executed with
+   */
+  public TaskPriority getPriority() {
+    return priority;
+  }
+  
+  /**
+   * Executes all the provided tasks in parallel, returning once all have completed.  While 
+   * waiting the calling thread will help execute tasks which have not been started yet.
+   * 
+   * @param <T> Type of result returned from the tasks
+   * @param tasks Tasks to execute
+   * @return List of results, in the same order as the provided tasks
+   * @throws InterruptedException Thrown if the calling thread is interrupted while waiting
+   * @throws ExecutionException Thrown if any task fails, with the failure as the cause
+   */
+  public <T> List<T> invokeAll(Collection<? extends Callable<? extends T>> tasks)
+      throws InterruptedException, ExecutionException {
+    ArgumentVerifier.assertNotNull(tasks, "tasks");
+    
+    List<ForkedTask<T>> forkedTasks = new ArrayList<ForkedTask<T>>(tasks.size());
+    Iterator<? extends Callable<? extends T>> it = tasks.iterator();
+    while (it.hasNext()) {
+      forkedTasks.add(new ForkedTask<T>(it.next()));
+    }
+    
+    return forkAndJoin(forkedTasks);
+  }
+  
+  /**
+   * Runs the provided body over a range of indexes in parallel.  The range is split into chunks 
+   * of the provided size, and each chunk is provided to the body as its own subtask.  This call 
+   * returns once every chunk has been processed.
+   * 
+   * @param startInclusive First index to be processed
+   * @param endExclusive Index after the last index to be processed
+   * @param chunkSize Maximum quantity of indexes to provide to a single body invocation
+   * @param body Body to invoke for each chunk
+   * @throws InterruptedException Thrown if the calling thread is interrupted while waiting
+   * @throws ExecutionException Thrown if any chunk fails, with the failure as the cause
+   */
+  public void parallelFor(int startInclusive, int endExclusive, int chunkSize, 
+                          final RangeTask body) throws InterruptedException, ExecutionException {
+    ArgumentVerifier.assertNotNull(body, "body");
+    
+    forkAndJoin(makeRangeTasks(startInclusive, endExclusive, chunkSize, new RangeFunction<Void>() {
+      @Override
+      public Void apply(int chunkStartInclusive, int chunkEndExclusive) {
+        body.run(chunkStartInclusive, chunkEndExclusive);
+        
+        return null;
+      }
+    }));
+  }
+  
+  /**
+   * Computes a result over a range of indexes in parallel.  The range is split into chunks of the 
+   * provided size, each chunk is provided to the function as its own subtask, and the chunk 
+   * results are then combined by the reducer in index order on the calling thread.
+   * 
+   * @param <T> Type of result produced by the function and reducer
+   * @param startInclusive First index to be processed
+   * @param endExclusive Index after the last index to be processed
+   * @param chunkSize Maximum quantity of indexes to provide to a single function invocation
+   * @param function Function to compute a result for a chunk
+   * @param reducer Reducer to combine two chunk results
+   * @return Reduced result, or {@code null} if the range is empty
+   * @throws InterruptedException Thrown if the calling thread is interrupted while waiting
+   * @throws ExecutionException Thrown if any chunk fails, with the failure as the cause
+   */
+  public <T> T parallelReduce(int startInclusive, int endExclusive, int chunkSize, 
+                              RangeFunction<? extends T> function, 
+                              Reducer<T> reducer) throws InterruptedException, 
+                                                         ExecutionException {
+    ArgumentVerifier.assertNotNull(function, "function");
+    ArgumentVerifier.assertNotNull(reducer, "reducer");
+    
+    List<T> results = forkAndJoin(makeRangeTasks(startInclusive, endExclusive, 
+                                                 chunkSize, function));
+    Iterator<T> it = results.iterator();
+    if (! it.hasNext()) {
+      return null;
+    }
+    T result = it.next();
+    while (it.hasNext()) {
+      result = reducer.reduce(result, it.next());
+    }
+    
+    return result;
+  }
+  
+  private static <T> List<ForkedTask<T>> makeRangeTasks(int startInclusive, int endExclusive, 
+                                                       int chunkSize, 
+                                                       final RangeFunction<? extends T> function) {
+    ArgumentVerifier.assertGreaterThanZero(chunkSize, "chunkSize");
+    if (endExclusive < startInclusive) {
+      throw new IllegalArgumentException("endExclusive can not be less than startInclusive");
+    }
+    
+    int chunkCount = (int)(((long)endExclusive - startInclusive + chunkSize - 1) / chunkSize);
+    List<ForkedTask<T>> result = new ArrayList<ForkedTask<T>>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      final int chunkStart = startInclusive + (i * chunkSize);
+      final int chunkEnd = (int)Math.min(endExclusive, (long)chunkStart + chunkSize);
+      result.add(new ForkedTask<T>(new Callable<T>() {
+        @Override
+        public T call() {
+          return function.apply(chunkStart, chunkEnd);
+        }
+      }));
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Submits all but the first task to the scheduler, and then helps execute tasks on the calling 
+   * thread until all have been claimed.  Once there is nothing left to help with, it waits for 
+   * the tasks which were claimed by pool threads to complete.  If the scheduler rejects a task, 
+   * any tasks which were already submitted but have not started will not be run, and the 
+   * rejection is thrown to the caller.
+   * 
+   * @param <T> Type of result returned from the tasks
+   * @param tasks Tasks to be forked
+   * @return List of results, in the same order as the provided tasks
+   * @throws InterruptedException Thrown if the calling thread is interrupted while waiting
+   * @throws ExecutionException Thrown if any task fails, with the failure as the cause
+   */
+  protected <T> List<T> forkAndJoin(List<ForkedTask<T>> tasks) throws InterruptedException, 
+                                                                      ExecutionException {
+    try {
+      // the first task will be run on this thread, so there is no reason to submit it
+      for (int i = 1; i < tasks.size(); i++) {
+        scheduler.execute(tasks.get(i), priority);
+      }
+      
+      /* pool threads consume from the head of the queue, so we help from the tail (after running
+       * the first task) to reduce contention on claiming
+       */
+      if (! tasks.isEmpty()) {
+        ForkedTask<T> task = tasks.get(0);
+        task.run();
+        if (task.failed) {
+          task.future.get();  // will throw failure
+        }
+      }
+      for (int i = tasks.size() - 1; i > 0; i--) {
+        ForkedTask<T> task = tasks.get(i);
+        task.run();
+        if (task.failed) {
+          task.future.get();  // will throw failure
+        }
+      }
+      
+      List<T> result = new ArrayList<T>(tasks.size());
+      Iterator<ForkedTask<T>> it = tasks.iterator();
+      while (it.hasNext()) {
+        result.add(it.next().future.get());
+      }
+      
+      return result;
+    } finally {
+      // if we failed or were rejected, prevent any tasks which have not started from running
+      Iterator<ForkedTask<T>> it = tasks.iterator();
+      while (it.hasNext()) {
+        it.next().claimed.set(true);
+      }
+    }
+  }
+  
+  /**
+   * <p>Interface for a body to be run against a range of indexes by 
+   * {@link ParallelTasks#parallelFor(int, int, int, RangeTask)}.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public interface RangeTask {
+    /**
+     * Process the provided range of indexes.
+     * 
+     * @param startInclusive First index to process
+     * @param endExclusive Index after the last index to process
+     */
+    public void run(int startInclusive, int endExclusive);
+  }
+  
+  /**
+   * <p>Interface for a function to compute a result against a range of indexes by 
+   * {@link ParallelTasks#parallelReduce(int, int, int, RangeFunction, Reducer)}.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> Type of result produced
+   */
+  public interface RangeFunction<T> {
+    /**
+     * Compute a result for the provided range of indexes.
+     * 
+     * @param startInclusive First index to process
+     * @param endExclusive Index after the last index to process
+     * @return Result for the provided range
+     */
+    public T apply(int startInclusive, int endExclusive);
+  }
+  
+  /**
+   * <p>Interface for combining two results by 
+   * {@link ParallelTasks#parallelReduce(int, int, int, RangeFunction, Reducer)}.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> Type of result to be combined
+   */
+  public interface Reducer<T> {
+    /**
+     * Combine two results.  The first argument is the result for the lower range of indexes.
+     * 
+     * @param first Result from the lower range of indexes
+     * @param second Result from the higher range of indexes
+     * @return Combined result
+     */
+    public T reduce(T first, T second);
+  }
+  
+  /**
+   * <p>Subtask which may be run either from the scheduler or by the thread waiting for it.  
+   * Whichever thread claims the task first will run it, all other invocations do nothing.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> Type of result returned from the task
+   */
+  protected static class ForkedTask<T> implements Runnable {
+    protected final Callable<? extends T> callable;
+    protected final AtomicBoolean claimed;
+    protected final SettableListenableFuture<T> future;
+    protected volatile boolean failed;
+    
+    protected ForkedTask(Callable<? extends T> callable) {
+      ArgumentVerifier.assertNotNull(callable, "callable");
+      
+      this.callable = callable;
+      this.claimed = new AtomicBoolean(false);
+      this.future = new SettableListenableFuture<T>();
+      this.failed = false;
+    }
+    
+    @Override
+    public void run() {
+      if (claimed.get() || ! claimed.compareAndSet(false, true)) {
+        return;
+      }
+      
+      try {
+        future.setResult(callable.call());
+      } catch (Throwable t) {
+        failed = true;
+        future.setFailure(t);
+      }
+    }
+  }
+}
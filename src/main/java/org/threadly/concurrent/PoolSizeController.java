@@ -0,0 +1,412 @@
+package org.threadly.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.threadly.concurrent.statistics.SchedulerMetrics;
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Service which adjusts the size of a {@link PriorityScheduler} based on how it is being used.  
+ * Once started, the pool is sampled periodically on a separate scheduler.  Each sample checks 
+ * the queue delay (see {@link PriorityScheduler#getQueueDelay()}) and how many workers are busy 
+ * (from {@link PriorityScheduler#getCurrentRunningCount()}), and then sets the pool size to keep 
+ * it between the provided minimum and maximum sizes.  The size is applied as both the core and 
+ * max pool size, so once the controller changes the size any difference between the two is 
+ * removed.</p>
+ * 
+ * <p>Sizing uses a simple hill climbing approach.  If tasks are waiting longer than the target 
+ * queue delay while all workers are busy, the pool grows.  While consecutive samples keep 
+ * growing the pool, the step size doubles, so a large backlog is caught up to quickly.  If the 
+ * scheduler tracks completed tasks (for example a {@link PrioritySchedulerStatisticTracker}), the 
+ * throughput is also checked after growing.  If the last increase did not improve throughput 
+ * the pool will not grow for the next several samples, since the extra threads are likely just 
+ * contending for some other resource.  If workers sit idle, with no tasks waiting, for several 
+ * samples in a row, the pool shrinks by one thread at a time.</p>
+ * 
+ * <p>Every sample produces a {@link Decision}, which records the measurements and the 
+ * {@link Reason} for the decision.  The last decision, and recent decisions which changed the 
+ * pool size, can be queried so that it is clear why the pool is the size it is.</p>
+ * 
+ * <p>The sampling scheduler should NOT be the pool being sized (otherwise sampling may be unable 
+ * to run when it is needed most).  Once the pool has shutdown, sampling will remove itself from 
+ * the sampling scheduler.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class PoolSizeController extends AbstractService {
+  protected static final int IDLE_SAMPLES_BEFORE_SHRINK = 3;
+  protected static final int GROWTH_BACKOFF_SAMPLES = 4;
+  protected static final int MAX_RECENT_DECISIONS = 64;
+  
+  protected final PriorityScheduler scheduler;
+  protected final SchedulerServiceInterface samplingScheduler;
+  protected final int minPoolSize;
+  protected final int maxPoolSize;
+  protected final long sampleIntervalInMs;
+  protected final long targetQueueDelayInMs;
+  protected final SampleRunnable sampleRunnable;
+  protected final AtomicLong growCount;
+  protected final AtomicLong shrinkCount;
+  protected final Deque<Decision> recentDecisions; // locked around itself
+  protected volatile Decision lastDecision;
+  // below are only accessed from sampling, which the scheduler provides a happens before between
+  private int growStep;
+  private int idleSamples;
+  private int growthBackoffSamples;
+  private long lastCompletedCount;
+  private long lastSampleNanos;
+  private double lastThroughput;
+  private boolean lastDecisionGrew;
+  
+  /**
+   * Constructs a new {@link PoolSizeController}.  Sampling will not begin till {@link #start()} 
+   * is invoked.
+   * 
+   * @param scheduler Pool to adjust the size of
+   * @param samplingScheduler Scheduler to run the periodic samples on
+   * @param minPoolSize Smallest size the pool can be reduced to
+   * @param maxPoolSize Largest size the pool can be increased to
+   * @param sampleIntervalInMs Time in milliseconds between samples
+   * @param targetQueueDelayInMs Time in milliseconds tasks can wait before the pool should grow
+   */
+  public PoolSizeController(PriorityScheduler scheduler, 
+                            SchedulerServiceInterface samplingScheduler, 
+                            int minPoolSize, int maxPoolSize, 
+                            long sampleIntervalInMs, long targetQueueDelayInMs) {
+    ArgumentVerifier.assertNotNull(scheduler, "scheduler");
+    ArgumentVerifier.assertNotNull(samplingScheduler, "samplingScheduler");
+    ArgumentVerifier.assertGreaterThanZero(minPoolSize, "minPoolSize");
+    if (maxPoolSize < minPoolSize) {
+      throw new IllegalArgumentException("maxPoolSize must be >= minPoolSize");
+    }
+    ArgumentVerifier.assertGreaterThanZero(sampleIntervalInMs, "sampleIntervalInMs");
+    ArgumentVerifier.assertNotNegative(targetQueueDelayInMs, "targetQueueDelayInMs");
+    
+    this.scheduler = scheduler;
+    this.samplingScheduler = samplingScheduler;
+    this.minPoolSize = minPoolSize;
+    this.maxPoolSize = maxPoolSize;
+    this.sampleIntervalInMs = sampleIntervalInMs;
+    this.targetQueueDelayInMs = targetQueueDelayInMs;
+    sampleRunnable = new SampleRunnable();
+    growCount = new AtomicLong(0);
+    shrinkCount = new AtomicLong(0);
+    recentDecisions = new ArrayDeque<Decision>(MAX_RECENT_DECISIONS);
+    lastDecision = null;
+    growStep = 1;
+    idleSamples = 0;
+    growthBackoffSamples = 0;
+    lastCompletedCount = -1;
+    lastSampleNanos = -1;
+    lastThroughput = -1;
+    lastDecisionGrew = false;
+  }
+  
+  @Override
+  protected void startupService() {
+    samplingScheduler.scheduleWithFixedDelay(sampleRunnable, 
+                                             sampleIntervalInMs, sampleIntervalInMs);
+  }
+  
+  @Override
+  protected void shutdownService() {
+    samplingScheduler.remove(sampleRunnable);
+  }
+  
+  /**
+   * Returns the decision from the most recent sample.
+   * 
+   * @return Most recent decision, or {@code null} if no samples have been taken
+   */
+  public Decision getLastDecision() {
+    return lastDecision;
+  }
+  
+  /**
+   * Returns recent decisions which changed the size of the pool, oldest first.  Only the most 
+   * recent 64 changes are retained.
+   * 
+   * @return List of recent decisions which grew or shrank the pool
+   */
+  public List<Decision> getRecentPoolSizeChanges() {
+    synchronized (recentDecisions) {
+      return new ArrayList<Decision>(recentDecisions);
+    }
+  }
+  
+  /**
+   * Returns how many samples have resulted in the pool growing.
+   * 
+   * @return Quantity of times the pool size was increased
+   */
+  public long getGrowCount() {
+    return growCount.get();
+  }
+  
+  /**
+   * Returns how many samples have resulted in the pool shrinking.
+   * 
+   * @return Quantity of times the pool size was reduced
+   */
+  public long getShrinkCount() {
+    return shrinkCount.get();
+  }
+  
+  /**
+   * Samples the pool, and adjusts its size if needed.  This is normally invoked periodically 
+   * once the controller has been started, and should not be invoked concurrently.
+   * 
+   * @return Decision which was made from this sample
+   */
+  protected Decision sample() {
+    long now = Clock.accurateForwardProgressingMillis();
+    int poolSize = scheduler.workerPool.corePoolSize;
+    int runningCount = scheduler.getCurrentRunningCount();
+    long queueDelay = scheduler.getQueueDelay();
+    double busyRatio = (double)runningCount / poolSize;
+    double throughput = -1;
+    if (scheduler instanceof SchedulerMetrics) {
+      long nowNanos = Clock.systemNanoTime();
+      long completedCount = ((SchedulerMetrics)scheduler).getCompletedTaskCount();
+      if (lastCompletedCount >= 0 && nowNanos > lastSampleNanos) {
+        throughput = (completedCount - lastCompletedCount) * 
+                       (Clock.NANOS_IN_MILLISECOND * 1000d) / (nowNanos - lastSampleNanos);
+      }
+      lastCompletedCount = completedCount;
+      lastSampleNanos = nowNanos;
+    }
+    
+    Reason reason;
+    int newPoolSize = poolSize;
+    if (queueDelay > targetQueueDelayInMs && runningCount >= poolSize) {
+      idleSamples = 0;
+      if (poolSize >= maxPoolSize) {
+        reason = Reason.AtMaxPoolSize;
+      } else if (growthBackoffSamples > 0) {
+        growthBackoffSamples--;
+        reason = Reason.NoThroughputImprovement;
+      } else if (lastDecisionGrew && throughput >= 0 && lastThroughput >= 0 && 
+                 throughput <= lastThroughput) {
+        growthBackoffSamples = GROWTH_BACKOFF_SAMPLES;
+        reason = Reason.NoThroughputImprovement;
+      } else {
+        if (lastDecisionGrew) {
+          growStep *= 2;
+        } else {
+          growStep = 1;
+        }
+        newPoolSize = Math.min(maxPoolSize, poolSize + growStep);
+        reason = Reason.QueueDelayOverTarget;
+      }
+    } else if (queueDelay == 0 && runningCount < poolSize) {
+      if (poolSize <= minPoolSize) {
+        idleSamples = 0;
+        reason = Reason.AtMinPoolSize;
+      } else if (++idleSamples >= IDLE_SAMPLES_BEFORE_SHRINK) {
+        idleSamples = 0;
+        newPoolSize = poolSize - 1;
+        reason = Reason.WorkersIdle;
+      } else {
+        reason = Reason.WithinTarget;
+      }
+    } else {
+      idleSamples = 0;
+      reason = Reason.WithinTarget;
+    }
+    
+    if (newPoolSize > poolSize) {
+      scheduler.workerPool.setFixedPoolSize(newPoolSize);
+      growCount.incrementAndGet();
+    } else if (newPoolSize < poolSize) {
+      scheduler.workerPool.setFixedPoolSize(newPoolSize);
+      shrinkCount.incrementAndGet();
+    }
+    lastDecisionGrew = newPoolSize > poolSize;
+    lastThroughput = throughput;
+    
+    Decision result = new Decision(now, poolSize, newPoolSize, runningCount, 
+                                   busyRatio, queueDelay, throughput, reason);
+    lastDecision = result;
+    if (newPoolSize != poolSize) {
+      synchronized (recentDecisions) {
+        if (recentDecisions.size() >= MAX_RECENT_DECISIONS) {
+          recentDecisions.removeFirst();
+        }
+        recentDecisions.addLast(result);
+      }
+    }
+    
+    return result;
+  }
+  
+  /**
+   * <p>Reason for a sizing {@link Decision}.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public enum Reason {
+    /**
+     * Tasks waited longer than the target delay while all workers were busy, so the pool grew.
+     */
+    QueueDelayOverTarget, 
+    /**
+     * Tasks waited longer than the target delay, but the pool is already at its maximum size.
+     */
+    AtMaxPoolSize, 
+    /**
+     * Tasks waited longer than the target delay, but a recent increase in size did not improve 
+     * the throughput, so the pool was not grown.
+     */
+    NoThroughputImprovement, 
+    /**
+     * Workers were idle with no tasks waiting for several samples, so the pool shrank.
+     */
+    WorkersIdle, 
+    /**
+     * Workers are idle, but the pool is already at its minimum size.
+     */
+    AtMinPoolSize, 
+    /**
+     * The pool is sized appropriately for the current load.
+     */
+    WithinTarget;
+  }
+  
+  /**
+   * <p>Record of a single sample, and what was decided from it.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public static class Decision {
+    protected final long sampleTime;
+    protected final int previousPoolSize;
+    protected final int newPoolSize;
+    protected final int runningCount;
+    protected final double busyRatio;
+    protected final long queueDelay;
+    protected final double throughput;
+    protected final Reason reason;
+    
+    protected Decision(long sampleTime, int previousPoolSize, int newPoolSize, 
+                       int runningCount, double busyRatio, long queueDelay, 
+                       double throughput, Reason reason) {
+      this.sampleTime = sampleTime;
+      this.previousPoolSize = previousPoolSize;
+      this.newPoolSize = newPoolSize;
+      this.runningCount = runningCount;
+      this.busyRatio = busyRatio;
+      this.queueDelay = queueDelay;
+      this.throughput = throughput;
+      this.reason = reason;
+    }
+    
+    /**
+     * Returns when the sample was taken, in the time reference of 
+     * {@link Clock#accurateForwardProgressingMillis()}.
+     * 
+     * @return Time of the sample in milliseconds
+     */
+    public long getSampleTime() {
+      return sampleTime;
+    }
+    
+    /**
+     * Returns the pool size at the time of the sample.
+     * 
+     * @return Pool size before this decision
+     */
+    public int getPreviousPoolSize() {
+      return previousPoolSize;
+    }
+    
+    /**
+     * Returns the pool size after this decision.  This will match 
+     * {@link #getPreviousPoolSize()} if the size was not changed.
+     * 
+     * @return Pool size after this decision
+     */
+    public int getNewPoolSize() {
+      return newPoolSize;
+    }
+    
+    /**
+     * Returns how many workers were running tasks at the time of the sample.
+     * 
+     * @return Quantity of busy workers
+     */
+    public int getRunningCount() {
+      return runningCount;
+    }
+    
+    /**
+     * Returns the ratio of busy workers to the pool size at the time of the sample.
+     * 
+     * @return Busy ratio, where {@code 1} means all workers were busy
+     */
+    public double getBusyRatio() {
+      return busyRatio;
+    }
+    
+    /**
+     * Returns how long the oldest ready task had waited at the time of the sample.
+     * 
+     * @return Queue delay in milliseconds
+     */
+    public long getQueueDelay() {
+      return queueDelay;
+    }
+    
+    /**
+     * Returns the measured throughput since the previous sample.  This is only available if the 
+     * scheduler implements {@link SchedulerMetrics}.
+     * 
+     * @return Completed tasks per second, or {@code -1} if not available
+     */
+    public double getThroughput() {
+      return throughput;
+    }
+    
+    /**
+     * Returns the reason for this decision.
+     * 
+     * @return Reason the pool size was, or was not, changed
+     */
+    public Reason getReason() {
+      return reason;
+    }
+    
+    @Override
+    public String toString() {
+      return reason + ": poolSize=" + previousPoolSize + "->" + newPoolSize + 
+               ", running=" + runningCount + ", queueDelay=" + queueDelay + "ms" + 
+               (throughput < 0 ? "" : ", throughput=" + throughput + "/s");
+    }
+  }
+  
+  /**
+   * <p>Recurring task which samples the pool.  Once the pool has shutdown this will remove itself 
+   * from the sampling scheduler.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class SampleRunnable implements Runnable {
+    @Override
+    public void run() {
+      if (scheduler.isShutdown()) {
+        stopIfRunning();
+        return;
+      }
+      
+      sample();
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package org.threadly.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Scheduler which allows any number of priority classes to share a single pool.  Unlike 
+ * {@link TaskPriority} which only offers {@code High} and {@code Low}, this is constructed with 
+ * as many {@link PriorityClass} definitions as are needed (for example interactive, rpc, batch, 
+ * background and housekeeping).  A scheduler for each class can be obtained from 
+ * {@link #getSubmitterSchedulerForPriority(int)}.</p>
+ * 
+ * <p>This operates similar to {@link org.threadly.concurrent.limiter.SimpleSchedulerLimiter}.  
+ * At most {@code maxConcurrency} tasks will be provided to the backing scheduler at once, and 
+ * any additional tasks are queued per class.  Generally {@code maxConcurrency} should match the 
+ * size of the backing pool.  Once a slot opens the next task is chosen from the class queues in 
+ * proportion to their weights (using a smooth weighted round robin), so a class with a weight of 
+ * {@code 4} will get four times as many executions as a class with a weight of {@code 1} while 
+ * both have tasks waiting.  Classes with no waiting tasks do not accumulate any credit.</p>
+ * 
+ * <p>Each class can also provide a maximum wait time.  If the oldest task in a class has waited 
+ * longer than that, it will be chosen next regardless of weight.  If multiple classes are past 
+ * their maximum wait, the class which is the furthest past its maximum is chosen first.  This 
+ * bounds how long a low weight class can be starved while higher weight classes stay busy.</p>
+ * 
+ * <p>Tasks are run in the order they were queued within a class.  Scheduled tasks are delayed on 
+ * the backing scheduler, and then queued with their class once their delay has passed.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class PriorityClassScheduler 
+    extends AbstractSlotLimitedScheduler<PriorityClassScheduler.ClassQueue> {
+  protected final ClassQueue[] classQueues;  // queues are locked around queueLock
+  protected final SubmitterSchedulerInterface[] classSchedulers;
+  
+  /**
+   * Constructs a new {@link PriorityClassScheduler}.  The index of each {@link PriorityClass} is 
+   * used to get the scheduler for that class from 
+   * {@link #getSubmitterSchedulerForPriority(int)}.
+   * 
+   * @param scheduler Scheduler to run tasks on, and to delay scheduled tasks on
+   * @param maxConcurrency Maximum quantity of tasks to run in parallel, generally the pool size
+   * @param priorityClasses Definitions for each priority class, at least one must be provided
+   */
+  public PriorityClassScheduler(SimpleSchedulerInterface scheduler, int maxConcurrency, 
+                                PriorityClass ... priorityClasses) {
+    super(scheduler, maxConcurrency);
+    if (priorityClasses == null || priorityClasses.length == 0) {
+      throw new IllegalArgumentException("Must provide at least one priority class");
+    }
+    
+    classQueues = new ClassQueue[priorityClasses.length];
+    classSchedulers = new SubmitterSchedulerInterface[priorityClasses.length];
+    for (int i = 0; i < priorityClasses.length; i++) {
+      ArgumentVerifier.assertNotNull(priorityClasses[i], "priorityClasses[" + i + "]");
+      
+      classQueues[i] = new ClassQueue(priorityClasses[i]);
+      classSchedulers[i] = new QueueScheduler(classQueues[i]);
+    }
+  }
+  
+  /**
+   * Returns the quantity of priority classes this scheduler was constructed with.
+   * 
+   * @return Quantity of priority classes
+   */
+  public int getPriorityClassCount() {
+    return classQueues.length;
+  }
+  
+  /**
+   * Returns the definition of the priority class at the provided index.
+   * 
+   * @param priorityIndex Index of the priority class as provided at construction
+   * @return Definition for the priority class
+   */
+  public PriorityClass getPriorityClass(int priorityIndex) {
+    return getClassQueue(priorityIndex).priorityClass;
+  }
+  
+  /**
+   * Returns a scheduler where all tasks submitted will be run as the provided priority class.
+   * 
+   * @param priorityIndex Index of the priority class as provided at construction
+   * @return Scheduler which runs tasks as the priority class
+   */
+  public SubmitterSchedulerInterface getSubmitterSchedulerForPriority(int priorityIndex) {
+    getClassQueue(priorityIndex); // verify index
+    
+    return classSchedulers[priorityIndex];
+  }
+  
+  /**
+   * Returns how many tasks are waiting for a slot to run in the provided priority class.  This 
+   * does not include tasks which are still waiting for their scheduled delay.
+   * 
+   * @param priorityIndex Index of the priority class as provided at construction
+   * @return Quantity of tasks waiting in the class
+   */
+  public int getQueuedTaskCount(int priorityIndex) {
+    ClassQueue cq = getClassQueue(priorityIndex);
+    synchronized (queueLock) {
+      return cq.queue.size();
+    }
+  }
+  
+  private ClassQueue getClassQueue(int priorityIndex) {
+    if (priorityIndex < 0 || priorityIndex >= classQueues.length) {
+      throw new IllegalArgumentException("Invalid priority index: " + priorityIndex);
+    }
+    
+    return classQueues[priorityIndex];
+  }
+  
+  @Override
+  protected void queueTask(SlotTaskWrapper task) {
+    task.queueTime = Clock.accurateForwardProgressingMillis();
+    task.queueKey.queue.add(task);
+  }
+  
+  /**
+   * Chooses and removes the next task to run.  A class past its maximum wait time is chosen 
+   * first, otherwise the class is chosen by a smooth weighted round robin.  Each pass every class 
+   * with waiting tasks has its weight added to its current weight, the class with the highest 
+   * current weight is chosen, and the chosen class then has the total weight subtracted from it.
+   * 
+   * @return Next task to run, or {@code null} if there are no waiting tasks
+   */
+  @Override
+  protected SlotTaskWrapper pollNextTask() {
+    long now = Clock.accurateForwardProgressingMillis();
+    ClassQueue weightedChoice = null;
+    ClassQueue starvedChoice = null;
+    long maxOverdue = -1;
+    long totalWeight = 0;
+    for (int i = 0; i < classQueues.length; i++) {
+      ClassQueue cq = classQueues[i];
+      SlotTaskWrapper head = cq.queue.peek();
+      if (head == null) {
+        continue;
+      }
+      
+      long overdue = now - head.queueTime - cq.priorityClass.maxWaitInMs;
+      if (overdue > maxOverdue) {
+        maxOverdue = overdue;
+        starvedChoice = cq;
+      }
+      cq.currentWeight += cq.priorityClass.weight;
+      totalWeight += cq.priorityClass.weight;
+      // ties go to the class provided first
+      if (weightedChoice == null || cq.currentWeight > weightedChoice.currentWeight) {
+        weightedChoice = cq;
+      }
+    }
+    
+    if (weightedChoice == null) {
+      return null;
+    }
+    ClassQueue choice = starvedChoice == null ? weightedChoice : starvedChoice;
+    choice.currentWeight -= totalWeight;
+    SlotTaskWrapper result = choice.queue.poll();
+    if (choice.queue.isEmpty()) {
+      // don't carry credit (or debt) forward once the class is idle
+      choice.currentWeight = 0;
+    }
+    
+    return result;
+  }
+  
+  /**
+   * <p>Definition of a priority class.  The weight determines what share of executions the class 
+   * gets relative to other classes with waiting tasks.  The maximum wait bounds how long the 
+   * oldest task in the class can wait before it is run regardless of weight.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public static class PriorityClass {
+    protected final String name;
+    protected final int weight;
+    protected final long maxWaitInMs;
+    
+    /**
+     * Constructs a new priority class without a maximum wait time.  Tasks in this class will only 
+     * run according to their weight.
+     * 
+     * @param name Name to describe the class
+     * @param weight Relative share of executions, must be at least {@code 1}
+     */
+    public PriorityClass(String name, int weight) {
+      this(name, weight, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Constructs a new priority class.
+     * 
+     * @param name Name to describe the class
+     * @param weight Relative share of executions, must be at least {@code 1}
+     * @param maxWaitInMs Maximum time a task can wait before being run regardless of weight
+     */
+    public PriorityClass(String name, int weight, long maxWaitInMs) {
+      ArgumentVerifier.assertNotNull(name, "name");
+      ArgumentVerifier.assertGreaterThanZero(weight, "weight");
+      ArgumentVerifier.assertNotNegative(maxWaitInMs, "maxWaitInMs");
+      
+      this.name = name;
+      this.weight = weight;
+      this.maxWaitInMs = maxWaitInMs;
+    }
+    
+    /**
+     * Returns the name provided at construction.
+     * 
+     * @return Name of the class
+     */
+    public String getName() {
+      return name;
+    }
+    
+    /**
+     * Returns the relative share of executions for the class.
+     * 
+     * @return Weight of the class
+     */
+    public int getWeight() {
+      return weight;
+    }
+    
+    /**
+     * Returns the maximum time a task can wait before being run regardless of weight.  This will 
+     * be {@link Long#MAX_VALUE} if no maximum was provided.
+     * 
+     * @return Maximum wait time in milliseconds
+     */
+    public long getMaxWaitInMs() {
+      return maxWaitInMs;
+    }
+    
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+  
+  /**
+   * <p>Queue of waiting tasks, and scheduling state, for a single priority class.  All access 
+   * must be done while holding {@code queueLock}.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class ClassQueue {
+    protected final PriorityClass priorityClass;
+    protected final Queue<SlotTaskWrapper> queue;
+    protected long currentWeight;
+    
+    protected ClassQueue(PriorityClass priorityClass) {
+      this.priorityClass = priorityClass;
+      queue = new ArrayDeque<SlotTaskWrapper>();
+      currentWeight = 0;
+    }
+  }
+}
@@ -2,12 +2,10 @@ package org.threadly.concurrent;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
@@ -15,15 +13,13 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.LockSupport;
 
-import org.threadly.concurrent.collections.ConcurrentArrayList;
 import org.threadly.concurrent.future.ListenableFuture;
-import org.threadly.concurrent.future.ListenableFutureTask;
 import org.threadly.concurrent.future.ListenableRunnableFuture;
+import org.threadly.concurrent.future.SettableListenableFuture;
 import org.threadly.concurrent.limiter.PrioritySchedulerLimiter;
 import org.threadly.util.ArgumentVerifier;
 import org.threadly.util.Clock;
 import org.threadly.util.ExceptionUtils;
-import org.threadly.util.ListUtils;
 
 /**
  * <p>Executor to run tasks, schedule tasks.  Unlike 
@@ -62,6 +58,8 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
   // tuned for performance of scheduled tasks
   protected static final int QUEUE_FRONT_PADDING = 0;
   protected static final int QUEUE_REAR_PADDING = 2;
+  // minimum canceled scheduled tasks before the schedule queue will be compacted
+  protected static final int CANCELED_TASK_COMPACTION_THRESHOLD = 64;
   
   static {
     QUEUE_CONSUMER_THREAD_NAME_SUFFIX = " priority task consumer for " + PriorityScheduler.class.getSimpleName();
@@ -443,6 +441,68 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
     return workerPool.getMaxWaitForLowPriority();
   }
   
+  /**
+   * Sets the policy for shedding tasks from the execute queues when the pool is overloaded.  See 
+   * {@link ControlledDelayPolicy} for details.  The policy is applied to the high and low 
+   * priority queues independently.  Providing {@code null} disables shedding, which is the 
+   * default.
+   * 
+   * @param policy Policy for managing queue delay, or {@code null} to disable
+   */
+  public void setControlledDelayPolicy(ControlledDelayPolicy policy) {
+    highPriorityConsumer.controlledDelayQueue.policy = policy;
+    lowPriorityConsumer.controlledDelayQueue.policy = policy;
+    // wake up consumers in case they need to shed tasks
+    highPriorityConsumer.handleQueueUpdate();
+    lowPriorityConsumer.handleQueueUpdate();
+  }
+  
+  /**
+   * Returns the policy set with {@link #setControlledDelayPolicy(ControlledDelayPolicy)}.
+   * 
+   * @return Current policy for managing queue delay, or {@code null} if not set
+   */
+  public ControlledDelayPolicy getControlledDelayPolicy() {
+    return highPriorityConsumer.controlledDelayQueue.policy;
+  }
+  
+  /**
+   * Checks if either execute queue is currently considered overloaded by the 
+   * {@link ControlledDelayPolicy}.  This will always be {@code false} if no policy is set.
+   * 
+   * @return {@code true} if tasks are currently waiting longer than the target delay
+   */
+  public boolean isOverloaded() {
+    return highPriorityConsumer.controlledDelayQueue.overloaded || 
+             lowPriorityConsumer.controlledDelayQueue.overloaded;
+  }
+  
+  /**
+   * Returns the total quantity of tasks which were shed from the execute queues by the 
+   * {@link ControlledDelayPolicy}.
+   * 
+   * @return Quantity of tasks canceled without running due to overload
+   */
+  public long getShedTaskCount() {
+    return highPriorityConsumer.controlledDelayQueue.shedTaskCount.get() + 
+             lowPriorityConsumer.controlledDelayQueue.shedTaskCount.get();
+  }
+  
+  /**
+   * Returns the quantity of tasks for a specific priority which were shed from the execute queue 
+   * by the {@link ControlledDelayPolicy}.
+   * 
+   * @param priority Priority of tasks to be counted
+   * @return Quantity of tasks canceled without running due to overload
+   */
+  public long getShedTaskCount(TaskPriority priority) {
+    if (priority == null) {
+      return getShedTaskCount();
+    }
+    
+    return getQueueManager(priority).controlledDelayQueue.shedTaskCount.get();
+  }
+  
   /**
    * Returns how many tasks are either waiting to be executed, or are scheduled to be executed at 
    * a future point.
@@ -468,6 +528,21 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
     return getQueueManager(priority).queueSize();
   }
   
+  /**
+   * Returns how long the oldest task which is ready to run has been waiting for a worker.  This 
+   * checks the head of each queue, so it is cheap enough to sample frequently.  The task which 
+   * has been taken from the queue, and is waiting for a worker to become available, is not 
+   * included.
+   * 
+   * @return Time in milliseconds the oldest ready task has waited, or zero if none are waiting
+   */
+  public long getQueueDelay() {
+    long now = Clock.accurateForwardProgressingMillis();
+    
+    return Math.max(highPriorityConsumer.getQueueDelay(now), 
+                    lowPriorityConsumer.getQueueDelay(now));
+  }
+  
   /**
    * Ensures all threads have been started, it will create threads till the thread count matches 
    * the set pool size (checked via {@link #getMaxPoolSize()}).  If this is able to start threads 
@@ -487,6 +562,40 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
   public void prestartAllCoreThreads() {
     workerPool.prestartAllThreads();
   }
+  
+  /**
+   * Starts the pool's threads on a separate thread, so that the cost of thread creation is not 
+   * paid by the first tasks submitted.  This is best invoked right after construction.  Unlike 
+   * {@link #prestartAllThreads()} this call returns immediately, and workers are started one at 
+   * a time so tasks submitted while the warmup is in progress can still be dispatched.
+   * 
+   * <p>If a warmup task count is provided, once the threads are started that many short no-op 
+   * tasks will be run through the normal execute, submit and schedule paths, at both priorities.  
+   * This gives the JIT a chance to compile the dispatch code before real work arrives.</p>
+   * 
+   * <p>The returned future will complete with the time in milliseconds the warmup took once all 
+   * threads are started and all warmup tasks have finished.  If the scheduler is shutdown before 
+   * the warmup can finish, the future will fail with a {@link RejectedExecutionException}.</p>
+   * 
+   * @param warmupTaskCount Quantity of no-op tasks to run after threads start, can be zero
+   * @return Future which will complete with the warmup time in milliseconds
+   */
+  public ListenableFuture<Long> startWarmup(int warmupTaskCount) {
+    ArgumentVerifier.assertNotNegative(warmupTaskCount, "warmupTaskCount");
+    
+    SettableListenableFuture<Long> result = new SettableListenableFuture<Long>();
+    Thread warmupThread = 
+        workerPool.threadFactory.newThread(new PrioritySchedulerWarmup(this, warmupTaskCount, 
+                                                                       result));
+    if (warmupThread.isAlive()) {
+      throw new IllegalThreadStateException();
+    }
+    warmupThread.setDaemon(true);
+    warmupThread.setName("PriorityScheduler warmup");
+    warmupThread.start();
+    
+    return result;
+  }
 
   /**
    * Changes the setting weather core threads are allowed to be killed if they remain idle.  If 
@@ -586,13 +695,21 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
    * 
    * Note that this call has high guarantees on the ability to remove the task (as in a complete 
    * guarantee).  But while this task is called, it will reduce the throughput of execution, so 
-   * should not be used extremely frequently.
+   * should not be used extremely frequently.  The exception is if a future returned from this 
+   * scheduler is provided, the future knows where it is queued, so it can be removed in O(1) 
+   * without searching the queues.
    * 
    * @param task The original task provided to the executor
    * @return {@code true} if the task was found and removed
    */
   @Override
   public boolean remove(Runnable task) {
+    if (task instanceof QueuedListenableFutureTask) {
+      QueuedListenableFutureTask<?> qlft = (QueuedListenableFutureTask<?>)task;
+      if (qlft.queueManager == highPriorityConsumer || qlft.queueManager == lowPriorityConsumer) {
+        return qlft.removeFromQueue();
+      }
+    }
     return highPriorityConsumer.remove(task) || lowPriorityConsumer.remove(task);
   }
 
@@ -612,6 +729,26 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
     return highPriorityConsumer.remove(task) || lowPriorityConsumer.remove(task);
   }
 
+  @Override
+  public <T> ListenableFuture<T> submit(Runnable task, T result) {
+    return submitScheduled(task, result, 0, defaultPriority);
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submit(Callable<T> task) {
+    return submitScheduled(task, 0, defaultPriority);
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Runnable task, T result, long delayInMs) {
+    return submitScheduled(task, result, delayInMs, defaultPriority);
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Callable<T> task, long delayInMs) {
+    return submitScheduled(task, delayInMs, defaultPriority);
+  }
+
   @Override
   protected void doSchedule(Runnable task, long delayInMillis) {
     doSchedule(task, delayInMillis, defaultPriority);
@@ -628,6 +765,10 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
    */
   protected void doSchedule(Runnable task, long delayInMillis, TaskPriority priority) {
     OneTimeTaskWrapper taskWrapper = new OneTimeTaskWrapper(task, delayInMillis);
+    if (task instanceof QueuedListenableFutureTask) {
+      ((QueuedListenableFutureTask<?>)task).setQueuedWrapper(getQueueManager(priority), 
+                                                             taskWrapper, delayInMillis != 0);
+    }
     if (delayInMillis == 0) {
       addToExecuteQueue(priority, taskWrapper);
     } else {
@@ -681,7 +822,7 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
       priority = defaultPriority;
     }
 
-    ListenableRunnableFuture<T> rf = new ListenableFutureTask<T>(false, task, result);
+    ListenableRunnableFuture<T> rf = new QueuedListenableFutureTask<T>(task, result);
     doSchedule(rf, delayInMs, priority);
     
     return rf;
@@ -696,7 +837,7 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
       priority = defaultPriority;
     }
 
-    ListenableRunnableFuture<T> rf = new ListenableFutureTask<T>(false, task);
+    ListenableRunnableFuture<T> rf = new QueuedListenableFutureTask<T>(task);
     doSchedule(rf, delayInMs, priority);
     
     return rf;
@@ -863,7 +1004,10 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
      * @return {@code true} if this call initiates the shutdown, {@code false} if the shutdown has already started
      */
     public boolean startShutdown() {
-      return ! shutdownStarted.getAndSet(true);
+      // lock held so the shutdown can not start while a warmup is starting the consumers
+      synchronized (workersLock) {
+        return ! shutdownStarted.getAndSet(true);
+      }
     }
   
     /**
@@ -962,20 +1106,62 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
         
         this.maxPoolSize = maxPoolSize;
   
-        synchronized (workersLock) {
-          if (poolSizeIncrease) {
-            // now that pool size increased, start any workers we can for the waiting tasks
-            if (waitingForWorkerCount > 0) {
-              while (availableWorkers.size() < waitingForWorkerCount && 
-                     currentPoolSize <= this.maxPoolSize) {
-                availableWorkers.add(makeNewWorker());
-              }
-              
-              workersLock.notifyAll();
+        handleMaxPoolSizeChange(poolSizeIncrease);
+      }
+    }
+    
+    /**
+     * Sets both the core and max pool size to the provided value.  Unlike 
+     * {@link #setMaxPoolSize(int)} this will remain once dynamic pool size support is removed in 
+     * 4.0.0, since it leaves the pool with a single size.
+     * 
+     * If this was a reduction from the previous value, this call will examine idle workers to see 
+     * if they should be expired.  If the current running thread count is higher than the new 
+     * size, this call will NOT block till the pool is reduced.  Instead as those workers complete, 
+     * they will clean up on their own.
+     * 
+     * @param poolSize New pool size, must be at least one
+     */
+    public void setFixedPoolSize(int poolSize) {
+      ArgumentVerifier.assertGreaterThanZero(poolSize, "poolSize");
+      
+      synchronized (poolSizeChangeLock) {
+        boolean poolSizeIncrease = poolSize > this.maxPoolSize;
+        
+        // update so that the core size never exceeds the max size
+        if (poolSizeIncrease) {
+          this.maxPoolSize = poolSize;
+          this.corePoolSize = poolSize;
+        } else {
+          this.corePoolSize = poolSize;
+          this.maxPoolSize = poolSize;
+        }
+        
+        handleMaxPoolSizeChange(poolSizeIncrease);
+      }
+    }
+    
+    /**
+     * Starts workers for any waiting tasks if the max pool size increased, or otherwise looks for 
+     * workers which should be expired.  This must be invoked while holding 
+     * {@code poolSizeChangeLock}, after the new size has been set.
+     * 
+     * @param poolSizeIncrease {@code true} if the max pool size was increased
+     */
+    private void handleMaxPoolSizeChange(boolean poolSizeIncrease) {
+      synchronized (workersLock) {
+        if (poolSizeIncrease) {
+          // now that pool size increased, start any workers we can for the waiting tasks
+          if (waitingForWorkerCount > 0) {
+            while (availableWorkers.size() < waitingForWorkerCount && 
+                   currentPoolSize <= this.maxPoolSize) {
+              availableWorkers.add(makeNewWorker());
             }
-          } else {
-            expireOldWorkers();
+            
+            workersLock.notifyAll();
           }
+        } else {
+          expireOldWorkers();
         }
       }
     }
@@ -1058,6 +1244,25 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
         }
       }
     }
+    
+    /**
+     * Starts a single new idle worker if the pool is below its core size.  Unlike 
+     * {@link #prestartAllThreads()} the {@code workersLock} is only held for the creation of one 
+     * thread, so tasks can still be dispatched while the pool is being started.
+     * 
+     * @return {@code true} if a worker was started, {@code false} if the pool is already started
+     */
+    public boolean prestartThread() {
+      synchronized (workersLock) {
+        if (shutdownFinishing || currentPoolSize >= corePoolSize) {
+          return false;
+        }
+        availableWorkers.addFirst(makeNewWorker());
+        workersLock.notifyAll();
+        
+        return true;
+      }
+    }
 
     /**
      * Getter for the maximum amount of time a low priority task will wait for an available worker.
@@ -1128,13 +1333,24 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
      * @return Newly created worker, started and ready to accept work
      */
     protected Worker makeNewWorker() {
-      Worker w = new Worker(this, threadFactory);
+      Worker w = constructWorker();
       currentPoolSize++;
       w.start();
       
       // will be added to available workers when done with first task
       return w;
     }
+    
+    /**
+     * Constructs a new worker, without starting it or accounting for it in the pool size.  This 
+     * is only invoked from {@link #makeNewWorker()}, and can be overridden to provide a 
+     * {@link Worker} which tracks additional state.
+     * 
+     * @return Newly constructed worker which has not been started
+     */
+    protected Worker constructWorker() {
+      return new Worker(this, threadFactory);
+    }
 
     /**
      * YOU MUST HOLD THE {@code workersLock} BEFORE CALLING THIS!!
@@ -1303,334 +1519,6 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
     }
   }
   
-  /**
-   * <p>A service which manages the execute queues.  It runs a task to consume from the queues and 
-   * execute those tasks as workers become available.  It also manages the queues as tasks are 
-   * added, removed, or rescheduled.</p>
-   * 
-   * <p>Right now this class has a pretty tight dependency on {@link PriorityScheduler}, which is 
-   * why this is an inner class.</p>
-   * 
-   * @author jent - Mike Jensen
-   * @since 3.4.0
-   */
-  protected static class QueueManager extends AbstractService implements Runnable {
-    protected final WorkerPool workerPool;
-    protected final String threadName;
-    protected final ConcurrentLinkedQueue<OneTimeTaskWrapper> executeQueue;
-    protected final ConcurrentArrayList<TaskWrapper> scheduleQueue;
-    protected final TaskPriority queuePriority;
-    protected volatile Thread runningThread;
-    
-    public QueueManager(WorkerPool workerPool, TaskPriority queuePriority, String threadName) {
-      this.workerPool = workerPool;
-      this.threadName = threadName;
-      this.executeQueue = new ConcurrentLinkedQueue<OneTimeTaskWrapper>();
-      this.scheduleQueue = new ConcurrentArrayList<TaskWrapper>(QUEUE_FRONT_PADDING, QUEUE_REAR_PADDING);
-      this.queuePriority = queuePriority;
-      runningThread = null;
-    }
-
-    /**
-     * Removes a given callable from the internal queues (if it exists).
-     * 
-     * @param task Callable to search for and remove
-     * @return {@code true} if the task was found and removed
-     */
-    public boolean remove(Callable<?> task) {
-      {
-        Iterator<? extends TaskWrapper> it = executeQueue.iterator();
-        while (it.hasNext()) {
-          TaskWrapper tw = it.next();
-          if (ContainerHelper.isContained(tw.task, task) && executeQueue.remove(tw)) {
-            tw.cancel();
-            return true;
-          }
-        }
-      }
-      synchronized (scheduleQueue.getModificationLock()) {
-        Iterator<? extends TaskWrapper> it = scheduleQueue.iterator();
-        while (it.hasNext()) {
-          TaskWrapper tw = it.next();
-          if (ContainerHelper.isContained(tw.task, task)) {
-            tw.cancel();
-            it.remove();
-            
-            return true;
-          }
-        }
-      }
-      
-      return false;
-    }
-
-    /**
-     * Removes a given Runnable from the internal queues (if it exists).
-     * 
-     * @param task Runnable to search for and remove
-     * @return {@code true} if the task was found and removed
-     */
-    public boolean remove(Runnable task) {
-      {
-        Iterator<? extends TaskWrapper> it = executeQueue.iterator();
-        while (it.hasNext()) {
-          TaskWrapper tw = it.next();
-          if (ContainerHelper.isContained(tw.task, task) && executeQueue.remove(tw)) {
-            tw.cancel();
-            return true;
-          }
-        }
-      }
-      synchronized (scheduleQueue.getModificationLock()) {
-        Iterator<? extends TaskWrapper> it = scheduleQueue.iterator();
-        while (it.hasNext()) {
-          TaskWrapper tw = it.next();
-          if (ContainerHelper.isContained(tw.task, task)) {
-            tw.cancel();
-            it.remove();
-            
-            return true;
-          }
-        }
-      }
-      
-      return false;
-    }
-
-    /**
-     * Adds a task for immediate execution.  No safety checks are done at this point, the task 
-     * will be immediately added and available for consumption.
-     * 
-     * @param task Task to add to end of execute queue
-     */
-    public void addExecute(OneTimeTaskWrapper task) {
-      executeQueue.add(task);
-
-      handleQueueUpdate();
-    }
-
-    /**
-     * Adds a task for delayed execution.  No safety checks are done at this point.  This call 
-     * will safely find the insertion point in the scheduled queue and insert it into that 
-     * queue.
-     * 
-     * @param task Task to insert into the schedule queue
-     */
-    public void addScheduled(TaskWrapper task) {
-      synchronized (scheduleQueue.getModificationLock()) {
-        ClockWrapper.stopForcingUpdate();
-        try {
-          int index = ListUtils.getInsertionEndIndex(scheduleQueue, task, true);
-          
-          scheduleQueue.add(index, task);
-        } finally {
-          ClockWrapper.resumeForcingUpdate();
-        }
-      }
-      
-      handleQueueUpdate();
-    }
-
-    /**
-     * Adds a scheduled task to the end of the scheduled queue.  It is expected that this task is 
-     * NOT ready for execution, and will later be moved from invoking 
-     * {@link #reschedule(RecurringTaskWrapper)}.
-     * 
-     * @param task Task to add to end of schedule queue
-     */
-    public void addScheduledLast(RecurringTaskWrapper task) {
-      scheduleQueue.addLast(task);
-      // no need to notify since this task wont be ready to run
-    }
-
-    /**
-     * Call to find and reposition a scheduled task.  It is expected that the task provided has 
-     * already been added to the queue (likely from a call to 
-     * {@link #addScheduledLast(RecurringTaskWrapper)}).  This call will use 
-     * {@link RecurringTaskWrapper#getNextDelayInMillis()} to figure out what the new position 
-     * within the queue should be.
-     * 
-     * @param task Task to find in queue and reposition based off next delay
-     */
-    public void reschedule(RecurringTaskWrapper task) {
-      synchronized (scheduleQueue.getModificationLock()) {
-        if (! workerPool.isShutdownStarted()) {
-          ClockWrapper.stopForcingUpdate();
-          try {
-            long nextDelay = task.getNextDelayInMillis();
-            int insertionIndex = ListUtils.getInsertionEndIndex(scheduleQueue, nextDelay, true);
-            
-            scheduleQueue.reposition(task, insertionIndex, true);
-          } finally {
-            ClockWrapper.resumeForcingUpdate();
-          }
-        }
-      }
-      
-      // need to unpark even if the task is not ready, otherwise we may get stuck on an infinite park
-      handleQueueUpdate();
-    }
-
-    /**
-     * Called to check if either queue has anything to run.  This is just if the queues are empty.  
-     * If there are scheduled tasks queued, but not ready to run, this will still return 
-     * {@code false}.
-     * 
-     * @return {@code true} if there are no tasks in either queue
-     */
-    public boolean isQueueEmpty() {
-      return executeQueue.isEmpty() && scheduleQueue.isEmpty();
-    }
-
-    /**
-     * Call to get the total quantity of tasks within both stored queues.  If you can, 
-     * {@link #isQueueEmpty()} is a more efficient call.  This returns the total amount of items 
-     * in both the execute and scheduled queue.  If there are scheduled tasks which are NOT ready 
-     * to run, they will still be included in this total.
-     * 
-     * @return Total quantity of tasks queued
-     */
-    public int queueSize() {
-      return scheduleQueue.size() + executeQueue.size();
-    }
-
-    public void stopAndDrainQueueInto(List<Runnable> removedTasks) {
-      stopIfRunning();
-      
-      clearQueue(executeQueue, removedTasks);
-      synchronized (scheduleQueue.getModificationLock()) {
-        clearQueue(scheduleQueue, removedTasks);
-      }
-    }
-  
-    private static void clearQueue(Collection<? extends TaskWrapper> queue, List<Runnable> resultList) {
-      Iterator<? extends TaskWrapper> it = queue.iterator();
-      while (it.hasNext()) {
-        TaskWrapper tw = it.next();
-        tw.cancel();
-        if (resultList != null && ! (tw.task instanceof ShutdownRunnable)) {
-          resultList.add(tw.task);
-        }
-      }
-      queue.clear();
-    }
-
-    @Override
-    protected void startupService() {
-      runningThread = workerPool.threadFactory.newThread(this);
-      if (runningThread.isAlive()) {
-        throw new IllegalThreadStateException();
-      }
-      runningThread.setDaemon(true);
-      runningThread.setName(threadName);
-      runningThread.start();
-    }
-
-    @Override
-    protected void shutdownService() {
-      Thread runningThread = this.runningThread;
-      this.runningThread = null;
-      runningThread.interrupt();
-    }
-    
-    /**
-     * Called when the queue has been updated and we may need to wake up the consumer thread.
-     */
-    protected void handleQueueUpdate() {
-      if (! startIfNotStarted()) {
-        Thread currRunningThread = runningThread;
-        if (currRunningThread != null) {
-          LockSupport.unpark(currRunningThread);
-        }
-      }
-    }
-
-    @Override
-    public void run() {
-      while (runningThread != null) {
-        try {
-          TaskWrapper nextTask = getNextTask();
-          if (nextTask != null) {
-            switch (queuePriority) {
-              case High:
-                workerPool.runHighPriorityTask(nextTask);
-                break;
-              case Low:
-                workerPool.runLowPriorityTask(nextTask);
-                break;
-              default:
-                throw new UnsupportedOperationException();
-            }
-          }
-        } catch (InterruptedException e) {
-          stopIfRunning();
-          Thread.currentThread().interrupt();
-        } catch (Throwable t) {
-          ExceptionUtils.handleException(t);
-        }
-      }
-    }
-    
-    protected TaskWrapper getNextTask() throws InterruptedException {
-      while (runningThread != null) {  // loop till we have something to return
-        TaskWrapper nextScheduledTask = scheduleQueue.peekFirst();
-        TaskWrapper nextExecuteTask = executeQueue.peek();
-        if (nextExecuteTask != null) {
-          if (nextScheduledTask != null) {
-            long scheduleDelay;
-            long executeDelay;
-            ClockWrapper.stopForcingUpdate();
-            try {
-              scheduleDelay = nextScheduledTask.getDelay(TimeUnit.MILLISECONDS);
-              executeDelay = nextExecuteTask.getDelay(TimeUnit.MILLISECONDS);
-            } finally {
-              ClockWrapper.resumeForcingUpdate();
-            }
-            if (scheduleDelay < executeDelay) {
-              synchronized (scheduleQueue.getModificationLock()) {
-                // scheduled tasks must be removed, and call .executing() while holding the lock
-                if (scheduleQueue.remove(nextScheduledTask)) {
-                  nextScheduledTask.executing();
-                  return nextScheduledTask;
-                }
-              }
-            } else if (executeQueue.remove(nextExecuteTask)) {
-              // if we can remove the task (aka it has not been removed already), we can execute it
-              nextExecuteTask.executing();
-              return nextExecuteTask;
-            }
-          } else if (executeQueue.remove(nextExecuteTask)) {
-            // if we can remove the task (aka it has not been removed already), we can execute it
-            nextExecuteTask.executing();
-            return nextExecuteTask;
-          }
-        } else if (nextScheduledTask != null) {
-          if (nextScheduledTask.getDelay(TimeUnit.MILLISECONDS) <= 0) {
-            synchronized (scheduleQueue.getModificationLock()) {
-              // scheduled tasks must be removed, and call .executing() while holding the lock
-              if (scheduleQueue.remove(nextScheduledTask)) {
-                nextScheduledTask.executing();
-                return nextScheduledTask;
-              }
-            }
-          } else {
-            workerPool.handleEstimatedTimeTillNextTask(this, nextScheduledTask.getDelayEstimateInMs());
-            LockSupport.parkNanos(Clock.NANOS_IN_MILLISECOND * nextScheduledTask.getDelay(TimeUnit.MILLISECONDS));
-          }
-        } else {
-          workerPool.handleEstimatedTimeTillNextTask(this, Long.MAX_VALUE);
-          LockSupport.park();
-        }
-        
-        if (Thread.currentThread().isInterrupted()) {
-          throw new InterruptedException();
-        }
-      }
-      
-      return null;
-    }
-  }
-  
   /**
    * <p>Runnable which will run on pool threads.  It accepts runnables to run, and tracks 
    * usage.</p>
@@ -1715,12 +1603,16 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
     
     @Override
     public void run() {
+      RunningTaskPublisher taskPublisher = new RunningTaskPublisher();
       // will break in finally block if shutdown
       while (true) {
         blockTillNextTask();
         
-        if (nextTask != null) {
-          ExceptionUtils.runRunnable(nextTask);
+        Runnable task = nextTask;
+        if (task != null) {
+          Object previousTask = taskPublisher.publish(task);
+          ExceptionUtils.runRunnable(task);
+          taskPublisher.restore(previousTask);
           nextTask = null;
         }
         // once done handling task
@@ -1742,7 +1634,7 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
    * @since 1.0.0
    */
   protected abstract static class TaskWrapper extends AbstractDelayed 
-                                              implements Runnable {
+                                              implements Runnable, RunnableContainerInterface {
     protected final Runnable task;
     protected volatile boolean canceled;
     
@@ -1777,6 +1669,11 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
      */
     protected abstract long getDelayEstimateInMs();
     
+    @Override
+    public Runnable getContainedRunnable() {
+      return task;
+    }
+    
     @Override
     public String toString() {
       return task.toString();
@@ -1963,6 +1860,51 @@ public class PriorityScheduler extends AbstractSubmitterScheduler
     }
   }
   
+  /**
+   * <p>Future returned from submit calls to the {@link PriorityScheduler}.  It holds a reference 
+   * to the {@link OneTimeTaskWrapper} which is queued for it, so that when canceled the wrapper 
+   * can be marked as canceled in O(1).  The wrapper is then skipped once it reaches the head of 
+   * the queue, rather than having to search the queues to remove it.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> The result object type returned by this future
+   */
+  protected static class QueuedListenableFutureTask<T> 
+      extends AbstractQueuedListenableFutureTask<T, OneTimeTaskWrapper> {
+    protected volatile QueueManager queueManager;
+    private volatile boolean scheduled;
+    
+    protected QueuedListenableFutureTask(Runnable task, T result) {
+      super(task, result);
+    }
+    
+    protected QueuedListenableFutureTask(Callable<T> task) {
+      super(task);
+    }
+    
+    /**
+     * Sets the wrapper which will be queued for this task.  This must be invoked before the 
+     * wrapper is added to the queue.
+     * 
+     * @param queueManager Queue manager which the wrapper is being added to
+     * @param queuedWrapper Wrapper which will execute this task
+     * @param scheduled {@code true} if the wrapper is going into the schedule queue
+     */
+    protected void setQueuedWrapper(QueueManager queueManager, 
+                                    OneTimeTaskWrapper queuedWrapper, boolean scheduled) {
+      this.queueManager = queueManager;
+      this.scheduled = scheduled;
+      setQueuedContainer(queuedWrapper);
+    }
+    
+    @Override
+    protected void queuedContainerRemoved(OneTimeTaskWrapper queuedWrapper) {
+      queuedWrapper.canceled = true;
+      queueManager.taskCanceled(scheduled);
+    }
+  }
+  
   /**
    * <p>Runnable to be run after tasks already ready to execute.  That way this can be submitted 
    * with a {@link #execute(Runnable)} to ensure that the shutdown is fair for tasks that were 
@@ -1,21 +1,25 @@
 package org.threadly.concurrent;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.threadly.concurrent.collections.ConcurrentArrayList;
 import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.concurrent.statistics.LongRunningTaskHandler;
+import org.threadly.concurrent.statistics.RollingLongWindow;
+import org.threadly.concurrent.statistics.SchedulerMetrics;
+import org.threadly.util.ArgumentVerifier;
 import org.threadly.util.Clock;
+import org.threadly.util.ExceptionUtils;
 
 /**
  * <p>An implementation of {@link PriorityScheduler} which tracks run and usage statistics.  This 
@@ -25,11 +29,25 @@ import org.threadly.util.Clock;
  * <p>It helps give insight in how long tasks are running, how well the thread pool is being 
  * utilized, as well as execution frequency.</p>
  * 
+ * <p>Rolling statistics are held in lock free primitive ring buffers (see 
+ * {@link RollingLongWindow}), so recording a sample does not allocate or contend with other 
+ * threads.  Medians and other percentiles are computed from histograms which are maintained as 
+ * samples enter and leave the window, rather than by sorting the window on each request.</p>
+ * 
+ * <p>Running tasks are found by checking the pool's workers, each of which records when it was 
+ * provided its current task.  This keeps the per-task cost to a single volatile write, while 
+ * queries like {@link #getQtyRunningOverTime(long)}, or a watchdog started with 
+ * {@link #watchForLongRunningTasks(SchedulerServiceInterface, long, long, LongRunningTaskHandler)}, 
+ * are O(pool size).</p>
+ * 
  * @author jent - Mike Jensen
  * @since 1.0.0
  */
-public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
+public class PrioritySchedulerStatisticTracker extends PriorityScheduler 
+                                               implements SchedulerMetrics {
   protected static final int MAX_WINDOW_SIZE = 1000;
+  protected static final int MAX_RUN_TIME_STRIPES = 8;
+  private static final double MEDIAN_PERCENTILE = 50;
   
   protected final StatsManager statsManager;
   
@@ -260,12 +278,13 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * 
    * This does NOT reset the total execution counts.
    */
+  @Override
   public void resetCollectedStats() {
-    statsManager.runTimes.clear();
-    statsManager.lowPriorityWorkerAvailable.clear();
-    statsManager.lowPriorityExecutionDelay.clear();
-    statsManager.highPriorityWorkerAvailable.clear();
-    statsManager.highPriorityExecutionDelay.clear();
+    statsManager.runTimes.reset();
+    statsManager.lowPriorityWorkerAvailable.reset();
+    statsManager.lowPriorityExecutionDelay.reset();
+    statsManager.highPriorityWorkerAvailable.reset();
+    statsManager.highPriorityExecutionDelay.reset();
   }
   
   /**
@@ -281,6 +300,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
     if (task == null) {
       return null;
     } else {
+      statsManager.totalSubmittedTasks.incrementAndGet();
       return new RunnableStatWrapper(statsManager, task, priority, recurring);
     }
   }
@@ -298,6 +318,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
     if (task == null) {
       return null;
     } else {
+      statsManager.totalSubmittedTasks.incrementAndGet();
       return new CallableStatWrapper<T>(statsManager, task, priority, recurring);
     }
   }
@@ -383,8 +404,9 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * 
    * @return average time in milliseconds tasks run
    */
+  @Override
   public long getAverageTaskRunTime() {
-    return getAvgTime(getRunTimes());
+    return statsManager.runTimes.getAverage();
   }
   
   /**
@@ -394,13 +416,20 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * @return median time in milliseconds tasks run
    */
   public long getMedianTaskRunTime() {
-    List<Long> times = new ArrayList<Long>(statsManager.runTimes);
-    if (times.isEmpty()) {
-      return -1;
-    }
-    Collections.sort(times);
-    
-    return times.get(times.size() / 2);
+    return getTaskRunTimePercentile(MEDIAN_PERCENTILE);
+  }
+  
+  /**
+   * Reports the task run time at the provided percentile (for example {@code 99} or 
+   * {@code 99.9}).  Run times under 128 milliseconds are reported exactly, longer run times are 
+   * reported within about 1.5%.  Returns -1 if no statistics have been collected yet.
+   * 
+   * @param percentile Percentile to report, between 0 and 100 inclusive
+   * @return run time in milliseconds at the requested percentile
+   */
+  @Override
+  public long getTaskRunTimePercentile(double percentile) {
+    return statsManager.runTimes.getValueAtPercentile(percentile);
   }
   
   /**
@@ -409,10 +438,28 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * @return average delay for tasks to be executed
    */
   public long getAvgExecutionDelay() {
-    List<Long> resultList = new ArrayList<Long>(statsManager.lowPriorityExecutionDelay);
-    resultList.addAll(statsManager.highPriorityExecutionDelay);
+    long count = statsManager.lowPriorityExecutionDelay.getCount() + 
+                   statsManager.highPriorityExecutionDelay.getCount();
+    if (count == 0) {
+      return -1;
+    }
     
-    return getAvgTime(resultList);
+    double totalTime = statsManager.lowPriorityExecutionDelay.getSum() + 
+                         statsManager.highPriorityExecutionDelay.getSum();
+    
+    return Math.round(totalTime / count);
+  }
+  
+  @Override
+  public long getAverageQueueWaitTime() {
+    return getAvgExecutionDelay();
+  }
+  
+  @Override
+  public long getQueueWaitTimePercentile(double percentile) {
+    return RollingLongWindow.getValueAtPercentile(percentile, 
+                                                  statsManager.highPriorityExecutionDelay, 
+                                                  statsManager.lowPriorityExecutionDelay);
   }
   
   /**
@@ -421,7 +468,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * @return average delay for high priority tasks to be executed
    */
   public long getHighPriorityAvgExecutionDelay() {
-    return getAvgTime(getHighPriorityExecutionDelays());
+    return statsManager.highPriorityExecutionDelay.getAverage();
   }
   
   /**
@@ -430,7 +477,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * @return average delay for low priority tasks to be executed
    */
   public long getLowPriorityAvgExecutionDelay() {
-    return getAvgTime(getLowPriorityExecutionDelays());
+    return statsManager.lowPriorityExecutionDelay.getAverage();
   }
   
   /**
@@ -440,13 +487,18 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * @return median delay for high priority tasks to be executed
    */
   public long getHighPriorityMedianExecutionDelay() {
-    List<Long> times = new ArrayList<Long>(statsManager.highPriorityExecutionDelay);
-    if (times.isEmpty()) {
-      return -1;
-    }
-    Collections.sort(times);
-    
-    return times.get(times.size() / 2);
+    return getHighPriorityExecutionDelayPercentile(MEDIAN_PERCENTILE);
+  }
+  
+  /**
+   * Gets the delay from when the task is ready, to when it is actually executed, at the provided 
+   * percentile.  Returns -1 if no statistics have been collected yet.
+   * 
+   * @param percentile Percentile to report, between 0 and 100 inclusive
+   * @return delay for high priority tasks to be executed at the requested percentile
+   */
+  public long getHighPriorityExecutionDelayPercentile(double percentile) {
+    return statsManager.highPriorityExecutionDelay.getValueAtPercentile(percentile);
   }
   
   /**
@@ -456,13 +508,18 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * @return median delay for low priority tasks to be executed
    */
   public long getLowPriorityMedianExecutionDelay() {
-    List<Long> times = new ArrayList<Long>(statsManager.lowPriorityExecutionDelay);
-    if (times.isEmpty()) {
-      return -1;
-    }
-    Collections.sort(times);
-    
-    return times.get(times.size() / 2);
+    return getLowPriorityExecutionDelayPercentile(MEDIAN_PERCENTILE);
+  }
+  
+  /**
+   * Gets the delay from when the task is ready, to when it is actually executed, at the provided 
+   * percentile.  Returns -1 if no statistics have been collected yet.
+   * 
+   * @param percentile Percentile to report, between 0 and 100 inclusive
+   * @return delay for low priority tasks to be executed at the requested percentile
+   */
+  public long getLowPriorityExecutionDelayPercentile(double percentile) {
+    return statsManager.lowPriorityExecutionDelay.getValueAtPercentile(percentile);
   }
   
   /**
@@ -473,9 +530,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * @return list which represents execution delay samples
    */
   public List<Long> getHighPriorityExecutionDelays() {
-    List<Long> result = new ArrayList<Long>(statsManager.highPriorityExecutionDelay);
-    
-    return Collections.unmodifiableList(result);
+    return Collections.unmodifiableList(statsManager.highPriorityExecutionDelay.getSamples());
   }
   
   /**
@@ -486,29 +541,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * @return list which represents execution delay samples
    */
   public List<Long> getLowPriorityExecutionDelays() {
-    List<Long> result = new ArrayList<Long>(statsManager.lowPriorityExecutionDelay);
-    
-    return Collections.unmodifiableList(result);
-  }
-  
-  /**
-   * Calculates the average from a collection of long values.
-   * 
-   * @param list List of longs to average against
-   * @return -1 if the list is empty, otherwise the average of the values inside the list
-   */
-  private static long getAvgTime(Collection<Long> list) {
-    if (list.isEmpty()) {
-      return -1;
-    }
-    
-    double totalTime = 0;
-    Iterator<Long> it = list.iterator();
-    while (it.hasNext()) {
-      totalTime += it.next();
-    }
-      
-    return Math.round(totalTime / list.size());
+    return Collections.unmodifiableList(statsManager.lowPriorityExecutionDelay.getSamples());
   }
   
   /**
@@ -519,9 +552,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    * @return the list of currently recorded run times for tasks
    */
   public List<Long> getRunTimes() {
-    List<Long> result = new ArrayList<Long>(statsManager.runTimes);
-    
-    return Collections.unmodifiableList(result);
+    return Collections.unmodifiableList(statsManager.runTimes.getSamples());
   }
   
   /**
@@ -534,6 +565,21 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
              getLowPriorityTotalExecutionCount();
   }
   
+  @Override
+  public int getQueuedTaskCount() {
+    return getScheduledTaskCount();
+  }
+  
+  @Override
+  public long getSubmittedTaskCount() {
+    return statsManager.totalSubmittedTasks.get();
+  }
+  
+  @Override
+  public long getCompletedTaskCount() {
+    return statsManager.totalCompletedTasks.get();
+  }
+  
   /**
    * Call to get the total quantity of high priority tasks this executor has handled.
    * 
@@ -552,6 +598,28 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
     return statsManager.totalLowPriorityExecutions.get();
   }
   
+  /**
+   * Call to get the total quantity of high priority tasks which were shed without running, due to 
+   * the pool being overloaded.  This will always be zero unless a {@link ControlledDelayPolicy} 
+   * has been set.
+   * 
+   * @return total quantity of high priority tasks shed
+   */
+  public long getHighPriorityShedTaskCount() {
+    return getShedTaskCount(TaskPriority.High);
+  }
+  
+  /**
+   * Call to get the total quantity of low priority tasks which were shed without running, due to 
+   * the pool being overloaded.  This will always be zero unless a {@link ControlledDelayPolicy} 
+   * has been set.
+   * 
+   * @return total quantity of low priority tasks shed
+   */
+  public long getLowPriorityShedTaskCount() {
+    return getShedTaskCount(TaskPriority.Low);
+  }
+  
   /**
    * Call to get any {@link Runnable} that have been running longer than a given period of time.  
    * This is particularly useful when looking for runnables that may be executing longer than 
@@ -565,12 +633,14 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
     List<Runnable> result = new LinkedList<Runnable>();
     
     long now = Clock.accurateForwardProgressingMillis();
-    Iterator<Entry<Wrapper, Long>> it = statsManager.runningTasks.entrySet().iterator();
+    Iterator<StatisticWorker> it = statsManager.workers.iterator();
     while (it.hasNext()) {
-      Entry<Wrapper, Long> entry = it.next();
-      if (! entry.getKey().callable) {
-        if (now - entry.getValue() >= timeInMs) {
-          result.add(((RunnableStatWrapper)entry.getKey()).toRun);
+      StatisticWorker w = it.next();
+      Runnable task = w.nextTask;
+      if (task != null && now - w.taskStartTime >= timeInMs) {
+        Wrapper taskWrapper = getStatWrapper(task);
+        if (taskWrapper != null && ! taskWrapper.callable) {
+          result.add(((RunnableStatWrapper)taskWrapper).toRun);
         }
       }
     }
@@ -591,12 +661,14 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
     List<Callable<?>> result = new LinkedList<Callable<?>>();
     
     long now = Clock.accurateForwardProgressingMillis();
-    Iterator<Entry<Wrapper, Long>> it = statsManager.runningTasks.entrySet().iterator();
+    Iterator<StatisticWorker> it = statsManager.workers.iterator();
     while (it.hasNext()) {
-      Entry<Wrapper, Long> entry = it.next();
-      if (entry.getKey().callable) {
-        if (now - entry.getValue() >= timeInMs) {
-          result.add(((CallableStatWrapper<?>)entry.getKey()).toRun);
+      StatisticWorker w = it.next();
+      Runnable task = w.nextTask;
+      if (task != null && now - w.taskStartTime >= timeInMs) {
+        Wrapper taskWrapper = getStatWrapper(task);
+        if (taskWrapper != null && taskWrapper.callable) {
+          result.add(((CallableStatWrapper<?>)taskWrapper).toRun);
         }
       }
     }
@@ -615,10 +687,10 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
     int result = 0;
     
     long now = Clock.accurateForwardProgressingMillis();
-    Iterator<Long> it = statsManager.runningTasks.values().iterator();
+    Iterator<StatisticWorker> it = statsManager.workers.iterator();
     while (it.hasNext()) {
-      Long startTime = it.next();
-      if (now - startTime >= timeInMs) {
+      StatisticWorker w = it.next();
+      if (w.nextTask != null && now - w.taskStartTime >= timeInMs) {
         result++;
       }
     }
@@ -626,6 +698,64 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
     return result;
   }
   
+  /**
+   * Starts a watchdog which will periodically check for tasks which have been running longer than 
+   * the provided threshold.  Each check only inspects the pool's workers, so it is O(pool size) 
+   * and does not depend on how many tasks are queued.  For any task found over the threshold, 
+   * the running thread's stack is captured and provided to the handler.  The handler is only 
+   * invoked once for each execution of a task, no matter how many checks find it still running.  
+   * 
+   * The watchdog is run as a recurring task on the provided scheduler, which should NOT be this 
+   * scheduler (otherwise the watchdog may be unable to run when it is needed most).  Once this 
+   * scheduler has shutdown the watchdog will remove itself from the provided scheduler.
+   * 
+   * @param watchdogScheduler Scheduler to run the periodic check on
+   * @param checkIntervalInMs Time in milliseconds between checks
+   * @param thresholdInMs Time in milliseconds a task can run before it is reported
+   * @param handler Handler to be invoked for tasks which are running over the threshold
+   */
+  public void watchForLongRunningTasks(SchedulerServiceInterface watchdogScheduler, 
+                                       long checkIntervalInMs, long thresholdInMs, 
+                                       LongRunningTaskHandler handler) {
+    ArgumentVerifier.assertNotNull(watchdogScheduler, "watchdogScheduler");
+    ArgumentVerifier.assertGreaterThanZero(checkIntervalInMs, "checkIntervalInMs");
+    ArgumentVerifier.assertNotNegative(thresholdInMs, "thresholdInMs");
+    ArgumentVerifier.assertNotNull(handler, "handler");
+    
+    watchdogScheduler.scheduleWithFixedDelay(new LongRunningTaskWatchdog(watchdogScheduler, 
+                                                                         workerPool, 
+                                                                         statsManager, 
+                                                                         thresholdInMs, 
+                                                                         handler), 
+                                             checkIntervalInMs, checkIntervalInMs);
+  }
+  
+  /**
+   * Unwraps the task provided to a worker to find our statistic wrapper.
+   * 
+   * @param task Task provided to a worker
+   * @return Statistic wrapper or {@code null} if the task was not wrapped by us
+   */
+  protected static Wrapper getStatWrapper(Runnable task) {
+    Object containedTask = task;
+    while (containedTask != null) {
+      if (containedTask instanceof Wrapper) {
+        return (Wrapper)containedTask;
+      } else if (containedTask instanceof TaskWrapper) {
+        containedTask = ((TaskWrapper)containedTask).task;
+      } else if (containedTask instanceof RunnableContainerInterface && 
+                 ((RunnableContainerInterface)containedTask).getContainedRunnable() != null) {
+        containedTask = ((RunnableContainerInterface)containedTask).getContainedRunnable();
+      } else if (containedTask instanceof CallableContainerInterface<?>) {
+        containedTask = ((CallableContainerInterface<?>)containedTask).getContainedCallable();
+      } else {
+        return null;
+      }
+    }
+    
+    return null;
+  }
+  
   /* Override the implementation in PrioritySchedulerExecutor 
    * because we have the ability to have a cheaper check.
    * 
@@ -633,7 +763,15 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    */
   @Override
   public int getCurrentRunningCount() {
-    return statsManager.runningTasks.size();
+    int result = 0;
+    Iterator<StatisticWorker> it = statsManager.workers.iterator();
+    while (it.hasNext()) {
+      if (it.next().nextTask != null) {
+        result++;
+      }
+    }
+    
+    return result;
   }
   
   /**
@@ -648,10 +786,16 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    */
   @Deprecated
   public double getThreadAvailablePercent() {
-    List<Boolean> totalList = new ArrayList<Boolean>(statsManager.lowPriorityWorkerAvailable);
-    totalList.addAll(statsManager.highPriorityWorkerAvailable);
+    long count = statsManager.lowPriorityWorkerAvailable.getCount() + 
+                   statsManager.highPriorityWorkerAvailable.getCount();
+    if (count == 0) {
+      return -1;
+    }
       
-    return getTruePercent(totalList);
+    double reuseCount = statsManager.lowPriorityWorkerAvailable.getSum() + 
+                          statsManager.highPriorityWorkerAvailable.getSum();
+    
+    return (reuseCount / count) * 100;
   }
   
   /**
@@ -666,9 +810,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    */
   @Deprecated
   public double getHighPriorityThreadAvailablePercent() {
-    List<Boolean> list = new ArrayList<Boolean>(statsManager.highPriorityWorkerAvailable);
-    
-    return getTruePercent(list);
+    return statsManager.highPriorityWorkerAvailable.getAverage(100);
   }
   
   /**
@@ -683,32 +825,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
    */
   @Deprecated
   public double getLowPriorityThreadAvailablePercent() {
-    List<Boolean> list = new ArrayList<Boolean>(statsManager.lowPriorityWorkerAvailable);
-    
-    return getTruePercent(list);
-  }
-  
-  /**
-   * Returns the percent as a double (between 0 and 100) of how many items in the list are true, 
-   * compared to the total quantity of items in the list.
-   * 
-   * @param list List of booleans to inspect
-   * @return -1 if the list is empty, otherwise the percent of true items in the list
-   */
-  private static double getTruePercent(Collection<Boolean> list) {
-    if (list.isEmpty()) {
-      return -1;
-    }
-    
-    double reuseCount = 0;
-    Iterator<Boolean> it = list.iterator();
-    while (it.hasNext()) {
-      if (it.next()) {
-        reuseCount++;
-      }
-    }
-    
-    return (reuseCount / list.size()) * 100;
+    return statsManager.lowPriorityWorkerAvailable.getAverage(100);
   }
   
   /**
@@ -723,23 +840,31 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
   protected static class StatsManager {
     protected final AtomicInteger totalHighPriorityExecutions;
     protected final AtomicInteger totalLowPriorityExecutions;
-    protected final ConcurrentHashMap<Wrapper, Long> runningTasks;
-    protected final ConcurrentArrayList<Long> runTimes;
-    protected final ConcurrentArrayList<Boolean> lowPriorityWorkerAvailable;
-    protected final ConcurrentArrayList<Boolean> highPriorityWorkerAvailable;
-    protected final ConcurrentArrayList<Long> lowPriorityExecutionDelay;
-    protected final ConcurrentArrayList<Long> highPriorityExecutionDelay;
+    protected final AtomicLong totalSubmittedTasks;
+    protected final AtomicLong totalCompletedTasks;
+    protected final List<StatisticWorker> workers;
+    protected final RollingLongWindow runTimes;
+    protected final RollingLongWindow lowPriorityWorkerAvailable;
+    protected final RollingLongWindow highPriorityWorkerAvailable;
+    protected final RollingLongWindow lowPriorityExecutionDelay;
+    protected final RollingLongWindow highPriorityExecutionDelay;
     
     protected StatsManager() {
       totalHighPriorityExecutions = new AtomicInteger(0);
       totalLowPriorityExecutions = new AtomicInteger(0);
-      runningTasks = new ConcurrentHashMap<Wrapper, Long>();
-      int endPadding = MAX_WINDOW_SIZE * 2;
-      runTimes = new ConcurrentArrayList<Long>(0, endPadding);
-      lowPriorityWorkerAvailable = new ConcurrentArrayList<Boolean>(0, endPadding);
-      highPriorityWorkerAvailable = new ConcurrentArrayList<Boolean>(0, endPadding);
-      lowPriorityExecutionDelay = new ConcurrentArrayList<Long>(0, endPadding);
-      highPriorityExecutionDelay = new ConcurrentArrayList<Long>(0, endPadding);
+      totalSubmittedTasks = new AtomicLong(0);
+      totalCompletedTasks = new AtomicLong(0);
+      workers = new CopyOnWriteArrayList<StatisticWorker>();
+      // run times are recorded from every worker thread, so stripe them to avoid contention
+      runTimes = new RollingLongWindow(MAX_WINDOW_SIZE, 
+                                       Math.min(Runtime.getRuntime().availableProcessors(), 
+                                                MAX_RUN_TIME_STRIPES), 
+                                       true);
+      // the rest are only recorded from the thread consuming the task queue
+      lowPriorityWorkerAvailable = new RollingLongWindow(MAX_WINDOW_SIZE, false);
+      highPriorityWorkerAvailable = new RollingLongWindow(MAX_WINDOW_SIZE, false);
+      lowPriorityExecutionDelay = new RollingLongWindow(MAX_WINDOW_SIZE, true);
+      highPriorityExecutionDelay = new RollingLongWindow(MAX_WINDOW_SIZE, true);
     }
 
     /**
@@ -748,7 +873,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
      * @param taskWrapper Wrapper that is about to be executed
      */
     protected void trackTaskStart(Wrapper taskWrapper) {
-      runningTasks.put(taskWrapper, taskWrapper.startTime = Clock.accurateForwardProgressingMillis());
+      taskWrapper.startTime = Clock.accurateForwardProgressingMillis();
       
       switch (taskWrapper.priority) {
         case High:
@@ -769,25 +894,8 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
      */
     protected void trackTaskFinish(Wrapper taskWrapper) {
       long finishTime = Clock.accurateForwardProgressingMillis();
-      synchronized (runTimes.getModificationLock()) {
-        runTimes.add(finishTime - taskWrapper.startTime);
-        trimList(runTimes);
-      }
-      runningTasks.remove(taskWrapper);
-    }
-    
-    /**
-     * Reduces the list size to be within the max window size.
-     * 
-     * Should have the list synchronized/locked before calling.
-     * 
-     * @param list LinkedList to check size of.
-     */
-    @SuppressWarnings("rawtypes")
-    protected static void trimList(Deque list) {
-      while (list.size() > MAX_WINDOW_SIZE) {
-        list.removeFirst();
-      }
+      runTimes.record(finishTime - taskWrapper.startTime);
+      totalCompletedTasks.incrementAndGet();
     }
   }
   
@@ -810,6 +918,28 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
       
       this.statsManager = statsManager;
     }
+    
+    @Override
+    protected Worker constructWorker() {
+      return new StatisticWorker(this, threadFactory);
+    }
+    
+    @Override
+    protected Worker makeNewWorker() {
+      Worker w = super.makeNewWorker();
+      statsManager.workers.add((StatisticWorker)w);
+      
+      return w;
+    }
+    
+    @Override
+    protected void killWorker(Worker w) {
+      synchronized (workersLock) {
+        super.killWorker(w);
+        
+        statsManager.workers.remove(w);
+      }
+    }
 
     // Overridden so we can track the availability for workers for high priority tasks
     @Override
@@ -817,10 +947,7 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
       Worker w = null;
       synchronized (workersLock) {
         if (! isShutdownFinished()) {
-          synchronized (statsManager.highPriorityWorkerAvailable.getModificationLock()) {
-            statsManager.highPriorityWorkerAvailable.add(! availableWorkers.isEmpty());
-            StatsManager.trimList(statsManager.highPriorityWorkerAvailable);
-          }
+          statsManager.highPriorityWorkerAvailable.record(! availableWorkers.isEmpty());
           if (getCurrentPoolSize() >= getMaxPoolSize()) {
             lastHighDelayMillis = task.getDelayEstimateInMs();
             // we can't make the pool any bigger
@@ -839,13 +966,10 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
       }
       
       if (w != null) {  // may be null if shutdown
-        synchronized (statsManager.highPriorityExecutionDelay.getModificationLock()) {
-          Clock.systemNanoTime(); // update clock for task to ensure it is accurate
-          long executionDelay = task.getDelayEstimateInMs();
-          if (executionDelay <= 0) {
-            statsManager.highPriorityExecutionDelay.add(executionDelay * -1);
-            StatsManager.trimList(statsManager.highPriorityExecutionDelay);
-          }
+        Clock.systemNanoTime(); // update clock for task to ensure it is accurate
+        long executionDelay = task.getDelayEstimateInMs();
+        if (executionDelay <= 0) {
+          statsManager.highPriorityExecutionDelay.record(executionDelay * -1);
         }
         
         w.nextTask(task);
@@ -870,23 +994,14 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
           
           if (! isShutdownFinished()) {  // check again that we are still running
             if (getCurrentPoolSize() >= getMaxPoolSize()) {
-              synchronized (statsManager.lowPriorityWorkerAvailable.getModificationLock()) {
-                statsManager.lowPriorityWorkerAvailable.add(! availableWorkers.isEmpty());
-                StatsManager.trimList(statsManager.lowPriorityWorkerAvailable);
-              }
+              statsManager.lowPriorityWorkerAvailable.record(! availableWorkers.isEmpty());
               w = getExistingWorker(Long.MAX_VALUE);
             } else if (getCurrentPoolSize() == 0) {
-              synchronized (statsManager.lowPriorityWorkerAvailable.getModificationLock()) {
-                statsManager.lowPriorityWorkerAvailable.add(false);
-                StatsManager.trimList(statsManager.lowPriorityWorkerAvailable);
-              }
+              statsManager.lowPriorityWorkerAvailable.record(false);
               w = makeNewWorker();
             } else {
               w = getExistingWorker(getMaxWaitForLowPriority());
-              synchronized (statsManager.lowPriorityWorkerAvailable.getModificationLock()) {
-                statsManager.lowPriorityWorkerAvailable.add(w != null);
-                StatsManager.trimList(statsManager.lowPriorityWorkerAvailable);
-              }
+              statsManager.lowPriorityWorkerAvailable.record(w != null);
               if (w == null) {
                 // this means we expired past our wait time, so create a worker if we can
                 if (getCurrentPoolSize() >= getMaxPoolSize()) {
@@ -902,13 +1017,10 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
       }
       
       if (w != null) {  // may be null if shutdown
-        synchronized (statsManager.lowPriorityExecutionDelay.getModificationLock()) {
-          Clock.systemNanoTime(); // update clock for task to ensure it is accurate
-          long executionDelay = task.getDelayEstimateInMs();
-          if (executionDelay <= 0) {
-            statsManager.lowPriorityExecutionDelay.add(executionDelay * -1);
-            StatsManager.trimList(statsManager.lowPriorityExecutionDelay);
-          }
+        Clock.systemNanoTime(); // update clock for task to ensure it is accurate
+        long executionDelay = task.getDelayEstimateInMs();
+        if (executionDelay <= 0) {
+          statsManager.lowPriorityExecutionDelay.record(executionDelay * -1);
         }
         
         w.nextTask(task);
@@ -916,6 +1028,123 @@ public class PrioritySchedulerStatisticTracker extends PriorityScheduler {
     }
   }
   
+  /**
+   * <p>Worker which records when it was provided its current task.  This allows tasks which are 
+   * running long to be found by checking each worker, rather than tracking every task as it 
+   * starts and finishes.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class StatisticWorker extends Worker {
+    protected volatile long taskStartTime;
+    
+    protected StatisticWorker(WorkerPool workerPool, ThreadFactory threadFactory) {
+      super(workerPool, threadFactory);
+      
+      taskStartTime = -1;
+    }
+    
+    @Override
+    public void nextTask(Runnable task) {
+      /* The last known time may be stale if getting the worker had to block, so the clock is 
+       * read.  This must be set before the task is published so that any thread which sees the 
+       * task will also see its start time.
+       */
+      taskStartTime = Clock.accurateForwardProgressingMillis();
+      
+      super.nextTask(task);
+    }
+  }
+  
+  /**
+   * <p>Recurring task which checks the workers for tasks which have been running over a 
+   * threshold.  This only references the worker pool and {@link StatsManager} so that it does not 
+   * prevent the scheduler from being garbage collected.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class LongRunningTaskWatchdog implements Runnable {
+    private final SchedulerServiceInterface watchdogScheduler;
+    private final WorkerPool workerPool;
+    private final StatsManager statsManager;
+    private final long thresholdInMs;
+    private final LongRunningTaskHandler handler;
+    // only accessed from the watchdog task, and the scheduler provides a happens before between runs
+    private Map<StatisticWorker, Long> reportedStartTimes;
+    
+    protected LongRunningTaskWatchdog(SchedulerServiceInterface watchdogScheduler, 
+                                      WorkerPool workerPool, StatsManager statsManager, 
+                                      long thresholdInMs, LongRunningTaskHandler handler) {
+      this.watchdogScheduler = watchdogScheduler;
+      this.workerPool = workerPool;
+      this.statsManager = statsManager;
+      this.thresholdInMs = thresholdInMs;
+      this.handler = handler;
+      this.reportedStartTimes = Collections.emptyMap();
+    }
+    
+    @Override
+    public void run() {
+      if (workerPool.isShutdownFinished()) {
+        watchdogScheduler.remove(this);
+        return;
+      }
+      
+      Map<StatisticWorker, Long> stillRunning = null;
+      long now = Clock.accurateForwardProgressingMillis();
+      Iterator<StatisticWorker> it = statsManager.workers.iterator();
+      while (it.hasNext()) {
+        StatisticWorker w = it.next();
+        Runnable task = w.nextTask;
+        long startTime = w.taskStartTime;
+        if (task == null || now - startTime < thresholdInMs) {
+          continue;
+        }
+        
+        if (stillRunning == null) {
+          stillRunning = new HashMap<StatisticWorker, Long>();
+        }
+        stillRunning.put(w, startTime);
+        Long reportedStartTime = reportedStartTimes.get(w);
+        if (reportedStartTime != null && reportedStartTime == startTime) {
+          // already reported this execution
+          continue;
+        }
+        
+        StackTraceElement[] stack = w.thread.getStackTrace();
+        if (w.nextTask != task || w.taskStartTime != startTime) {
+          // task finished while capturing the stack, so the stack may be from another task
+          stillRunning.remove(w);
+          continue;
+        }
+        
+        Wrapper taskWrapper = getStatWrapper(task);
+        Object originalTask;
+        if (taskWrapper == null) {
+          originalTask = task;
+        } else if (taskWrapper.callable) {
+          originalTask = ((CallableStatWrapper<?>)taskWrapper).toRun;
+        } else {
+          originalTask = ((RunnableStatWrapper)taskWrapper).toRun;
+        }
+        
+        try {
+          handler.handleLongRunningTask(originalTask, w.thread, now - startTime, stack);
+        } catch (Throwable t) {
+          ExceptionUtils.handleException(t);
+        }
+      }
+      
+      if (stillRunning == null) {
+        reportedStartTimes = Collections.emptyMap();
+      } else {
+        reportedStartTimes = stillRunning;
+      }
+    }
+  }
+  
   /**
    * <p>Wrapper for any task which needs to track statistics.</p>
    * 
@@ -0,0 +1,162 @@
+package org.threadly.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.concurrent.future.ListenableFutureTask;
+import org.threadly.concurrent.future.SettableListenableFuture;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Runnable used by {@link PriorityScheduler#startWarmup(int)}.  This starts the consumer 
+ * threads and the workers, then submits the requested quantity of {@link WarmupTask}'s using a 
+ * mix of execute, submit and schedule at both priorities.  The last warmup task to finish will 
+ * complete the future with the total time taken.  If any warmup task is rejected, or dropped 
+ * from the queue by a shutdown, the future will instead fail.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+class PrioritySchedulerWarmup implements Runnable {
+  protected static final int WARMUP_TASK_KINDS = 4;
+  
+  protected final PriorityScheduler scheduler;
+  protected final int warmupTaskCount;
+  protected final SettableListenableFuture<Long> resultFuture;
+  protected final AtomicInteger remainingTasks;
+  protected final AtomicBoolean completed;
+  private final long startTime;
+  
+  protected PrioritySchedulerWarmup(PriorityScheduler scheduler, int warmupTaskCount, 
+                                    SettableListenableFuture<Long> resultFuture) {
+    this.scheduler = scheduler;
+    this.warmupTaskCount = warmupTaskCount;
+    this.resultFuture = resultFuture;
+    this.remainingTasks = new AtomicInteger(warmupTaskCount);
+    this.completed = new AtomicBoolean(false);
+    this.startTime = Clock.accurateForwardProgressingMillis();
+  }
+  
+  @Override
+  public void run() {
+    try {
+      // shutdown starts under this lock, so it will stop any consumers started here
+      synchronized (scheduler.workerPool.workersLock) {
+        if (scheduler.isShutdown()) {
+          // don't start consumers which would not be stopped
+          throw new RejectedExecutionException("Thread pool shutdown");
+        }
+        scheduler.highPriorityConsumer.startIfNotStarted();
+        scheduler.lowPriorityConsumer.startIfNotStarted();
+      }
+      while (scheduler.workerPool.prestartThread()) {
+        // loop till all core threads are started
+      }
+      
+      if (warmupTaskCount == 0) {
+        finished();
+        return;
+      }
+      
+      for (int i = 0; i < warmupTaskCount; i++) {
+        WarmupTask task = new WarmupTask(this);
+        // tasks are run as futures so that we know if a shutdown drops them from the queue
+        ListenableFutureTask<Void> futureTask = new ListenableFutureTask<Void>(false, task);
+        ListenableFuture<?> future = futureTask;
+        switch (i % WARMUP_TASK_KINDS) {
+          case 0:
+            scheduler.execute(futureTask, TaskPriority.High);
+            break;
+          case 1:
+            scheduler.execute(futureTask, TaskPriority.Low);
+            break;
+          case 2:
+            future = scheduler.submit(task, TaskPriority.High);
+            break;
+          default:
+            scheduler.schedule(futureTask, 1, TaskPriority.Low);
+        }
+        future.addListener(new DroppedTaskListener(this, future));
+      }
+    } catch (RejectedExecutionException e) {
+      failed(e);
+    }
+  }
+  
+  /**
+   * Called by each {@link WarmupTask} once it has run, completing the future after the last 
+   * task.
+   */
+  protected void taskFinished() {
+    if (remainingTasks.decrementAndGet() == 0) {
+      finished();
+    }
+  }
+  
+  /**
+   * Called when a {@link WarmupTask} was canceled before it could run, most likely by a 
+   * shutdown draining the queue.
+   */
+  protected void taskDropped() {
+    failed(new RejectedExecutionException("Thread pool shutdown"));
+  }
+  
+  private void finished() {
+    if (completed.compareAndSet(false, true)) {
+      resultFuture.setResult(Clock.accurateForwardProgressingMillis() - startTime);
+    }
+  }
+  
+  private void failed(Throwable t) {
+    // only the first failure is reported, later tasks may be dropped by the same shutdown
+    if (completed.compareAndSet(false, true)) {
+      resultFuture.setFailure(t);
+    }
+  }
+  
+  /**
+   * <p>No-op task run during a {@link PrioritySchedulerWarmup}, which only reports back that it 
+   * has run.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class WarmupTask implements Runnable {
+    private final PrioritySchedulerWarmup warmup;
+    
+    protected WarmupTask(PrioritySchedulerWarmup warmup) {
+      this.warmup = warmup;
+    }
+    
+    @Override
+    public void run() {
+      warmup.taskFinished();
+    }
+  }
+  
+  /**
+   * <p>Listener for a queued {@link WarmupTask}'s future, which reports back to the 
+   * {@link PrioritySchedulerWarmup} if the task was canceled rather than run.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class DroppedTaskListener implements Runnable {
+    private final PrioritySchedulerWarmup warmup;
+    private final ListenableFuture<?> future;
+    
+    protected DroppedTaskListener(PrioritySchedulerWarmup warmup, ListenableFuture<?> future) {
+      this.warmup = warmup;
+      this.future = future;
+    }
+    
+    @Override
+    public void run() {
+      if (future.isCancelled()) {
+        warmup.taskDropped();
+      }
+    }
+  }
+}
@@ -0,0 +1,557 @@
+package org.threadly.concurrent;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.threadly.concurrent.PriorityScheduler.OneTimeTaskWrapper;
+import org.threadly.concurrent.PriorityScheduler.QueuedListenableFutureTask;
+import org.threadly.concurrent.PriorityScheduler.RecurringTaskWrapper;
+import org.threadly.concurrent.PriorityScheduler.ShutdownRunnable;
+import org.threadly.concurrent.PriorityScheduler.TaskWrapper;
+import org.threadly.concurrent.PriorityScheduler.WorkerPool;
+import org.threadly.concurrent.collections.ConcurrentArrayList;
+import org.threadly.util.Clock;
+import org.threadly.util.ExceptionUtils;
+import org.threadly.util.ListUtils;
+
+/**
+ * <p>A service which manages the execute queues.  It runs a task to consume from the queues and 
+ * execute those tasks as workers become available.  It also manages the queues as tasks are 
+ * added, removed, or rescheduled.</p>
+ * 
+ * <p>Right now this class has a pretty tight dependency on {@link PriorityScheduler}, and is 
+ * only used by it.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.4.0
+ */
+class QueueManager extends AbstractService implements Runnable {
+  protected final WorkerPool workerPool;
+  protected final String threadName;
+  protected final ConcurrentLinkedQueue<OneTimeTaskWrapper> executeQueue;
+  protected final ConcurrentArrayList<TaskWrapper> scheduleQueue;
+  protected final ControlledDelayExecuteQueue controlledDelayQueue;
+  protected final TaskPriority queuePriority;
+  protected final AtomicInteger canceledScheduledTaskCount;
+  protected final AtomicInteger canceledExecuteTaskCount;
+  protected volatile Thread runningThread;
+  
+  public QueueManager(WorkerPool workerPool, TaskPriority queuePriority, String threadName) {
+    this.workerPool = workerPool;
+    this.threadName = threadName;
+    this.executeQueue = new ConcurrentLinkedQueue<OneTimeTaskWrapper>();
+    this.scheduleQueue = new ConcurrentArrayList<TaskWrapper>(PriorityScheduler.QUEUE_FRONT_PADDING, 
+                                                              PriorityScheduler.QUEUE_REAR_PADDING);
+    this.controlledDelayQueue = new ControlledDelayExecuteQueue(executeQueue);
+    this.queuePriority = queuePriority;
+    this.canceledScheduledTaskCount = new AtomicInteger(0);
+    this.canceledExecuteTaskCount = new AtomicInteger(0);
+    runningThread = null;
+  }
+  
+  /**
+   * Invoked when a queued task has been marked as canceled, but left in the queue.  Canceled 
+   * tasks are skipped once they reach the head of the queue.  If enough canceled tasks 
+   * accumulate in the schedule queue, this will remove them all with a single update to the 
+   * queue.  Canceled tasks in the execute queues are removed with a single pass once enough 
+   * have accumulated.
+   * 
+   * @param scheduled {@code true} if the task was in the schedule queue
+   */
+  public void taskCanceled(boolean scheduled) {
+    if (scheduled) {
+      int canceledCount = canceledScheduledTaskCount.incrementAndGet();
+      if (canceledCount >= PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD && 
+          canceledCount >= scheduleQueue.size() / 2) {
+        removeCanceledScheduledTasks();
+      }
+    } else {
+      // execute queue sizes are not constant time, so this count only triggers the compaction
+      if (canceledExecuteTaskCount.incrementAndGet() >= 
+            PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD) {
+        removeCanceledExecuteTasks();
+      }
+    }
+  }
+  
+  /**
+   * Decrements the provided canceled task count, without allowing it to go below zero.  The 
+   * count may be concurrently reset by a compaction, so this must not decrement blindly.
+   * 
+   * @param canceledCount Count to decrement
+   */
+  private static void canceledTaskRemoved(AtomicInteger canceledCount) {
+    while (true) {
+      int count = canceledCount.get();
+      if (count <= 0 || canceledCount.compareAndSet(count, count - 1)) {
+        return;
+      }
+    }
+  }
+  
+  /**
+   * Removes all tasks from the execute queues which have been canceled.  Both queues support 
+   * concurrent removal through their iterators, so this is a single pass over each queue.
+   */
+  protected void removeCanceledExecuteTasks() {
+    canceledExecuteTaskCount.set(0);
+    
+    removeCanceledTasks(executeQueue);
+    removeCanceledTasks(controlledDelayQueue.lifoQueue);
+  }
+  
+  private static void removeCanceledTasks(Collection<? extends TaskWrapper> queue) {
+    Iterator<? extends TaskWrapper> it = queue.iterator();
+    while (it.hasNext()) {
+      if (it.next().canceled) {
+        it.remove();
+      }
+    }
+  }
+  
+  /**
+   * Removes all tasks from the schedule queue which have been canceled.  This results in only a 
+   * single copy of the queue, no matter how many tasks are removed.
+   */
+  protected void removeCanceledScheduledTasks() {
+    synchronized (scheduleQueue.getModificationLock()) {
+      canceledScheduledTaskCount.set(0);
+      
+      Set<TaskWrapper> canceledTasks = null;
+      Iterator<TaskWrapper> it = scheduleQueue.iterator();
+      while (it.hasNext()) {
+        TaskWrapper tw = it.next();
+        if (tw.canceled) {
+          if (canceledTasks == null) {
+            canceledTasks = Collections.newSetFromMap(new IdentityHashMap<TaskWrapper, Boolean>());
+          }
+          canceledTasks.add(tw);
+        }
+      }
+      
+      if (canceledTasks != null) {
+        scheduleQueue.removeAll(canceledTasks);
+      }
+    }
+  }
+
+  /**
+   * Removes a task which was found in the schedule queue.  The modification lock must be held 
+   * while finding and removing the task.  One time tasks are only marked as canceled (see 
+   * {@link #taskCanceled(boolean)}), which avoids copying the queue for each removal.  
+   * Recurring tasks are removed from the queue directly.
+   * 
+   * @param tw Task which was found in the schedule queue
+   */
+  private void removeScheduled(TaskWrapper tw) {
+    if (tw instanceof OneTimeTaskWrapper) {
+      if (tw.task instanceof QueuedListenableFutureTask && 
+          ((QueuedListenableFutureTask<?>)tw.task).removeFromQueue()) {
+        // future has marked the wrapper as canceled
+        return;
+      }
+      tw.cancel();
+      taskCanceled(true);
+    } else {
+      tw.cancel();
+      scheduleQueue.remove(tw);
+    }
+  }
+
+  /**
+   * Removes a given callable from the internal queues (if it exists).
+   * 
+   * @param task Callable to search for and remove
+   * @return {@code true} if the task was found and removed
+   */
+  public boolean remove(Callable<?> task) {
+    {
+      Iterator<? extends TaskWrapper> it = executeQueue.iterator();
+      while (it.hasNext()) {
+        TaskWrapper tw = it.next();
+        if (! tw.canceled && ContainerHelper.isContained(tw.task, task) && 
+            executeQueue.remove(tw)) {
+          tw.cancel();
+          return true;
+        }
+      }
+    }
+    {
+      Iterator<? extends TaskWrapper> it = controlledDelayQueue.lifoQueue.iterator();
+      while (it.hasNext()) {
+        TaskWrapper tw = it.next();
+        if (! tw.canceled && ContainerHelper.isContained(tw.task, task) && 
+            controlledDelayQueue.lifoQueue.remove(tw)) {
+          tw.cancel();
+          return true;
+        }
+      }
+    }
+    synchronized (scheduleQueue.getModificationLock()) {
+      Iterator<? extends TaskWrapper> it = scheduleQueue.iterator();
+      while (it.hasNext()) {
+        TaskWrapper tw = it.next();
+        if (! tw.canceled && ContainerHelper.isContained(tw.task, task)) {
+          removeScheduled(tw);
+          
+          return true;
+        }
+      }
+    }
+    
+    return false;
+  }
+
+  /**
+   * Removes a given Runnable from the internal queues (if it exists).
+   * 
+   * @param task Runnable to search for and remove
+   * @return {@code true} if the task was found and removed
+   */
+  public boolean remove(Runnable task) {
+    {
+      Iterator<? extends TaskWrapper> it = executeQueue.iterator();
+      while (it.hasNext()) {
+        TaskWrapper tw = it.next();
+        if (! tw.canceled && ContainerHelper.isContained(tw.task, task) && 
+            executeQueue.remove(tw)) {
+          tw.cancel();
+          return true;
+        }
+      }
+    }
+    {
+      Iterator<? extends TaskWrapper> it = controlledDelayQueue.lifoQueue.iterator();
+      while (it.hasNext()) {
+        TaskWrapper tw = it.next();
+        if (! tw.canceled && ContainerHelper.isContained(tw.task, task) && 
+            controlledDelayQueue.lifoQueue.remove(tw)) {
+          tw.cancel();
+          return true;
+        }
+      }
+    }
+    synchronized (scheduleQueue.getModificationLock()) {
+      Iterator<? extends TaskWrapper> it = scheduleQueue.iterator();
+      while (it.hasNext()) {
+        TaskWrapper tw = it.next();
+        if (! tw.canceled && ContainerHelper.isContained(tw.task, task)) {
+          removeScheduled(tw);
+          
+          return true;
+        }
+      }
+    }
+    
+    return false;
+  }
+
+  /**
+   * Adds a task for immediate execution.  No safety checks are done at this point, the task 
+   * will be immediately added and available for consumption.
+   * 
+   * @param task Task to add to end of execute queue
+   */
+  public void addExecute(OneTimeTaskWrapper task) {
+    executeQueue.add(task);
+
+    handleQueueUpdate();
+  }
+
+  /**
+   * Adds a task for delayed execution.  No safety checks are done at this point.  This call 
+   * will safely find the insertion point in the scheduled queue and insert it into that 
+   * queue.
+   * 
+   * @param task Task to insert into the schedule queue
+   */
+  public void addScheduled(TaskWrapper task) {
+    synchronized (scheduleQueue.getModificationLock()) {
+      ClockWrapper.stopForcingUpdate();
+      try {
+        int index = ListUtils.getInsertionEndIndex(scheduleQueue, task, true);
+        
+        scheduleQueue.add(index, task);
+      } finally {
+        ClockWrapper.resumeForcingUpdate();
+      }
+    }
+    
+    handleQueueUpdate();
+  }
+
+  /**
+   * Adds a scheduled task to the end of the scheduled queue.  It is expected that this task is 
+   * NOT ready for execution, and will later be moved from invoking 
+   * {@link #reschedule(RecurringTaskWrapper)}.
+   * 
+   * @param task Task to add to end of schedule queue
+   */
+  public void addScheduledLast(RecurringTaskWrapper task) {
+    scheduleQueue.addLast(task);
+    // no need to notify since this task wont be ready to run
+  }
+
+  /**
+   * Call to find and reposition a scheduled task.  It is expected that the task provided has 
+   * already been added to the queue (likely from a call to 
+   * {@link #addScheduledLast(RecurringTaskWrapper)}).  This call will use 
+   * {@link RecurringTaskWrapper#getNextDelayInMillis()} to figure out what the new position 
+   * within the queue should be.
+   * 
+   * @param task Task to find in queue and reposition based off next delay
+   */
+  public void reschedule(RecurringTaskWrapper task) {
+    synchronized (scheduleQueue.getModificationLock()) {
+      if (! workerPool.isShutdownStarted()) {
+        ClockWrapper.stopForcingUpdate();
+        try {
+          long nextDelay = task.getNextDelayInMillis();
+          int insertionIndex = ListUtils.getInsertionEndIndex(scheduleQueue, nextDelay, true);
+          
+          scheduleQueue.reposition(task, insertionIndex, true);
+        } finally {
+          ClockWrapper.resumeForcingUpdate();
+        }
+      }
+    }
+    
+    // need to unpark even if the task is not ready, otherwise we may get stuck on an infinite park
+    handleQueueUpdate();
+  }
+
+  /**
+   * Called to check if either queue has anything to run.  This is just if the queues are empty.  
+   * If there are scheduled tasks queued, but not ready to run, this will still return 
+   * {@code false}.
+   * 
+   * @return {@code true} if there are no tasks in either queue
+   */
+  public boolean isQueueEmpty() {
+    return executeQueue.isEmpty() && scheduleQueue.isEmpty() && 
+             controlledDelayQueue.lifoQueue.isEmpty();
+  }
+
+  /**
+   * Call to get the total quantity of tasks within both stored queues.  If you can, 
+   * {@link #isQueueEmpty()} is a more efficient call.  This returns the total amount of items 
+   * in both the execute and scheduled queue.  If there are scheduled tasks which are NOT ready 
+   * to run, they will still be included in this total.
+   * 
+   * @return Total quantity of tasks queued
+   */
+  public int queueSize() {
+    // canceled tasks may still be in the schedule queue waiting to be compacted
+    int scheduledCount = Math.max(0, scheduleQueue.size() - canceledScheduledTaskCount.get());
+    
+    return scheduledCount + executeQueue.size() + controlledDelayQueue.lifoQueue.size();
+  }
+
+  /**
+   * Returns how long the oldest task which is ready to run in this queue has been waiting.
+   * 
+   * @param now Current time from {@link Clock#accurateForwardProgressingMillis()}
+   * @return Time in milliseconds the oldest ready task has waited, or zero if none are waiting
+   */
+  public long getQueueDelay(long now) {
+    long result = 0;
+    OneTimeTaskWrapper nextExecuteTask = controlledDelayQueue.peekOldestWaiting();
+    if (nextExecuteTask != null) {
+      result = now - nextExecuteTask.runTime;
+    }
+    TaskWrapper nextScheduledTask = scheduleQueue.peekFirst();
+    if (nextScheduledTask != null) {
+      result = Math.max(result, -nextScheduledTask.getDelay(TimeUnit.MILLISECONDS));
+    }
+    
+    return Math.max(0, result);
+  }
+
+  public void stopAndDrainQueueInto(List<Runnable> removedTasks) {
+    stopIfRunning();
+    
+    clearQueue(executeQueue, removedTasks);
+    clearQueue(controlledDelayQueue.lifoQueue, removedTasks);
+    synchronized (scheduleQueue.getModificationLock()) {
+      clearQueue(scheduleQueue, removedTasks);
+    }
+  }
+
+  private static void clearQueue(Collection<? extends TaskWrapper> queue, List<Runnable> resultList) {
+    Iterator<? extends TaskWrapper> it = queue.iterator();
+    while (it.hasNext()) {
+      TaskWrapper tw = it.next();
+      if (tw.canceled) {
+        // already removed, the wrapper was only left in the queue to be skipped
+        continue;
+      }
+      tw.cancel();
+      if (resultList != null && ! (tw.task instanceof ShutdownRunnable)) {
+        resultList.add(tw.task);
+      }
+    }
+    queue.clear();
+  }
+
+  @Override
+  protected void startupService() {
+    runningThread = workerPool.threadFactory.newThread(this);
+    if (runningThread.isAlive()) {
+      throw new IllegalThreadStateException();
+    }
+    runningThread.setDaemon(true);
+    runningThread.setName(threadName);
+    runningThread.start();
+  }
+
+  @Override
+  protected void shutdownService() {
+    Thread runningThread = this.runningThread;
+    this.runningThread = null;
+    runningThread.interrupt();
+  }
+  
+  /**
+   * Called when the queue has been updated and we may need to wake up the consumer thread.
+   */
+  protected void handleQueueUpdate() {
+    if (! startIfNotStarted()) {
+      Thread currRunningThread = runningThread;
+      if (currRunningThread != null) {
+        LockSupport.unpark(currRunningThread);
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    while (runningThread != null) {
+      try {
+        TaskWrapper nextTask = getNextTask();
+        if (nextTask != null) {
+          switch (queuePriority) {
+            case High:
+              workerPool.runHighPriorityTask(nextTask);
+              break;
+            case Low:
+              workerPool.runLowPriorityTask(nextTask);
+              break;
+            default:
+              throw new UnsupportedOperationException();
+          }
+        }
+      } catch (InterruptedException e) {
+        stopIfRunning();
+        Thread.currentThread().interrupt();
+      } catch (Throwable t) {
+        ExceptionUtils.handleException(t);
+      }
+    }
+  }
+  
+  protected TaskWrapper getNextTask() throws InterruptedException {
+    while (runningThread != null) {  // loop till we have something to return
+      TaskWrapper nextScheduledTask = scheduleQueue.peekFirst();
+      TaskWrapper nextExecuteTask = controlledDelayQueue.peek();
+      if (nextExecuteTask != null) {
+        if (nextScheduledTask != null) {
+          long scheduleDelay;
+          long executeDelay;
+          ClockWrapper.stopForcingUpdate();
+          try {
+            scheduleDelay = nextScheduledTask.getDelay(TimeUnit.MILLISECONDS);
+            executeDelay = nextExecuteTask.getDelay(TimeUnit.MILLISECONDS);
+          } finally {
+            ClockWrapper.resumeForcingUpdate();
+          }
+          if (scheduleDelay < executeDelay) {
+            if (removeScheduledTask(nextScheduledTask)) {
+              return nextScheduledTask;
+            }
+          } else if (removeExecuteTask(nextExecuteTask)) {
+            return nextExecuteTask;
+          }
+        } else if (removeExecuteTask(nextExecuteTask)) {
+          return nextExecuteTask;
+        }
+      } else if (nextScheduledTask != null) {
+        if (nextScheduledTask.getDelay(TimeUnit.MILLISECONDS) <= 0) {
+          if (removeScheduledTask(nextScheduledTask)) {
+            return nextScheduledTask;
+          }
+        } else {
+          workerPool.handleEstimatedTimeTillNextTask(this, nextScheduledTask.getDelayEstimateInMs());
+          LockSupport.parkNanos(Clock.NANOS_IN_MILLISECOND * nextScheduledTask.getDelay(TimeUnit.MILLISECONDS));
+        }
+      } else {
+        workerPool.handleEstimatedTimeTillNextTask(this, Long.MAX_VALUE);
+        LockSupport.park();
+      }
+      
+      if (Thread.currentThread().isInterrupted()) {
+        throw new InterruptedException();
+      }
+    }
+    
+    return null;
+  }
+  
+  /**
+   * Attempts to remove a task from the head of the execute queue.  If the task was removed, but 
+   * was found to be canceled, this will return {@code false} so that it is skipped rather than 
+   * provided to a worker.
+   * 
+   * @param task Task which was peeked from the execute queue
+   * @return {@code true} if the task was removed and is ready to be executed
+   */
+  private boolean removeExecuteTask(TaskWrapper task) {
+    // if we can remove the task (aka it has not been removed already), we can execute it
+    if (controlledDelayQueue.removePeeked(task)) {
+      if (task.canceled) {
+        canceledTaskRemoved(canceledExecuteTaskCount);
+        
+        return false;
+      } else {
+        task.executing();
+        return true;
+      }
+    } else {
+      return false;
+    }
+  }
+  
+  /**
+   * Attempts to remove a task from the head of the schedule queue.  If the task was removed, but 
+   * was found to be canceled, this will return {@code false} so that it is skipped rather than 
+   * provided to a worker.
+   * 
+   * @param task Task which was peeked from the schedule queue
+   * @return {@code true} if the task was removed and is ready to be executed
+   */
+  private boolean removeScheduledTask(TaskWrapper task) {
+    synchronized (scheduleQueue.getModificationLock()) {
+      // scheduled tasks must be removed, and call .executing() while holding the lock
+      if (scheduleQueue.remove(task)) {
+        if (task.canceled) {
+          canceledTaskRemoved(canceledScheduledTaskCount);
+          
+          return false;
+        } else {
+          task.executing();
+          return true;
+        }
+      } else {
+        return false;
+      }
+    }
+  }
+}
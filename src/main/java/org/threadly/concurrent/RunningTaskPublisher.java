@@ -0,0 +1,123 @@
+package org.threadly.concurrent;
+
+/**
+ * <p>Used by pool threads to publish the task they are currently running, so that a profiler can 
+ * attribute samples to the type of task rather than only to the thread.  Publishing is disabled 
+ * until a {@link SlotProvider} is installed with {@link #setSlotProvider(SlotProvider)} (the 
+ * profilers in {@code org.threadly.util.debug} install one once task attribution is enabled).  
+ * Until then publishing a task is only a single volatile read, and nothing is written.</p>
+ * 
+ * <p>An instance should be constructed for, and only used by, a single thread.  It caches the 
+ * slot for that thread so that a provider is only consulted when it has changed.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class RunningTaskPublisher {
+  private static volatile SlotProvider slotProvider = null;
+  
+  /**
+   * Sets the provider which threads will get their slots from.  Setting to {@code null} disables 
+   * publishing, though any tasks currently published will still be restored when they complete.
+   * 
+   * @param provider Provider of slots for threads to publish to, or {@code null} to disable
+   */
+  public static void setSlotProvider(SlotProvider provider) {
+    slotProvider = provider;
+  }
+  
+  /**
+   * Returns the currently installed slot provider.
+   * 
+   * @return Installed provider, or {@code null} if publishing is disabled
+   */
+  public static SlotProvider getSlotProvider() {
+    return slotProvider;
+  }
+  
+  private SlotProvider currentProvider;
+  private TaskSlot slot;
+  
+  /**
+   * Constructs a new {@link RunningTaskPublisher} for the invoking thread.
+   */
+  public RunningTaskPublisher() {
+    currentProvider = null;
+    slot = null;
+  }
+  
+  /**
+   * Publishes the task the owning thread is about to run.  Once the task completes 
+   * {@link #restore(Object)} should be invoked with the returned task.
+   * 
+   * @param task Task being run
+   * @return Previously published task, or {@code null} if there was none or publishing is disabled
+   */
+  public Object publish(Object task) {
+    SlotProvider provider = slotProvider;
+    if (provider != currentProvider) {
+      currentProvider = provider;
+      slot = provider == null ? null : provider.getCurrentThreadSlot();
+    }
+    if (slot == null) {
+      return null;
+    }
+    
+    Object previousTask = slot.getTask();
+    slot.setTask(task);
+    
+    return previousTask;
+  }
+  
+  /**
+   * Restores the task which was published before the last invocation of 
+   * {@link #publish(Object)}.  The slot the task was published to is restored, even if the 
+   * provider has since changed.
+   * 
+   * @param previousTask Task returned from {@link #publish(Object)}
+   */
+  public void restore(Object previousTask) {
+    if (slot != null) {
+      slot.setTask(previousTask);
+    }
+  }
+  
+  /**
+   * <p>Provides the slot each thread will publish its running tasks to.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public interface SlotProvider {
+    /**
+     * Returns the slot for the invoking thread.  This is only invoked the first time a 
+     * {@link RunningTaskPublisher} publishes with this provider, so it does not need to be cheap.
+     * 
+     * @return Slot for the invoking thread
+     */
+    public TaskSlot getCurrentThreadSlot();
+  }
+  
+  /**
+   * <p>Holds the task currently being run by a single thread.  Only the owning thread should 
+   * publish to the slot, but it can be read from any thread.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public interface TaskSlot {
+    /**
+     * Sets the task currently being run by the owning thread.
+     * 
+     * @param task Task being run, or {@code null} if no task is running
+     */
+    public void setTask(Object task);
+    
+    /**
+     * Returns the task currently published to this slot.
+     * 
+     * @return Published task, or {@code null} if no task is running
+     */
+    public Object getTask();
+  }
+}
@@ -0,0 +1,210 @@
+package org.threadly.concurrent;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+
+import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.ExceptionHandlerInterface;
+import org.threadly.util.ExceptionUtils;
+
+/**
+ * <p>A {@link NoThreadScheduler} which also handles I/O readiness from a 
+ * {@link java.nio.channels.Selector}.  This allows a single thread to act as a reactor, running 
+ * both scheduled tasks and I/O callbacks without needing to hand off between a selector thread 
+ * and a task thread.</p>
+ * 
+ * <p>When constructed to block, {@link #tick(ExceptionHandlerInterface)} will wait inside 
+ * {@link Selector#select(long)}, with the timeout set to the delay of the next scheduled task.  
+ * Submitting a task (or invoking {@link #cancelTick()}) will invoke {@link Selector#wakeup()} so 
+ * that the tick thread can run it.  While tasks are being run the selector is also checked with 
+ * {@link Selector#selectNow()}, so a steady stream of tasks does not starve I/O handling.</p>
+ * 
+ * <p>Channels should be registered with {@link #register(SelectableChannel, int, SelectionHandler)}, 
+ * which performs the registration on the tick thread (registering while another thread is blocked 
+ * in a select may block).  Once a channel is ready the {@link SelectionHandler} attached to its 
+ * key is invoked on the tick thread.  Selected keys without a {@link SelectionHandler} attached 
+ * are ignored.</p>
+ * 
+ * <p>The selector is provided by, and still owned by, the creator.  It is not closed by this 
+ * scheduler.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class SelectorNoThreadScheduler extends NoThreadScheduler {
+  protected final Selector selector;
+  
+  /**
+   * Constructs a new {@link SelectorNoThreadScheduler}.
+   * 
+   * @param selector Selector to wait on and to handle the selected keys from
+   * @param tickBlocksTillAvailable {@code true} if calls to {@link #tick(ExceptionHandlerInterface)} 
+   *                                  should block till there is something to run
+   */
+  public SelectorNoThreadScheduler(Selector selector, boolean tickBlocksTillAvailable) {
+    this(selector, tickBlocksTillAvailable, false);
+  }
+  
+  /**
+   * Constructs a new {@link SelectorNoThreadScheduler}.  See 
+   * {@link NoThreadScheduler#NoThreadScheduler(boolean, boolean)} for details about batching 
+   * ticks.
+   * 
+   * @param selector Selector to wait on and to handle the selected keys from
+   * @param tickBlocksTillAvailable {@code true} if calls to {@link #tick(ExceptionHandlerInterface)} 
+   *                                  should block till there is something to run
+   * @param batchTicks {@code true} to drain and run ready tasks in batches
+   */
+  public SelectorNoThreadScheduler(Selector selector, 
+                                   boolean tickBlocksTillAvailable, boolean batchTicks) {
+    super(tickBlocksTillAvailable, batchTicks);
+    
+    ArgumentVerifier.assertNotNull(selector, "selector");
+    
+    this.selector = selector;
+  }
+  
+  /**
+   * Returns the selector this scheduler is handling.
+   * 
+   * @return Selector provided at construction
+   */
+  public Selector getSelector() {
+    return selector;
+  }
+  
+  /**
+   * Registers a channel with the selector.  The registration is done on the tick thread, so the 
+   * returned future will not complete till the next {@link #tick(ExceptionHandlerInterface)}.  
+   * The channel must already be configured to be non-blocking.
+   * 
+   * @param channel Channel to register
+   * @param interestOps Operations to select the channel for, for example {@link SelectionKey#OP_READ}
+   * @param handler Handler to invoke on the tick thread once the channel is ready
+   * @return Future which will complete with the key for the registration
+   */
+  public ListenableFuture<SelectionKey> register(final SelectableChannel channel, 
+                                                 final int interestOps, 
+                                                 final SelectionHandler handler) {
+    ArgumentVerifier.assertNotNull(channel, "channel");
+    ArgumentVerifier.assertNotNull(handler, "handler");
+    
+    return submit(new Callable<SelectionKey>() {
+      @Override
+      public SelectionKey call() throws IOException {
+        return channel.register(selector, interestOps, handler);
+      }
+    });
+  }
+  
+  @Override
+  protected void notifyQueueUpdate() {
+    selector.wakeup();
+  }
+  
+  @Override
+  protected int runReadyTasks(ExceptionHandlerInterface exceptionHandler) {
+    int tasks = super.runReadyTasks(exceptionHandler);
+    
+    if (! tickCanceled) {
+      try {
+        selector.selectNow();
+      } catch (IOException e) {
+        throw ExceptionUtils.makeRuntime(e);
+      }
+      tasks += handleSelectedKeys(exceptionHandler);
+    }
+    
+    return tasks;
+  }
+  
+  @Override
+  protected boolean waitForTasks() throws InterruptedException {
+    if (tickCanceled) {
+      return false;
+    }
+    
+    long timeout;
+    TaskContainer nextTask = getNextTask(false);
+    if (nextTask == null) {
+      timeout = 0;  // wait forever
+    } else {
+      timeout = nextTask.getDelayInMillis();
+      if (timeout <= 0) {
+        // next task is ready to run
+        return true;
+      }
+    }
+    
+    try {
+      /* a wakeup which happens before we start the select will cause it to return immediately, 
+       * so there is no need to hold a lock while checking for tasks.
+       */
+      selector.select(timeout);
+    } catch (IOException e) {
+      throw ExceptionUtils.makeRuntime(e);
+    }
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    
+    return true;
+  }
+  
+  /**
+   * Invokes the handlers for all keys which have been selected.  Each key is removed from the 
+   * selected set before its handler is invoked, so if a handler throws the remaining keys will be 
+   * handled on the next tick.
+   * 
+   * @param exceptionHandler Exception handler to provide handler failures to, or {@code null}
+   * @return quantity of handlers invoked
+   */
+  protected int handleSelectedKeys(ExceptionHandlerInterface exceptionHandler) {
+    int handled = 0;
+    Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+    while (it.hasNext() && ! tickCanceled) {
+      SelectionKey key = it.next();
+      it.remove();
+      Object attachment = key.attachment();
+      if (! key.isValid() || ! (attachment instanceof SelectionHandler)) {
+        continue;
+      }
+      
+      try {
+        ((SelectionHandler)attachment).handleSelection(key);
+      } catch (Throwable t) {
+        if (exceptionHandler != null) {
+          exceptionHandler.handleException(t);
+        } else {
+          throw ExceptionUtils.makeRuntime(t);
+        }
+      }
+      
+      handled++;
+    }
+    
+    return handled;
+  }
+  
+  /**
+   * <p>Handler invoked on the tick thread once a registered channel is ready.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public interface SelectionHandler {
+    /**
+     * Invoked when the key has been selected.  The ready operations can be checked with 
+     * {@link SelectionKey#readyOps()}.
+     * 
+     * @param key Key which was selected
+     * @throws IOException Thrown if the handler failed to handle the selection
+     */
+    public void handleSelection(SelectionKey key) throws IOException;
+  }
+}
@@ -8,6 +8,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.threadly.concurrent.future.ListenableFuture;
 import org.threadly.util.ArgumentVerifier;
 import org.threadly.util.ExceptionUtils;
 
@@ -216,6 +217,26 @@ public class SingleThreadScheduler extends AbstractSubmitterScheduler
     return getSchedulerManager().scheduler.remove(task);
   }
 
+  @Override
+  public <T> ListenableFuture<T> submit(Runnable task, T result) {
+    return getRunningScheduler().submit(task, result);
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submit(Callable<T> task) {
+    return getRunningScheduler().submit(task);
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Runnable task, T result, long delayInMs) {
+    return getRunningScheduler().submitScheduled(task, result, delayInMs);
+  }
+
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Callable<T> task, long delayInMs) {
+    return getRunningScheduler().submitScheduled(task, delayInMs);
+  }
+
   @Override
   protected void doSchedule(Runnable task, long delayInMillis) {
     getRunningScheduler().doSchedule(task, delayInMillis);
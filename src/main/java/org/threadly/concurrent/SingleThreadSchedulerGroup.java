@@ -0,0 +1,233 @@
+package org.threadly.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>A group of {@link SingleThreadScheduler} loops, where tasks are routed to a loop by the hash 
+ * of a key.  All tasks for a given key will run on the same thread, and in the order they were 
+ * submitted (or scheduled to run).  Unlike {@link KeyDistributedScheduler}, each loop has its 
+ * own queue and thread, so there is no shared lock or extra hop to maintain ordering, allowing 
+ * the group to scale across all cores.</p>
+ * 
+ * <p>Since keys are distributed by hash, one busy key will delay any other keys which share its 
+ * loop.  If keys have very uneven amounts of work, a {@link KeyDistributedScheduler} on top of a 
+ * {@link PriorityScheduler} may be a better fit.</p>
+ * 
+ * <p>Unless a {@link ThreadFactory} is provided, loop threads are named with the prefix and the 
+ * index of the loop (for example {@code "io-loop-3"}).  These names are stable for the life of 
+ * the group, which makes it easy to find a loop's thread from outside of the JVM (for example to 
+ * pin it to a CPU).  Like {@link SingleThreadScheduler}, threads are not started till the first 
+ * task is provided to their loop.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class SingleThreadSchedulerGroup {
+  private static final AtomicInteger NEXT_GROUP_NUMBER = new AtomicInteger(1);
+  
+  protected final SingleThreadScheduler[] loops;
+  protected final LoopSubmitter[] submitters;
+  
+  /**
+   * Constructs a new {@link SingleThreadSchedulerGroup}.  This defaults to using daemon threads.
+   * 
+   * @param loopCount Quantity of loops (and thus threads) to distribute keys across
+   */
+  public SingleThreadSchedulerGroup(int loopCount) {
+    this(loopCount, true);
+  }
+  
+  /**
+   * Constructs a new {@link SingleThreadSchedulerGroup}.
+   * 
+   * @param loopCount Quantity of loops (and thus threads) to distribute keys across
+   * @param daemonThreads {@code true} if loop threads should be daemon threads
+   */
+  public SingleThreadSchedulerGroup(int loopCount, boolean daemonThreads) {
+    this(loopCount, SingleThreadSchedulerGroup.class.getSimpleName() + "-" + 
+                      NEXT_GROUP_NUMBER.getAndIncrement() + "-loop-", daemonThreads);
+  }
+  
+  /**
+   * Constructs a new {@link SingleThreadSchedulerGroup}.  Each loop thread will be named with the 
+   * provided prefix followed by the index of the loop.
+   * 
+   * @param loopCount Quantity of loops (and thus threads) to distribute keys across
+   * @param threadNamePrefix Prefix for the name of each loop thread
+   * @param daemonThreads {@code true} if loop threads should be daemon threads
+   */
+  public SingleThreadSchedulerGroup(int loopCount, String threadNamePrefix, 
+                                    boolean daemonThreads) {
+    ArgumentVerifier.assertGreaterThanZero(loopCount, "loopCount");
+    ArgumentVerifier.assertNotNull(threadNamePrefix, "threadNamePrefix");
+    
+    loops = new SingleThreadScheduler[loopCount];
+    for (int i = 0; i < loopCount; i++) {
+      ThreadFactory factory = new ConfigurableThreadFactory(threadNamePrefix, false, daemonThreads, 
+                                                            Thread.NORM_PRIORITY, null, null);
+      loops[i] = new SingleThreadScheduler(new LoopThreadFactory(factory, threadNamePrefix + i));
+    }
+    submitters = makeSubmitters(loops);
+  }
+  
+  /**
+   * Constructs a new {@link SingleThreadSchedulerGroup}.  Each loop will request its thread from 
+   * the provided factory.
+   * 
+   * @param loopCount Quantity of loops (and thus threads) to distribute keys across
+   * @param threadFactory Factory to make the thread for each loop
+   */
+  public SingleThreadSchedulerGroup(int loopCount, ThreadFactory threadFactory) {
+    ArgumentVerifier.assertGreaterThanZero(loopCount, "loopCount");
+    ArgumentVerifier.assertNotNull(threadFactory, "threadFactory");
+    
+    loops = new SingleThreadScheduler[loopCount];
+    for (int i = 0; i < loopCount; i++) {
+      loops[i] = new SingleThreadScheduler(threadFactory);
+    }
+    submitters = makeSubmitters(loops);
+  }
+  
+  private static LoopSubmitter[] makeSubmitters(SingleThreadScheduler[] loops) {
+    LoopSubmitter[] result = new LoopSubmitter[loops.length];
+    for (int i = 0; i < loops.length; i++) {
+      result[i] = new LoopSubmitter(loops[i]);
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Returns the quantity of loops keys are distributed across.
+   * 
+   * @return Quantity of loops in this group
+   */
+  public int getLoopCount() {
+    return loops.length;
+  }
+  
+  /**
+   * Returns the index of the loop tasks for the provided key will run on.
+   * 
+   * @param key Key to use {@code hashCode()} from to determine loop
+   * @return Index of the loop for the key, from {@code 0} to {@code getLoopCount() - 1}
+   */
+  public int getLoopIndexForKey(Object key) {
+    ArgumentVerifier.assertNotNull(key, "key");
+    
+    return (key.hashCode() & Integer.MAX_VALUE) % loops.length;
+  }
+  
+  /**
+   * Returns a scheduler which will run all tasks on the loop for the provided key.  Tasks 
+   * provided to the returned scheduler will run in order (or the order of their scheduled 
+   * delays), and will never run concurrently with any other tasks for the same key.  The 
+   * returned scheduler can only submit tasks, the loop can only be shutdown through this group.
+   * 
+   * @param key Key to use {@code hashCode()} from to determine loop
+   * @return Scheduler which runs tasks on the loop for the key
+   */
+  public SubmitterSchedulerInterface getSubmitterSchedulerForKey(Object key) {
+    return submitters[getLoopIndexForKey(key)];
+  }
+  
+  /**
+   * Stops any new tasks from being submitted to any of the loops.  Queued tasks will still run, 
+   * and this call will not block for the loops to finish.  See 
+   * {@link SingleThreadScheduler#shutdown()}.
+   */
+  public void shutdown() {
+    for (int i = 0; i < loops.length; i++) {
+      loops[i].shutdown();
+    }
+  }
+  
+  /**
+   * Stops any new tasks from being submitted to any of the loops, and prevents any queued tasks 
+   * from running.  See {@link SingleThreadScheduler#shutdownNow()}.
+   * 
+   * @return Tasks which were waiting in any of the loops at time of shutdown
+   */
+  public List<Runnable> shutdownNow() {
+    List<Runnable> result = new ArrayList<Runnable>();
+    for (int i = 0; i < loops.length; i++) {
+      result.addAll(loops[i].shutdownNow());
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Checks if the group has been shutdown.
+   * 
+   * @return {@code true} if {@link #shutdown()} or {@link #shutdownNow()} has been invoked
+   */
+  public boolean isShutdown() {
+    for (int i = 0; i < loops.length; i++) {
+      if (! loops[i].isShutdown()) {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+  /**
+   * <p>Scheduler which submits tasks to a single loop.  This is provided instead of the loop so 
+   * that the loop can not be shutdown independently of the group.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class LoopSubmitter extends AbstractSubmitterScheduler {
+    private final SingleThreadScheduler loop;
+    
+    protected LoopSubmitter(SingleThreadScheduler loop) {
+      this.loop = loop;
+    }
+    
+    @Override
+    protected void doSchedule(Runnable task, long delayInMillis) {
+      loop.schedule(task, delayInMillis);
+    }
+    
+    @Override
+    public void scheduleWithFixedDelay(Runnable task, long initialDelay, long recurringDelay) {
+      loop.scheduleWithFixedDelay(task, initialDelay, recurringDelay);
+    }
+    
+    @Override
+    public void scheduleAtFixedRate(Runnable task, long initialDelay, long period) {
+      loop.scheduleAtFixedRate(task, initialDelay, period);
+    }
+  }
+  
+  /**
+   * <p>Thread factory which gives the single thread for a loop a fixed name.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class LoopThreadFactory implements ThreadFactory {
+    private final ThreadFactory parentFactory;
+    private final String threadName;
+    
+    protected LoopThreadFactory(ThreadFactory parentFactory, String threadName) {
+      this.parentFactory = parentFactory;
+      this.threadName = threadName;
+    }
+    
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = parentFactory.newThread(r);
+      t.setName(threadName);
+      
+      return t;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package org.threadly.concurrent;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.concurrent.future.ListenableFutureTask;
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.ExceptionUtils;
+
+/**
+ * <p>A {@link SubmitterExecutorInterface} which groups all tasks submitted through it into a 
+ * single scope.  The scope can be closed with {@link #close()}, or optionally will close itself 
+ * on the first task failure.  When the scope is closed every member task is canceled at once, 
+ * tasks which are currently running are interrupted, and no further tasks will be accepted.</p>
+ * 
+ * <p>Canceling a scope never searches the delegate executor's queue.  Pending members are only 
+ * marked canceled, and when the executor eventually dequeues them they return immediately 
+ * without running.  This makes aborting a large fan out of sibling tasks cheap compared to 
+ * tracking each future and calling {@link PriorityScheduler#remove(Runnable)}.</p>
+ * 
+ * <p>Tasks provided to {@link #execute(Runnable)} which throw an exception will have that 
+ * exception provided to {@link ExceptionUtils#handleException(Throwable)}, the same as if they 
+ * were run directly on a threadly pool.  Failures of submitted tasks are provided through the 
+ * returned future.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class TaskScope implements SubmitterExecutorInterface {
+  protected final Executor executor;
+  protected final boolean cancelOnFailure;
+  protected final Set<ScopedTask<?>> members;
+  private final AtomicReference<Throwable> firstFailure;
+  private volatile boolean closed;
+  
+  /**
+   * Constructs a new {@link TaskScope} which will close itself on the first task failure.
+   * 
+   * @param executor Executor to run member tasks on
+   */
+  public TaskScope(Executor executor) {
+    this(executor, true);
+  }
+  
+  /**
+   * Constructs a new {@link TaskScope}.
+   * 
+   * @param executor Executor to run member tasks on
+   * @param cancelOnFailure {@code true} to close the scope on the first task failure
+   */
+  public TaskScope(Executor executor, boolean cancelOnFailure) {
+    ArgumentVerifier.assertNotNull(executor, "executor");
+    
+    this.executor = executor;
+    this.cancelOnFailure = cancelOnFailure;
+    this.members = Collections.newSetFromMap(new ConcurrentHashMap<ScopedTask<?>, Boolean>());
+    this.firstFailure = new AtomicReference<Throwable>(null);
+    this.closed = false;
+  }
+  
+  @Override
+  public void execute(Runnable task) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    doExecute(new ScopedTask<Object>(task, null, true));
+  }
+  
+  @Override
+  public ListenableFuture<?> submit(Runnable task) {
+    return submit(task, null);
+  }
+  
+  @Override
+  public <T> ListenableFuture<T> submit(Runnable task, T result) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    ScopedTask<T> st = new ScopedTask<T>(task, result, false);
+    
+    doExecute(st);
+    
+    return st;
+  }
+  
+  @Override
+  public <T> ListenableFuture<T> submit(Callable<T> task) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    ScopedTask<T> st = new ScopedTask<T>(task);
+    
+    doExecute(st);
+    
+    return st;
+  }
+  
+  private void doExecute(ScopedTask<?> task) {
+    if (closed) {
+      throw new RejectedExecutionException("TaskScope closed");
+    }
+    
+    members.add(task);
+    if (closed) {
+      // closed while we were adding, make sure the task does not escape cancellation
+      members.remove(task);
+      task.cancel(false);
+      throw new RejectedExecutionException("TaskScope closed");
+    }
+    
+    try {
+      executor.execute(task);
+    } catch (RuntimeException e) {
+      members.remove(task);
+      throw e;
+    }
+  }
+  
+  /**
+   * Closes the scope, canceling all member tasks which have not completed.  Pending tasks will 
+   * be skipped once they are dequeued by the executor, and running tasks will be interrupted.  
+   * After this call any attempt to submit new tasks will throw a 
+   * {@link RejectedExecutionException}.  Calling this multiple times has no additional effect.
+   */
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    
+    Iterator<ScopedTask<?>> it = members.iterator();
+    while (it.hasNext()) {
+      it.next().cancel(true);
+      it.remove();
+    }
+  }
+  
+  /**
+   * Check if the scope has been closed, either explicitly or due to a task failure.
+   * 
+   * @return {@code true} if the scope is closed and no longer accepting tasks
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+  
+  /**
+   * Returns the first failure thrown from a member task, if any.  If this scope was constructed 
+   * to cancel on failure, this is the failure which caused the scope to close.
+   * 
+   * @return First failure from a member task, or {@code null} if no task has failed
+   */
+  public Throwable getFailure() {
+    return firstFailure.get();
+  }
+  
+  /**
+   * Returns how many member tasks are either waiting to run or currently running.
+   * 
+   * @return Quantity of member tasks which have not completed
+   */
+  public int getActiveCount() {
+    return members.size();
+  }
+  
+  /**
+   * Invoked when a member task throws an exception.
+   * 
+   * @param t Failure thrown from the task
+   */
+  protected void handleFailure(Throwable t) {
+    firstFailure.compareAndSet(null, t);
+    
+    if (cancelOnFailure) {
+      close();
+    }
+  }
+  
+  /**
+   * <p>Task which is a member of this scope.  It removes itself from the scope once complete, and 
+   * reports failures back to the scope.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> The result object type returned by this future
+   */
+  protected class ScopedTask<T> extends ListenableFutureTask<T> {
+    private final boolean reportFailure;
+    
+    protected ScopedTask(Runnable task, T result, boolean reportFailure) {
+      super(false, task, result);
+      
+      this.reportFailure = reportFailure;
+    }
+    
+    protected ScopedTask(Callable<T> task) {
+      super(false, task);
+      
+      this.reportFailure = false;
+    }
+    
+    @Override
+    public void run() {
+      try {
+        super.run();
+      } finally {
+        members.remove(this);
+      }
+    }
+    
+    @Override
+    protected void setException(Throwable t) {
+      super.setException(t);
+      
+      if (! isCancelled()) {
+        if (reportFailure) {
+          ExceptionUtils.handleException(t);
+        }
+        handleFailure(t);
+      }
+    }
+  }
+}
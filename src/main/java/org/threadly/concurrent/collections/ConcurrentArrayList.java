@@ -1,5 +1,6 @@
 package org.threadly.concurrent.collections;
 
+import java.util.AbstractList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Deque;
@@ -699,6 +700,48 @@ public class ConcurrentArrayList<T> implements List<T>, Deque<T>, RandomAccess {
     }
   }
 
+  /**
+   * Applies multiple modifications to the list while only publishing a single new version of the 
+   * internal data.  The current data is copied once into a private buffer, which is provided to 
+   * the updater as a {@link MutableView}.  Modifications to the view do not require any 
+   * additional copies (unless the buffer needs to grow), and do not become visible to other 
+   * threads until the updater returns.  The modification lock is held for the duration of the 
+   * update, so the updater should be quick.
+   * 
+   * <p>If the updater throws an exception, none of its modifications will be applied.  The view 
+   * may not be used once the updater has returned.</p>
+   * 
+   * <p>For example, trimming the list down to a max size can be done with a single copy:</p>
+   * <pre>{@code
+   * list.batchUpdate(new BatchUpdater<Long>() {
+   *   public void update(MutableView<Long> view) {
+   *     if (view.size() > maxSize) {
+   *       view.subList(0, view.size() - maxSize).clear();
+   *     }
+   *   }
+   * });
+   * }</pre>
+   * 
+   * @since 3.7.0
+   * @param updater Updater to apply modifications to the list
+   */
+  public void batchUpdate(BatchUpdater<T> updater) {
+    ArgumentVerifier.assertNotNull(updater, "updater");
+    
+    synchronized (modificationLock) {
+      MutableView<T> view = new MutableView<T>(currentData);
+      try {
+        updater.update(view);
+      } finally {
+        view.closed = true;
+      }
+      
+      if (view.modified) {
+        currentData = view.makeDataSet();
+      }
+    }
+  }
+
   @Override
   public Iterator<T> iterator() {
     return listIterator();
@@ -924,6 +967,191 @@ public class ConcurrentArrayList<T> implements List<T>, Deque<T>, RandomAccess {
     }
   }
   
+  /**
+   * <p>Interface for applying a batch of modifications to a {@link ConcurrentArrayList} through 
+   * {@link ConcurrentArrayList#batchUpdate(BatchUpdater)}.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> type of object held in the list
+   */
+  public interface BatchUpdater<T> {
+    /**
+     * Invoked with the mutable view of the list.  All modifications made to the view will be 
+     * published to the list as a single update once this returns.
+     * 
+     * @param view Private mutable copy of the list's data
+     */
+    public void update(MutableView<T> view);
+  }
+  
+  /**
+   * <p>Private mutable copy of the data for a {@link ConcurrentArrayList}, provided during 
+   * {@link ConcurrentArrayList#batchUpdate(BatchUpdater)}.  Modifications at either end of the 
+   * view are done in place using the list's padding, and removing a range (for example with 
+   * {@code subList(0, count).clear()}) is done without any array copy when it is at the front of 
+   * the view.  Like the list itself, nulls can not be added to the view.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> type of object held in the list
+   */
+  public static class MutableView<T> extends AbstractList<T> implements RandomAccess {
+    private final int frontPadding;
+    private final int rearPadding;
+    private Object[] buffer;
+    private int startIndex; // inclusive
+    private int endIndex;   // exclusive
+    private boolean modified;
+    private boolean closed;
+    
+    protected MutableView(DataSet<T> source) {
+      this.frontPadding = source.frontPadding;
+      this.rearPadding = source.rearPadding;
+      this.buffer = new Object[source.size + frontPadding + rearPadding];
+      System.arraycopy(source.dataArray, source.dataStartIndex, 
+                       buffer, frontPadding, source.size);
+      this.startIndex = frontPadding;
+      this.endIndex = frontPadding + source.size;
+      this.modified = false;
+      this.closed = false;
+    }
+    
+    private void verifyOpen() {
+      if (closed) {
+        throw new IllegalStateException("View can not be used after batchUpdate has returned");
+      }
+    }
+    
+    private void verifyIndex(int index, int maxIndex) {
+      if (index < 0 || index > maxIndex) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+    }
+    
+    private void markModified() {
+      modified = true;
+      modCount++;
+    }
+    
+    /**
+     * Constructs the new {@link DataSet} from this view.  The buffer is handed off to the 
+     * {@link DataSet}, so the view must not be modified after this call.
+     * 
+     * @return A new {@link DataSet} representing the view's contents
+     */
+    protected DataSet<T> makeDataSet() {
+      return new DataSet<T>(buffer, startIndex, endIndex, frontPadding, rearPadding);
+    }
+    
+    @Override
+    public int size() {
+      verifyOpen();
+      
+      return endIndex - startIndex;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+      verifyOpen();
+      verifyIndex(index, size() - 1);
+      
+      return (T)buffer[startIndex + index];
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T element) {
+      verifyOpen();
+      if (element == null) {
+        throw new UnsupportedOperationException("This structure can not accept nulls");
+      }
+      verifyIndex(index, size() - 1);
+      
+      T result = (T)buffer[startIndex + index];
+      buffer[startIndex + index] = element;
+      modified = true;
+      
+      return result;
+    }
+    
+    @Override
+    public void add(int index, T element) {
+      verifyOpen();
+      if (element == null) {
+        throw new UnsupportedOperationException("This structure can not accept nulls");
+      }
+      int size = size();
+      verifyIndex(index, size);
+      
+      if (index == 0 && startIndex > 0) {
+        buffer[--startIndex] = element;
+      } else {
+        if (endIndex == buffer.length) {
+          Object[] newBuffer = new Object[(size * 2) + 1 + frontPadding + rearPadding];
+          System.arraycopy(buffer, startIndex, newBuffer, frontPadding, size);
+          buffer = newBuffer;
+          startIndex = frontPadding;
+          endIndex = frontPadding + size;
+        }
+        System.arraycopy(buffer, startIndex + index, 
+                         buffer, startIndex + index + 1, size - index);
+        buffer[startIndex + index] = element;
+        endIndex++;
+      }
+      
+      markModified();
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove(int index) {
+      verifyOpen();
+      verifyIndex(index, size() - 1);
+      
+      T result = (T)buffer[startIndex + index];
+      if (index == 0) {
+        buffer[startIndex++] = null;
+      } else {
+        System.arraycopy(buffer, startIndex + index + 1, 
+                         buffer, startIndex + index, endIndex - startIndex - index - 1);
+        buffer[--endIndex] = null;
+      }
+      
+      markModified();
+      
+      return result;
+    }
+    
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+      verifyOpen();
+      if (fromIndex >= toIndex) {
+        return;
+      }
+      
+      int count = toIndex - fromIndex;
+      if (fromIndex == 0) {
+        // removing from the front only requires moving our start index
+        Arrays.fill(buffer, startIndex, startIndex + count, null);
+        startIndex += count;
+      } else {
+        System.arraycopy(buffer, startIndex + toIndex, 
+                         buffer, startIndex + fromIndex, endIndex - startIndex - toIndex);
+        Arrays.fill(buffer, endIndex - count, endIndex, null);
+        endIndex -= count;
+      }
+      
+      markModified();
+    }
+    
+    @Override
+    public void clear() {
+      removeRange(0, size());
+    }
+  }
+  
   /**
    * This is designed to be an immutable version of the list.  
    * Modifiable actions will return a new instance that is based 
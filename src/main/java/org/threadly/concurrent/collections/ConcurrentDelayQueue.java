@@ -0,0 +1,440 @@
+package org.threadly.concurrent.collections;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.Clock;
+
+/**
+ * <p>A {@link BlockingQueue} of {@link Delayed} items, similar to 
+ * {@link java.util.concurrent.DelayQueue}, but which allows items to cheaply change their delay 
+ * after they have been queued.  This is a replacement for the deprecated 
+ * {@link DynamicDelayQueue}.</p>
+ * 
+ * <p>Items are ordered in a concurrent skip list.  The item's delay is read once when it is added 
+ * to the queue, and is then stored along side the item in the queue.  Calling 
+ * {@link #reposition(Delayed, long)} changes the stored delay in O(log n), without needing to 
+ * search the queue for the item.  Adding, removing and repositioning items do not require any 
+ * locks.  A lock is only used for threads which block waiting for an item.  Following the 
+ * leader/follower pattern, only one waiting thread will wait for the head item to become ready, 
+ * and waiting threads are only signaled (one at a time) when the head of the queue changes.</p>
+ * 
+ * <p>Because items are tracked so that they can be repositioned, an item may only be in the 
+ * queue once.  Attempts to add an item which is already queued (or a {@code null} item) will 
+ * return {@code false}.  Items must also provide consistent {@link Object#equals(Object)} and 
+ * {@link Object#hashCode()} implementations.</p>
+ * 
+ * <p>Like {@link DynamicDelayQueue}, {@link #peek()} and {@link #poll()} will only return an item 
+ * once its delay has expired.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ * @param <T> Parameter to indicate what type of item is contained in the queue
+ */
+public class ConcurrentDelayQueue<T extends Delayed> extends AbstractQueue<T>
+                                                      implements BlockingQueue<T> {
+  protected final ConcurrentSkipListSet<DelayEntry<T>> queue;
+  protected final ConcurrentHashMap<T, DelayEntry<T>> entries;
+  private final AtomicLong sequence;
+  private final ReentrantLock waitLock;
+  private final Condition available;
+  private Thread leader;  // guarded by waitLock
+  
+  /**
+   * Constructs a new empty {@link ConcurrentDelayQueue}.
+   */
+  public ConcurrentDelayQueue() {
+    queue = new ConcurrentSkipListSet<DelayEntry<T>>();
+    entries = new ConcurrentHashMap<T, DelayEntry<T>>();
+    sequence = new AtomicLong(0);
+    waitLock = new ReentrantLock();
+    available = waitLock.newCondition();
+    leader = null;
+  }
+  
+  @Override
+  public boolean add(T e) {
+    // overridden so that adding an already queued item is not reported as the queue being full
+    return offer(e);
+  }
+  
+  @Override
+  public boolean offer(T e) {
+    if (e == null) {
+      return false;
+    }
+    
+    DelayEntry<T> entry = makeEntry(e, e.getDelay(TimeUnit.MILLISECONDS));
+    if (entries.putIfAbsent(e, entry) != null) {
+      return false;
+    }
+    
+    insertEntry(entry);
+    
+    return true;
+  }
+  
+  @Override
+  public void put(T e) {
+    // there is no capacity limit, just add
+    offer(e);
+  }
+  
+  @Override
+  public boolean offer(T e, long timeout, TimeUnit unit) {
+    // there is no capacity limit, just add
+    return offer(e);
+  }
+  
+  /**
+   * Changes the delay of an item which is currently in the queue.  The item will be ordered as if 
+   * it was just added with the provided delay.  This does not search the queue, and is done in 
+   * O(log n).
+   * 
+   * @param e item currently in the queue
+   * @param newDelayInMillis new delay for the item in milliseconds
+   * @return {@code true} if the item was found and repositioned
+   */
+  public boolean reposition(T e, long newDelayInMillis) {
+    if (e == null) {
+      return false;
+    }
+    
+    DelayEntry<T> entry;
+    while ((entry = entries.get(e)) != null) {
+      if (queue.remove(entry)) {
+        DelayEntry<T> newEntry = makeEntry(e, newDelayInMillis);
+        entries.put(e, newEntry);
+        insertEntry(newEntry);
+        
+        return true;
+      } else if (entries.get(e) == entry) {
+        // another thread is currently removing or repositioning the item, wait for it to finish
+        Thread.yield();
+      }
+    }
+    
+    return false;
+  }
+  
+  private DelayEntry<T> makeEntry(T e, long delayInMillis) {
+    return new DelayEntry<T>(e, Clock.accurateForwardProgressingMillis() + delayInMillis, 
+                             sequence.getAndIncrement());
+  }
+  
+  private void insertEntry(DelayEntry<T> entry) {
+    queue.add(entry);
+    
+    if (firstEntry() == entry) {
+      // head changed, a waiting thread may need to wait for a shorter time
+      waitLock.lock();
+      try {
+        leader = null;
+        available.signal();
+      } finally {
+        waitLock.unlock();
+      }
+    }
+  }
+  
+  private DelayEntry<T> firstEntry() {
+    try {
+      return queue.first();
+    } catch (NoSuchElementException e) {
+      // queue is empty
+      return null;
+    }
+  }
+  
+  /**
+   * Attempts to remove the provided entry from the queue.
+   * 
+   * @param entry Entry to be removed
+   * @return The entry's item if it was removed, {@code null} if another thread removed it first
+   */
+  private T removeEntry(DelayEntry<T> entry) {
+    if (queue.remove(entry)) {
+      entries.remove(entry.item, entry);
+      
+      return entry.item;
+    } else {
+      return null;
+    }
+  }
+  
+  @Override
+  public T peek() {
+    DelayEntry<T> first = firstEntry();
+    if (first != null && first.triggerTime <= Clock.accurateForwardProgressingMillis()) {
+      return first.item;
+    } else {
+      return null;
+    }
+  }
+  
+  @Override
+  public T poll() {
+    DelayEntry<T> first;
+    while ((first = firstEntry()) != null && 
+           first.triggerTime <= Clock.accurateForwardProgressingMillis()) {
+      T result = removeEntry(first);
+      if (result != null) {
+        return result;
+      }
+    }
+    
+    return null;
+  }
+  
+  @Override
+  public T take() throws InterruptedException {
+    waitLock.lockInterruptibly();
+    try {
+      while (true) {
+        DelayEntry<T> first = firstEntry();
+        if (first == null) {
+          available.await();
+        } else {
+          long delay = first.triggerTime - Clock.accurateForwardProgressingMillis();
+          if (delay <= 0) {
+            T result = removeEntry(first);
+            if (result != null) {
+              return result;
+            }
+          } else if (leader != null) {
+            available.await();
+          } else {
+            Thread thisThread = Thread.currentThread();
+            leader = thisThread;
+            try {
+              available.await(delay, TimeUnit.MILLISECONDS);
+            } finally {
+              if (leader == thisThread) {
+                leader = null;
+              }
+            }
+          }
+        }
+      }
+    } finally {
+      if (leader == null && ! queue.isEmpty()) {
+        available.signal();
+      }
+      waitLock.unlock();
+    }
+  }
+  
+  @Override
+  public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long remainingNanos = unit.toNanos(timeout);
+    waitLock.lockInterruptibly();
+    try {
+      while (true) {
+        DelayEntry<T> first = firstEntry();
+        if (first == null) {
+          if (remainingNanos <= 0) {
+            return null;
+          }
+          remainingNanos = available.awaitNanos(remainingNanos);
+        } else {
+          long delay = first.triggerTime - Clock.accurateForwardProgressingMillis();
+          if (delay <= 0) {
+            T result = removeEntry(first);
+            if (result != null) {
+              return result;
+            }
+          } else if (remainingNanos <= 0) {
+            return null;
+          } else {
+            long delayNanos = TimeUnit.MILLISECONDS.toNanos(delay);
+            if (delayNanos > remainingNanos || leader != null) {
+              remainingNanos = available.awaitNanos(remainingNanos);
+            } else {
+              Thread thisThread = Thread.currentThread();
+              leader = thisThread;
+              try {
+                remainingNanos -= delayNanos - available.awaitNanos(delayNanos);
+              } finally {
+                if (leader == thisThread) {
+                  leader = null;
+                }
+              }
+            }
+          }
+        }
+      }
+    } finally {
+      if (leader == null && ! queue.isEmpty()) {
+        available.signal();
+      }
+      waitLock.unlock();
+    }
+  }
+  
+  @Override
+  public boolean remove(Object o) {
+    if (o == null) {
+      return false;
+    }
+    
+    DelayEntry<T> entry;
+    while ((entry = entries.get(o)) != null) {
+      if (removeEntry(entry) != null) {
+        return true;
+      } else if (entries.get(o) == entry) {
+        // another thread is currently removing or repositioning the item, wait for it to finish
+        Thread.yield();
+      }
+    }
+    
+    return false;
+  }
+  
+  @Override
+  public boolean contains(Object o) {
+    return o != null && entries.containsKey(o);
+  }
+  
+  @Override
+  public int size() {
+    return entries.size();
+  }
+  
+  @Override
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+  
+  @Override
+  public void clear() {
+    DelayEntry<T> first;
+    while ((first = queue.pollFirst()) != null) {
+      entries.remove(first.item, first);
+    }
+  }
+  
+  @Override
+  public int remainingCapacity() {
+    return Integer.MAX_VALUE;
+  }
+  
+  @Override
+  public int drainTo(Collection<? super T> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+  
+  /**
+   * Removes all items which have an expired delay, adding them to the provided collection.  The 
+   * clock is only checked once, and expired items are removed in a single pass from the head of 
+   * the queue.
+   * 
+   * @param c Collection to add expired items to
+   * @param maxElements Maximum quantity of items to remove
+   * @return Quantity of items removed from the queue
+   */
+  @Override
+  public int drainTo(Collection<? super T> c, int maxElements) {
+    ArgumentVerifier.assertNotNull(c, "c");
+    if (c == this) {
+      throw new IllegalArgumentException("Can not drain to self");
+    }
+    
+    long now = Clock.accurateForwardProgressingMillis();
+    int addedElements = 0;
+    DelayEntry<T> first;
+    while (addedElements < maxElements && 
+           (first = firstEntry()) != null && first.triggerTime <= now) {
+      T item = removeEntry(first);
+      if (item != null) {
+        c.add(item);
+        addedElements++;
+      }
+    }
+    
+    return addedElements;
+  }
+  
+  /**
+   * Returns an iterator over all items in the queue (including those with delays which have not 
+   * expired yet), in the order they will be removed from the queue.  The iterator is weakly 
+   * consistent, so it will never throw a {@link java.util.ConcurrentModificationException}, but 
+   * may or may not reflect modifications made after it was constructed.
+   * 
+   * @return Iterator over queued items
+   */
+  @Override
+  public Iterator<T> iterator() {
+    final Iterator<DelayEntry<T>> it = queue.iterator();
+    return new Iterator<T>() {
+      private DelayEntry<T> last = null;
+      
+      @Override
+      public boolean hasNext() {
+        return it.hasNext();
+      }
+      
+      @Override
+      public T next() {
+        last = it.next();
+        
+        return last.item;
+      }
+      
+      @Override
+      public void remove() {
+        if (last == null) {
+          throw new IllegalStateException();
+        }
+        
+        removeEntry(last);
+        last = null;
+      }
+    };
+  }
+  
+  /**
+   * <p>Immutable container for an item within the queue, ordered by the time the item's delay 
+   * will expire.  Items with the same expiration time are ordered by when they were added.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> Type of item held in the entry
+   */
+  protected static class DelayEntry<T> implements Comparable<DelayEntry<T>> {
+    protected final T item;
+    protected final long triggerTime;
+    protected final long sequence;
+    
+    protected DelayEntry(T item, long triggerTime, long sequence) {
+      this.item = item;
+      this.triggerTime = triggerTime;
+      this.sequence = sequence;
+    }
+    
+    @Override
+    public int compareTo(DelayEntry<T> o) {
+      if (triggerTime < o.triggerTime) {
+        return -1;
+      } else if (triggerTime > o.triggerTime) {
+        return 1;
+      } else if (sequence < o.sequence) {
+        return -1;
+      } else if (sequence > o.sequence) {
+        return 1;
+      } else {
+        return 0;
+      }
+    }
+  }
+}
@@ -22,7 +22,7 @@ import org.threadly.util.ListUtils;
  * <p>In order to allow an item to be repositioned like this, the item must implement the 
  * {@link DynamicDelayedUpdater} interface.</p>
  * 
- * @deprecated There is no replacement, please open a github issue if this class is useful to you
+ * @deprecated Please use {@link ConcurrentDelayQueue} as a replacement
  * 
  * @author jent - Mike Jensen
  * @since 1.0.0
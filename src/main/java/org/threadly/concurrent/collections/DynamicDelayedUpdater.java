@@ -7,7 +7,7 @@ package org.threadly.concurrent.collections;
  * Threadly uses an idea of delay items which can adjust there delay time, but this must be done 
  * in conjunction with the DynamicDelayQueue.</p>
  * 
- * @deprecated There is no replacement, please open a github issue if this class is useful to you
+ * @deprecated Not needed with {@link ConcurrentDelayQueue}, which can reposition items directly
  * 
  * @author jent - Mike Jensen
  * @since 1.0.0
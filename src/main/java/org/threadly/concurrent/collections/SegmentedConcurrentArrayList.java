@@ -0,0 +1,1362 @@
+package org.threadly.concurrent.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>A thread safe list implementation which shares the same concurrency design as 
+ * {@link ConcurrentArrayList}, but with a segmented back end.  Reads are done against an 
+ * immutable snapshot without any locking, and modifications are guarded by the modification 
+ * lock (which can be held to perform multiple atomic operations).</p>
+ * 
+ * <p>The difference is in how modifications are made.  {@link ConcurrentArrayList} stores its 
+ * data in a single array, and so most modifications (other than adds or removes at the ends when 
+ * there is padding available) must copy the entire array.  For large lists that makes every 
+ * mutation O(n).  This implementation instead stores items in small array segments, which are 
+ * indexed by a shallow persistent tree.  A modification only copies the affected segment, and 
+ * the nodes on the path from the root to that segment.  The rest of the structure is shared with 
+ * the previous snapshot.  This makes adds, removes, sets and repositions O(segment size + log n), 
+ * while index lookups become O(log n) instead of O(1).</p>
+ * 
+ * <p>For small lists, or lists which are mostly read, {@link ConcurrentArrayList} is likely to be 
+ * the better choice.  This implementation is designed for lists which may grow to tens of 
+ * thousands of items (or more) and are modified frequently.</p>
+ * 
+ * <p>Similar to {@link ConcurrentArrayList}, subList calls produce a list which is completely 
+ * independent from their source list, and iterators will never see updates made after they were 
+ * constructed (making a ConcurrentModificationExcception impossible).</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ * @param <T> type of object to retain
+ */
+public class SegmentedConcurrentArrayList<T> implements List<T>, Deque<T>, RandomAccess {
+  /**
+   * Default maximum quantity of items to be stored in a single array segment.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 64;
+  private static final int HASH_CODE_PRIME_NUMBER = 31;
+  private static final int BRANCH_FACTOR = 32;
+  // leaf segments smaller than segmentSize / MERGE_RATIO are merged into a neighbor
+  private static final int MERGE_RATIO = 4;
+  private static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
+  private static final Node EMPTY_NODE = new Node(EMPTY_OBJECT_ARRAY);
+  
+  protected final Object modificationLock;
+  protected final int segmentSize;
+  protected volatile SegmentSet<T> currentData;
+  
+  /**
+   * Constructs a new {@link SegmentedConcurrentArrayList} with the default segment size.
+   */
+  public SegmentedConcurrentArrayList() {
+    this(DEFAULT_SEGMENT_SIZE);
+  }
+  
+  /**
+   * Constructs a new {@link SegmentedConcurrentArrayList} with a specific segment size.  Smaller 
+   * segments make modifications cheaper, while larger segments make reads and iteration cheaper.
+   * 
+   * @param segmentSize maximum items to store in a single array segment, must be at least 2
+   */
+  public SegmentedConcurrentArrayList(int segmentSize) {
+    this(null, segmentSize);
+  }
+  
+  /**
+   * Constructs a new {@link SegmentedConcurrentArrayList} with a provided lock object.  This is 
+   * the lock used to guard modifications, and is returned from {@link #getModificationLock()}.
+   * 
+   * @param modificationLock lock to synchronize on internally
+   * @param segmentSize maximum items to store in a single array segment, must be at least 2
+   */
+  protected SegmentedConcurrentArrayList(Object modificationLock, int segmentSize) {
+    this(new SegmentSet<T>(segmentSize, EMPTY_NODE), modificationLock);
+  }
+  
+  /**
+   * Internal constructor which provides the modification lock and the initial 
+   * {@link SegmentSet}.  This is used for constructing sub-lists, but may also be useful to 
+   * extending classes.
+   * 
+   * @param startSet {@link SegmentSet} to use internally
+   * @param modificationLock lock to synchronize on internally
+   */
+  protected SegmentedConcurrentArrayList(SegmentSet<T> startSet, Object modificationLock) {
+    ArgumentVerifier.assertNotNull(startSet, "startSet");
+    if (modificationLock == null) {
+      modificationLock = new Object();
+    }
+    
+    this.modificationLock = modificationLock;
+    this.segmentSize = startSet.segmentSize;
+    currentData = startSet;
+  }
+  
+  /**
+   * If you want to chain multiple calls together and ensure that no threads modify the structure 
+   * during that time you can get the lock to prevent additional modifications.
+   * 
+   * This lock should be synchronized on to prevent modifications.
+   * 
+   * @return lock used internally
+   */
+  public Object getModificationLock() {
+    return modificationLock;
+  }
+  
+  /**
+   * Returns the maximum quantity of items which will be stored in a single array segment.
+   * 
+   * @return maximum items per segment
+   */
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+  
+  @Override
+  public int size() {
+    return currentData.size;
+  }
+  
+  @Override
+  public boolean isEmpty() {
+    return currentData.size == 0;
+  }
+  
+  @Override
+  public T get(int index) {
+    return currentData.get(index);
+  }
+  
+  @Override
+  public int indexOf(Object o) {
+    return currentData.indexOf(o);
+  }
+  
+  @Override
+  public int lastIndexOf(Object o) {
+    return currentData.lastIndexOf(o);
+  }
+  
+  @Override
+  public boolean contains(Object o) {
+    return currentData.indexOf(o) >= 0;
+  }
+  
+  @Override
+  public boolean containsAll(Collection<?> c) {
+    if (c == null || c.isEmpty()) {
+      return true;
+    }
+    
+    SegmentSet<T> workingSet = currentData;
+    Iterator<?> it = c.iterator();
+    while (it.hasNext()) {
+      if (workingSet.indexOf(it.next()) < 0) {
+        return false;
+      }
+    }
+    
+    return true;
+  }
+  
+  @Override
+  public Object[] toArray() {
+    return currentData.toArray();
+  }
+  
+  @SuppressWarnings("unchecked")
+  @Override
+  public <E> E[] toArray(E[] a) {
+    Object[] items = currentData.toArray();
+    
+    if (a.length < items.length) {
+      return (E[])Arrays.copyOf(items, items.length, a.getClass());
+    } else {
+      System.arraycopy(items, 0, a, 0, items.length);
+      
+      return a;
+    }
+  }
+  
+  @Override
+  public boolean add(T e) {
+    if (e == null) {
+      return false;
+    }
+    
+    synchronized (modificationLock) {
+      currentData = currentData.add(currentData.size, e);
+    }
+    
+    return true;
+  }
+  
+  @Override
+  public boolean addAll(Collection<? extends T> c) {
+    if (c == null) {
+      return false;
+    }
+    
+    synchronized (modificationLock) {
+      return addAll(currentData.size, c, false);
+    }
+  }
+  
+  @Override
+  public boolean addAll(int index, Collection<? extends T> c) {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException("Index can not be negative");
+    } else if (c == null) {
+      return false;
+    }
+    
+    synchronized (modificationLock) {
+      return addAll(index, c, true);
+    }
+  }
+  
+  /**
+   * Adds all non-null items from the collection at the provided index.  Small additions are 
+   * inserted one at a time, while larger additions will rebuild the structure in one pass.  The 
+   * modification lock must be held while invoking this.
+   * 
+   * @param index index to insert items at
+   * @param c collection of items to add
+   * @param verifyIndex {@code true} to verify the index is within the current size
+   * @return {@code true} if the list was modified
+   */
+  private boolean addAll(int index, Collection<? extends T> c, boolean verifyIndex) {
+    if (verifyIndex && index > currentData.size) {
+      throw new IndexOutOfBoundsException("Index is beyond the array size: " + index);
+    }
+    
+    List<T> toAdd = new ArrayList<T>(c.size());
+    Iterator<? extends T> it = c.iterator();
+    while (it.hasNext()) {
+      T item = it.next();
+      if (item != null) {
+        toAdd.add(item);
+      }
+    }
+    if (toAdd.isEmpty()) {
+      return false;
+    }
+    
+    if (toAdd.size() < segmentSize) {
+      SegmentSet<T> workingSet = currentData;
+      it = toAdd.iterator();
+      while (it.hasNext()) {
+        workingSet = workingSet.add(index++, it.next());
+      }
+      currentData = workingSet;
+    } else {
+      Object[] origItems = currentData.toArray();
+      Object[] newItems = new Object[origItems.length + toAdd.size()];
+      System.arraycopy(origItems, 0, newItems, 0, index);
+      int i = index;
+      it = toAdd.iterator();
+      while (it.hasNext()) {
+        newItems[i++] = it.next();
+      }
+      System.arraycopy(origItems, index, newItems, i, origItems.length - index);
+      
+      currentData = SegmentSet.fromArray(segmentSize, newItems, newItems.length);
+    }
+    
+    return true;
+  }
+  
+  @Override
+  public boolean retainAll(Collection<?> c) {
+    if (c == this) {
+      return false;
+    } else if (c == null || c.isEmpty()) {
+      if (isEmpty()) {
+        return false;
+      } else {
+        clear();
+        
+        return true;
+      }
+    }
+    
+    return filter(c, true);
+  }
+  
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    if (c == null || c.isEmpty()) {
+      return false;
+    }
+    
+    return filter(c, false);
+  }
+  
+  /**
+   * Rebuilds the structure in a single pass, keeping only the items which either are, or are not 
+   * contained in the provided collection.
+   * 
+   * @param c collection to check items against
+   * @param retain {@code true} to keep contained items, {@code false} to remove them
+   * @return {@code true} if the list was modified
+   */
+  private boolean filter(Collection<?> c, boolean retain) {
+    synchronized (modificationLock) {
+      Object[] items = currentData.toArray();
+      int resultSize = 0;
+      for (int i = 0; i < items.length; i++) {
+        if (c.contains(items[i]) == retain) {
+          items[resultSize++] = items[i];
+        }
+      }
+      if (resultSize == items.length) {
+        return false;
+      }
+      
+      currentData = SegmentSet.fromArray(segmentSize, items, resultSize);
+      
+      return true;
+    }
+  }
+  
+  @Override
+  public void clear() {
+    synchronized (modificationLock) {
+      currentData = new SegmentSet<T>(segmentSize, EMPTY_NODE);
+    }
+  }
+  
+  @Override
+  public void addFirst(T e) {
+    // nulls can't be accepted, so that poll and peek are able to indicate an empty list
+    if (e == null) {
+      throw new UnsupportedOperationException("This structure can not accept nulls");
+    }
+    
+    synchronized (modificationLock) {
+      currentData = currentData.add(0, e);
+    }
+  }
+  
+  @Override
+  public void addLast(T e) {
+    // nulls can't be accepted, so that poll and peek are able to indicate an empty list
+    if (e == null) {
+      throw new UnsupportedOperationException("This structure can not accept nulls");
+    }
+    
+    synchronized (modificationLock) {
+      currentData = currentData.add(currentData.size, e);
+    }
+  }
+  
+  @Override
+  public boolean offerFirst(T e) {
+    addFirst(e);
+    
+    // this implementation has no capacity limit
+    return true;
+  }
+  
+  @Override
+  public boolean offerLast(T e) {
+    addLast(e);
+    
+    // this implementation has no capacity limit
+    return true;
+  }
+  
+  @Override
+  public T removeFirst() {
+    T result = pollFirst();
+    if (result == null) {
+      throw new NoSuchElementException();
+    }
+    
+    return result;
+  }
+  
+  @Override
+  public T removeLast() {
+    T result = pollLast();
+    if (result == null) {
+      throw new NoSuchElementException();
+    }
+    
+    return result;
+  }
+  
+  @Override
+  public T pollFirst() {
+    synchronized (modificationLock) {
+      T result = peekFirst();
+      if (result != null) {
+        currentData = currentData.remove(0);
+      }
+      
+      return result;
+    }
+  }
+  
+  @Override
+  public T pollLast() {
+    synchronized (modificationLock) {
+      T result = peekLast();
+      if (result != null) {
+        currentData = currentData.remove(currentData.size - 1);
+      }
+      
+      return result;
+    }
+  }
+  
+  @Override
+  public T getFirst() {
+    T result = peekFirst();
+    if (result == null) {
+      throw new NoSuchElementException();
+    }
+    
+    return result;
+  }
+  
+  @Override
+  public T getLast() {
+    T result = peekLast();
+    if (result == null) {
+      throw new NoSuchElementException();
+    }
+    
+    return result;
+  }
+  
+  @Override
+  public T peek() {
+    return peekFirst();
+  }
+  
+  @Override
+  public T peekFirst() {
+    SegmentSet<T> set = currentData;
+    if (set.size > 0) {
+      return set.get(0);
+    } else {
+      return null;
+    }
+  }
+  
+  @Override
+  public T peekLast() {
+    SegmentSet<T> set = currentData;
+    if (set.size > 0) {
+      return set.get(set.size - 1);
+    } else {
+      return null;
+    }
+  }
+  
+  protected boolean remove(Object o, boolean searchBackwards) {
+    if (o == null) {
+      return false;
+    }
+    
+    synchronized (modificationLock) {
+      int index;
+      if (searchBackwards) {
+        index = currentData.lastIndexOf(o);
+      } else {
+        index = currentData.indexOf(o);
+      }
+      if (index < 0) {
+        return false;
+      } else {
+        currentData = currentData.remove(index);
+        return true;
+      }
+    }
+  }
+  
+  @Override
+  public boolean removeFirstOccurrence(Object o) {
+    return remove(o, false);
+  }
+  
+  @Override
+  public boolean removeLastOccurrence(Object o) {
+    return remove(o, true);
+  }
+  
+  @Override
+  public boolean remove(Object o) {
+    return removeFirstOccurrence(o);
+  }
+  
+  @Override
+  public T remove(int index) {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException("Index can not be negative");
+    }
+    
+    SegmentSet<T> originalSet;
+    synchronized (modificationLock) {
+      if (index > currentData.size - 1) {
+        throw new IndexOutOfBoundsException("Index is beyond the array max index: " + index);
+      }
+      
+      originalSet = currentData;
+      currentData = currentData.remove(index);
+    }
+    
+    return originalSet.get(index);
+  }
+  
+  @Override
+  public boolean offer(T e) {
+    return offerLast(e);
+  }
+  
+  @Override
+  public T remove() {
+    return removeFirst();
+  }
+  
+  @Override
+  public T poll() {
+    return pollFirst();
+  }
+  
+  @Override
+  public T element() {
+    return getFirst();
+  }
+  
+  @Override
+  public void push(T e) {
+    addFirst(e);
+  }
+  
+  @Override
+  public T pop() {
+    return removeFirst();
+  }
+  
+  @Override
+  public T set(int index, T element) {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException("Index can not be negative");
+    }
+    
+    SegmentSet<T> originalSet;
+    synchronized (modificationLock) {
+      if (index > currentData.size - 1) {
+        throw new IndexOutOfBoundsException("Index is beyond the array max index: " + index);
+      }
+      
+      originalSet = currentData;
+      currentData = currentData.set(index, element);
+    }
+    
+    return originalSet.get(index);
+  }
+  
+  @Override
+  public void add(int index, T element) {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException("Index can not be negative");
+    }
+    
+    synchronized (modificationLock) {
+      if (index > currentData.size) {
+        throw new IndexOutOfBoundsException("Index is beyond the array size: " + index);
+      }
+      
+      currentData = currentData.add(index, element);
+    }
+  }
+  
+  /**
+   * Move a stored item to a new index.  By default 
+   * a forward search will happen to find the item.
+   * 
+   * @param item item to be moved
+   * @param newIndex new index for placement
+   */
+  public void reposition(T item, int newIndex) {
+    reposition(item, newIndex, false);
+  }
+  
+  /**
+   * Move a stored item to a new index.  If you have 
+   * an idea if it is closer to the start or end of the list 
+   * you can specify which end to start the search on.
+   * 
+   * @param item item to be moved
+   * @param newIndex new index for placement
+   * @param searchBackwards true to start from the end and search backwards
+   */
+  public void reposition(T item, int newIndex, boolean searchBackwards) {
+    if (newIndex < 0) {
+      throw new IndexOutOfBoundsException("New index can not be negative");
+    }
+    
+    synchronized (modificationLock) {
+      if (newIndex > currentData.size) {
+        throw new IndexOutOfBoundsException(newIndex + " is beyond the array's size: " + 
+                                              currentData.size);
+      }
+      
+      int index;
+      if (searchBackwards) {
+        index = lastIndexOf(item);
+      } else {
+        index = indexOf(item);
+      }
+      if (index < 0) {
+        throw new NoSuchElementException("Could not find item: " + item);
+      } else if (index == newIndex) {
+        return;
+      }
+      
+      currentData = currentData.reposition(index, newIndex);
+    }
+  }
+  
+  /**
+   * Move a stored item located at an index to a new index.  Provide 
+   * the size for newIndex to move the item to the end of the list.  
+   * Otherwise all items after the new index will be shifted right.
+   * 
+   * @param originalIndex index for item to be moved to.
+   * @param newIndex new index location for item.
+   */
+  public void reposition(int originalIndex, int newIndex) {
+    if (newIndex < 0) {
+      throw new IndexOutOfBoundsException("new index can not be negative");
+    } else if (originalIndex < 0) {
+      throw new IndexOutOfBoundsException("original index can not be negative");
+    }
+    
+    if (originalIndex == newIndex) {
+      return;
+    }
+    
+    synchronized (modificationLock) {
+      if (newIndex > currentData.size) {
+        throw new IndexOutOfBoundsException("new index " + newIndex + 
+                                              " is beyond the array's length: " + currentData.size);
+      } else if (originalIndex > currentData.size) {
+        throw new IndexOutOfBoundsException("original index " + originalIndex + 
+                                              " is beyond the array's length: " + currentData.size);
+      }
+      
+      currentData = currentData.reposition(originalIndex, newIndex);
+    }
+  }
+  
+  @Override
+  public Iterator<T> iterator() {
+    return listIterator();
+  }
+  
+  @Override
+  public ListIterator<T> listIterator() {
+    return listIterator(0);
+  }
+  
+  @Override
+  public ListIterator<T> listIterator(int index) {
+    return new SegmentSetListIterator(currentData, index);
+  }
+  
+  @Override
+  public Iterator<T> descendingIterator() {
+    final ListIterator<T> li = listIterator(currentData.size);
+    return new Iterator<T>() {
+      @Override
+      public boolean hasNext() {
+        return li.hasPrevious();
+      }
+      
+      @Override
+      public T next() {
+        return li.previous();
+      }
+      
+      @Override
+      public void remove() {
+        li.remove();
+      }
+    };
+  }
+  
+  /**
+   * This returns a sub list from the current list.  The returned list is constructed in a single 
+   * pass over the requested range.
+   * 
+   * Any modifications to this list will be treated as a completely new list, and wont ever 
+   * reflect on the source list.  This is very different from other java.util.List 
+   * implementations, and should be noted carefully.
+   * 
+   * @param fromIndex start index (inclusive) for new list to include
+   * @param toIndex end index (exclusive) to be included in new list
+   * @return new independent list
+   */
+  @Override
+  public List<T> subList(int fromIndex, int toIndex) {
+    SegmentSet<T> workingData = currentData;
+    
+    if (fromIndex < 0) {
+      throw new IndexOutOfBoundsException("from index can not be negative");
+    } else if (fromIndex > workingData.size) {
+      throw new IndexOutOfBoundsException("from index must be <= size: " + workingData.size);
+    } else if (toIndex > workingData.size) {
+      throw new IndexOutOfBoundsException("to index must be <= size: " + workingData.size);
+    } else if (toIndex <= fromIndex) {
+      throw new IndexOutOfBoundsException("fromIndex must be < toIndex");
+    }
+    
+    Object[] items = Arrays.copyOfRange(workingData.toArray(), fromIndex, toIndex);
+    
+    return new SegmentedConcurrentArrayList<T>(SegmentSet.<T>fromArray(segmentSize, items, 
+                                                                       items.length), 
+                                               modificationLock);
+  }
+  
+  @Override
+  public String toString() {
+    return Arrays.toString(currentData.toArray());
+  }
+  
+  @SuppressWarnings("rawtypes")
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    } else if (o instanceof List) {
+      List list = (List)o;
+      if (list.size() != this.size()) {
+        return false;
+      }
+      Iterator thisIt = this.iterator();
+      Iterator listIt = list.iterator();
+      while (thisIt.hasNext() && listIt.hasNext()) {
+        Object thisItem = thisIt.next();
+        Object thatItem = listIt.next();
+        if (thisItem == null ? thatItem != null : ! thisItem.equals(thatItem)) {
+          return false;
+        }
+      }
+      if (thisIt.hasNext() || listIt.hasNext()) {
+        return false;
+      }
+      return true;
+    } else {
+      return false;
+    }
+  }
+  
+  @Override
+  public int hashCode() {
+    Object[] items = currentData.toArray();
+    int hashCode = 1;
+    for (int i = 0; i < items.length; i++) {
+      Object obj = items[i];
+      hashCode = HASH_CODE_PRIME_NUMBER * hashCode + (obj == null ? 0 : obj.hashCode());
+    }
+    
+    return hashCode;
+  }
+  
+  /**
+   * This is an iterator implementation that is designed to iterate over a given 
+   * {@link SegmentSet}.  Modifiable actions will attempt to make changes to the parent class.  
+   * The segment currently being iterated over is retained so that sequential iteration does not 
+   * need to traverse the index for every item.
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class SegmentSetListIterator implements ListIterator<T> {
+    private SegmentSet<T> dataSet;
+    private int nextIndex;
+    private Object[] segment;
+    private int segmentStart;
+    
+    public SegmentSetListIterator(SegmentSet<T> dataSet, int index) {
+      this.dataSet = dataSet;
+      nextIndex = index;
+      segment = EMPTY_OBJECT_ARRAY;
+      segmentStart = 0;
+    }
+    
+    @Override
+    public boolean hasNext() {
+      return nextIndex < dataSet.size;
+    }
+    
+    @Override
+    public T next() {
+      verifyPosition();
+      
+      return get(nextIndex++);
+    }
+    
+    @Override
+    public boolean hasPrevious() {
+      return nextIndex - 1 >= 0;
+    }
+    
+    @Override
+    public T previous() {
+      nextIndex--;
+      
+      verifyPosition();
+      
+      return get(nextIndex);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private T get(int index) {
+      if (index < segmentStart || index >= segmentStart + segment.length) {
+        Node node = dataSet.root;
+        segmentStart = 0;
+        while (! node.isLeaf()) {
+          int child = node.childIndex(index - segmentStart);
+          segmentStart += node.childStart(child);
+          node = node.children[child];
+        }
+        segment = node.items;
+      }
+      
+      return (T)segment[index - segmentStart];
+    }
+    
+    private void verifyPosition() {
+      if (nextIndex < 0 || nextIndex >= dataSet.size) {
+        throw new NoSuchElementException();
+      }
+    }
+    
+    @Override
+    public int nextIndex() {
+      return nextIndex;
+    }
+    
+    @Override
+    public int previousIndex() {
+      return nextIndex - 1;
+    }
+    
+    private void resetDataSet(SegmentSet<T> dataSet) {
+      this.dataSet = dataSet;
+      segment = EMPTY_OBJECT_ARRAY;
+      segmentStart = 0;
+    }
+    
+    @Override
+    public void remove() {
+      synchronized (modificationLock) {
+        // you can not cause concurrent modification exceptions with this implementation
+        if (currentData == dataSet) {
+          SegmentedConcurrentArrayList.this.remove(--nextIndex);
+          
+          resetDataSet(currentData);
+        } else {
+          int globalIndex = SegmentedConcurrentArrayList.this.indexOf(dataSet.get(nextIndex - 1));
+          if (globalIndex >= 0) {
+            SegmentedConcurrentArrayList.this.remove(globalIndex);
+          }
+        }
+      }
+    }
+    
+    @Override
+    public void set(T e) {
+      synchronized (modificationLock) {
+        if (currentData == dataSet) {
+          SegmentedConcurrentArrayList.this.set(nextIndex - 1, e);
+          
+          resetDataSet(currentData);
+        } else {
+          int globalIndex = SegmentedConcurrentArrayList.this.indexOf(dataSet.get(nextIndex - 1));
+          if (globalIndex >= 0) {
+            SegmentedConcurrentArrayList.this.set(globalIndex, e);
+          }
+        }
+      }
+    }
+    
+    @Override
+    public void add(T e) {
+      synchronized (modificationLock) {
+        if (currentData == dataSet) {
+          SegmentedConcurrentArrayList.this.add(nextIndex, e);
+          
+          nextIndex++;
+          
+          resetDataSet(currentData);
+        } else {
+          int globalIndex = SegmentedConcurrentArrayList.this.indexOf(dataSet.get(nextIndex - 1));
+          if (globalIndex >= 0) {
+            SegmentedConcurrentArrayList.this.add(globalIndex + 1, e);
+          }
+        }
+      }
+    }
+  }
+  
+  /**
+   * <p>Node within the persistent index.  A node is either a leaf, which holds a segment of 
+   * items, or a branch, which holds child nodes along with the cumulative size at the end of 
+   * each child (so that the child for an index can be found with a binary search).  Nodes are 
+   * never modified once constructed.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class Node {
+    protected final Object[] items;
+    protected final Node[] children;
+    protected final int[] childEnds;
+    protected final int size;
+    
+    protected Node(Object[] items) {
+      this.items = items;
+      this.children = null;
+      this.childEnds = null;
+      this.size = items.length;
+    }
+    
+    protected Node(Node[] children) {
+      this(children, makeChildEnds(children));
+    }
+    
+    private Node(Node[] children, int[] childEnds) {
+      this.items = null;
+      this.children = children;
+      this.childEnds = childEnds;
+      this.size = childEnds.length == 0 ? 0 : childEnds[childEnds.length - 1];
+    }
+    
+    private static int[] makeChildEnds(Node[] children) {
+      int[] result = new int[children.length];
+      int total = 0;
+      for (int i = 0; i < children.length; i++) {
+        total += children[i].size;
+        result[i] = total;
+      }
+      
+      return result;
+    }
+    
+    protected boolean isLeaf() {
+      return children == null;
+    }
+    
+    /**
+     * Finds the child which contains the provided index.  If the index is equal to the size, the 
+     * last child will be returned.
+     * 
+     * @param index index relative to this node
+     * @return index of child within {@code children}
+     */
+    protected int childIndex(int index) {
+      int low = 0;
+      int high = children.length - 1;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (childEnds[mid] > index) {
+          high = mid;
+        } else {
+          low = mid + 1;
+        }
+      }
+      
+      return low;
+    }
+    
+    protected int childStart(int child) {
+      return child == 0 ? 0 : childEnds[child - 1];
+    }
+  }
+  
+  /**
+   * <p>This is an immutable version of the list.  Modifiable actions will return a new instance, 
+   * which shares all nodes other than the modified path with this instance.  It is expected that 
+   * the modificationLock is held while any modifiable operations are happening.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   * @param <T> type of object that is held
+   */
+  protected static class SegmentSet<T> {
+    /**
+     * Constructs a new balanced {@link SegmentSet} containing the first {@code size} items of the 
+     * provided array.  Every segment will be full except possibly the last one.
+     * 
+     * @param <T> type of object that is held
+     * @param segmentSize maximum items to store in a single segment
+     * @param items array of items to be contained
+     * @param size quantity of items from the array to include
+     * @return a new {@link SegmentSet} containing the items
+     */
+    protected static <T> SegmentSet<T> fromArray(int segmentSize, Object[] items, int size) {
+      if (size == 0) {
+        return new SegmentSet<T>(segmentSize, EMPTY_NODE);
+      }
+      
+      Node[] level = new Node[(size + segmentSize - 1) / segmentSize];
+      for (int i = 0; i < level.length; i++) {
+        int start = i * segmentSize;
+        level[i] = new Node(Arrays.copyOfRange(items, start, Math.min(size, start + segmentSize)));
+      }
+      while (level.length > 1) {
+        Node[] nextLevel = new Node[(level.length + BRANCH_FACTOR - 1) / BRANCH_FACTOR];
+        for (int i = 0; i < nextLevel.length; i++) {
+          int start = i * BRANCH_FACTOR;
+          nextLevel[i] = new Node(Arrays.copyOfRange(level, start, 
+                                                     Math.min(level.length, 
+                                                              start + BRANCH_FACTOR)));
+        }
+        level = nextLevel;
+      }
+      
+      return new SegmentSet<T>(segmentSize, level[0]);
+    }
+    
+    protected final int segmentSize;
+    protected final Node root;
+    protected final int size;
+    
+    protected SegmentSet(int segmentSize, Node root) {
+      if (segmentSize < 2) {
+        throw new IllegalArgumentException("segmentSize must be at least 2");
+      }
+      
+      this.segmentSize = segmentSize;
+      this.root = root;
+      this.size = root.size;
+    }
+    
+    /**
+     * Gets an item from a given index.
+     * 
+     * @param index index to lookup item
+     * @return item stored at that index
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException();
+      }
+      
+      Node node = root;
+      while (! node.isLeaf()) {
+        int child = node.childIndex(index);
+        index -= node.childStart(child);
+        node = node.children[child];
+      }
+      
+      return (T)node.items[index];
+    }
+    
+    /**
+     * Call to check for the index of a given item.
+     * 
+     * @param o Object to search for
+     * @return index of item, or -1 if not found
+     */
+    public int indexOf(Object o) {
+      return indexOf(root, o, 0);
+    }
+    
+    private static int indexOf(Node node, Object o, int offset) {
+      if (node.isLeaf()) {
+        for (int i = 0; i < node.items.length; i++) {
+          if (node.items[i].equals(o)) {
+            return offset + i;
+          }
+        }
+      } else {
+        for (int i = 0; i < node.children.length; i++) {
+          int result = indexOf(node.children[i], o, offset + node.childStart(i));
+          if (result >= 0) {
+            return result;
+          }
+        }
+      }
+      
+      return -1;
+    }
+    
+    /**
+     * Call to check for the last index of a given item.
+     * 
+     * @param o Object to search for
+     * @return index of item, or -1 if not found
+     */
+    public int lastIndexOf(Object o) {
+      return lastIndexOf(root, o, 0);
+    }
+    
+    private static int lastIndexOf(Node node, Object o, int offset) {
+      if (node.isLeaf()) {
+        for (int i = node.items.length - 1; i >= 0; i--) {
+          if (node.items[i].equals(o)) {
+            return offset + i;
+          }
+        }
+      } else {
+        for (int i = node.children.length - 1; i >= 0; i--) {
+          int result = lastIndexOf(node.children[i], o, offset + node.childStart(i));
+          if (result >= 0) {
+            return result;
+          }
+        }
+      }
+      
+      return -1;
+    }
+    
+    /**
+     * Copies all items into a new array, in list order.
+     * 
+     * @return a new array containing all the items
+     */
+    public Object[] toArray() {
+      if (root.isLeaf()) {
+        return root.items.clone();
+      }
+      
+      Object[] result = new Object[size];
+      copyInto(root, result, 0);
+      
+      return result;
+    }
+    
+    private static void copyInto(Node node, Object[] dest, int offset) {
+      if (node.isLeaf()) {
+        System.arraycopy(node.items, 0, dest, offset, node.items.length);
+      } else {
+        for (int i = 0; i < node.children.length; i++) {
+          copyInto(node.children[i], dest, offset + node.childStart(i));
+        }
+      }
+    }
+    
+    /**
+     * Sets a specific index with a given element.
+     * 
+     * @param index index to set the item at
+     * @param element element to place in the list
+     * @return a new {@link SegmentSet} which represents the change
+     */
+    public SegmentSet<T> set(int index, T element) {
+      return new SegmentSet<T>(segmentSize, set(root, index, element));
+    }
+    
+    private static Node set(Node node, int index, Object element) {
+      if (node.isLeaf()) {
+        Object[] newItems = node.items.clone();
+        newItems[index] = element;
+        
+        return new Node(newItems);
+      } else {
+        int child = node.childIndex(index);
+        Node[] newChildren = node.children.clone();
+        newChildren[child] = set(node.children[child], index - node.childStart(child), element);
+        
+        // sizes are unchanged, so the child ends can be shared
+        return new Node(newChildren, node.childEnds);
+      }
+    }
+    
+    /**
+     * Adds an item at a specific index.
+     * 
+     * @param index index to insert item at
+     * @param element item to be inserted
+     * @return a new {@link SegmentSet} which represents the change
+     */
+    public SegmentSet<T> add(int index, T element) {
+      Node[] result = add(root, index, element);
+      if (result.length == 1) {
+        return new SegmentSet<T>(segmentSize, result[0]);
+      } else {
+        return new SegmentSet<T>(segmentSize, new Node(result));
+      }
+    }
+    
+    /**
+     * Inserts into the provided node, returning either one node, or two if the node had to be 
+     * split.
+     */
+    private Node[] add(Node node, int index, Object element) {
+      if (node.isLeaf()) {
+        Object[] items = node.items;
+        if (items.length < segmentSize) {
+          return new Node[] { new Node(insert(items, 0, items.length, index, element)) };
+        } else if (index == items.length) {
+          // appending to a full segment, start a new segment to keep sequential adds cheap
+          return new Node[] { node, new Node(new Object[] { element }) };
+        } else if (index == 0) {
+          return new Node[] { new Node(new Object[] { element }), node };
+        } else {
+          int half = items.length / 2;
+          if (index <= half) {
+            return new Node[] { new Node(insert(items, 0, half, index, element)), 
+                                new Node(Arrays.copyOfRange(items, half, items.length)) };
+          } else {
+            return new Node[] { new Node(Arrays.copyOfRange(items, 0, half)), 
+                                new Node(insert(items, half, items.length, 
+                                                index - half, element)) };
+          }
+        }
+      }
+      
+      int child = node.childIndex(index);
+      Node[] childResult = add(node.children[child], index - node.childStart(child), element);
+      Node[] newChildren;
+      if (childResult.length == 1) {
+        newChildren = node.children.clone();
+        newChildren[child] = childResult[0];
+      } else {
+        newChildren = new Node[node.children.length + 1];
+        System.arraycopy(node.children, 0, newChildren, 0, child);
+        newChildren[child] = childResult[0];
+        newChildren[child + 1] = childResult[1];
+        System.arraycopy(node.children, child + 1, 
+                         newChildren, child + 2, node.children.length - child - 1);
+      }
+      
+      if (newChildren.length <= BRANCH_FACTOR) {
+        return new Node[] { new Node(newChildren) };
+      } else {
+        int half = newChildren.length / 2;
+        return new Node[] { new Node(Arrays.copyOfRange(newChildren, 0, half)), 
+                            new Node(Arrays.copyOfRange(newChildren, half, 
+                                                        newChildren.length)) };
+      }
+    }
+    
+    private static Object[] insert(Object[] source, int from, int to, int index, Object element) {
+      Object[] result = new Object[to - from + 1];
+      System.arraycopy(source, from, result, 0, index);
+      result[index] = element;
+      System.arraycopy(source, from + index, result, index + 1, to - from - index);
+      
+      return result;
+    }
+    
+    /**
+     * Removes a specific index from the list.
+     * 
+     * @param index index to remove from
+     * @return a new {@link SegmentSet} which represents the change
+     */
+    public SegmentSet<T> remove(int index) {
+      Node newRoot = remove(root, index);
+      if (newRoot == null) {
+        newRoot = EMPTY_NODE;
+      } else {
+        // collapse the tree as it shrinks
+        while (! newRoot.isLeaf() && newRoot.children.length == 1) {
+          newRoot = newRoot.children[0];
+        }
+      }
+      
+      return new SegmentSet<T>(segmentSize, newRoot);
+    }
+    
+    /**
+     * Removes from the provided node, returning {@code null} if the node is now empty.
+     */
+    private Node remove(Node node, int index) {
+      if (node.isLeaf()) {
+        Object[] items = node.items;
+        if (items.length == 1) {
+          return null;
+        }
+        Object[] newItems = new Object[items.length - 1];
+        System.arraycopy(items, 0, newItems, 0, index);
+        System.arraycopy(items, index + 1, newItems, index, items.length - index - 1);
+        
+        return new Node(newItems);
+      }
+      
+      int child = node.childIndex(index);
+      Node childResult = remove(node.children[child], index - node.childStart(child));
+      Node[] newChildren;
+      if (childResult == null) {
+        if (node.children.length == 1) {
+          return null;
+        }
+        newChildren = new Node[node.children.length - 1];
+        System.arraycopy(node.children, 0, newChildren, 0, child);
+        System.arraycopy(node.children, child + 1, 
+                         newChildren, child, node.children.length - child - 1);
+      } else if (childResult.isLeaf() && childResult.size < segmentSize / MERGE_RATIO && 
+                 node.children.length > 1) {
+        // merge small segments into a neighbor so that the structure does not fragment
+        int neighbor = child + 1 < node.children.length ? child + 1 : child - 1;
+        Node neighborNode = node.children[neighbor];
+        if (neighborNode.isLeaf() && neighborNode.size + childResult.size <= segmentSize) {
+          int first = Math.min(child, neighbor);
+          Object[] firstItems = first == child ? childResult.items : neighborNode.items;
+          Object[] secondItems = first == child ? neighborNode.items : childResult.items;
+          Object[] merged = Arrays.copyOf(firstItems, firstItems.length + secondItems.length);
+          System.arraycopy(secondItems, 0, merged, firstItems.length, secondItems.length);
+          
+          newChildren = new Node[node.children.length - 1];
+          System.arraycopy(node.children, 0, newChildren, 0, first);
+          newChildren[first] = new Node(merged);
+          System.arraycopy(node.children, first + 2, 
+                           newChildren, first + 1, node.children.length - first - 2);
+        } else {
+          newChildren = node.children.clone();
+          newChildren[child] = childResult;
+        }
+      } else {
+        newChildren = node.children.clone();
+        newChildren[child] = childResult;
+      }
+      
+      return new Node(newChildren);
+    }
+    
+    /**
+     * Move a stored item located at an index to a new index.  If the new index is after the 
+     * current index, the item will be placed before the item which was originally at the new 
+     * index (or at the end if the new index is the size).
+     * 
+     * @param origCurrentIndex index of item to be moved
+     * @param origNewIndex index for item to be placed before
+     * @return a new {@link SegmentSet} which represents the change
+     */
+    public SegmentSet<T> reposition(int origCurrentIndex, int origNewIndex) {
+      if (origCurrentIndex == size - 1 && origNewIndex == size) {
+        // no-op, moving end item to end
+        return this;
+      }
+      
+      T item = get(origCurrentIndex);
+      SegmentSet<T> result = remove(origCurrentIndex);
+      if (origNewIndex > origCurrentIndex) {
+        origNewIndex--;
+      }
+      
+      return result.add(origNewIndex, item);
+    }
+  }
+}
@@ -0,0 +1,304 @@
+package org.threadly.concurrent.event;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>This class changes the behavior of how listeners are called from the parent class 
+ * {@link ListenerHelper}.  Similar to {@link AsyncCallListenerHelper}, {@link #call()} 
+ * invocations will never block on listener execution.  But instead of submitting a task to the 
+ * executor for every {@link #call()}, events are appended to a queue for each listener.  A single 
+ * drain task per listener is then scheduled, which will deliver queued events in the order they 
+ * were provided, up to the max batch size before yielding the thread back to the executor.  This 
+ * can dramatically reduce the quantity of tasks submitted to the executor for listeners which are 
+ * called very frequently.</p>
+ * 
+ * <p>If a listener was added with an {@link Executor}, the drain task for that listener will run 
+ * on the provided executor, otherwise it will run on the executor provided at construction.  
+ * Because only one drain task may be active for a listener at a time, a given listener will 
+ * never be called concurrently, and the order of events for that listener is preserved even if 
+ * the executor is multi-threaded.</p>
+ * 
+ * <p>Optionally events may be conflated.  In this mode only the most recent arguments for a 
+ * given listener method are retained while waiting to be delivered.  This is useful for listeners 
+ * which only care about the latest state (for example a progress or price update), and allows 
+ * them to skip intermediate values when they are unable to keep up.  Event order for a listener 
+ * is still preserved based off when the first pending event for each method was received.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ * @param <T> Interface for listeners to implement and called into with
+ */
+public class CoalescingListenerHelper<T> extends ListenerHelper<T> {
+  /**
+   * This static function allows for quick and easy construction of the 
+   * {@link CoalescingListenerHelper}.  It is equivalent to the normal constructor, but requires 
+   * less code to do that construction.
+   * 
+   * @param <T> Type representing interface of listeners
+   * @param listenerInterface Interface that listeners need to implement
+   * @param executor Executor that listener events will be delivered on
+   * @param maxBatchSize Maximum events to deliver to a listener before yielding the thread
+   * @param conflateEvents {@code true} to only deliver the latest pending event for each method
+   * @return New instance of the {@link CoalescingListenerHelper}
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public static <T> CoalescingListenerHelper<T> build(Class<? super T> listenerInterface, 
+                                                      Executor executor, int maxBatchSize, 
+                                                      boolean conflateEvents) {
+    return new CoalescingListenerHelper(listenerInterface, executor, maxBatchSize, conflateEvents);
+  }
+  
+  protected final Executor executor;
+  protected final int maxBatchSize;
+  protected final boolean conflateEvents;
+  protected final ConcurrentMap<T, ListenerEventQueue> eventQueues;
+  
+  /**
+   * Constructs a new {@link CoalescingListenerHelper} that will handle listeners with the 
+   * provided interface.  The provided class MUST be an interface.  Listeners which were not added 
+   * with their own executor will have their events delivered on the executor provided here.
+   * 
+   * @param listenerInterface Interface that listeners need to implement
+   * @param executor {@link Executor} that listener events will be delivered on
+   * @param maxBatchSize Maximum events to deliver to a listener before yielding the thread
+   * @param conflateEvents {@code true} to only deliver the latest pending event for each method
+   */
+  public CoalescingListenerHelper(Class<? super T> listenerInterface, Executor executor, 
+                                  int maxBatchSize, boolean conflateEvents) {
+    super(listenerInterface);
+    
+    ArgumentVerifier.assertNotNull(executor, "executor");
+    ArgumentVerifier.assertGreaterThanZero(maxBatchSize, "maxBatchSize");
+    
+    this.executor = executor;
+    this.maxBatchSize = maxBatchSize;
+    this.conflateEvents = conflateEvents;
+    this.eventQueues = new ConcurrentHashMap<T, ListenerEventQueue>();
+  }
+  
+  @Override
+  @SuppressWarnings("unchecked")
+  protected T getProxyInstance(Class<? super T> listenerInterface) {
+    return (T) Proxy.newProxyInstance(listenerInterface.getClassLoader(), 
+                                      new Class<?>[] { listenerInterface }, 
+                                      new CoalescingListenerCaller());
+  }
+  
+  @Override
+  public boolean removeListener(T listener) {
+    synchronized (listenersLock) {
+      if (listener != null) {
+        ListenerEventQueue leq = eventQueues.remove(listener);
+        if (leq != null) {
+          leq.removed = true;
+        }
+      }
+      
+      return super.removeListener(listener);
+    }
+  }
+  
+  @Override
+  public void clearListeners() {
+    synchronized (listenersLock) {
+      Iterator<ListenerEventQueue> it = eventQueues.values().iterator();
+      while (it.hasNext()) {
+        it.next().removed = true;
+        it.remove();
+      }
+      
+      super.clearListeners();
+    }
+  }
+  
+  /**
+   * Returns the number of events which are currently queued waiting to be delivered to the 
+   * provided listener.  If events are being conflated, this is the number of methods which have 
+   * a pending event.
+   * 
+   * @param listener Listener to check queued events for
+   * @return Quantity of events waiting to be delivered
+   */
+  public int getQueuedEventCount(T listener) {
+    ListenerEventQueue leq = eventQueues.get(listener);
+    if (leq == null) {
+      return 0;
+    } else {
+      return leq.queue.size();
+    }
+  }
+  
+  /**
+   * <p>Implementation of the {@link ListenerCaller} which instead of directly invoking listeners, 
+   * enqueues the event into each listener's {@link ListenerEventQueue}.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class CoalescingListenerCaller extends ListenerCaller {
+    @Override
+    protected void callListeners(Method method, Object[] args) {
+      synchronized (listenersLock) {
+        if (listeners != null) {
+          Iterator<Entry<T, Executor>> it = listeners.entrySet().iterator();
+          while (it.hasNext()) {
+            Entry<T, Executor> listener = it.next();
+            getEventQueue(listener.getKey(), listener.getValue()).addEvent(method, args);
+          }
+        }
+      }
+    }
+    
+    /**
+     * Gets the queue for the provided listener, constructing it if this is the first event for 
+     * that listener.
+     * 
+     * @param listener Listener to get queue for
+     * @param listenerExecutor Executor provided with the listener, or {@code null}
+     * @return Queue to add events to for the listener
+     */
+    protected ListenerEventQueue getEventQueue(T listener, Executor listenerExecutor) {
+      ListenerEventQueue result = eventQueues.get(listener);
+      if (result == null) {
+        result = new ListenerEventQueue(this, listener, 
+                                        listenerExecutor == null ? executor : listenerExecutor);
+        ListenerEventQueue existing = eventQueues.putIfAbsent(listener, result);
+        if (existing != null) {
+          result = existing;
+        }
+      }
+      
+      return result;
+    }
+  }
+  
+  /**
+   * <p>Class which queues events for a single listener.  Events may be added from any thread, 
+   * while only a single drain task will be submitted to the executor at a time.  This task 
+   * delivers events in order, and if more than the max batch size of events are queued it will 
+   * re-submit itself so that other tasks on the executor are not starved.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class ListenerEventQueue implements Runnable {
+    private final CoalescingListenerCaller caller;
+    private final T listener;
+    private final Executor listenerExecutor;
+    private final Queue<Object> queue;
+    private final ConcurrentMap<Method, Object[]> latestArgs;
+    private final AtomicBoolean drainScheduled;
+    protected volatile boolean removed;
+    
+    protected ListenerEventQueue(CoalescingListenerCaller caller, 
+                                 T listener, Executor listenerExecutor) {
+      this.caller = caller;
+      this.listener = listener;
+      this.listenerExecutor = listenerExecutor;
+      this.queue = new ConcurrentLinkedQueue<Object>();
+      if (conflateEvents) {
+        latestArgs = new ConcurrentHashMap<Method, Object[]>();
+      } else {
+        latestArgs = null;
+      }
+      this.drainScheduled = new AtomicBoolean(false);
+      this.removed = false;
+    }
+    
+    /**
+     * Adds an event to be delivered to the listener, and schedules the drain task if it is not 
+     * already pending.
+     * 
+     * @param method Method to invoke on listener
+     * @param args Arguments to provide for invocation, may be {@code null}
+     */
+    protected void addEvent(Method method, Object[] args) {
+      if (conflateEvents) {
+        // only enqueue the method if there was not already a pending invocation for it
+        if (latestArgs.put(method, args == null ? NO_ARGS : args) == null) {
+          queue.add(method);
+        }
+      } else {
+        queue.add(new ListenerEvent(method, args));
+      }
+      
+      scheduleDrain();
+    }
+    
+    private void scheduleDrain() {
+      if (drainScheduled.compareAndSet(false, true)) {
+        try {
+          listenerExecutor.execute(this);
+        } catch (RuntimeException e) {
+          drainScheduled.set(false);
+          throw e;
+        }
+      }
+    }
+    
+    @Override
+    public void run() {
+      int count = 0;
+      Object item;
+      while (count < maxBatchSize && (item = queue.poll()) != null) {
+        count++;
+        if (conflateEvents) {
+          Method method = (Method)item;
+          Object[] args = latestArgs.remove(method);
+          if (! removed) {
+            caller.callListener(listener, method, args);
+          }
+        } else if (! removed) {
+          ListenerEvent event = (ListenerEvent)item;
+          caller.callListener(listener, event.method, event.args);
+        }
+      }
+      
+      if (queue.isEmpty()) {
+        drainScheduled.set(false);
+        // check that an event was not added after we checked, but before we reset the flag
+        if (! queue.isEmpty()) {
+          scheduleDrain();
+        }
+      } else {
+        // more events to deliver, yield the thread so other tasks get a chance to run
+        try {
+          listenerExecutor.execute(this);
+        } catch (RuntimeException e) {
+          // allow a later event to attempt to schedule the drain again
+          drainScheduled.set(false);
+          throw e;
+        }
+      }
+    }
+  }
+  
+  private static final Object[] NO_ARGS = new Object[0];
+  
+  /**
+   * <p>Simple container for an event invocation which has not been delivered yet.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  private static class ListenerEvent {
+    private final Method method;
+    private final Object[] args;
+    
+    private ListenerEvent(Method method, Object[] args) {
+      this.method = method;
+      this.args = args;
+    }
+  }
+}
@@ -0,0 +1,256 @@
+package org.threadly.concurrent.future;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.threadly.concurrent.SubmitterSchedulerInterface;
+import org.threadly.util.Clock;
+
+/**
+ * <p>A {@link ListenableFuture} which will complete with the result of a delegate future, or fail 
+ * with a {@link TimeoutException} if the delegate future has not completed by the deadline.  If 
+ * the deadline is reached first the delegate future will be canceled (without interruption).  
+ * Canceling this future will cancel the delegate future as well.</p>
+ * 
+ * <p>The timeout is scheduled as a single task on the provided scheduler.  If the delegate future 
+ * completes first the scheduled timeout is canceled.  For schedulers like 
+ * {@link org.threadly.concurrent.PriorityScheduler} this cancellation is O(1), the canceled task 
+ * will be skipped instead of executed, and will not be searched for in the queue.</p>
+ * 
+ * <p>The deadline is carried with the future, so that nested operations can use 
+ * {@link #getRemainingTimeInMs()} to propagate the time left to them.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ * @param <T> The result object type returned by this future
+ */
+public class DeadlineListenableFuture<T> implements ListenableFuture<T> {
+  protected final ListenableFuture<? extends T> delegateFuture;
+  protected final long deadline;
+  private final SettableListenableFuture<T> resultFuture;
+  private final AtomicBoolean completed;
+  private volatile ListenableFuture<?> timeoutFuture;
+  private volatile boolean timedOut;
+  // set before the result is, only reported once the result future is done
+  private volatile boolean canceled;
+  
+  /**
+   * Constructs a new {@link DeadlineListenableFuture}.  The provided scheduler will be used to 
+   * schedule the timeout.  The deadline is in the time reference of 
+   * {@link Clock#accurateForwardProgressingMillis()}.
+   * 
+   * @param delegateFuture Future to provide the result from
+   * @param deadline Time at which the future will timeout if still not complete
+   * @param scheduler Scheduler to schedule the timeout on
+   */
+  protected DeadlineListenableFuture(ListenableFuture<? extends T> delegateFuture, 
+                                     long deadline, SubmitterSchedulerInterface scheduler) {
+    this.delegateFuture = delegateFuture;
+    this.deadline = deadline;
+    this.resultFuture = new SettableListenableFuture<T>();
+    this.completed = new AtomicBoolean(false);
+    this.timeoutFuture = null;
+    this.timedOut = false;
+    this.canceled = false;
+    
+    delegateFuture.addListener(new Runnable() {
+      @Override
+      public void run() {
+        handleDelegateDone();
+      }
+    });
+    
+    if (! completed.get()) {
+      long delay = Math.max(0, deadline - Clock.accurateForwardProgressingMillis());
+      timeoutFuture = scheduler.submitScheduled(new Runnable() {
+        @Override
+        public void run() {
+          handleTimeout();
+        }
+      }, delay);
+      
+      if (completed.get()) {
+        // delegate completed while we were scheduling, so we need to cleanup the timeout
+        timeoutFuture.cancel(false);
+      }
+    }
+  }
+  
+  /**
+   * Returns the deadline for this future, in the time reference of 
+   * {@link Clock#accurateForwardProgressingMillis()}.
+   * 
+   * @return Time at which this future will timeout if still not complete
+   */
+  public long getDeadline() {
+    return deadline;
+  }
+  
+  /**
+   * Returns the remaining time till the deadline is reached.  This is useful for providing to 
+   * any nested operations so that they will not run past the original deadline.
+   * 
+   * @return Milliseconds remaining till the deadline, or zero if the deadline has passed
+   */
+  public long getRemainingTimeInMs() {
+    return Math.max(0, deadline - Clock.accurateForwardProgressingMillis());
+  }
+  
+  /**
+   * Returns {@code true} if the deadline was reached before the delegate future completed.
+   * 
+   * @return {@code true} if this future failed due to a timeout
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+  
+  @Override
+  public void addListener(Runnable listener) {
+    resultFuture.addListener(listener);
+  }
+  
+  @Override
+  public void addListener(Runnable listener, Executor executor) {
+    resultFuture.addListener(listener, executor);
+  }
+  
+  @Override
+  public void addCallback(FutureCallback<? super T> callback) {
+    resultFuture.addCallback(callback);
+  }
+  
+  @Override
+  public void addCallback(FutureCallback<? super T> callback, Executor executor) {
+    resultFuture.addCallback(callback, executor);
+  }
+  
+  /**
+   * Cancels this future, as well as the delegate future and the scheduled timeout.  This will 
+   * only succeed if the delegate future has not already completed, and the deadline has not been 
+   * reached.
+   * 
+   * @param mayInterruptIfRunning {@code true} to interrupt the delegate if it is running
+   * @return {@code true} if this future was canceled
+   */
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    if (! completed.compareAndSet(false, true)) {
+      return false;
+    }
+    
+    canceled = true;
+    ListenableFuture<?> timeoutFuture = this.timeoutFuture;
+    if (timeoutFuture != null) {
+      timeoutFuture.cancel(false);
+    }
+    delegateFuture.cancel(mayInterruptIfRunning);
+    
+    resultFuture.setFailure(new CancellationException());
+    
+    return true;
+  }
+  
+  @Override
+  public boolean isCancelled() {
+    // canceled is set before the failure, so done must be checked for the Future contract
+    return canceled && resultFuture.isDone();
+  }
+  
+  @Override
+  public boolean isDone() {
+    return resultFuture.isDone();
+  }
+  
+  @Override
+  public T get() throws InterruptedException, ExecutionException {
+    try {
+      return resultFuture.get();
+    } catch (ExecutionException e) {
+      throw translateFailure(e);
+    }
+  }
+  
+  @Override
+  public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, 
+                                                   TimeoutException {
+    try {
+      return resultFuture.get(timeout, unit);
+    } catch (ExecutionException e) {
+      throw translateFailure(e);
+    }
+  }
+  
+  /**
+   * Converts the failure from the result future into the exception this future should throw.  If 
+   * this future was canceled a {@link CancellationException} is thrown directly, as is expected 
+   * from a canceled {@link java.util.concurrent.Future}.
+   * 
+   * @param e Failure from the result future
+   * @return Exception to throw from {@code get}
+   */
+  private ExecutionException translateFailure(ExecutionException e) {
+    if (canceled) {
+      throw (CancellationException)e.getCause();
+    } else {
+      return e;
+    }
+  }
+  
+  private void handleDelegateDone() {
+    if (! completed.compareAndSet(false, true)) {
+      return;
+    }
+    
+    ListenableFuture<?> timeoutFuture = this.timeoutFuture;
+    if (timeoutFuture != null) {
+      timeoutFuture.cancel(false);
+    }
+    
+    try {
+      resultFuture.setResult(delegateFuture.get());
+    } catch (InterruptedException e) {
+      /* should not be possible since this should only
+       * be called once the future is already done
+       */
+      Thread.currentThread().interrupt();
+      resultFuture.setFailure(e);
+    } catch (ExecutionException e) {
+      resultFuture.setFailure(e.getCause());
+    } catch (CancellationException e) {
+      resultFuture.setFailure(e);
+    }
+  }
+  
+  private void handleTimeout() {
+    if (completed.compareAndSet(false, true)) {
+      timedOut = true;
+      // cancel first so the delegate is already canceled once our failure is visible
+      delegateFuture.cancel(false);
+      
+      resultFuture.setFailure(new DeadlineTimeoutException());
+    }
+  }
+  
+  /**
+   * <p>Exception which is provided as the failure cause when the deadline is reached before the 
+   * delegate future completes.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public static class DeadlineTimeoutException extends TimeoutException {
+    private static final long serialVersionUID = -3593306263282036283L;
+    
+    /**
+     * Constructs a new {@link DeadlineTimeoutException}.
+     */
+    public DeadlineTimeoutException() {
+      super("Deadline reached before future completed");
+    }
+  }
+}
@@ -10,8 +10,10 @@ import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.threadly.concurrent.SubmitterSchedulerInterface;
 import org.threadly.concurrent.collections.ConcurrentArrayList;
 import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.Clock;
 
 /**
  * <p>A collection of small utilities for handling futures.</p>
@@ -261,6 +263,59 @@ public class FutureUtils {
     return new ImmediateFailureListenableFuture<T>(failure);
   }
   
+  /**
+   * Constructs a future which will complete with the result of the provided future, or fail with 
+   * a {@link java.util.concurrent.TimeoutException} if the provided future does not complete 
+   * within the given timeout.  If the timeout is reached first, the provided future will be 
+   * canceled (without interruption).
+   * 
+   * The timeout is scheduled as a single task on the provided scheduler, and if the future 
+   * completes first that task is canceled.  When using a 
+   * {@link org.threadly.concurrent.PriorityScheduler} this cancellation is O(1), and the canceled 
+   * task will not be run.
+   * 
+   * @since 3.7.0
+   * 
+   * @param <T> The result object type returned by the futures
+   * @param future Future to provide the result from
+   * @param timeoutInMs Time in milliseconds to wait for the future to complete
+   * @param scheduler Scheduler to schedule the timeout on
+   * @return Future which will complete with the result or a timeout failure
+   */
+  public static <T> DeadlineListenableFuture<T> withTimeout(ListenableFuture<? extends T> future, 
+                                                            long timeoutInMs, 
+                                                            SubmitterSchedulerInterface scheduler) {
+    ArgumentVerifier.assertNotNegative(timeoutInMs, "timeoutInMs");
+    
+    return withDeadline(future, Clock.accurateForwardProgressingMillis() + timeoutInMs, scheduler);
+  }
+  
+  /**
+   * Constructs a future which will complete with the result of the provided future, or fail with 
+   * a {@link java.util.concurrent.TimeoutException} if the provided future does not complete 
+   * before the deadline.  The deadline is in the time reference of 
+   * {@link Clock#accurateForwardProgressingMillis()}.  This is useful to propagate the deadline 
+   * of an outer operation (see {@link DeadlineListenableFuture#getDeadline()}) to nested 
+   * operations.  Please see {@link #withTimeout(ListenableFuture, long, SubmitterSchedulerInterface)} 
+   * for more details.
+   * 
+   * @since 3.7.0
+   * 
+   * @param <T> The result object type returned by the futures
+   * @param future Future to provide the result from
+   * @param deadline Time at which the returned future will fail if the future is still not done
+   * @param scheduler Scheduler to schedule the timeout on
+   * @return Future which will complete with the result or a timeout failure
+   */
+  public static <T> DeadlineListenableFuture<T> withDeadline(ListenableFuture<? extends T> future, 
+                                                             long deadline, 
+                                                             SubmitterSchedulerInterface scheduler) {
+    ArgumentVerifier.assertNotNull(future, "future");
+    ArgumentVerifier.assertNotNull(scheduler, "scheduler");
+    
+    return new DeadlineListenableFuture<T>(future, deadline, scheduler);
+  }
+  
   /**
    * <p>A future implementation that will return a List of futures as the result.  The future will 
    * not be satisfied till all provided futures have completed.</p>
@@ -0,0 +1,180 @@
+package org.threadly.concurrent.statistics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>A thread safe histogram of non-negative long values, using log-linear buckets in the style 
+ * of an HDR histogram.  Values under {@value #EXACT_VALUE_LIMIT} are each tracked in their own 
+ * bucket, so they are reported exactly.  Larger values are grouped into buckets which are each 
+ * within 1/64th of the value, so any reported value is within about 1.5% of the recorded 
+ * value.</p>
+ * 
+ * <p>Adding and removing values is a single atomic increment or decrement and does not allocate.  
+ * Percentile queries walk the buckets once, and so are O(buckets) independent of how many values 
+ * have been recorded.  Because values can be removed, this can be used to keep a histogram of a 
+ * rolling window of samples (see {@link RollingLongWindow}).</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class LongHistogram {
+  /**
+   * Values below this limit are tracked exactly.
+   */
+  public static final int EXACT_VALUE_LIMIT = 128;
+  protected static final int SUB_BUCKET_BITS = 6;
+  protected static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  protected static final int EXACT_VALUE_BITS = 7;
+  protected static final int BUCKET_COUNT =
+      EXACT_VALUE_LIMIT + ((Long.SIZE - 1 - EXACT_VALUE_BITS) * SUB_BUCKET_COUNT);
+  
+  protected final AtomicIntegerArray counts;
+  
+  /**
+   * Constructs a new empty histogram.
+   */
+  public LongHistogram() {
+    counts = new AtomicIntegerArray(BUCKET_COUNT);
+  }
+  
+  /**
+   * Returns the index of the bucket which the provided value is tracked in.
+   * 
+   * @param value Non-negative value to find the bucket for
+   * @return Index of the bucket for the value
+   */
+  protected static int bucketIndex(long value) {
+    if (value < EXACT_VALUE_LIMIT) {
+      return (int)value;
+    }
+    
+    int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int shift = highestBit - SUB_BUCKET_BITS;
+    // sub bucket will be in the range of [SUB_BUCKET_COUNT, SUB_BUCKET_COUNT * 2)
+    int subBucket = (int)(value >>> shift);
+    
+    return EXACT_VALUE_LIMIT + ((highestBit - EXACT_VALUE_BITS) * SUB_BUCKET_COUNT) + 
+             (subBucket - SUB_BUCKET_COUNT);
+  }
+  
+  /**
+   * Returns the lowest value which would be tracked in the bucket at the provided index.
+   * 
+   * @param index Index of the bucket
+   * @return Lowest value held within the bucket
+   */
+  protected static long bucketLowestValue(int index) {
+    if (index < EXACT_VALUE_LIMIT) {
+      return index;
+    }
+    
+    int offset = index - EXACT_VALUE_LIMIT;
+    int highestBit = (offset / SUB_BUCKET_COUNT) + EXACT_VALUE_BITS;
+    long subBucket = (offset % SUB_BUCKET_COUNT) + SUB_BUCKET_COUNT;
+    
+    return subBucket << (highestBit - SUB_BUCKET_BITS);
+  }
+  
+  /**
+   * Records a value into the histogram.
+   * 
+   * @param value Non-negative value to record
+   */
+  public void add(long value) {
+    ArgumentVerifier.assertNotNegative(value, "value");
+    
+    counts.incrementAndGet(bucketIndex(value));
+  }
+  
+  /**
+   * Removes a value which was previously provided to {@link #add(long)}.
+   * 
+   * @param value Non-negative value which was previously recorded
+   */
+  public void remove(long value) {
+    ArgumentVerifier.assertNotNegative(value, "value");
+    
+    counts.decrementAndGet(bucketIndex(value));
+  }
+  
+  /**
+   * Clears all recorded values from the histogram.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts.set(i, 0);
+    }
+  }
+  
+  /**
+   * Returns the total quantity of values currently recorded.
+   * 
+   * @return Quantity of values in the histogram
+   */
+  public long getCount() {
+    long result = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      result += counts.get(i);
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Returns the value at the provided percentile.  This matches the value which would be at index 
+   * {@code (count * percentile / 100)} if all recorded values were sorted, so a percentile of 
+   * {@code 50} returns the same value as taking the middle item from a sorted list.  Values over 
+   * {@value #EXACT_VALUE_LIMIT} are reported as the lowest value in their bucket.
+   * 
+   * @param percentile Percentile to report, between 0 and 100 inclusive
+   * @return Value at the percentile, or {@code -1} if no values are recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    return getValueAtPercentile(percentile, this);
+  }
+  
+  /**
+   * Returns the value at the provided percentile, merging together multiple histograms as if 
+   * they were a single histogram.  This is done in a single pass over the buckets, without 
+   * allocating a merged histogram.
+   * 
+   * @param percentile Percentile to report, between 0 and 100 inclusive
+   * @param histograms Histograms to merge together
+   * @return Value at the percentile, or {@code -1} if no values are recorded
+   */
+  public static long getValueAtPercentile(double percentile, LongHistogram ... histograms) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    
+    long totalCount = 0;
+    for (LongHistogram h : histograms) {
+      totalCount += h.getCount();
+    }
+    if (totalCount <= 0) {
+      return -1;
+    }
+    
+    long targetRank = Math.min((long)(totalCount * (percentile / 100)), totalCount - 1);
+    long seenCount = 0;
+    int lastNonEmpty = -1;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      long bucketCount = 0;
+      for (LongHistogram h : histograms) {
+        bucketCount += h.counts.get(i);
+      }
+      if (bucketCount > 0) {
+        lastNonEmpty = i;
+        seenCount += bucketCount;
+        if (seenCount > targetRank) {
+          return bucketLowestValue(i);
+        }
+      }
+    }
+    
+    // values were concurrently removed while we were iterating
+    return lastNonEmpty < 0 ? -1 : bucketLowestValue(lastNonEmpty);
+  }
+}
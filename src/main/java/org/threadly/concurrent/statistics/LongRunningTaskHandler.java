@@ -0,0 +1,27 @@
+package org.threadly.concurrent.statistics;
+
+/**
+ * <p>Callback which is invoked when a task has been running longer than an expected threshold.  
+ * See {@link org.threadly.concurrent.PrioritySchedulerStatisticTracker#watchForLongRunningTasks( 
+ * org.threadly.concurrent.SchedulerServiceInterface, long, long, LongRunningTaskHandler)}.</p>
+ * 
+ * <p>This is invoked from the thread performing the check, NOT the thread running the task.  The 
+ * handler is only invoked once for each execution of a task which exceeds the threshold.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public interface LongRunningTaskHandler {
+  /**
+   * Invoked when a task has been found to be running past the threshold.  The stack is captured 
+   * from the running thread just before this is invoked, and the task was verified to still be 
+   * running after the stack was captured.
+   * 
+   * @param task The {@link Runnable} or {@link java.util.concurrent.Callable} originally submitted
+   * @param runningThread Thread which is executing the task
+   * @param runTimeInMs How long the task has been running for in milliseconds
+   * @param stack Stack of the running thread at the time of the check
+   */
+  public void handleLongRunningTask(Object task, Thread runningThread, 
+                                    long runTimeInMs, StackTraceElement[] stack);
+}
@@ -0,0 +1,315 @@
+package org.threadly.concurrent.statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>A lock free rolling window of non-negative long samples.  Samples are held in primitive ring 
+ * buffers, so once the window is full each new sample replaces the oldest sample.  Recording a 
+ * sample does not allocate, and never blocks on other recording or reading threads.</p>
+ * 
+ * <p>To reduce contention the window can be split into multiple stripes, where the stripe a 
+ * sample is recorded into is selected by the recording thread.  Each stripe holds up to the 
+ * window size of samples.  A window with a single stripe holds exactly the most recent samples, 
+ * while a striped window holds the most recent samples recorded to each stripe.</p>
+ * 
+ * <p>Each stripe maintains its running sum and count, so {@link #getAverage()} is O(stripes).  
+ * Optionally each stripe will also maintain a {@link LongHistogram} of the samples in its window, 
+ * allowing {@link #getValueAtPercentile(double)} to be O(buckets) rather than needing to copy 
+ * and sort the window.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class RollingLongWindow {
+  protected static final long EMPTY_SLOT = -1;
+  
+  protected final int windowSize;
+  protected final Stripe[] stripes;
+  protected final int stripeMask;
+  protected final LongHistogram[] histograms;
+  
+  /**
+   * Constructs a new window with a single stripe.  This is best if samples are recorded from a 
+   * single thread, or where contention between recording threads is not a concern.
+   * 
+   * @param windowSize Maximum number of samples to hold
+   * @param trackPercentiles {@code true} to maintain a histogram for percentile queries
+   */
+  public RollingLongWindow(int windowSize, boolean trackPercentiles) {
+    this(windowSize, 1, trackPercentiles);
+  }
+  
+  /**
+   * Constructs a new window.  The stripe count will be rounded up to the nearest power of two.
+   * 
+   * @param windowSize Maximum number of samples to hold within each stripe
+   * @param stripeCount Number of stripes to distribute recording threads across
+   * @param trackPercentiles {@code true} to maintain a histogram for percentile queries
+   */
+  public RollingLongWindow(int windowSize, int stripeCount, boolean trackPercentiles) {
+    ArgumentVerifier.assertGreaterThanZero(windowSize, "windowSize");
+    ArgumentVerifier.assertGreaterThanZero(stripeCount, "stripeCount");
+    
+    int actualStripeCount = Integer.highestOneBit(stripeCount);
+    if (actualStripeCount < stripeCount) {
+      actualStripeCount <<= 1;
+    }
+    
+    this.windowSize = windowSize;
+    this.stripes = new Stripe[actualStripeCount];
+    this.stripeMask = actualStripeCount - 1;
+    this.histograms = trackPercentiles ? new LongHistogram[actualStripeCount] : null;
+    for (int i = 0; i < actualStripeCount; i++) {
+      LongHistogram histogram = trackPercentiles ? new LongHistogram() : null;
+      stripes[i] = new Stripe(windowSize, histogram);
+      if (trackPercentiles) {
+        histograms[i] = histogram;
+      }
+    }
+  }
+  
+  /**
+   * Returns the maximum number of samples which are held within each stripe.
+   * 
+   * @return Window size of each stripe
+   */
+  public int getWindowSize() {
+    return windowSize;
+  }
+  
+  /**
+   * Returns how many stripes samples are distributed across.
+   * 
+   * @return Quantity of stripes
+   */
+  public int getStripeCount() {
+    return stripes.length;
+  }
+  
+  /**
+   * Records a new sample, replacing the oldest sample in the stripe if the stripe is full.
+   * 
+   * @param value Non-negative sample to record
+   */
+  public void record(long value) {
+    ArgumentVerifier.assertNotNegative(value, "value");
+    
+    stripes[(int)(Thread.currentThread().getId() & stripeMask)].record(value);
+  }
+  
+  /**
+   * Records a boolean sample as either {@code 1} or {@code 0}.  This allows 
+   * {@link #getAverage(double)} to report how often {@code true} was recorded.
+   * 
+   * @param value Sample to record
+   */
+  public void record(boolean value) {
+    record(value ? 1L : 0L);
+  }
+  
+  /**
+   * Removes all samples from the window.
+   */
+  public void reset() {
+    for (Stripe s : stripes) {
+      s.reset();
+    }
+  }
+  
+  /**
+   * Returns how many samples are currently held in the window.
+   * 
+   * @return Quantity of samples in the window
+   */
+  public int getCount() {
+    int result = 0;
+    for (Stripe s : stripes) {
+      result += s.count.get();
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Returns the sum of all samples currently held in the window.
+   * 
+   * @return Sum of samples in the window
+   */
+  public long getSum() {
+    long result = 0;
+    for (Stripe s : stripes) {
+      result += s.sum.get();
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Returns the average of the samples in the window, rounded to the nearest whole number.
+   * 
+   * @return Average sample, or {@code -1} if there are no samples
+   */
+  public long getAverage() {
+    double result = getAverage(1);
+    if (result < 0) {
+      return -1;
+    } else {
+      return Math.round(result);
+    }
+  }
+  
+  /**
+   * Returns the average of the samples in the window, multiplied by the provided scale.  For 
+   * windows holding boolean samples a scale of {@code 100} will produce the percent of samples 
+   * which were {@code true}.
+   * 
+   * @param scale Value to multiply the average by
+   * @return Scaled average, or {@code -1} if there are no samples
+   */
+  public double getAverage(double scale) {
+    long sum = 0;
+    int count = 0;
+    for (Stripe s : stripes) {
+      count += s.count.get();
+      sum += s.sum.get();
+    }
+    if (count <= 0) {
+      return -1;
+    }
+    
+    return ((double)sum / count) * scale;
+  }
+  
+  /**
+   * Returns the sample at the provided percentile.  This requires that the window was constructed 
+   * to track percentiles.  The result is computed from {@link LongHistogram} buckets, so it is 
+   * exact for samples under {@value LongHistogram#EXACT_VALUE_LIMIT}, and otherwise within about 
+   * 1.5% of the actual sample.
+   * 
+   * @param percentile Percentile to report, between 0 and 100 inclusive
+   * @return Sample at the percentile, or {@code -1} if there are no samples
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (histograms == null) {
+      throw new UnsupportedOperationException("Window not constructed to track percentiles");
+    }
+    
+    return LongHistogram.getValueAtPercentile(percentile, histograms);
+  }
+  
+  /**
+   * Returns the sample at the provided percentile, combining the samples from multiple windows as 
+   * if they were held in a single window.  All windows must have been constructed to track 
+   * percentiles.
+   * 
+   * @param percentile Percentile to report, between 0 and 100 inclusive
+   * @param windows Windows to combine samples from
+   * @return Sample at the percentile, or {@code -1} if there are no samples
+   */
+  public static long getValueAtPercentile(double percentile, RollingLongWindow ... windows) {
+    int histogramCount = 0;
+    for (RollingLongWindow w : windows) {
+      if (w.histograms == null) {
+        throw new UnsupportedOperationException("Window not constructed to track percentiles");
+      }
+      histogramCount += w.histograms.length;
+    }
+    LongHistogram[] allHistograms = new LongHistogram[histogramCount];
+    int i = 0;
+    for (RollingLongWindow w : windows) {
+      System.arraycopy(w.histograms, 0, allHistograms, i, w.histograms.length);
+      i += w.histograms.length;
+    }
+    
+    return LongHistogram.getValueAtPercentile(percentile, allHistograms);
+  }
+  
+  /**
+   * Copies the current samples into a new list.  Samples from each stripe are ordered from oldest 
+   * to newest, but samples are not ordered across stripes.
+   * 
+   * @return A new list containing the samples currently in the window
+   */
+  public List<Long> getSamples() {
+    List<Long> result = new ArrayList<Long>(getCount());
+    for (Stripe s : stripes) {
+      s.addSamples(result);
+    }
+    
+    return result;
+  }
+  
+  /**
+   * <p>A single primitive ring buffer within the window.  Slots are claimed by incrementing the 
+   * position, and samples are swapped into the slot so that the sample being replaced is 
+   * atomically known and can be removed from the running statistics.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class Stripe {
+    protected final AtomicLongArray samples;
+    protected final AtomicLong position;
+    protected final AtomicInteger count;
+    protected final AtomicLong sum;
+    protected final LongHistogram histogram;
+    
+    protected Stripe(int size, LongHistogram histogram) {
+      samples = new AtomicLongArray(size);
+      for (int i = 0; i < size; i++) {
+        samples.set(i, EMPTY_SLOT);
+      }
+      position = new AtomicLong(0);
+      count = new AtomicInteger(0);
+      sum = new AtomicLong(0);
+      this.histogram = histogram;
+    }
+    
+    protected void record(long value) {
+      int slot = (int)(position.getAndIncrement() % samples.length());
+      long replaced = samples.getAndSet(slot, value);
+      if (histogram != null) {
+        histogram.add(value);
+      }
+      if (replaced == EMPTY_SLOT) {
+        count.incrementAndGet();
+        sum.addAndGet(value);
+      } else {
+        sum.addAndGet(value - replaced);
+        if (histogram != null) {
+          histogram.remove(replaced);
+        }
+      }
+    }
+    
+    protected void reset() {
+      for (int i = 0; i < samples.length(); i++) {
+        long replaced = samples.getAndSet(i, EMPTY_SLOT);
+        if (replaced != EMPTY_SLOT) {
+          count.decrementAndGet();
+          sum.addAndGet(-replaced);
+          if (histogram != null) {
+            histogram.remove(replaced);
+          }
+        }
+      }
+    }
+    
+    protected void addSamples(List<Long> result) {
+      long end = position.get();
+      long start = Math.max(0, end - samples.length());
+      for (long i = start; i < end; i++) {
+        long value = samples.get((int)(i % samples.length()));
+        if (value != EMPTY_SLOT) {
+          result.add(value);
+        }
+      }
+    }
+  }
+}
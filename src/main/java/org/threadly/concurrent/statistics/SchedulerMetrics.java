@@ -0,0 +1,86 @@
+package org.threadly.concurrent.statistics;
+
+/**
+ * <p>Common interface for executors and schedulers which track statistics about the tasks they 
+ * run.  Times are all reported in milliseconds.  Rolling statistics (averages and percentiles) 
+ * are collected over a window of recent executions, while the counters are totals since 
+ * construction.</p>
+ * 
+ * <p>Percentiles are computed from histograms of the window, so requesting tail latencies like 
+ * {@code getTaskRunTimePercentile(99.9)} is cheap, and does not require copying or sorting 
+ * samples.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public interface SchedulerMetrics {
+  /**
+   * Returns the average time tasks waited from when they were ready to run, to when they actually 
+   * started running.  For scheduled and recurring tasks the wait is measured from when the task 
+   * was scheduled to run.
+   * 
+   * @return Average queue wait time, or {@code -1} if no tasks have started yet
+   */
+  public long getAverageQueueWaitTime();
+  
+  /**
+   * Returns the time tasks waited from when they were ready to run, to when they started 
+   * running, at the provided percentile.
+   * 
+   * @param percentile Percentile to report, between 0 and 100 inclusive
+   * @return Queue wait time at the percentile, or {@code -1} if no tasks have started yet
+   */
+  public long getQueueWaitTimePercentile(double percentile);
+  
+  /**
+   * Returns the average time tasks took to run.
+   * 
+   * @return Average run time, or {@code -1} if no tasks have finished yet
+   */
+  public long getAverageTaskRunTime();
+  
+  /**
+   * Returns the time tasks took to run at the provided percentile.
+   * 
+   * @param percentile Percentile to report, between 0 and 100 inclusive
+   * @return Run time at the percentile, or {@code -1} if no tasks have finished yet
+   */
+  public long getTaskRunTimePercentile(double percentile);
+  
+  /**
+   * Returns the current depth of the queue.  This is the quantity of tasks which have been 
+   * accepted (including scheduled tasks which are not ready yet), but have not started.
+   * 
+   * @return Quantity of tasks waiting to run
+   */
+  public int getQueuedTaskCount();
+  
+  /**
+   * Returns how many tasks are currently running.
+   * 
+   * @return Quantity of tasks currently running
+   */
+  public int getCurrentRunningCount();
+  
+  /**
+   * Returns the total quantity of tasks which have been accepted.  Recurring tasks are only 
+   * counted once.
+   * 
+   * @return Total quantity of tasks submitted
+   */
+  public long getSubmittedTaskCount();
+  
+  /**
+   * Returns the total quantity of task executions which have completed.  Recurring tasks are 
+   * counted once for every execution.  Sampling this over time provides the throughput.
+   * 
+   * @return Total quantity of completed task executions
+   */
+  public long getCompletedTaskCount();
+  
+  /**
+   * Clears all collected rolling statistics.  These are the statistics used for averages and 
+   * percentiles.  This does NOT reset the total counts.
+   */
+  public void resetCollectedStats();
+}
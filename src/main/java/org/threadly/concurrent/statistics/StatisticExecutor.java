@@ -0,0 +1,247 @@
+package org.threadly.concurrent.statistics;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.threadly.concurrent.AbstractSubmitterExecutor;
+import org.threadly.concurrent.RunnableContainerInterface;
+import org.threadly.concurrent.SubmitterExecutorInterface;
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Wraps any {@link Executor} to collect {@link SchedulerMetrics} about the tasks executed 
+ * through it.  This can be used with any executor implementation, for example a 
+ * {@link org.threadly.concurrent.limiter.ExecutorLimiter}, or the submitter returned from 
+ * {@link org.threadly.concurrent.KeyDistributedExecutor#getSubmitterForKey(Object)}.</p>
+ * 
+ * <p>Only tasks submitted through this wrapper are tracked.  Queue wait time is measured from 
+ * when the task was provided to this wrapper, so it includes any time spent queued inside the 
+ * wrapped executor (for example waiting on a limiter).  Recording statistics does not lock or 
+ * allocate beyond the single wrapper around each task.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class StatisticExecutor extends AbstractSubmitterExecutor
+                               implements SubmitterExecutorInterface, SchedulerMetrics {
+  /**
+   * Default quantity of samples held in each stripe of the rolling windows.
+   */
+  public static final int DEFAULT_WINDOW_SIZE = 1000;
+  protected static final int MAX_STRIPES = 8;
+  private static final AtomicIntegerFieldUpdater<StatisticRunnable> QUEUED;
+  
+  static {
+    QUEUED = AtomicIntegerFieldUpdater.newUpdater(StatisticRunnable.class, "queued");
+  }
+  
+  protected final Executor executor;
+  protected final RollingLongWindow queueWaitTimes;
+  protected final RollingLongWindow runTimes;
+  protected final AtomicInteger queuedCount;
+  protected final AtomicInteger runningCount;
+  protected final AtomicLong submittedCount;
+  protected final AtomicLong completedCount;
+  
+  /**
+   * Constructs a new statistic tracking wrapper with the default window size.
+   * 
+   * @param executor Executor to run tasks on
+   */
+  public StatisticExecutor(Executor executor) {
+    this(executor, DEFAULT_WINDOW_SIZE);
+  }
+  
+  /**
+   * Constructs a new statistic tracking wrapper.
+   * 
+   * @param executor Executor to run tasks on
+   * @param windowSize Maximum quantity of samples to use for rolling statistics
+   */
+  public StatisticExecutor(Executor executor, int windowSize) {
+    ArgumentVerifier.assertNotNull(executor, "executor");
+    
+    int stripes = Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES);
+    this.executor = executor;
+    this.queueWaitTimes = new RollingLongWindow(windowSize, stripes, true);
+    this.runTimes = new RollingLongWindow(windowSize, stripes, true);
+    this.queuedCount = new AtomicInteger(0);
+    this.runningCount = new AtomicInteger(0);
+    this.submittedCount = new AtomicLong(0);
+    this.completedCount = new AtomicLong(0);
+  }
+  
+  @Override
+  protected void doExecute(Runnable task) {
+    StatisticRunnable sr = makeStatisticRunnable(task, 0);
+    try {
+      executor.execute(sr);
+    } catch (RuntimeException e) {
+      sr.rejected();
+      throw e;
+    }
+  }
+  
+  /**
+   * Wraps a task so that statistics will be recorded as it runs.  This counts the task as 
+   * submitted and queued, so the returned runnable must be provided to the wrapped executor, or 
+   * {@link StatisticRunnable#rejected()} must be invoked if the executor rejects it.
+   * 
+   * @param task Task to wrap
+   * @param delayInMs Delay before the task is expected to run
+   * @return Runnable to provide to the wrapped executor
+   */
+  protected StatisticRunnable makeStatisticRunnable(Runnable task, long delayInMs) {
+    return new StatisticRunnable(task, Clock.accurateForwardProgressingMillis() + delayInMs, 
+                                 -1, false);
+  }
+  
+  @Override
+  public long getAverageQueueWaitTime() {
+    return queueWaitTimes.getAverage();
+  }
+  
+  @Override
+  public long getQueueWaitTimePercentile(double percentile) {
+    return queueWaitTimes.getValueAtPercentile(percentile);
+  }
+  
+  @Override
+  public long getAverageTaskRunTime() {
+    return runTimes.getAverage();
+  }
+  
+  @Override
+  public long getTaskRunTimePercentile(double percentile) {
+    return runTimes.getValueAtPercentile(percentile);
+  }
+  
+  @Override
+  public int getQueuedTaskCount() {
+    return queuedCount.get();
+  }
+  
+  @Override
+  public int getCurrentRunningCount() {
+    return runningCount.get();
+  }
+  
+  @Override
+  public long getSubmittedTaskCount() {
+    return submittedCount.get();
+  }
+  
+  @Override
+  public long getCompletedTaskCount() {
+    return completedCount.get();
+  }
+  
+  @Override
+  public void resetCollectedStats() {
+    queueWaitTimes.reset();
+    runTimes.reset();
+  }
+  
+  /**
+   * <p>Wrapper which records the queue wait and run time of a task.  Recurring tasks will track 
+   * when their next execution is expected, so that time spent waiting between executions is not 
+   * counted as queue wait time.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class StatisticRunnable implements Runnable, RunnableContainerInterface {
+    private final Runnable task;
+    private final long recurringTime;
+    private final boolean fixedRate;
+    // only modified while running, and the scheduler provides a happens before between executions
+    private long expectedStartTime;
+    // 1 while counted in queuedCount, only changed through QUEUED
+    protected volatile int queued;
+    private volatile boolean removed;
+    
+    /**
+     * Constructs a new wrapper, counting the task as submitted and queued.
+     * 
+     * @param task Task to run
+     * @param expectedStartTime Time the task is ready to run
+     * @param recurringTime Delay or period for recurring tasks, {@code -1} if not recurring
+     * @param fixedRate {@code true} if a recurring task is run at a fixed rate
+     */
+    protected StatisticRunnable(Runnable task, long expectedStartTime, 
+                                long recurringTime, boolean fixedRate) {
+      this.task = task;
+      this.recurringTime = recurringTime;
+      this.fixedRate = fixedRate;
+      this.expectedStartTime = expectedStartTime;
+      this.removed = false;
+      
+      submittedCount.incrementAndGet();
+      queuedCount.incrementAndGet();
+      queued = 1;
+    }
+    
+    /**
+     * Stops counting this task as queued if it currently is.
+     */
+    private void dequeued() {
+      if (QUEUED.compareAndSet(this, 1, 0)) {
+        queuedCount.decrementAndGet();
+      }
+    }
+    
+    @Override
+    public void run() {
+      long startTime = Clock.accurateForwardProgressingMillis();
+      dequeued();
+      runningCount.incrementAndGet();
+      queueWaitTimes.record(Math.max(0, startTime - expectedStartTime));
+      try {
+        task.run();
+      } finally {
+        long finishTime = Clock.accurateForwardProgressingMillis();
+        runTimes.record(finishTime - startTime);
+        if (recurringTime >= 0) {
+          if (fixedRate) {
+            expectedStartTime += recurringTime;
+          } else {
+            expectedStartTime = finishTime + recurringTime;
+          }
+          queuedCount.incrementAndGet();
+          queued = 1;
+          if (removed) {
+            // removed while running, so it will not be run again
+            dequeued();
+          }
+        }
+        runningCount.decrementAndGet();
+        completedCount.incrementAndGet();
+      }
+    }
+    
+    /**
+     * Invoked if the wrapped executor rejects this task, so that it is no longer counted.
+     */
+    protected void rejected() {
+      submittedCount.decrementAndGet();
+      dequeued();
+    }
+    
+    /**
+     * Invoked once this task has been removed from the wrapped scheduler.  If the task is 
+     * currently running it will not be counted as queued again once it finishes.
+     */
+    protected void removed() {
+      removed = true;
+      dequeued();
+    }
+    
+    @Override
+    public Runnable getContainedRunnable() {
+      return task;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package org.threadly.concurrent.statistics;
+
+import java.util.concurrent.Callable;
+
+import org.threadly.concurrent.PrioritySchedulerInterface;
+import org.threadly.concurrent.TaskPriority;
+import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.concurrent.future.ListenableFutureTask;
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>Extends {@link StatisticSchedulerService} to wrap any {@link PrioritySchedulerInterface}, 
+ * for example a {@link org.threadly.concurrent.PriorityScheduler} or a 
+ * {@link org.threadly.concurrent.limiter.PrioritySchedulerLimiter}.  Statistics are collected 
+ * for tasks of all priorities together.  If statistics are needed per priority, 
+ * {@link org.threadly.concurrent.PrioritySchedulerWrapper} instances can each be wrapped in their 
+ * own {@link StatisticPriorityScheduler}.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class StatisticPriorityScheduler extends StatisticSchedulerService
+                                        implements PrioritySchedulerInterface {
+  protected final PrioritySchedulerInterface scheduler;
+  
+  /**
+   * Constructs a new statistic tracking wrapper with the default window size.
+   * 
+   * @param scheduler Scheduler to run tasks on
+   */
+  public StatisticPriorityScheduler(PrioritySchedulerInterface scheduler) {
+    this(scheduler, DEFAULT_WINDOW_SIZE);
+  }
+  
+  /**
+   * Constructs a new statistic tracking wrapper.
+   * 
+   * @param scheduler Scheduler to run tasks on
+   * @param windowSize Maximum quantity of samples to use for rolling statistics
+   */
+  public StatisticPriorityScheduler(PrioritySchedulerInterface scheduler, int windowSize) {
+    super(scheduler, windowSize);
+    
+    this.scheduler = scheduler;
+  }
+  
+  @Override
+  public void execute(Runnable task, TaskPriority priority) {
+    schedule(task, 0, priority);
+  }
+  
+  @Override
+  public ListenableFuture<?> submit(Runnable task, TaskPriority priority) {
+    return submitScheduled(task, null, 0, priority);
+  }
+  
+  @Override
+  public <T> ListenableFuture<T> submit(Runnable task, T result, TaskPriority priority) {
+    return submitScheduled(task, result, 0, priority);
+  }
+  
+  @Override
+  public <T> ListenableFuture<T> submit(Callable<T> task, TaskPriority priority) {
+    return submitScheduled(task, 0, priority);
+  }
+  
+  @Override
+  public ListenableFuture<?> submitScheduled(Runnable task, long delayInMs, 
+                                             TaskPriority priority) {
+    return submitScheduled(task, null, delayInMs, priority);
+  }
+  
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Runnable task, T result, long delayInMs, 
+                                                 TaskPriority priority) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    ListenableFutureTask<T> ft = new ListenableFutureTask<T>(false, task, result);
+    
+    schedule(ft, delayInMs, priority);
+    
+    return ft;
+  }
+  
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Callable<T> task, long delayInMs, 
+                                                 TaskPriority priority) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    ListenableFutureTask<T> ft = new ListenableFutureTask<T>(false, task);
+    
+    schedule(ft, delayInMs, priority);
+    
+    return ft;
+  }
+  
+  @Override
+  public void schedule(Runnable task, long delayInMs, TaskPriority priority) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    ArgumentVerifier.assertNotNegative(delayInMs, "delayInMs");
+    
+    StatisticRunnable sr = makeStatisticRunnable(task, delayInMs);
+    try {
+      scheduler.schedule(sr, delayInMs, priority);
+    } catch (RuntimeException e) {
+      sr.rejected();
+      throw e;
+    }
+  }
+  
+  @Override
+  public void scheduleWithFixedDelay(Runnable task, long initialDelay, 
+                                     long recurringDelay, TaskPriority priority) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    ArgumentVerifier.assertNotNegative(initialDelay, "initialDelay");
+    ArgumentVerifier.assertNotNegative(recurringDelay, "recurringDelay");
+    
+    StatisticRunnable sr = makeRecurringStatisticRunnable(task, initialDelay, 
+                                                          recurringDelay, false);
+    try {
+      scheduler.scheduleWithFixedDelay(sr, initialDelay, recurringDelay, priority);
+    } catch (RuntimeException e) {
+      sr.rejected();
+      throw e;
+    }
+  }
+  
+  @Override
+  public void scheduleAtFixedRate(Runnable task, long initialDelay, long period, 
+                                  TaskPriority priority) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    ArgumentVerifier.assertNotNegative(initialDelay, "initialDelay");
+    ArgumentVerifier.assertGreaterThanZero(period, "period");
+    
+    StatisticRunnable sr = makeRecurringStatisticRunnable(task, initialDelay, period, true);
+    try {
+      scheduler.scheduleAtFixedRate(sr, initialDelay, period, priority);
+    } catch (RuntimeException e) {
+      sr.rejected();
+      throw e;
+    }
+  }
+  
+  @Override
+  public TaskPriority getDefaultPriority() {
+    return scheduler.getDefaultPriority();
+  }
+}
@@ -0,0 +1,140 @@
+package org.threadly.concurrent.statistics;
+
+import java.util.concurrent.Callable;
+
+import org.threadly.concurrent.SimpleSchedulerInterface;
+import org.threadly.concurrent.SubmitterSchedulerInterface;
+import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.concurrent.future.ListenableFutureTask;
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Extends {@link StatisticExecutor} to wrap any {@link SimpleSchedulerInterface}, for example 
+ * a {@link org.threadly.concurrent.NoThreadScheduler} or a 
+ * {@link org.threadly.concurrent.limiter.SimpleSchedulerLimiter}.  Queue wait time for scheduled 
+ * tasks is measured from when the task was scheduled to run, and for recurring tasks from when 
+ * each execution was expected to run.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class StatisticScheduler extends StatisticExecutor
+                                implements SubmitterSchedulerInterface {
+  protected final SimpleSchedulerInterface scheduler;
+  
+  /**
+   * Constructs a new statistic tracking wrapper with the default window size.
+   * 
+   * @param scheduler Scheduler to run tasks on
+   */
+  public StatisticScheduler(SimpleSchedulerInterface scheduler) {
+    this(scheduler, DEFAULT_WINDOW_SIZE);
+  }
+  
+  /**
+   * Constructs a new statistic tracking wrapper.
+   * 
+   * @param scheduler Scheduler to run tasks on
+   * @param windowSize Maximum quantity of samples to use for rolling statistics
+   */
+  public StatisticScheduler(SimpleSchedulerInterface scheduler, int windowSize) {
+    super(scheduler, windowSize);
+    
+    this.scheduler = scheduler;
+  }
+  
+  @Override
+  protected void doExecute(Runnable task) {
+    schedule(task, 0);
+  }
+  
+  @Override
+  public ListenableFuture<?> submitScheduled(Runnable task, long delayInMs) {
+    return submitScheduled(task, null, delayInMs);
+  }
+  
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Runnable task, T result, long delayInMs) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    ListenableFutureTask<T> ft = new ListenableFutureTask<T>(false, task, result);
+    
+    schedule(ft, delayInMs);
+    
+    return ft;
+  }
+  
+  @Override
+  public <T> ListenableFuture<T> submitScheduled(Callable<T> task, long delayInMs) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    
+    ListenableFutureTask<T> ft = new ListenableFutureTask<T>(false, task);
+    
+    schedule(ft, delayInMs);
+    
+    return ft;
+  }
+  
+  @Override
+  public void schedule(Runnable task, long delayInMs) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    ArgumentVerifier.assertNotNegative(delayInMs, "delayInMs");
+    
+    StatisticRunnable sr = makeStatisticRunnable(task, delayInMs);
+    try {
+      scheduler.schedule(sr, delayInMs);
+    } catch (RuntimeException e) {
+      sr.rejected();
+      throw e;
+    }
+  }
+  
+  @Override
+  public void scheduleWithFixedDelay(Runnable task, long initialDelay, long recurringDelay) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    ArgumentVerifier.assertNotNegative(initialDelay, "initialDelay");
+    ArgumentVerifier.assertNotNegative(recurringDelay, "recurringDelay");
+    
+    StatisticRunnable sr = makeRecurringStatisticRunnable(task, initialDelay, 
+                                                          recurringDelay, false);
+    try {
+      scheduler.scheduleWithFixedDelay(sr, initialDelay, recurringDelay);
+    } catch (RuntimeException e) {
+      sr.rejected();
+      throw e;
+    }
+  }
+  
+  @Override
+  public void scheduleAtFixedRate(Runnable task, long initialDelay, long period) {
+    ArgumentVerifier.assertNotNull(task, "task");
+    ArgumentVerifier.assertNotNegative(initialDelay, "initialDelay");
+    ArgumentVerifier.assertGreaterThanZero(period, "period");
+    
+    StatisticRunnable sr = makeRecurringStatisticRunnable(task, initialDelay, period, true);
+    try {
+      scheduler.scheduleAtFixedRate(sr, initialDelay, period);
+    } catch (RuntimeException e) {
+      sr.rejected();
+      throw e;
+    }
+  }
+  
+  /**
+   * Wraps a recurring task so that statistics will be recorded for each execution.  The same 
+   * requirements as {@link #makeStatisticRunnable(Runnable, long)} apply.
+   * 
+   * @param task Task to wrap
+   * @param initialDelay Delay before the first execution
+   * @param recurringTime Delay between executions, or period for fixed rate tasks
+   * @param fixedRate {@code true} if the task is being scheduled at a fixed rate
+   * @return Runnable to provide to the wrapped scheduler
+   */
+  protected StatisticRunnable makeRecurringStatisticRunnable(Runnable task, long initialDelay, 
+                                                             long recurringTime, 
+                                                             boolean fixedRate) {
+    return new StatisticRunnable(task, Clock.accurateForwardProgressingMillis() + initialDelay, 
+                                 recurringTime, fixedRate);
+  }
+}
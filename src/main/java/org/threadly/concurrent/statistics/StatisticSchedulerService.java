@@ -0,0 +1,116 @@
+package org.threadly.concurrent.statistics;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.threadly.concurrent.ContainerHelper;
+import org.threadly.concurrent.SchedulerServiceInterface;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Extends {@link StatisticScheduler} to wrap any {@link SchedulerServiceInterface}, for example 
+ * a {@link org.threadly.concurrent.SingleThreadScheduler} or a 
+ * {@link org.threadly.concurrent.limiter.SchedulerServiceLimiter}.  Tasks which are removed from 
+ * the scheduler are no longer counted as queued.  Recurring tasks are tracked so that a task 
+ * removed while it is running is not counted as queued again once it finishes.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class StatisticSchedulerService extends StatisticScheduler
+                                       implements SchedulerServiceInterface {
+  protected final SchedulerServiceInterface scheduler;
+  protected final Queue<StatisticRunnable> recurringTasks;
+  
+  /**
+   * Constructs a new statistic tracking wrapper with the default window size.
+   * 
+   * @param scheduler Scheduler to run tasks on
+   */
+  public StatisticSchedulerService(SchedulerServiceInterface scheduler) {
+    this(scheduler, DEFAULT_WINDOW_SIZE);
+  }
+  
+  /**
+   * Constructs a new statistic tracking wrapper.
+   * 
+   * @param scheduler Scheduler to run tasks on
+   * @param windowSize Maximum quantity of samples to use for rolling statistics
+   */
+  public StatisticSchedulerService(SchedulerServiceInterface scheduler, int windowSize) {
+    super(scheduler, windowSize);
+    
+    this.scheduler = scheduler;
+    this.recurringTasks = new ConcurrentLinkedQueue<StatisticRunnable>();
+  }
+  
+  @Override
+  protected StatisticRunnable makeRecurringStatisticRunnable(Runnable task, long initialDelay, 
+                                                             long recurringTime, 
+                                                             boolean fixedRate) {
+    long expectedStartTime = Clock.accurateForwardProgressingMillis() + initialDelay;
+    StatisticRunnable result = new RecurringStatisticRunnable(task, expectedStartTime, 
+                                                              recurringTime, fixedRate);
+    recurringTasks.add(result);
+    
+    return result;
+  }
+  
+  @Override
+  public boolean remove(Runnable task) {
+    if (scheduler.remove(task)) {
+      Iterator<StatisticRunnable> it = recurringTasks.iterator();
+      while (it.hasNext()) {
+        StatisticRunnable sr = it.next();
+        // we use remove() instead of it.remove() for usage with concurrent structures
+        if (ContainerHelper.isContained(sr.getContainedRunnable(), task) && 
+            recurringTasks.remove(sr)) {
+          sr.removed();
+          return true;
+        }
+      }
+      
+      queuedCount.decrementAndGet();
+      return true;
+    } else {
+      return false;
+    }
+  }
+  
+  @Override
+  public boolean remove(Callable<?> task) {
+    if (scheduler.remove(task)) {
+      queuedCount.decrementAndGet();
+      return true;
+    } else {
+      return false;
+    }
+  }
+  
+  @Override
+  public boolean isShutdown() {
+    return scheduler.isShutdown();
+  }
+  
+  /**
+   * <p>Wrapper for recurring tasks, which stops tracking the task if it is rejected.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class RecurringStatisticRunnable extends StatisticRunnable {
+    protected RecurringStatisticRunnable(Runnable task, long expectedStartTime, 
+                                         long recurringTime, boolean fixedRate) {
+      super(task, expectedStartTime, recurringTime, fixedRate);
+    }
+    
+    @Override
+    protected void rejected() {
+      super.rejected();
+      
+      recurringTasks.remove(this);
+    }
+  }
+}
@@ -0,0 +1,6 @@
+/**
+ * <p>Low overhead structures for collecting statistics about task execution.  These are safe to 
+ * record into from many threads at once, and are designed so that recording samples does not 
+ * allocate or block.</p>
+ */
+package org.threadly.concurrent.statistics;
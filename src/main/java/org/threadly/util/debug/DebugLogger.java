@@ -19,7 +19,8 @@ import org.threadly.util.StringUtils;
  * <p>This utility has several deficiencies, the largest of which is using System.nanoTime() for 
  * log ordering.  Since nanosecond time can roll over from positive to negative, in those rare 
  * situations log ordering may be incorrect.  It is design only as a debugging aid and should 
- * NEVER be included after debugging is completed.</p>
+ * NEVER be included after debugging is completed.  For logging which can be left enabled with 
+ * bounded memory, see {@link RingBufferDebugLogger}.</p>
  * 
  * @author jent - Mike Jensen
  * @since 1.0.0
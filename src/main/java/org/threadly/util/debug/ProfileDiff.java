@@ -0,0 +1,371 @@
+package org.threadly.util.debug;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>Compares two profile captures to find functions which have regressed.  Because two captures 
+ * will rarely have the same quantity of samples, functions are compared by the percent of samples 
+ * they were seen in, rather than by their raw sample counts.</p>
+ * 
+ * <p>For each function two percentages are compared.  The self percent is how often the function 
+ * was the executing frame, and is the best indicator of where time is being spent.  The total 
+ * percent is how often the function was anywhere on the stack (recursive calls are only counted 
+ * once per sample).</p>
+ * 
+ * <p>A differential collapsed stack output can also be produced with 
+ * {@link #writeCollapsedDiff(OutputStream)}, which is accepted by common differential flame graph 
+ * tools.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class ProfileDiff {
+  // percentages have two decimal places, so they are padded wider than sample counts
+  private static final int NUMBER_PADDING = 3;
+  
+  protected final StackTrie baseline;
+  protected final StackTrie current;
+  protected final List<FunctionDelta> functionDeltas;
+  
+  /**
+   * Constructs a new diff between two captures.  The provided tries must not be modified while 
+   * this diff is in use (see {@link SamplingProfiler#getSamples()}).
+   * 
+   * @param baseline Samples from the capture to compare against
+   * @param current Samples from the capture to check for regressions
+   */
+  public ProfileDiff(StackTrie baseline, StackTrie current) {
+    ArgumentVerifier.assertNotNull(baseline, "baseline");
+    ArgumentVerifier.assertNotNull(current, "current");
+    
+    this.baseline = baseline;
+    this.current = current;
+    
+    Map<Profiler.Function, FunctionDelta> deltas = new HashMap<Profiler.Function, FunctionDelta>();
+    collectFunctionCounts(baseline, deltas, true);
+    collectFunctionCounts(current, deltas, false);
+    List<FunctionDelta> sortedDeltas = new ArrayList<FunctionDelta>(deltas.values());
+    Collections.sort(sortedDeltas, new Comparator<FunctionDelta>() {
+      @Override
+      public int compare(FunctionDelta a, FunctionDelta b) {
+        return Double.compare(b.getSelfPercentChange(), a.getSelfPercentChange());
+      }
+    });
+    this.functionDeltas = Collections.unmodifiableList(sortedDeltas);
+  }
+  
+  private static void collectFunctionCounts(StackTrie samples, 
+                                            Map<Profiler.Function, FunctionDelta> deltas, 
+                                            boolean baseline) {
+    double sampleCount = samples.getSampleCount();
+    if (sampleCount == 0) {
+      return;
+    }
+    
+    for (int node = StackTrie.ROOT_NODE + 1; node < samples.getNodeCount(); node++) {
+      StackTraceElement frame = samples.getFrame(node);
+      Profiler.Function f = new Profiler.Function(frame.getClassName(), frame.getMethodName());
+      FunctionDelta delta = deltas.get(f);
+      if (delta == null) {
+        delta = new FunctionDelta(f.className, f.function);
+        deltas.put(f, delta);
+      }
+      
+      double selfPercent = (samples.getSelfCount(node) / sampleCount) * 100;
+      // avoid counting samples more than once for recursive functions
+      double totalPercent;
+      if (hasAncestorFunction(samples, node, frame)) {
+        totalPercent = 0;
+      } else {
+        totalPercent = (samples.getTotalCount(node) / sampleCount) * 100;
+      }
+      if (baseline) {
+        delta.baselineSelfPercent += selfPercent;
+        delta.baselineTotalPercent += totalPercent;
+      } else {
+        delta.currentSelfPercent += selfPercent;
+        delta.currentTotalPercent += totalPercent;
+      }
+    }
+  }
+  
+  private static boolean hasAncestorFunction(StackTrie samples, int node, 
+                                             StackTraceElement frame) {
+    while ((node = samples.getParent(node)) != StackTrie.ROOT_NODE) {
+      StackTraceElement ancestor = samples.getFrame(node);
+      if (ancestor.getMethodName().equals(frame.getMethodName()) && 
+          ancestor.getClassName().equals(frame.getClassName())) {
+        return true;
+      }
+    }
+    
+    return false;
+  }
+  
+  /**
+   * Returns the change for every function seen in either capture.  These are sorted by the 
+   * change in self percent, so the largest regressions are first, and the largest improvements 
+   * are last.
+   * 
+   * @return Unmodifiable list of function changes
+   */
+  public List<FunctionDelta> getFunctionDeltas() {
+    return functionDeltas;
+  }
+  
+  /**
+   * Returns the functions which were the executing frame more often in the current capture.  A 
+   * threshold can be provided to ignore small changes which are likely just noise.
+   * 
+   * @param minSelfPercentIncrease Minimum increase in self percent to be included
+   * @return List of regressed functions, with the largest regressions first
+   */
+  public List<FunctionDelta> getRegressions(double minSelfPercentIncrease) {
+    List<FunctionDelta> result = new ArrayList<FunctionDelta>();
+    Iterator<FunctionDelta> it = functionDeltas.iterator();
+    while (it.hasNext()) {
+      FunctionDelta delta = it.next();
+      if (delta.getSelfPercentChange() > 0 && 
+          delta.getSelfPercentChange() >= minSelfPercentIncrease) {
+        result.add(delta);
+      } else {
+        // list is sorted, so there are no more regressions over the threshold
+        break;
+      }
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Output a report of the function changes, with the largest regressions first.
+   * 
+   * @param ps PrintStream to write results to
+   */
+  public void dump(PrintStream ps) {
+    ps.println("baseline samples: " + baseline.getSampleCount());
+    ps.println(" current samples: " + current.getSampleCount());
+    ps.println();
+    ps.println("functions by self percent change: " + 
+                 "(change, baseline self, current self, baseline total, current total, name)");
+    ps.println();
+    Iterator<FunctionDelta> it = functionDeltas.iterator();
+    while (it.hasNext()) {
+      FunctionDelta delta = it.next();
+      ps.print(format(delta.getSelfPercentChange(), true));
+      ps.print(format(delta.baselineSelfPercent, false));
+      ps.print(format(delta.currentSelfPercent, false));
+      ps.print(format(delta.baselineTotalPercent, false));
+      ps.print(format(delta.currentTotalPercent, false));
+      ps.print(' ');
+      ps.print(delta.className);
+      ps.print('.');
+      ps.println(delta.function);
+    }
+    ps.flush();
+  }
+  
+  private static String format(double percent, boolean signed) {
+    String s = String.format(signed ? "%+.2f%%" : "%.2f%%", percent);
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() + s.length() < Profiler.NUMBER_TARGET_LINE_LENGTH + NUMBER_PADDING) {
+      sb.append(' ');
+    }
+    sb.append(s);
+    
+    return sb.toString();
+  }
+  
+  /**
+   * Writes a differential collapsed stack output.  Each line is a stack which samples ended at in 
+   * either capture, followed by the baseline sample count and the current sample count.  For 
+   * example: {@code java.lang.Thread.run;foo.Bar.run;foo.Bar.compute 12 40}
+   * 
+   * @param out Stream to write the collapsed stacks to
+   * @throws IOException Thrown if the stream throws while being written to
+   */
+  public void writeCollapsedDiff(OutputStream out) throws IOException {
+    ArgumentVerifier.assertNotNull(out, "out");
+    
+    Writer w = new BufferedWriter(new OutputStreamWriter(out, ProfileUtils.CHARSET));
+    // write all stacks in the current capture, along with their matching baseline counts
+    ProfileUtils.walk(current, new DiffVisitor(current, baseline, false, w));
+    // then write stacks only seen in the baseline
+    ProfileUtils.walk(baseline, new DiffVisitor(baseline, current, true, w));
+    w.flush();
+  }
+  
+  /**
+   * <p>Visitor which finds the node matching the visited path in another trie, and writes the 
+   * self counts from both tries.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  private static class DiffVisitor extends ProfileUtils.NodeVisitor {
+    private final StackTrie walked;
+    private final StackTrie other;
+    private final boolean walkingBaseline;
+    private final Writer w;
+    private int[] otherPath;
+    
+    protected DiffVisitor(StackTrie walked, StackTrie other, boolean walkingBaseline, Writer w) {
+      this.walked = walked;
+      this.other = other;
+      this.walkingBaseline = walkingBaseline;
+      this.w = w;
+      this.otherPath = new int[ProfileUtils.INITIAL_PATH_CAPACITY];
+    }
+    
+    @Override
+    public void visit(int[] path, int depth) throws IOException {
+      if (otherPath.length < path.length) {
+        // copy so the matched ancestors are retained for the deeper frames
+        otherPath = Arrays.copyOf(otherPath, path.length);
+      }
+      int node = path[depth - 1];
+      int otherParent = depth == 1 ? StackTrie.ROOT_NODE : otherPath[depth - 2];
+      int otherNode;
+      if (otherParent == StackTrie.NO_NODE) {
+        otherNode = StackTrie.NO_NODE;
+      } else {
+        otherNode = other.getChild(otherParent, walked.getFrame(node));
+      }
+      otherPath[depth - 1] = otherNode;
+      
+      long selfCount = walked.getSelfCount(node);
+      long otherSelfCount = otherNode == StackTrie.NO_NODE ? 0 : other.getSelfCount(otherNode);
+      if (walkingBaseline) {
+        // only write stacks which were not written while walking the current capture
+        if (selfCount > 0 && otherSelfCount == 0) {
+          writeLine(path, depth, selfCount, 0);
+        }
+      } else if (selfCount > 0 || otherSelfCount > 0) {
+        writeLine(path, depth, otherSelfCount, selfCount);
+      }
+    }
+    
+    private void writeLine(int[] path, int depth, 
+                           long baselineCount, long currentCount) throws IOException {
+      ProfileUtils.writeCollapsedStack(walked, path, depth, w);
+      w.write(' ');
+      w.write(Long.toString(baselineCount));
+      w.write(' ');
+      w.write(Long.toString(currentCount));
+      w.write('\n');
+    }
+  }
+  
+  /**
+   * <p>The change for a single function between the baseline and current capture.  Percentages 
+   * are from {@code 0} to {@code 100}.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public static class FunctionDelta {
+    protected final String className;
+    protected final String function;
+    protected double baselineSelfPercent;
+    protected double currentSelfPercent;
+    protected double baselineTotalPercent;
+    protected double currentTotalPercent;
+    
+    protected FunctionDelta(String className, String function) {
+      this.className = className;
+      this.function = function;
+    }
+    
+    /**
+     * Returns the name of the class the function is in.
+     * 
+     * @return Class name
+     */
+    public String getClassName() {
+      return className;
+    }
+    
+    /**
+     * Returns the name of the function.
+     * 
+     * @return Function name
+     */
+    public String getFunctionName() {
+      return function;
+    }
+    
+    /**
+     * Returns the percent of baseline samples where this function was executing.
+     * 
+     * @return Baseline self percent
+     */
+    public double getBaselineSelfPercent() {
+      return baselineSelfPercent;
+    }
+    
+    /**
+     * Returns the percent of current samples where this function was executing.
+     * 
+     * @return Current self percent
+     */
+    public double getCurrentSelfPercent() {
+      return currentSelfPercent;
+    }
+    
+    /**
+     * Returns the percent of baseline samples where this function was on the stack.
+     * 
+     * @return Baseline total percent
+     */
+    public double getBaselineTotalPercent() {
+      return baselineTotalPercent;
+    }
+    
+    /**
+     * Returns the percent of current samples where this function was on the stack.
+     * 
+     * @return Current total percent
+     */
+    public double getCurrentTotalPercent() {
+      return currentTotalPercent;
+    }
+    
+    /**
+     * Returns the change in self percent, positive values indicate a regression.
+     * 
+     * @return Current self percent minus the baseline self percent
+     */
+    public double getSelfPercentChange() {
+      return currentSelfPercent - baselineSelfPercent;
+    }
+    
+    /**
+     * Returns the change in total percent, positive values indicate a regression.
+     * 
+     * @return Current total percent minus the baseline total percent
+     */
+    public double getTotalPercentChange() {
+      return currentTotalPercent - baselineTotalPercent;
+    }
+    
+    @Override
+    public String toString() {
+      return className + '.' + function + ' ' + getSelfPercentChange();
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package org.threadly.util.debug;
+
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>Utilities for exporting and importing collected profile samples (held in a 
+ * {@link StackTrie}).  Two formats are supported.  The collapsed stack format is a text format 
+ * with one line per unique stack, which is accepted by common flame graph tools.  The binary 
+ * format is a compact representation of the trie, which can be read back with 
+ * {@link #readBinary(InputStream)}, for example to compare two captures with 
+ * {@link ProfileDiff}.</p>
+ * 
+ * <p>Both formats are written while walking the trie, so output is streamed to the 
+ * {@link OutputStream} without building the full report in memory.  Provided streams are flushed 
+ * but never closed.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class ProfileUtils {
+  protected static final int BINARY_MAGIC = 0x54505246;  // "TPRF"
+  protected static final byte BINARY_VERSION = 1;
+  protected static final String CHARSET = "UTF-8";
+  protected static final int INITIAL_PATH_CAPACITY = 16;
+  // variable length integers store 7 bits per byte, with the high bit set if more bytes follow
+  private static final int VARINT_VALUE_MASK = 0x7F;
+  private static final int VARINT_CONTINUATION_BIT = 0x80;
+  private static final int VARINT_SHIFT = 7;
+  
+  private ProfileUtils() {
+    // don't construct
+  }
+  
+  /**
+   * Writes the samples in the collapsed stack format.  Each line is a stack which samples ended 
+   * at, with frames separated by {@code ;} starting from the outer most frame, followed by a space 
+   * and the quantity of samples.  For example: 
+   * {@code java.lang.Thread.run;foo.Bar.run;foo.Bar.compute 12}
+   * 
+   * @param samples Samples to write
+   * @param out Stream to write the collapsed stacks to
+   * @throws IOException Thrown if the stream throws while being written to
+   */
+  public static void writeCollapsedStacks(final StackTrie samples, 
+                                          OutputStream out) throws IOException {
+    ArgumentVerifier.assertNotNull(samples, "samples");
+    ArgumentVerifier.assertNotNull(out, "out");
+    
+    final Writer w = new BufferedWriter(new OutputStreamWriter(out, CHARSET));
+    walk(samples, new NodeVisitor() {
+      @Override
+      public void visit(int[] path, int depth) throws IOException {
+        long selfCount = samples.getSelfCount(path[depth - 1]);
+        if (selfCount > 0) {
+          writeCollapsedStack(samples, path, depth, w);
+          w.write(' ');
+          w.write(Long.toString(selfCount));
+          w.write('\n');
+        }
+      }
+    });
+    w.flush();
+  }
+  
+  /**
+   * Writes the frames for a path in the trie, separated by {@code ;}.
+   * 
+   * @param samples Trie the path is from
+   * @param path Nodes from the outer most frame
+   * @param depth Quantity of nodes in the path
+   * @param w Writer to write the frames to
+   * @throws IOException Thrown if the writer throws
+   */
+  protected static void writeCollapsedStack(StackTrie samples, int[] path, int depth, 
+                                            Writer w) throws IOException {
+    for (int i = 0; i < depth; i++) {
+      if (i > 0) {
+        w.write(';');
+      }
+      StackTraceElement frame = samples.getFrame(path[i]);
+      w.write(frame.getClassName());
+      w.write('.');
+      w.write(frame.getMethodName());
+    }
+  }
+  
+  /**
+   * Writes the samples in a compact binary format.  Each unique frame is written once, followed 
+   * by each node as a reference to its parent and frame, and the quantity of samples which ended 
+   * at the node.  Numbers are written as variable length integers, so most nodes only take a few 
+   * bytes.
+   * 
+   * @param samples Samples to write
+   * @param out Stream to write the binary representation to
+   * @throws IOException Thrown if the stream throws while being written to
+   */
+  public static void writeBinary(StackTrie samples, OutputStream out) throws IOException {
+    ArgumentVerifier.assertNotNull(samples, "samples");
+    ArgumentVerifier.assertNotNull(out, "out");
+    
+    DataOutputStream dos = new DataOutputStream(out);
+    dos.writeInt(BINARY_MAGIC);
+    dos.writeByte(BINARY_VERSION);
+    writeVarLong(dos, samples.getMaxNodes());
+    writeVarLong(dos, samples.getTruncatedSampleCount());
+    
+    int frameCount = samples.getFrameCount();
+    writeVarLong(dos, frameCount);
+    for (int i = 0; i < frameCount; i++) {
+      StackTraceElement frame = samples.getFrameById(i);
+      dos.writeUTF(frame.getClassName());
+      dos.writeUTF(frame.getMethodName());
+      if (frame.getFileName() == null) {
+        dos.writeBoolean(false);
+      } else {
+        dos.writeBoolean(true);
+        dos.writeUTF(frame.getFileName());
+      }
+      // line numbers are -2 for native methods, and -1 if unknown
+      writeVarLong(dos, frame.getLineNumber() + 2L);
+    }
+    
+    int nodeCount = samples.getNodeCount();
+    writeVarLong(dos, nodeCount);
+    // nodes are always added after their parents, so the parent index is always lower
+    for (int node = StackTrie.ROOT_NODE + 1; node < nodeCount; node++) {
+      writeVarLong(dos, samples.getParent(node));
+      writeVarLong(dos, samples.getFrameId(node));
+      writeVarLong(dos, samples.getSelfCount(node));
+    }
+    dos.flush();
+  }
+  
+  /**
+   * Reads samples which were written with {@link #writeBinary(StackTrie, OutputStream)}.
+   * 
+   * @param in Stream to read the binary representation from
+   * @return Trie holding the samples which were read
+   * @throws IOException Thrown if the stream throws, or is not in the expected format
+   */
+  public static StackTrie readBinary(InputStream in) throws IOException {
+    ArgumentVerifier.assertNotNull(in, "in");
+    
+    DataInputStream dis = new DataInputStream(in);
+    if (dis.readInt() != BINARY_MAGIC) {
+      throw new IOException("Stream is not a binary profile");
+    }
+    byte version = dis.readByte();
+    if (version != BINARY_VERSION) {
+      throw new IOException("Unsupported binary profile version: " + version);
+    }
+    int maxNodes = readVarInt(dis);
+    long truncatedSampleCount = readVarLong(dis);
+    
+    StackTraceElement[] frames = new StackTraceElement[readVarInt(dis)];
+    for (int i = 0; i < frames.length; i++) {
+      String className = dis.readUTF();
+      String methodName = dis.readUTF();
+      String fileName = dis.readBoolean() ? dis.readUTF() : null;
+      int lineNumber = (int)(readVarLong(dis) - 2);
+      frames[i] = new StackTraceElement(className, methodName, fileName, lineNumber);
+    }
+    
+    int nodeCount = readVarInt(dis);
+    StackTrie result = new StackTrie(Math.max(maxNodes, nodeCount));
+    int[] nodeMapping = new int[nodeCount];
+    nodeMapping[StackTrie.ROOT_NODE] = StackTrie.ROOT_NODE;
+    for (int node = StackTrie.ROOT_NODE + 1; node < nodeCount; node++) {
+      int parent = readVarInt(dis);
+      int frameId = readVarInt(dis);
+      long selfCount = readVarLong(dis);
+      if (parent >= node || frameId >= frames.length) {
+        throw new IOException("Corrupt binary profile at node: " + node);
+      }
+      nodeMapping[node] = result.getOrAddChild(nodeMapping[parent], frames[frameId]);
+      if (selfCount > 0) {
+        result.addSamples(nodeMapping[node], selfCount);
+      }
+    }
+    result.truncatedSampleCount = truncatedSampleCount;
+    
+    return result;
+  }
+  
+  private static void writeVarLong(DataOutputStream dos, long value) throws IOException {
+    while ((value & ~(long)VARINT_VALUE_MASK) != 0) {
+      dos.writeByte((int)((value & VARINT_VALUE_MASK) | VARINT_CONTINUATION_BIT));
+      value >>>= VARINT_SHIFT;
+    }
+    dos.writeByte((int)value);
+  }
+  
+  private static long readVarLong(DataInputStream dis) throws IOException {
+    long result = 0;
+    int shift = 0;
+    while (shift < Long.SIZE) {
+      byte b = dis.readByte();
+      result |= (long)(b & VARINT_VALUE_MASK) << shift;
+      if ((b & VARINT_CONTINUATION_BIT) == 0) {
+        return result;
+      }
+      shift += VARINT_SHIFT;
+    }
+    
+    throw new IOException("Malformed variable length integer");
+  }
+  
+  private static int readVarInt(DataInputStream dis) throws IOException {
+    long result = readVarLong(dis);
+    if (result < 0 || result > Integer.MAX_VALUE) {
+      throw new IOException("Value out of range: " + result);
+    }
+    
+    return (int)result;
+  }
+  
+  /**
+   * Walks the trie depth first, providing the path to every node (other than the root) to the 
+   * visitor.  This does not recurse, and only allocates the array to hold the current path.
+   * 
+   * @param samples Trie to walk
+   * @param visitor Visitor to provide each node to
+   * @throws IOException Thrown if the visitor throws
+   */
+  protected static void walk(StackTrie samples, NodeVisitor visitor) throws IOException {
+    int[] path = new int[INITIAL_PATH_CAPACITY];
+    int depth = 0;
+    int node = samples.getFirstChild(StackTrie.ROOT_NODE);
+    while (node != StackTrie.NO_NODE) {
+      if (depth == path.length) {
+        path = Arrays.copyOf(path, path.length * 2);
+      }
+      path[depth] = node;
+      visitor.visit(path, depth + 1);
+      
+      int child = samples.getFirstChild(node);
+      if (child != StackTrie.NO_NODE) {
+        node = child;
+        depth++;
+      } else {
+        // move back up until we find a node with a sibling to visit
+        while (node != StackTrie.ROOT_NODE && samples.getNextSibling(node) == StackTrie.NO_NODE) {
+          node = samples.getParent(node);
+          depth--;
+        }
+        node = node == StackTrie.ROOT_NODE ? StackTrie.NO_NODE : samples.getNextSibling(node);
+      }
+    }
+  }
+  
+  /**
+   * <p>Receives nodes as a {@link StackTrie} is walked.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected abstract static class NodeVisitor {
+    /**
+     * Invoked for each node within the trie.  The visited node is at {@code path[depth - 1]}.  
+     * The path array is reused, so it must not be retained.
+     * 
+     * @param path Nodes from the outer most frame to the visited node
+     * @param depth Quantity of valid nodes in the path
+     * @throws IOException Thrown if the visitor fails to write output
+     */
+    public abstract void visit(int[] path, int depth) throws IOException;
+  }
+}
@@ -31,7 +31,8 @@ import org.threadly.util.ExceptionUtils;
  * 
  * <p>This tool definitely incurs some load within the system, so it should only be used while 
  * debugging, and not as general use.  In addition if it is left running without being reset, it 
- * will continue to consume more and more memory.</p>
+ * will continue to consume more and more memory.  For profiling which can be left running 
+ * continuously, see {@link SamplingProfiler}.</p>
  * 
  * @author jent - Mike Jensen
  * @since 1.0.0
@@ -41,6 +42,7 @@ public class Profiler {
   protected static final short THREAD_PADDING_AMMOUNT = 10;
   protected static final short NUMBER_TARGET_LINE_LENGTH = 6;
   protected static final String THREAD_DELIMITER = "--------------------------------------------------";
+  protected static final String TASK_IDENTIFIER_PREFIX = "task: ";
   protected static final String FUNCTION_BY_NET_HEADER;
   protected static final String FUNCTION_BY_COUNT_HEADER;
   
@@ -137,6 +139,33 @@ public class Profiler {
     return pStore.pollIntervalInMs;
   }
   
+  /**
+   * Sets if samples should be attributed to the type of task the thread was running, rather than 
+   * to the thread itself.  When enabled, samples from threads which have published a running 
+   * task to the {@link RunningTaskRegistry} will be grouped with all other samples for the same 
+   * task type (regardless of which thread they ran on).  Samples from threads not running a 
+   * published task are still grouped by thread.  Enabling this will also enable publishing 
+   * with {@link RunningTaskRegistry#setPublishingEnabled(boolean)}.
+   * 
+   * @param enabled {@code true} to attribute samples to the running task type
+   */
+  public void setTaskAttributionEnabled(boolean enabled) {
+    if (enabled) {
+      RunningTaskRegistry.setPublishingEnabled(true);
+    }
+    pStore.taskAttributionEnabled = enabled;
+  }
+  
+  /**
+   * Checks if samples are being attributed to the type of task the thread was running.  See 
+   * {@link #setTaskAttributionEnabled(boolean)}.
+   * 
+   * @return {@code true} if samples are being attributed to task types
+   */
+  public boolean isTaskAttributionEnabled() {
+    return pStore.taskAttributionEnabled;
+  }
+  
   /**
    * Call to get an estimate on how many times the profiler has collected a sample of the thread 
    * stacks.  This number may be lower than the actual sample quantity, but should never be 
@@ -157,6 +186,27 @@ public class Profiler {
     pStore.collectedSamples.set(0);
   }
   
+  /**
+   * Copies the currently collected samples into a {@link StackTrie}, with the samples from all 
+   * threads combined.  This allows the samples to be exported with {@link ProfileUtils}, or 
+   * compared against another capture with {@link ProfileDiff}.
+   * 
+   * @return A new trie containing the samples collected since the start or last reset
+   */
+  public StackTrie getSamples() {
+    StackTrie result = new StackTrie(Integer.MAX_VALUE);
+    Iterator<Map<Trace, Trace>> it = pStore.threadTraces.values().iterator();
+    while (it.hasNext()) {
+      Iterator<Trace> traceIt = it.next().keySet().iterator();
+      while (traceIt.hasNext()) {
+        Trace t = traceIt.next();
+        result.addSample(StackTrie.ROOT_NODE, t.elements, t.getThreadCount());
+      }
+    }
+    
+    return result;
+  }
+  
   /**
    * Call to check weather the profile is currently running/started.
    * 
@@ -278,6 +328,17 @@ public class Profiler {
     return t.toString() + ';' + Long.toHexString(t.getId());
   }
   
+  /**
+   * Creates an identifier to represent a type of task.  This can not conflict with identifiers 
+   * from {@link #getThreadIdentifier(Thread)}.
+   * 
+   * @param taskTag Tag from {@link RunningTaskRegistry#getTaskTag(Object)}
+   * @return String to represent the task type
+   */
+  private static String getTaskIdentifier(String taskTag) {
+    return TASK_IDENTIFIER_PREFIX + taskTag;
+  }
+  
   /**
    * Output all the currently collected statistics to the provided output stream.
    * 
@@ -315,7 +376,11 @@ public class Profiler {
       Iterator<Entry<String, Map<Trace, Trace>>> it = threadTraces.entrySet().iterator();
       while (it.hasNext()) {
         Entry<String, Map<Trace, Trace>> entry = it.next();
-        ps.println("Profile for thread: " + entry.getKey());
+        if (entry.getKey().startsWith(TASK_IDENTIFIER_PREFIX)) {
+          ps.println("Profile for " + entry.getKey());
+        } else {
+          ps.println("Profile for thread: " + entry.getKey());
+        }
         dumpTraces(entry.getValue().keySet(), null, ps);
         
         // add in this threads trace data to the global trace map
@@ -573,6 +638,7 @@ public class Profiler {
     protected final Map<String, Map<Trace, Trace>> threadTraces;
     protected final AtomicInteger collectedSamples;
     protected volatile int pollIntervalInMs;
+    protected volatile boolean taskAttributionEnabled;
     protected volatile Thread dumpingThread;
     private volatile ThreadIterator ti;
     
@@ -583,6 +649,7 @@ public class Profiler {
       threadTraces = new ConcurrentHashMap<String, Map<Trace, Trace>>();
       collectedSamples = new AtomicInteger(0);
       this.pollIntervalInMs = pollIntervalInMs;
+      taskAttributionEnabled = false;
       dumpingThread = null;
     }
     
@@ -628,6 +695,9 @@ public class Profiler {
       Thread runningThread = Thread.currentThread();
       while (pStore.collectorThread.get() == runningThread) {
         boolean storedSample = false;
+        if (pStore.taskAttributionEnabled) {
+          RunningTaskRegistry.purgeDeadSlotsIfDue();
+        }
         Iterator<Thread> it = pStore.getProfileThreadsIterator();
         while (it.hasNext()) {
           Thread currentThread = it.next();
@@ -635,10 +705,21 @@ public class Profiler {
           // we skip the Profiler threads (collector thread, and dumping thread if one exists)
           if (currentThread != runningThread && 
               currentThread != pStore.dumpingThread) {
+            Object runningTask = null;
+            if (pStore.taskAttributionEnabled) {
+              runningTask = RunningTaskRegistry.getRunningTask(currentThread);
+            }
             StackTraceElement[] threadStack = currentThread.getStackTrace();
             if (threadStack.length > 0) {
               storedSample = true;
-              String threadIdentifier = getThreadIdentifier(currentThread);
+              String threadIdentifier;
+              // only attribute to the task if it did not change while we were getting the stack
+              if (runningTask != null && 
+                  runningTask == RunningTaskRegistry.getRunningTask(currentThread)) {
+                threadIdentifier = getTaskIdentifier(RunningTaskRegistry.getTaskTag(runningTask));
+              } else {
+                threadIdentifier = getThreadIdentifier(currentThread);
+              }
               Trace t = new Trace(threadStack);
               
               Map<Trace, Trace> existingTraces = pStore.threadTraces.get(threadIdentifier);
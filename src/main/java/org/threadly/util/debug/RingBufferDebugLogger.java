@@ -0,0 +1,408 @@
+package org.threadly.util.debug;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.StringUtils;
+
+/**
+ * <p>A bounded alternative to {@link DebugLogger}, designed so that it can be left enabled 
+ * without consuming unbounded memory, or adding contention between the logging threads.</p>
+ * 
+ * <p>Each logging thread records into its own fixed size ring buffer, so recording a message 
+ * never blocks, and never allocates (other than the message itself).  Messages are ordered by a 
+ * global sequence number which is taken as the message is logged, so unlike {@link DebugLogger} 
+ * the order does not depend on {@link System#nanoTime()} being unique.  Once a thread's buffer is 
+ * full the {@link OverflowPolicy} determines if the oldest message is overwritten, or the new 
+ * message is dropped.  The quantity of lost messages can be checked with 
+ * {@link #getOverwrittenMessageQty()} and {@link #getDroppedMessageQty()}.</p>
+ * 
+ * <p>Retrieving messages merges the buffers of all threads in sequence order.  This never waits 
+ * for logging threads, a message which is being recorded at the same time as messages are being 
+ * retrieved will be returned from the next retrieval instead.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class RingBufferDebugLogger {
+  /**
+   * Default quantity of messages held for each logging thread.
+   */
+  public static final int DEFAULT_PER_THREAD_CAPACITY = 1024;
+  protected static final String TIME_DELIM = " - ";
+  protected static final long EMPTY_SEQUENCE = 0;
+  protected static final long WRITING_SEQUENCE = -1;
+  
+  protected final int perThreadCapacity;
+  protected final OverflowPolicy overflowPolicy;
+  protected final AtomicLong sequence;
+  protected final List<ThreadBuffer> buffers;
+  protected final Object drainLock;
+  protected final ThreadLocal<ThreadBuffer> threadBuffer;
+  
+  /**
+   * Constructs a new logger which holds up to {@value #DEFAULT_PER_THREAD_CAPACITY} messages for 
+   * each thread, overwriting the oldest message once a thread's buffer is full.
+   */
+  public RingBufferDebugLogger() {
+    this(DEFAULT_PER_THREAD_CAPACITY, OverflowPolicy.OverwriteOldest);
+  }
+  
+  /**
+   * Constructs a new logger.  The capacity will be rounded up to the nearest power of two.
+   * 
+   * @param perThreadCapacity Maximum quantity of messages held for each logging thread
+   * @param overflowPolicy Policy for handling messages logged once a thread's buffer is full
+   */
+  public RingBufferDebugLogger(int perThreadCapacity, OverflowPolicy overflowPolicy) {
+    ArgumentVerifier.assertGreaterThanZero(perThreadCapacity, "perThreadCapacity");
+    ArgumentVerifier.assertNotNull(overflowPolicy, "overflowPolicy");
+    
+    int actualCapacity = Integer.highestOneBit(perThreadCapacity);
+    if (actualCapacity < perThreadCapacity) {
+      actualCapacity <<= 1;
+    }
+    
+    this.perThreadCapacity = actualCapacity;
+    this.overflowPolicy = overflowPolicy;
+    this.sequence = new AtomicLong(EMPTY_SEQUENCE);
+    this.buffers = new CopyOnWriteArrayList<ThreadBuffer>();
+    this.drainLock = new Object();
+    this.threadBuffer = new ThreadLocal<ThreadBuffer>() {
+      @Override
+      protected ThreadBuffer initialValue() {
+        ThreadBuffer result = new ThreadBuffer(Thread.currentThread(), 
+                                               RingBufferDebugLogger.this.perThreadCapacity);
+        buffers.add(result);
+        
+        return result;
+      }
+    };
+  }
+  
+  /**
+   * Returns the maximum quantity of messages held for each logging thread.
+   * 
+   * @return Per thread capacity
+   */
+  public int getPerThreadCapacity() {
+    return perThreadCapacity;
+  }
+  
+  /**
+   * Returns the policy for handling messages logged once a thread's buffer is full.
+   * 
+   * @return Overflow policy
+   */
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+  
+  /**
+   * Records a log message into the invoking thread's buffer.  This never blocks.
+   * 
+   * @param msg message to be stored
+   */
+  public void log(String msg) {
+    threadBuffer.get().log(msg);
+  }
+  
+  /**
+   * Returns the quantity of messages currently held which have not been retrieved.
+   * 
+   * @return Quantity of stored log messages
+   */
+  public int getCurrentMessageQty() {
+    int result = 0;
+    Iterator<ThreadBuffer> it = buffers.iterator();
+    while (it.hasNext()) {
+      result += it.next().getStoredQty();
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Returns the quantity of messages which were lost due to being overwritten before they were 
+   * retrieved.  This can only be non-zero when using {@link OverflowPolicy#OverwriteOldest}.
+   * 
+   * @return Quantity of messages overwritten
+   */
+  public long getOverwrittenMessageQty() {
+    long result = 0;
+    Iterator<ThreadBuffer> it = buffers.iterator();
+    while (it.hasNext()) {
+      result += it.next().overwrittenCount.get();
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Returns the quantity of messages which were not recorded because the thread's buffer was 
+   * full.  This can only be non-zero when using {@link OverflowPolicy#DropNewest}.
+   * 
+   * @return Quantity of messages dropped
+   */
+  public long getDroppedMessageQty() {
+    long result = 0;
+    Iterator<ThreadBuffer> it = buffers.iterator();
+    while (it.hasNext()) {
+      result += it.next().droppedCount.get();
+    }
+    
+    return result;
+  }
+  
+  /**
+   * Retrieves and removes all currently stored log messages, without including the log times.
+   * 
+   * @return string with all log messages, separated by a new line
+   */
+  public String getAllStoredMessages() {
+    return getAllStoredMessages(false);
+  }
+  
+  /**
+   * Retrieves and removes all currently stored log messages.  Messages from all threads are 
+   * returned in the order they were logged.
+   * 
+   * @param includeLogTimes boolean to include time in nanoseconds that log message was recorded
+   * @return string with all log messages, separated by a new line
+   */
+  public String getAllStoredMessages(boolean includeLogTimes) {
+    return getOldestLogMessages(Integer.MAX_VALUE, includeLogTimes);
+  }
+  
+  /**
+   * Retrieves and removes the oldest stored log messages, without including the log times.
+   * 
+   * @param qty maximum quantity of messages to retrieve
+   * @return string with requested log messages, separated by a new line
+   */
+  public String getOldestLogMessages(int qty) {
+    return getOldestLogMessages(qty, false);
+  }
+  
+  /**
+   * Retrieves and removes the oldest stored log messages.  It will only return at most the 
+   * maximum quantity provided, but may return less if not that many messages are currently 
+   * available.
+   * 
+   * @param qty maximum quantity of messages to retrieve
+   * @param includeLogTimes boolean to include time in nanoseconds that log message was recorded
+   * @return string with requested log messages, separated by a new line
+   */
+  public String getOldestLogMessages(int qty, boolean includeLogTimes) {
+    ArgumentVerifier.assertNotNegative(qty, "qty");
+    
+    StringBuilder result = new StringBuilder();
+    synchronized (drainLock) {
+      /* Only messages which took their sequence before we started are retrieved.  This ensures
+       * that if a message is skipped because it is being written, no newer message from the same 
+       * thread is retrieved (which would cause the skipped message to be considered retrieved).
+       */
+      long maxSequence = sequence.get();
+      List<LogEntry> entries = new ArrayList<LogEntry>();
+      Iterator<ThreadBuffer> it = buffers.iterator();
+      while (it.hasNext()) {
+        it.next().collectEntries(maxSequence, entries);
+      }
+      // each buffer is already mostly in order, this merges the buffers of all threads
+      Collections.sort(entries, new Comparator<LogEntry>() {
+        @Override
+        public int compare(LogEntry a, LogEntry b) {
+          return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+        }
+      });
+      
+      int resultQty = Math.min(qty, entries.size());
+      for (int i = 0; i < resultQty; i++) {
+        LogEntry entry = entries.get(i);
+        if (i > 0) {
+          result.append(StringUtils.NEW_LINE);
+        }
+        if (includeLogTimes) {
+          result.append(entry.time).append(TIME_DELIM);
+        }
+        result.append(entry.msg);
+        /* Entries from a single buffer are removed in sequence order, so the oldest qty entries
+         * from all buffers will always be a prefix of each buffer's entries.
+         */
+        entry.buffer.drainedThroughSequence = entry.sequence;
+      }
+      
+      removeDeadBuffers();
+    }
+    
+    return result.toString();
+  }
+  
+  /**
+   * Removes the buffers for threads which are no longer alive, and have had all their messages 
+   * retrieved.  This must be called while holding the drain lock.
+   */
+  private void removeDeadBuffers() {
+    Iterator<ThreadBuffer> it = buffers.iterator();
+    while (it.hasNext()) {
+      ThreadBuffer tb = it.next();
+      Thread t = tb.thread.get();
+      if ((t == null || ! t.isAlive()) && tb.getStoredQty() == 0) {
+        // CopyOnWriteArrayList iterators do not support remove
+        buffers.remove(tb);
+      }
+    }
+  }
+  
+  /**
+   * <p>Policy for handling messages logged once a thread's buffer is full.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public enum OverflowPolicy {
+    /**
+     * The oldest message in the buffer is overwritten with the new message.  This is best for 
+     * understanding what happened most recently before an issue.
+     */
+    OverwriteOldest, 
+    /**
+     * The new message is dropped until messages are retrieved from the buffer.  This is best for 
+     * understanding what happened after logging started.
+     */
+    DropNewest;
+  }
+  
+  /**
+   * <p>A single retrieved log message.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class LogEntry {
+    protected final ThreadBuffer buffer;
+    protected final long sequence;
+    protected final long time;
+    protected final String msg;
+    
+    protected LogEntry(ThreadBuffer buffer, long sequence, long time, String msg) {
+      this.buffer = buffer;
+      this.sequence = sequence;
+      this.time = time;
+      this.msg = msg;
+    }
+  }
+  
+  /**
+   * <p>Ring buffer of messages for a single logging thread.  Only the owning thread writes into 
+   * the buffer, and it does so without locking.  Each slot is guarded by its sequence number, the 
+   * slot's sequence is set to {@link #WRITING_SEQUENCE} while the slot is being written, so a 
+   * reader which reads the same sequence before and after reading the message knows the message 
+   * was not modified while it was being read.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected class ThreadBuffer {
+    protected final WeakReference<Thread> thread;
+    protected final int mask;
+    protected final AtomicLongArray sequences;
+    protected final AtomicLongArray times;
+    protected final AtomicReferenceArray<String> messages;
+    protected final AtomicLong overwrittenCount;
+    protected final AtomicLong droppedCount;
+    // only modified by the drain, all sequences at or below this have been retrieved
+    protected volatile long drainedThroughSequence;
+    private long position;  // only accessed by the owning thread
+    
+    protected ThreadBuffer(Thread thread, int capacity) {
+      this.thread = new WeakReference<Thread>(thread);
+      this.mask = capacity - 1;
+      this.sequences = new AtomicLongArray(capacity);
+      this.times = new AtomicLongArray(capacity);
+      this.messages = new AtomicReferenceArray<String>(capacity);
+      this.overwrittenCount = new AtomicLong(0);
+      this.droppedCount = new AtomicLong(0);
+      this.drainedThroughSequence = EMPTY_SEQUENCE;
+      this.position = 0;
+    }
+    
+    /**
+     * Records a message.  This must only be invoked by the owning thread.
+     * 
+     * @param msg Message to record
+     */
+    protected void log(String msg) {
+      int slot = (int)(position & mask);
+      long replacedSequence = sequences.get(slot);
+      if (replacedSequence > drainedThroughSequence) {
+        // the oldest message has not been retrieved, so the buffer is full
+        if (overflowPolicy == OverflowPolicy.DropNewest) {
+          // only the owning thread modifies the counts, so this does not need to be atomic
+          droppedCount.lazySet(droppedCount.get() + 1);
+          return;
+        } else {
+          overwrittenCount.lazySet(overwrittenCount.get() + 1);
+        }
+      }
+      position++;
+      
+      /* The ordered writes ensure that a reader which sees any part of the new message will then
+       * see either the writing sequence, or the new sequence.
+       */
+      sequences.lazySet(slot, WRITING_SEQUENCE);
+      long seq = sequence.incrementAndGet();
+      // avoid Clock.systemNanoTime() so logging threads don't contend on a shared write
+      times.lazySet(slot, System.nanoTime());
+      messages.lazySet(slot, msg);
+      sequences.lazySet(slot, seq);
+    }
+    
+    /**
+     * Returns the quantity of messages which have not been retrieved.
+     * 
+     * @return Quantity of stored messages
+     */
+    protected int getStoredQty() {
+      long drainedThrough = drainedThroughSequence;
+      int result = 0;
+      for (int i = 0; i < sequences.length(); i++) {
+        if (sequences.get(i) > drainedThrough) {
+          result++;
+        }
+      }
+      
+      return result;
+    }
+    
+    /**
+     * Adds all messages which have not been retrieved to the provided list.  Slots which are 
+     * currently being written are skipped.
+     * 
+     * @param maxSequence Maximum sequence of messages to collect
+     * @param result List to add entries to
+     */
+    protected void collectEntries(long maxSequence, List<LogEntry> result) {
+      long drainedThrough = drainedThroughSequence;
+      for (int i = 0; i < sequences.length(); i++) {
+        long seq = sequences.get(i);
+        if (seq > drainedThrough && seq <= maxSequence) {
+          long time = times.get(i);
+          String msg = messages.get(i);
+          if (sequences.get(i) == seq) {
+            result.add(new LogEntry(this, seq, time, msg));
+          }
+        }
+      }
+    }
+  }
+}
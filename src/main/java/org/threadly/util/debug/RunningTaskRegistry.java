@@ -0,0 +1,222 @@
+package org.threadly.util.debug;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.threadly.concurrent.CallableContainerInterface;
+import org.threadly.concurrent.RunnableContainerInterface;
+import org.threadly.concurrent.RunningTaskPublisher;
+import org.threadly.util.Clock;
+
+/**
+ * <p>Registry where threads can publish the task they are currently running, so that profilers 
+ * can attribute samples to the type of task which was running, rather than only to the thread.  
+ * In a pool, a single thread will run many different types of tasks, so without this information 
+ * the profile of a pool is a single undifferentiated set of samples.</p>
+ * 
+ * <p>Publishing is designed to be cheap enough to do for every task.  Each thread is given a 
+ * {@link Slot} once (see {@link #getCurrentThreadSlot()}), after which publishing a task is a 
+ * single volatile write.  The work of determining a tag for the task (see 
+ * {@link #getTaskTag(Object)}) is only done by the profiler when it reads the slot.</p>
+ * 
+ * <p>{@link org.threadly.concurrent.PriorityScheduler} and 
+ * {@link org.threadly.concurrent.KeyDistributedExecutor} workers publish the tasks they run 
+ * through a {@link RunningTaskPublisher}, but only once this registry has been installed as its 
+ * slot provider with {@link #setPublishingEnabled(boolean)}.  This is done automatically when 
+ * task attribution is enabled on a {@link Profiler} or {@link SamplingProfiler}.  Other executors 
+ * or tasks can publish using the slot for their thread.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class RunningTaskRegistry {
+  protected static final int PURGE_INTERVAL_IN_MS = 1000;
+  protected static final Map<Long, Slot> SLOTS;
+  protected static final ThreadLocal<Slot> THREAD_SLOT;
+  protected static final RunningTaskPublisher.SlotProvider SLOT_PROVIDER;
+  private static volatile long lastPurgeTime = 0;
+  
+  static {
+    SLOTS = new ConcurrentHashMap<Long, Slot>();
+    THREAD_SLOT = new ThreadLocal<Slot>() {
+      @Override
+      protected Slot initialValue() {
+        Thread currentThread = Thread.currentThread();
+        Slot result = new Slot(currentThread);
+        SLOTS.put(currentThread.getId(), result);
+        
+        return result;
+      }
+    };
+    SLOT_PROVIDER = new RunningTaskPublisher.SlotProvider() {
+      @Override
+      public RunningTaskPublisher.TaskSlot getCurrentThreadSlot() {
+        return THREAD_SLOT.get();
+      }
+    };
+  }
+  
+  private RunningTaskRegistry() {
+    // don't construct
+  }
+  
+  /**
+   * Sets if pool threads using a {@link RunningTaskPublisher} should publish their running tasks 
+   * to this registry.  This is enabled when a profiler has task attribution enabled, but it is 
+   * never disabled automatically (since another profiler may still depend on it).
+   * 
+   * @param enabled {@code true} to have pool threads publish their running tasks
+   */
+  public static void setPublishingEnabled(boolean enabled) {
+    RunningTaskPublisher.setSlotProvider(enabled ? SLOT_PROVIDER : null);
+  }
+  
+  /**
+   * Checks if pool threads are publishing their running tasks to this registry.  See 
+   * {@link #setPublishingEnabled(boolean)}.
+   * 
+   * @return {@code true} if pool threads are publishing their running tasks
+   */
+  public static boolean isPublishingEnabled() {
+    return RunningTaskPublisher.getSlotProvider() == SLOT_PROVIDER;
+  }
+  
+  /**
+   * Returns the slot for the invoking thread.  The slot is only created and registered on the 
+   * first invocation from a given thread, so callers publishing many tasks should retain the slot 
+   * rather than invoking this for each task.
+   * 
+   * @return Slot for the current thread to publish its running task to
+   */
+  public static Slot getCurrentThreadSlot() {
+    return THREAD_SLOT.get();
+  }
+  
+  /**
+   * Returns the task currently published by the provided thread.
+   * 
+   * @param thread Thread to check for a running task
+   * @return Published task, or {@code null} if the thread is not running a published task
+   */
+  public static Object getRunningTask(Thread thread) {
+    Slot s = SLOTS.get(thread.getId());
+    if (s == null || s.thread.get() != thread) {
+      return null;
+    } else {
+      return s.task;
+    }
+  }
+  
+  /**
+   * Returns the task currently published by the thread with the provided id.
+   * 
+   * @param threadId Id of the thread to check for a running task
+   * @return Published task, or {@code null} if the thread is not running a published task
+   */
+  public static Object getRunningTask(long threadId) {
+    Slot s = SLOTS.get(threadId);
+    if (s == null) {
+      return null;
+    } else {
+      return s.task;
+    }
+  }
+  
+  /**
+   * Returns the tag used to attribute samples for the provided task.  If the task is a 
+   * {@link String} it is used as the tag directly.  Otherwise wrappers implementing 
+   * {@link RunnableContainerInterface} or {@link CallableContainerInterface} are unwrapped, and 
+   * the class name of the inner most task is returned.
+   * 
+   * @param task Task to produce a tag for
+   * @return Tag for the task, or {@code null} if the task is {@code null}
+   */
+  public static String getTaskTag(Object task) {
+    if (task == null) {
+      return null;
+    }
+    
+    while (true) {
+      Object containedTask = null;
+      if (task instanceof RunnableContainerInterface) {
+        containedTask = ((RunnableContainerInterface)task).getContainedRunnable();
+      }
+      if (containedTask == null && task instanceof CallableContainerInterface<?>) {
+        containedTask = ((CallableContainerInterface<?>)task).getContainedCallable();
+      }
+      if (containedTask == null || containedTask == task) {
+        break;
+      }
+      task = containedTask;
+    }
+    
+    if (task instanceof String) {
+      return (String)task;
+    } else {
+      return task.getClass().getName();
+    }
+  }
+  
+  /**
+   * Removes the slots for threads which are no longer alive.  This is invoked by the profilers 
+   * as they sample, and will only scan the slots at most once every 
+   * {@value #PURGE_INTERVAL_IN_MS} milliseconds.
+   */
+  protected static void purgeDeadSlotsIfDue() {
+    long now = Clock.lastKnownForwardProgressingMillis();
+    if (now - lastPurgeTime < PURGE_INTERVAL_IN_MS) {
+      return;
+    }
+    lastPurgeTime = now;
+    
+    Iterator<Slot> it = SLOTS.values().iterator();
+    while (it.hasNext()) {
+      Thread t = it.next().thread.get();
+      if (t == null || ! t.isAlive()) {
+        it.remove();
+      }
+    }
+  }
+  
+  /**
+   * <p>Holds the task currently being run by a single thread.  Only the owning thread should 
+   * publish to the slot, but it can be read from any thread.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  public static class Slot implements RunningTaskPublisher.TaskSlot {
+    protected final WeakReference<Thread> thread;
+    protected volatile Object task;
+    
+    protected Slot(Thread thread) {
+      this.thread = new WeakReference<Thread>(thread);
+      this.task = null;
+    }
+    
+    /**
+     * Publishes the task the owning thread is about to run.  Tasks may be a wrapper, or a 
+     * {@link String} tag (see {@link RunningTaskRegistry#getTaskTag(Object)}).  Once complete the 
+     * slot should be restored to the previous task (which is {@code null} unless tasks are being 
+     * run from within another published task).
+     * 
+     * @param task Task being run, or {@code null} if no task is running
+     */
+    @Override
+    public void setTask(Object task) {
+      this.task = task;
+    }
+    
+    /**
+     * Returns the task currently published to this slot.
+     * 
+     * @return Published task, or {@code null} if no task is running
+     */
+    @Override
+    public Object getTask() {
+      return task;
+    }
+  }
+}
@@ -0,0 +1,560 @@
+package org.threadly.util.debug;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.threadly.util.ArgumentVerifier;
+import org.threadly.util.Clock;
+
+/**
+ * <p>A low overhead sampling profiler which is designed so that it can be left running 
+ * continuously, including in production.  Unlike {@link Profiler}, which requests the stack of 
+ * each thread individually, this captures the stacks of all profiled threads with a single 
+ * batched {@link ThreadMXBean#getThreadInfo(long[], int)} request.  This means each sample only 
+ * brings the VM to a single safepoint, regardless of how many threads are being profiled.</p>
+ * 
+ * <p>Samples are aggregated into a {@link StackTrie}, which interns frames, and shares nodes for 
+ * stacks with common prefixes.  Adding a sample for a previously seen stack does not allocate.  
+ * The trie has a maximum node count, and stacks are limited to a maximum depth, so memory use is 
+ * bounded no matter how long the profiler runs.  Once the node limit is reached, samples for new 
+ * call paths will be truncated (see {@link StackTrie#getTruncatedSampleCount()}).</p>
+ * 
+ * <p>Samples can optionally be attributed to the type of task the thread was running (see 
+ * {@link #setTaskAttributionEnabled(boolean)}), allowing the profile of a pool to be broken down 
+ * by the tasks it runs.</p>
+ * 
+ * <p>The list of thread ids is only refreshed periodically, rather than on every sample.  So 
+ * threads started after the profiler may not be sampled for up to 
+ * {@value #THREAD_ID_REFRESH_INTERVAL_IN_MS} milliseconds.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class SamplingProfiler {
+  /**
+   * Default maximum quantity of frames captured from each thread's stack.
+   */
+  public static final int DEFAULT_MAX_STACK_DEPTH = 128;
+  /**
+   * Default maximum quantity of nodes held in the trie of samples.
+   */
+  public static final int DEFAULT_MAX_TRIE_NODES = 1024 * 64;
+  /**
+   * Method name used for the synthetic frames which samples are attributed to when task 
+   * attribution is enabled (see {@link #setTaskAttributionEnabled(boolean)}).
+   */
+  public static final String TASK_FRAME_METHOD_NAME = "<task>";
+  protected static final int THREAD_ID_REFRESH_INTERVAL_IN_MS = 1000;
+  protected static final String TASKS_BY_COUNT_HEADER = "tasks by total count: (total, task)";
+  
+  protected final Object startStopLock;
+  protected final SampleStorage sStore;
+  
+  /**
+   * Constructs a new sampling profiler with the default poll interval, max stack depth, and max 
+   * trie node count.
+   */
+  public SamplingProfiler() {
+    this(Profiler.DEFAULT_POLL_INTERVAL_IN_MILLIS);
+  }
+  
+  /**
+   * Constructs a new sampling profiler with the default max stack depth and max trie node count.
+   * 
+   * @param pollIntervalInMs Time in milliseconds to wait between samples
+   */
+  public SamplingProfiler(int pollIntervalInMs) {
+    this(pollIntervalInMs, DEFAULT_MAX_STACK_DEPTH, DEFAULT_MAX_TRIE_NODES);
+  }
+  
+  /**
+   * Constructs a new sampling profiler.  Each node in the trie costs about 32 bytes, plus the 
+   * memory for any unique frames it introduces.
+   * 
+   * @param pollIntervalInMs Time in milliseconds to wait between samples
+   * @param maxStackDepth Maximum quantity of frames to capture from the top of each stack
+   * @param maxTrieNodes Maximum quantity of nodes to hold in the trie of samples
+   */
+  public SamplingProfiler(int pollIntervalInMs, int maxStackDepth, int maxTrieNodes) {
+    this(new SampleStorage(pollIntervalInMs, maxStackDepth, maxTrieNodes));
+  }
+  
+  /**
+   * This constructor allows extending classes to provide their own implementation of the 
+   * {@link SampleStorage}.  Ultimately all constructors will default to this one.
+   * 
+   * @param sStore Storage to be used for collecting and holding samples
+   */
+  protected SamplingProfiler(SampleStorage sStore) {
+    this.startStopLock = new Object();
+    this.sStore = sStore;
+  }
+  
+  /**
+   * Change how long the profiler waits between samples.  This value must be greater than or 
+   * equal to 0.
+   * 
+   * @param pollIntervalInMs Time in milliseconds to wait between samples
+   */
+  public void setPollInterval(int pollIntervalInMs) {
+    ArgumentVerifier.assertNotNegative(pollIntervalInMs, "pollIntervalInMs");
+    
+    sStore.pollIntervalInMs = pollIntervalInMs;
+  }
+  
+  /**
+   * Call to get the currently set poll interval.
+   * 
+   * @return Time in milliseconds the profiler waits between samples
+   */
+  public int getPollInterval() {
+    return sStore.pollIntervalInMs;
+  }
+  
+  /**
+   * Sets if samples should be attributed to the type of task the thread was running.  When 
+   * enabled, samples from threads which have published a running task to the 
+   * {@link RunningTaskRegistry} are added under a synthetic root frame for the task type.  That 
+   * frame has the task tag (see {@link RunningTaskRegistry#getTaskTag(Object)}) as its class 
+   * name, and {@value #TASK_FRAME_METHOD_NAME} as its method name.  Samples from threads not 
+   * running a published task are added without a task frame.  Enabling this will also enable 
+   * publishing with {@link RunningTaskRegistry#setPublishingEnabled(boolean)}.
+   * 
+   * @param enabled {@code true} to attribute samples to the running task type
+   */
+  public void setTaskAttributionEnabled(boolean enabled) {
+    if (enabled) {
+      RunningTaskRegistry.setPublishingEnabled(true);
+    }
+    sStore.taskAttributionEnabled = enabled;
+  }
+  
+  /**
+   * Checks if samples are being attributed to the type of task the thread was running.  See 
+   * {@link #setTaskAttributionEnabled(boolean)}.
+   * 
+   * @return {@code true} if samples are being attributed to task types
+   */
+  public boolean isTaskAttributionEnabled() {
+    return sStore.taskAttributionEnabled;
+  }
+  
+  /**
+   * Returns how many times all profiled threads have been sampled since the profiler was 
+   * constructed or last reset.
+   * 
+   * @return Quantity of sample batches collected
+   */
+  public int getCollectedSampleQty() {
+    return sStore.collectedSamples.get();
+  }
+  
+  /**
+   * Removes all collected samples, releasing the memory used to hold them.
+   */
+  public void reset() {
+    synchronized (sStore.trie) {
+      sStore.trie.reset();
+    }
+    sStore.collectedSamples.set(0);
+  }
+  
+  /**
+   * Call to check weather the profile is currently running/started.
+   * 
+   * @return {@code true} if there is a thread currently collecting samples
+   */
+  public boolean isRunning() {
+    return sStore.collectorThread.get() != null;
+  }
+  
+  /**
+   * Starts the profiler running in a new daemon thread.  If the profiler is already running this 
+   * call has no effect.  Samples from any previous runs are retained unless {@link #reset()} is 
+   * called.
+   */
+  public void start() {
+    synchronized (startStopLock) {
+      if (sStore.collectorThread.get() == null) {
+        Thread thread = new Thread(new SampleCollector(sStore));
+        sStore.collectorThread.set(thread);
+        
+        thread.setName("Sampling profiler data collector");
+        thread.setDaemon(true);
+        thread.start();
+      }
+    }
+  }
+  
+  /**
+   * Stops the profiler from collecting more samples.  Collected samples are still available 
+   * until {@link #reset()} is called.
+   */
+  public void stop() {
+    synchronized (startStopLock) {
+      Thread runningThread = sStore.collectorThread.getAndSet(null);
+      if (runningThread != null) {
+        runningThread.interrupt();
+      }
+    }
+  }
+  
+  /**
+   * Constructs a copy of the samples collected so far.  The returned trie is independent of the 
+   * profiler, so it will not change as new samples are collected.
+   * 
+   * @return A copy of the collected samples
+   */
+  public StackTrie getSamples() {
+    synchronized (sStore.trie) {
+      return sStore.trie.copy();
+    }
+  }
+  
+  /**
+   * Returns the quantity of samples collected for each type of task.  Samples are only attributed 
+   * to tasks while {@link #setTaskAttributionEnabled(boolean)} is enabled.
+   * 
+   * @return Map of task tags to the quantity of samples taken while running that task type
+   */
+  public Map<String, Long> getTaskSampleCounts() {
+    return getTaskSampleCounts(getSamples());
+  }
+  
+  private static Map<String, Long> getTaskSampleCounts(StackTrie samples) {
+    Map<String, Long> result = new HashMap<String, Long>();
+    int node = samples.getFirstChild(StackTrie.ROOT_NODE);
+    while (node != StackTrie.NO_NODE) {
+      if (isTaskNode(samples, node)) {
+        result.put(samples.getFrame(node).getClassName(), samples.getTotalCount(node));
+      }
+      node = samples.getNextSibling(node);
+    }
+    
+    return result;
+  }
+  
+  private static boolean isTaskNode(StackTrie samples, int node) {
+    return samples.getParent(node) == StackTrie.ROOT_NODE && 
+             TASK_FRAME_METHOD_NAME.equals(samples.getFrame(node).getMethodName());
+  }
+  
+  /**
+   * Output a summary of the collected samples.
+   * 
+   * @return The dumped results as a single String
+   */
+  public String dump() {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    dump(new BufferedOutputStream(baos));
+    
+    return baos.toString();
+  }
+  
+  /**
+   * Output a summary of the collected samples to the provided output stream.
+   * 
+   * @param out OutputStream to write results to
+   */
+  public void dump(OutputStream out) {
+    dump(new PrintStream(out, false));
+  }
+  
+  /**
+   * Output a summary of the collected samples to the provided output stream.  This includes the 
+   * functions which were most frequently executing (top of the stack), and the functions which 
+   * were most frequently on the stack.
+   * 
+   * @param ps PrintStream to write results to
+   */
+  public void dump(PrintStream ps) {
+    StackTrie samples = getSamples();
+    
+    // combine counts for all nodes which represent the same function
+    Map<Profiler.Function, long[]> functionCounts = new HashMap<Profiler.Function, long[]>();
+    for (int node = StackTrie.ROOT_NODE + 1; node < samples.getNodeCount(); node++) {
+      if (isTaskNode(samples, node)) {
+        continue;
+      }
+      StackTraceElement frame = samples.getFrame(node);
+      Profiler.Function f = new Profiler.Function(frame.getClassName(), frame.getMethodName());
+      long[] counts = functionCounts.get(f);
+      if (counts == null) {
+        counts = new long[2];
+        functionCounts.put(f, counts);
+      }
+      counts[0] += samples.getTotalCount(node);
+      counts[1] += samples.getSelfCount(node);
+    }
+    List<Map.Entry<Profiler.Function, long[]>> functions =
+        new ArrayList<Map.Entry<Profiler.Function, long[]>>(functionCounts.entrySet());
+    
+    ps.println("   total samples: " + samples.getSampleCount());
+    ps.println("truncated samples: " + samples.getTruncatedSampleCount());
+    ps.println("      trie nodes: " + samples.getNodeCount() + " / " + samples.getMaxNodes());
+    
+    Map<String, Long> taskCounts = getTaskSampleCounts(samples);
+    if (! taskCounts.isEmpty()) {
+      List<Map.Entry<String, Long>> tasks = 
+          new ArrayList<Map.Entry<String, Long>>(taskCounts.entrySet());
+      Collections.sort(tasks, new Comparator<Map.Entry<String, Long>>() {
+        @Override
+        public int compare(Map.Entry<String, Long> a, Map.Entry<String, Long> b) {
+          return b.getValue().compareTo(a.getValue());
+        }
+      });
+      
+      ps.println();
+      ps.println(TASKS_BY_COUNT_HEADER);
+      ps.println();
+      for (Map.Entry<String, Long> t : tasks) {
+        ps.print(format(t.getValue()));
+        ps.print(' ');
+        ps.println(t.getKey());
+      }
+    }
+    
+    ps.println();
+    ps.println(Profiler.FUNCTION_BY_NET_HEADER);
+    ps.println();
+    dumpFunctions(functions, 1, ps);
+    
+    ps.println();
+    ps.println(Profiler.FUNCTION_BY_COUNT_HEADER);
+    ps.println();
+    dumpFunctions(functions, 0, ps);
+    
+    ps.flush();
+  }
+  
+  /**
+   * Sorts the functions by the count at the provided index, and then prints them.
+   * 
+   * @param functions Functions and their total and top counts
+   * @param sortIndex {@code 0} to sort by total count, {@code 1} to sort by top count
+   * @param ps PrintStream to write results to
+   */
+  private static void dumpFunctions(List<Map.Entry<Profiler.Function, long[]>> functions, 
+                                    final int sortIndex, PrintStream ps) {
+    Collections.sort(functions, new Comparator<Map.Entry<Profiler.Function, long[]>>() {
+      @Override
+      public int compare(Map.Entry<Profiler.Function, long[]> a, 
+                         Map.Entry<Profiler.Function, long[]> b) {
+        long aCount = a.getValue()[sortIndex];
+        long bCount = b.getValue()[sortIndex];
+        return aCount > bCount ? -1 : (aCount == bCount ? 0 : 1);
+      }
+    });
+    
+    for (Map.Entry<Profiler.Function, long[]> f : functions) {
+      if (f.getValue()[sortIndex] > 0) {
+        ps.print(format(f.getValue()[0]));
+        ps.print(format(f.getValue()[1]));
+        ps.print(' ');
+        ps.print(f.getKey().className);
+        ps.print('.');
+        ps.println(f.getKey().function);
+      }
+    }
+  }
+  
+  /**
+   * Consistently formats a count, adding spacing in front of it if necessary.
+   * 
+   * @param c Count to format
+   * @return Consistently sized string to represent the count
+   */
+  private static String format(long c) {
+    String s = Long.toString(c);
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() + s.length() < Profiler.NUMBER_TARGET_LINE_LENGTH) {
+      sb.append(' ');
+    }
+    sb.append(s);
+    
+    return sb.toString();
+  }
+  
+  @Override
+  protected void finalize() {
+    // stop collection thread if running so that stored data can be GC'ed
+    stop();
+  }
+  
+  /**
+   * <p>Holds the state shared between the collector thread and the threads which start, stop, or 
+   * read samples from the profiler.  This is separate from the profiler so that the collector 
+   * thread does not prevent an unused profiler from being garbage collected (and stopped).</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class SampleStorage {
+    protected final ThreadMXBean threadMXBean;
+    protected final int maxStackDepth;
+    protected final StackTrie trie;  // all access must be synchronized on the trie
+    protected final AtomicReference<Thread> collectorThread;
+    protected final AtomicInteger collectedSamples;
+    protected volatile int pollIntervalInMs;
+    protected volatile boolean taskAttributionEnabled;
+    // only accessed from the collector thread
+    private long[] threadIds;
+    private long lastThreadIdRefreshTime;
+    private Object[] runningTasks;
+    private final Map<String, StackTraceElement> taskFrames;
+    
+    public SampleStorage(int pollIntervalInMs, int maxStackDepth, int maxTrieNodes) {
+      ArgumentVerifier.assertNotNegative(pollIntervalInMs, "pollIntervalInMs");
+      ArgumentVerifier.assertGreaterThanZero(maxStackDepth, "maxStackDepth");
+      
+      this.threadMXBean = ManagementFactory.getThreadMXBean();
+      this.maxStackDepth = maxStackDepth;
+      this.trie = new StackTrie(maxTrieNodes);
+      this.collectorThread = new AtomicReference<Thread>(null);
+      this.collectedSamples = new AtomicInteger(0);
+      this.pollIntervalInMs = pollIntervalInMs;
+      this.taskAttributionEnabled = false;
+      this.threadIds = null;
+      this.lastThreadIdRefreshTime = -1;
+      this.runningTasks = null;
+      this.taskFrames = new HashMap<String, StackTraceElement>();
+    }
+    
+    /**
+     * Returns the ids of the threads which should be sampled.  By default this returns all threads 
+     * within the VM, refreshed at most once every {@value #THREAD_ID_REFRESH_INTERVAL_IN_MS} 
+     * milliseconds.  Ids for threads which have died are fine to return, they will be ignored.
+     * 
+     * This is only invoked from the collector thread, and can be overridden to control which 
+     * threads are sampled.
+     * 
+     * @return Array of ids for threads to be sampled
+     */
+    protected long[] getProfileThreadIds() {
+      long now = Clock.lastKnownForwardProgressingMillis();
+      if (threadIds == null || 
+          now - lastThreadIdRefreshTime >= THREAD_ID_REFRESH_INTERVAL_IN_MS) {
+        threadIds = threadMXBean.getAllThreadIds();
+        lastThreadIdRefreshTime = now;
+      }
+      
+      return threadIds;
+    }
+    
+    /**
+     * Collects a single sample of all the profiled threads.  The stacks for all threads are 
+     * requested in a single batch, and then added to the trie while holding its lock once.
+     * 
+     * @param collectorThreadId Id of the collecting thread, which will not be included
+     * @return {@code true} if at least one thread's stack was sampled
+     */
+    protected boolean collectSample(long collectorThreadId) {
+      long[] ids = getProfileThreadIds();
+      boolean attributeToTasks = taskAttributionEnabled;
+      if (attributeToTasks) {
+        RunningTaskRegistry.purgeDeadSlotsIfDue();
+        if (runningTasks == null || runningTasks.length < ids.length) {
+          runningTasks = new Object[ids.length];
+        }
+        for (int i = 0; i < ids.length; i++) {
+          runningTasks[i] = RunningTaskRegistry.getRunningTask(ids[i]);
+        }
+      }
+      // results are in the same order as the requested ids
+      ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(ids, maxStackDepth);
+      boolean storedSample = false;
+      synchronized (trie) {
+        for (int i = 0; i < threadInfos.length; i++) {
+          ThreadInfo ti = threadInfos[i];
+          // null if the thread has died
+          if (ti != null && ti.getThreadId() != collectorThreadId) {
+            StackTraceElement[] stack = ti.getStackTrace();
+            if (stack.length > 0) {
+              storedSample = true;
+              int startNode = StackTrie.ROOT_NODE;
+              if (attributeToTasks) {
+                Object task = runningTasks[i];
+                // only attribute to the task if it did not change while we were getting the stack
+                if (task != null && task == RunningTaskRegistry.getRunningTask(ids[i])) {
+                  int taskNode = trie.getOrAddChild(StackTrie.ROOT_NODE, getTaskFrame(task));
+                  if (taskNode != StackTrie.NO_NODE) {
+                    startNode = taskNode;
+                  }
+                }
+              }
+              trie.addSample(startNode, stack);
+            }
+          }
+        }
+      }
+      if (attributeToTasks) {
+        Arrays.fill(runningTasks, null);  // allow GC
+      }
+      
+      return storedSample;
+    }
+    
+    /**
+     * Returns the synthetic frame which samples for the provided task are added under.  Frames 
+     * are cached so that attributing a sample to a previously seen task type does not allocate.
+     * 
+     * @param task Task which was running while the sample was taken
+     * @return Frame to represent the type of task
+     */
+    private StackTraceElement getTaskFrame(Object task) {
+      String tag = RunningTaskRegistry.getTaskTag(task);
+      StackTraceElement result = taskFrames.get(tag);
+      if (result == null) {
+        result = new StackTraceElement(tag, TASK_FRAME_METHOD_NAME, null, -1);
+        taskFrames.put(tag, result);
+      }
+      
+      return result;
+    }
+  }
+  
+  /**
+   * <p>Runnable which collects samples until it is no longer the collector thread.</p>
+   * 
+   * @author jent - Mike Jensen
+   * @since 3.7.0
+   */
+  protected static class SampleCollector implements Runnable {
+    private final SampleStorage sStore;
+    
+    protected SampleCollector(SampleStorage sStore) {
+      this.sStore = sStore;
+    }
+    
+    @Override
+    public void run() {
+      Thread runningThread = Thread.currentThread();
+      long runningThreadId = runningThread.getId();
+      while (sStore.collectorThread.get() == runningThread) {
+        if (sStore.collectSample(runningThreadId)) {
+          sStore.collectedSamples.incrementAndGet();
+        }
+        try {
+          Thread.sleep(sStore.pollIntervalInMs);
+        } catch (InterruptedException e) {
+          sStore.collectorThread.compareAndSet(runningThread, null);
+          return;
+        }
+      }
+    }
+  }
+}
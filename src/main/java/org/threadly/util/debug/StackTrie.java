@@ -0,0 +1,415 @@
+package org.threadly.util.debug;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.threadly.util.ArgumentVerifier;
+
+/**
+ * <p>A compact prefix tree of sampled stacks.  Each path from the root represents a stack, 
+ * starting at the outer most frame (for example {@link Thread#run()}), down to the frame which 
+ * was executing when the sample was taken.  Each node counts how many samples passed through it 
+ * (the total count), and how many samples ended at it (the self count).  Stacks which share a 
+ * common prefix share the nodes for that prefix, so memory grows with the number of unique call 
+ * paths, not with the number of samples.</p>
+ * 
+ * <p>Nodes are held in parallel primitive arrays, and frames are interned so that each unique 
+ * {@link StackTraceElement} is only stored once.  Adding a sample which follows an existing path 
+ * does not allocate.  The quantity of nodes is bounded, once the limit is reached new paths are 
+ * no longer added.  Instead the sample is counted as ending at the deepest node which already 
+ * exists, and is counted as truncated (see {@link #getTruncatedSampleCount()}).</p>
+ * 
+ * <p>This class is NOT thread safe, access must be synchronized externally.</p>
+ * 
+ * @author jent - Mike Jensen
+ * @since 3.7.0
+ */
+public class StackTrie {
+  /**
+   * Index of the root node, which does not represent any frame.
+   */
+  public static final int ROOT_NODE = 0;
+  /**
+   * Value returned when there is no node (for example when a node has no children).
+   */
+  public static final int NO_NODE = -1;
+  protected static final int INITIAL_NODE_CAPACITY = 64;
+  
+  protected final int maxNodes;
+  protected final Map<StackTraceElement, Integer> frameIds;
+  protected StackTraceElement[] frames;
+  protected int frameCount;
+  protected int[] nodeFrame;
+  protected int[] nodeParent;
+  protected int[] nodeFirstChild;
+  protected int[] nodeNextSibling;
+  protected long[] nodeSelfCount;
+  protected long[] nodeTotalCount;
+  protected int nodeCount;
+  protected long truncatedSampleCount;
+  
+  /**
+   * Constructs a new empty trie.
+   * 
+   * @param maxNodes Maximum quantity of nodes (including the root) the trie can hold
+   */
+  public StackTrie(int maxNodes) {
+    ArgumentVerifier.assertGreaterThanZero(maxNodes, "maxNodes");
+    
+    this.maxNodes = maxNodes;
+    this.frameIds = new HashMap<StackTraceElement, Integer>();
+    init(Math.min(INITIAL_NODE_CAPACITY, maxNodes));
+  }
+  
+  private void init(int nodeCapacity) {
+    frameIds.clear();
+    frames = new StackTraceElement[nodeCapacity];
+    frameCount = 0;
+    nodeFrame = new int[nodeCapacity];
+    nodeParent = new int[nodeCapacity];
+    nodeFirstChild = new int[nodeCapacity];
+    nodeNextSibling = new int[nodeCapacity];
+    nodeSelfCount = new long[nodeCapacity];
+    nodeTotalCount = new long[nodeCapacity];
+    nodeCount = 1;
+    truncatedSampleCount = 0;
+    
+    nodeFrame[ROOT_NODE] = -1;
+    nodeParent[ROOT_NODE] = NO_NODE;
+    nodeFirstChild[ROOT_NODE] = NO_NODE;
+    nodeNextSibling[ROOT_NODE] = NO_NODE;
+  }
+  
+  /**
+   * Removes all samples and frames from the trie.  This will also release the memory used for 
+   * holding nodes.
+   */
+  public void reset() {
+    init(Math.min(INITIAL_NODE_CAPACITY, maxNodes));
+  }
+  
+  /**
+   * Adds a sampled stack to the trie.  The stack is expected to be in the order returned from 
+   * {@link Thread#getStackTrace()}, where index {@code 0} is the currently executing frame.
+   * 
+   * @param stack Stack to be added
+   */
+  public void addSample(StackTraceElement[] stack) {
+    addSample(ROOT_NODE, stack);
+  }
+  
+  /**
+   * Adds a sampled stack to the trie, with the path for the stack starting at the provided node 
+   * rather than the root.  This can be used to group stacks under a common synthetic frame.
+   * 
+   * @param startNode Node to add the stack under
+   * @param stack Stack to be added, with index {@code 0} as the currently executing frame
+   */
+  public void addSample(int startNode, StackTraceElement[] stack) {
+    addSample(startNode, stack, 1);
+  }
+  
+  /**
+   * Adds a stack which was sampled multiple times to the trie, with the path for the stack 
+   * starting at the provided node.
+   * 
+   * @param startNode Node to add the stack under
+   * @param stack Stack to be added, with index {@code 0} as the currently executing frame
+   * @param count Quantity of times the stack was sampled
+   */
+  public void addSample(int startNode, StackTraceElement[] stack, long count) {
+    int node = startNode;
+    int index = stack.length - 1;
+    while (index >= 0) {
+      int child = getOrAddChild(node, stack[index]);
+      if (child == NO_NODE) {
+        // out of nodes, count the sample at the deepest node we could reach
+        truncatedSampleCount += count;
+        break;
+      }
+      node = child;
+      index--;
+    }
+    
+    addSamples(node, count);
+  }
+  
+  /**
+   * Adds samples which ended at the provided node.  This increases the self count of the node, 
+   * and the total count of the node and all its parents.
+   * 
+   * @param node Index of the node the samples ended at
+   * @param count Quantity of samples to add
+   */
+  public void addSamples(int node, long count) {
+    nodeSelfCount[node] += count;
+    while (node != NO_NODE) {
+      nodeTotalCount[node] += count;
+      node = nodeParent[node];
+    }
+  }
+  
+  /**
+   * Finds the child of the provided node which represents the provided frame, without adding 
+   * one if it does not exist.
+   * 
+   * @param parent Node to search the children of
+   * @param frame Frame the child node represents
+   * @return Index of the child node, or {@link #NO_NODE} if there is no child for the frame
+   */
+  public int getChild(int parent, StackTraceElement frame) {
+    int child = nodeFirstChild[parent];
+    while (child != NO_NODE) {
+      if (frames[nodeFrame[child]].equals(frame)) {
+        return child;
+      }
+      child = nodeNextSibling[child];
+    }
+    
+    return NO_NODE;
+  }
+  
+  /**
+   * Finds the child of the provided node which represents the provided frame.  If one does not 
+   * exist it will be added if there is room within the trie.
+   * 
+   * @param parent Node to find or add the child under
+   * @param frame Frame the child node represents
+   * @return Index of the child node, or {@link #NO_NODE} if the trie is full
+   */
+  public int getOrAddChild(int parent, StackTraceElement frame) {
+    int child = getChild(parent, frame);
+    if (child != NO_NODE) {
+      return child;
+    } else if (nodeCount >= maxNodes) {
+      return NO_NODE;
+    } else if (nodeCount == nodeFrame.length) {
+      growNodes();
+    }
+    
+    child = nodeCount++;
+    nodeFrame[child] = internFrame(frame);
+    nodeParent[child] = parent;
+    nodeFirstChild[child] = NO_NODE;
+    // add to the front of the parent's children
+    nodeNextSibling[child] = nodeFirstChild[parent];
+    nodeFirstChild[parent] = child;
+    nodeSelfCount[child] = 0;
+    nodeTotalCount[child] = 0;
+    
+    return child;
+  }
+  
+  private int internFrame(StackTraceElement frame) {
+    Integer id = frameIds.get(frame);
+    if (id == null) {
+      if (frameCount == frames.length) {
+        frames = Arrays.copyOf(frames, nodeFrame.length);
+      }
+      id = frameCount++;
+      frames[id] = frame;
+      frameIds.put(frame, id);
+    }
+    
+    return id;
+  }
+  
+  private void growNodes() {
+    int newCapacity = (int)Math.min((long)nodeFrame.length * 2, maxNodes);
+    nodeFrame = Arrays.copyOf(nodeFrame, newCapacity);
+    nodeParent = Arrays.copyOf(nodeParent, newCapacity);
+    nodeFirstChild = Arrays.copyOf(nodeFirstChild, newCapacity);
+    nodeNextSibling = Arrays.copyOf(nodeNextSibling, newCapacity);
+    nodeSelfCount = Arrays.copyOf(nodeSelfCount, newCapacity);
+    nodeTotalCount = Arrays.copyOf(nodeTotalCount, newCapacity);
+  }
+  
+  /**
+   * Constructs a copy of this trie.  The copy will not be modified as samples are added to this 
+   * trie, so it can be read without synchronization once constructed.
+   * 
+   * @return A new trie holding the same samples as this trie
+   */
+  public StackTrie copy() {
+    StackTrie result = new StackTrie(maxNodes);
+    result.frameIds.putAll(frameIds);
+    result.frames = Arrays.copyOf(frames, frames.length);
+    result.frameCount = frameCount;
+    result.nodeFrame = Arrays.copyOf(nodeFrame, nodeCount);
+    result.nodeParent = Arrays.copyOf(nodeParent, nodeCount);
+    result.nodeFirstChild = Arrays.copyOf(nodeFirstChild, nodeCount);
+    result.nodeNextSibling = Arrays.copyOf(nodeNextSibling, nodeCount);
+    result.nodeSelfCount = Arrays.copyOf(nodeSelfCount, nodeCount);
+    result.nodeTotalCount = Arrays.copyOf(nodeTotalCount, nodeCount);
+    result.nodeCount = nodeCount;
+    result.truncatedSampleCount = truncatedSampleCount;
+    
+    return result;
+  }
+  
+  /**
+   * Returns the maximum quantity of nodes the trie can hold.
+   * 
+   * @return Maximum node count, including the root
+   */
+  public int getMaxNodes() {
+    return maxNodes;
+  }
+  
+  /**
+   * Returns the quantity of nodes currently in the trie.  Valid node indexes are from 
+   * {@link #ROOT_NODE} up to (but not including) this value.
+   * 
+   * @return Current node count, including the root
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+  
+  /**
+   * Returns the quantity of unique frames held within the trie.
+   * 
+   * @return Unique frame count
+   */
+  public int getFrameCount() {
+    return frameCount;
+  }
+  
+  /**
+   * Returns the total quantity of samples which have been added to the trie.
+   * 
+   * @return Sample count
+   */
+  public long getSampleCount() {
+    return nodeTotalCount[ROOT_NODE];
+  }
+  
+  /**
+   * Returns how many samples could not be fully added because the node limit was reached.  
+   * Those samples are counted as ending at the deepest node of their stack which did exist.
+   * 
+   * @return Quantity of truncated samples
+   */
+  public long getTruncatedSampleCount() {
+    return truncatedSampleCount;
+  }
+  
+  /**
+   * Returns the frame represented by the node.
+   * 
+   * @param node Index of the node
+   * @return Frame for the node, or {@code null} for the root node
+   */
+  public StackTraceElement getFrame(int node) {
+    if (node == ROOT_NODE) {
+      return null;
+    } else {
+      return frames[nodeFrame[node]];
+    }
+  }
+  
+  /**
+   * Returns the id of the interned frame represented by the node.  Nodes for the same frame will 
+   * return the same id.
+   * 
+   * @param node Index of the node, must not be the root node
+   * @return Id of the frame, between {@code 0} and {@link #getFrameCount()}
+   */
+  public int getFrameId(int node) {
+    return nodeFrame[node];
+  }
+  
+  /**
+   * Returns the interned frame for the provided id.
+   * 
+   * @param frameId Id of the frame, between {@code 0} and {@link #getFrameCount()}
+   * @return Frame for the id
+   */
+  public StackTraceElement getFrameById(int frameId) {
+    return frames[frameId];
+  }
+  
+  /**
+   * Returns the parent node of the provided node.
+   * 
+   * @param node Index of the node
+   * @return Index of the parent node, or {@link #NO_NODE} for the root node
+   */
+  public int getParent(int node) {
+    return nodeParent[node];
+  }
+  
+  /**
+   * Returns the first child of the node.  Other children can be found by following 
+   * {@link #getNextSibling(int)}.  Children are not kept in any specific order.
+   * 
+   * @param node Index of the node
+   * @return Index of the first child, or {@link #NO_NODE} if the node has no children
+   */
+  public int getFirstChild(int node) {
+    return nodeFirstChild[node];
+  }
+  
+  /**
+   * Returns the next child of the node's parent.
+   * 
+   * @param node Index of the node
+   * @return Index of the next sibling, or {@link #NO_NODE} if there are no more siblings
+   */
+  public int getNextSibling(int node) {
+    return nodeNextSibling[node];
+  }
+  
+  /**
+   * Returns how many samples ended at this node (the node was the executing frame).
+   * 
+   * @param node Index of the node
+   * @return Quantity of samples which ended at the node
+   */
+  public long getSelfCount(int node) {
+    return nodeSelfCount[node];
+  }
+  
+  /**
+   * Returns how many samples passed through this node, including samples which ended at it.
+   * 
+   * @param node Index of the node
+   * @return Quantity of samples which included the node
+   */
+  public long getTotalCount(int node) {
+    return nodeTotalCount[node];
+  }
+  
+  /**
+   * Returns the depth of the node within the trie.
+   * 
+   * @param node Index of the node
+   * @return Depth of the node, {@code 0} for the root node
+   */
+  public int getDepth(int node) {
+    int depth = 0;
+    while ((node = nodeParent[node]) != NO_NODE) {
+      depth++;
+    }
+    
+    return depth;
+  }
+  
+  /**
+   * Returns the stack which the node represents.  The stack is ordered the same as 
+   * {@link Thread#getStackTrace()}, with the node's frame at index {@code 0}.
+   * 
+   * @param node Index of the node
+   * @return Stack represented by the node, empty for the root node
+   */
+  public StackTraceElement[] getStack(int node) {
+    StackTraceElement[] result = new StackTraceElement[getDepth(node)];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = frames[nodeFrame[node]];
+      node = nodeParent[node];
+    }
+    
+    return result;
+  }
+}
@@ -0,0 +1,19 @@
+package org.threadly;
+
+import java.util.List;
+
+@SuppressWarnings("javadoc")
+public class OrderRecordingRunnable<T> implements Runnable {
+  private final List<? super T> runOrder;
+  private final T value;
+  
+  public OrderRecordingRunnable(List<? super T> runOrder, T value) {
+    this.runOrder = runOrder;
+    this.value = value;
+  }
+  
+  @Override
+  public void run() {
+    runOrder.add(value);
+  }
+}
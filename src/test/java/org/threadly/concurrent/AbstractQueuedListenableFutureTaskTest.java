@@ -0,0 +1,73 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.threadly.test.concurrent.TestRunnable;
+
+@SuppressWarnings("javadoc")
+public class AbstractQueuedListenableFutureTaskTest {
+  @Test
+  public void removeFromQueueTest() {
+    TestRunnable tr = new TestRunnable();
+    TestQueuedTask task = new TestQueuedTask(tr);
+    Object container = new Object();
+    task.setQueuedContainer(container);
+    
+    assertTrue(task.removeFromQueue());
+    assertTrue(task.isCancelled());
+    assertEquals(1, task.removedCount);
+    assertTrue(task.lastRemoved == container);
+    
+    task.run();
+    assertFalse(tr.ranOnce());
+  }
+  
+  @Test
+  public void removeFromQueueOnlyOnceTest() {
+    TestQueuedTask task = new TestQueuedTask(new TestRunnable());
+    task.setQueuedContainer(new Object());
+    
+    assertTrue(task.removeFromQueue());
+    assertFalse(task.removeFromQueue());
+    assertFalse(task.cancel(false));
+    assertEquals(1, task.removedCount);
+  }
+  
+  @Test
+  public void removeFromQueueAfterRunTest() {
+    TestRunnable tr = new TestRunnable();
+    TestQueuedTask task = new TestQueuedTask(tr);
+    task.setQueuedContainer(new Object());
+    
+    task.run();
+    
+    assertTrue(tr.ranOnce());
+    assertFalse(task.removeFromQueue());
+    assertEquals(0, task.removedCount);
+  }
+  
+  @Test
+  public void removeFromQueueWithoutContainerTest() {
+    TestQueuedTask task = new TestQueuedTask(new TestRunnable());
+    
+    assertFalse(task.removeFromQueue());
+    assertTrue(task.cancel(false));
+    assertEquals(0, task.removedCount);
+  }
+  
+  private static class TestQueuedTask extends AbstractQueuedListenableFutureTask<Object, Object> {
+    private int removedCount = 0;
+    private Object lastRemoved = null;
+    
+    protected TestQueuedTask(Runnable task) {
+      super(task, null);
+    }
+    
+    @Override
+    protected void queuedContainerRemoved(Object queuedContainer) {
+      removedCount++;
+      lastRemoved = queuedContainer;
+    }
+  }
+}
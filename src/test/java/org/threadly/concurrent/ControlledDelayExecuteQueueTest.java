@@ -0,0 +1,92 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.concurrent.PriorityScheduler.OneTimeTaskWrapper;
+import org.threadly.test.concurrent.TestRunnable;
+
+@SuppressWarnings("javadoc")
+public class ControlledDelayExecuteQueueTest {
+  private ConcurrentLinkedQueue<OneTimeTaskWrapper> executeQueue;
+  private ControlledDelayExecuteQueue queue;
+  
+  @Before
+  public void setup() {
+    executeQueue = new ConcurrentLinkedQueue<OneTimeTaskWrapper>();
+    queue = new ControlledDelayExecuteQueue(executeQueue);
+  }
+  
+  @After
+  public void cleanup() {
+    executeQueue = null;
+    queue = null;
+  }
+  
+  @Test
+  public void peekWithoutPolicyTest() {
+    assertNull(queue.peek());
+    
+    OneTimeTaskWrapper first = new OneTimeTaskWrapper(new TestRunnable(), -1000);
+    OneTimeTaskWrapper second = new OneTimeTaskWrapper(new TestRunnable(), 0);
+    executeQueue.add(first);
+    executeQueue.add(second);
+    
+    assertTrue(queue.peek() == first);
+    assertFalse(queue.overloaded);
+    assertTrue(queue.removePeeked(first));
+    assertTrue(queue.peek() == second);
+  }
+  
+  @Test
+  public void peekUnderTargetTest() {
+    queue.policy = new ControlledDelayPolicy(1000, 1);
+    OneTimeTaskWrapper task = new OneTimeTaskWrapper(new TestRunnable(), 0);
+    executeQueue.add(task);
+    
+    assertTrue(queue.peek() == task);
+    assertFalse(queue.overloaded);
+  }
+  
+  @Test
+  public void overloadedShedTest() throws InterruptedException {
+    queue.policy = new ControlledDelayPolicy(100, 1);
+    OneTimeTaskWrapper oldTask = new OneTimeTaskWrapper(new TestRunnable(), -1000);
+    OneTimeTaskWrapper newTask = new OneTimeTaskWrapper(new TestRunnable(), 0);
+    executeQueue.add(oldTask);
+    executeQueue.add(newTask);
+    
+    // first check starts the interval
+    assertTrue(queue.peek() == oldTask);
+    assertFalse(queue.overloaded);
+    Thread.sleep(10);
+    
+    assertTrue(queue.peek() == newTask);
+    assertTrue(queue.overloaded);
+    assertTrue(oldTask.canceled);
+    assertEquals(1, queue.shedTaskCount.get());
+  }
+  
+  @Test
+  public void overloadedLifoTest() throws InterruptedException {
+    queue.policy = new ControlledDelayPolicy(1000, 1, true);
+    OneTimeTaskWrapper olderTask = new OneTimeTaskWrapper(new TestRunnable(), -1500);
+    OneTimeTaskWrapper oldTask = new OneTimeTaskWrapper(new TestRunnable(), -1200);
+    executeQueue.add(olderTask);
+    executeQueue.add(oldTask);
+    
+    assertTrue(queue.peek() == olderTask);
+    Thread.sleep(10);
+    
+    assertTrue(queue.peek() == oldTask);
+    assertTrue(queue.overloaded);
+    assertTrue(executeQueue.isEmpty());
+    assertTrue(queue.peekOldestWaiting() == olderTask);
+    assertTrue(queue.removePeeked(oldTask));
+    assertEquals(1, queue.lifoQueue.size());
+  }
+}
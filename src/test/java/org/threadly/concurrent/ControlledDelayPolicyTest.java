@@ -0,0 +1,46 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ControlledDelayPolicyTest {
+  @SuppressWarnings("unused")
+  @Test
+  public void constructorFail() {
+    try {
+      new ControlledDelayPolicy(0, 1);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new ControlledDelayPolicy(1, 0);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  @Test
+  public void getterTest() {
+    ControlledDelayPolicy policy = new ControlledDelayPolicy(5, 100);
+    
+    assertEquals(5, policy.getTargetDelayInMs());
+    assertEquals(100, policy.getIntervalInMs());
+    assertFalse(policy.isLifoWhenOverloaded());
+    
+    policy = new ControlledDelayPolicy(5, 100, true);
+    
+    assertTrue(policy.isLifoWhenOverloaded());
+  }
+  
+  @Test
+  public void toStringTest() {
+    String result = new ControlledDelayPolicy(5, 100, true).toString();
+    
+    assertTrue(result.contains("5ms"));
+    assertTrue(result.contains("100ms"));
+  }
+}
@@ -0,0 +1,190 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.BlockingTestRunnable;
+import org.threadly.OrderRecordingRunnable;
+import org.threadly.concurrent.future.DeadlineListenableFuture.DeadlineTimeoutException;
+import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.test.concurrent.TestCondition;
+import org.threadly.test.concurrent.TestRunnable;
+import org.threadly.test.concurrent.TestUtils;
+import org.threadly.util.Clock;
+
+@SuppressWarnings("javadoc")
+public class DeadlineSchedulerTest extends SubmitterExecutorInterfaceTest {
+  private PriorityScheduler scheduler;
+  
+  @Before
+  public void setup() {
+    scheduler = new StrictPriorityScheduler(1);
+  }
+  
+  @After
+  public void cleanup() {
+    scheduler.shutdownNow();
+    scheduler = null;
+  }
+  
+  @Override
+  protected SubmitterExecutorFactory getSubmitterExecutorFactory() {
+    return new DeadlineSchedulerFactory();
+  }
+  
+  @SuppressWarnings("unused")
+  @Test
+  public void constructorFail() {
+    try {
+      new DeadlineScheduler(null, 1);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new DeadlineScheduler(scheduler, 0);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  @Test
+  public void getMaxConcurrencyTest() {
+    assertEquals(2, new DeadlineScheduler(scheduler, 2).getMaxConcurrency());
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void getSubmitterExecutorForTimeoutFail() {
+    new DeadlineScheduler(scheduler, 1).getSubmitterExecutorForTimeout(-1);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void deadlineOrderTest() {
+    DeadlineScheduler ds = new DeadlineScheduler(scheduler, 1);
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      ds.execute(btr, Clock.accurateForwardProgressingMillis());
+      btr.blockTillStarted();
+      
+      long deadline = Clock.accurateForwardProgressingMillis() + (1000 * 60);
+      List<Integer> runOrder = Collections.synchronizedList(new ArrayList<Integer>());
+      // provided in reverse deadline order, with two tasks at each deadline
+      for (int i = TEST_QTY - 1; i >= 0; i--) {
+        ds.execute(new OrderRecordingRunnable<Integer>(runOrder, i * 2), deadline + i);
+        ds.execute(new OrderRecordingRunnable<Integer>(runOrder, (i * 2) + 1), deadline + i);
+      }
+      
+      assertEquals(1, ds.getCurrentRunningCount());
+      assertEquals(TEST_QTY * 2, ds.getQueuedTaskCount());
+      
+      TestRunnable lastRunnable = new TestRunnable();
+      ds.execute(lastRunnable, deadline + TEST_QTY);
+      btr.unblock();
+      lastRunnable.blockTillFinished();
+      
+      assertEquals(TEST_QTY * 2, runOrder.size());
+      for (int i = 0; i < TEST_QTY * 2; i++) {
+        assertEquals(i, runOrder.get(i).intValue());
+      }
+    } finally {
+      btr.unblock();
+    }
+  }
+  
+  @Test
+  public void dropExpiredTasksTest() throws InterruptedException {
+    final DeadlineScheduler ds = new DeadlineScheduler(scheduler, 1, true);
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      ds.execute(btr, Clock.accurateForwardProgressingMillis() + (1000 * 60));
+      btr.blockTillStarted();
+      
+      long now = Clock.accurateForwardProgressingMillis();
+      TestRunnable expiredRunnable = new TestRunnable();
+      ds.execute(expiredRunnable, now + DELAY_TIME);
+      TestRunnable expiredSubmitRunnable = new TestRunnable();
+      ListenableFuture<?> expiredFuture = ds.submit(expiredSubmitRunnable, now + DELAY_TIME);
+      TestRunnable tr = new TestRunnable();
+      ListenableFuture<?> future = ds.submit(tr, now + (1000 * 60));
+      
+      while (Clock.accurateForwardProgressingMillis() <= now + DELAY_TIME) {
+        TestUtils.sleep(1);
+      }
+      btr.unblock();
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return ds.getQueuedTaskCount() == 0 && ds.getCurrentRunningCount() == 0;
+        }
+      }.blockTillTrue();
+      
+      assertEquals(2, ds.getExpiredTaskCount());
+      assertEquals(0, expiredRunnable.getRunCount());
+      assertEquals(0, expiredSubmitRunnable.getRunCount());
+      assertEquals(1, tr.getRunCount());
+      assertTrue(future.isDone());
+      assertTrue(expiredFuture.isDone());
+      try {
+        expiredFuture.get();
+        fail("Exception should have thrown");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof DeadlineTimeoutException);
+      }
+    } finally {
+      btr.unblock();
+    }
+  }
+  
+  @Test
+  public void runExpiredTasksTest() throws InterruptedException, ExecutionException {
+    DeadlineScheduler ds = new DeadlineScheduler(scheduler, 1);
+    TestRunnable tr = new TestRunnable();
+    ListenableFuture<?> future = ds.submit(tr, Clock.accurateForwardProgressingMillis() - 1);
+    
+    future.get();
+    
+    assertEquals(1, tr.getRunCount());
+    assertEquals(0, ds.getExpiredTaskCount());
+  }
+  
+  private static class DeadlineSchedulerFactory implements SubmitterExecutorFactory {
+    private final List<PriorityScheduler> executors;
+    
+    private DeadlineSchedulerFactory() {
+      executors = new LinkedList<PriorityScheduler>();
+    }
+    
+    @Override
+    public SubmitterExecutorInterface makeSubmitterExecutor(int poolSize, 
+                                                            boolean prestartIfAvailable) {
+      PriorityScheduler scheduler = new StrictPriorityScheduler(poolSize);
+      executors.add(scheduler);
+      if (prestartIfAvailable) {
+        scheduler.prestartAllThreads();
+      }
+      
+      return new DeadlineScheduler(scheduler, poolSize).getSubmitterExecutorForTimeout(1000 * 60);
+    }
+    
+    @Override
+    public void shutdown() {
+      Iterator<PriorityScheduler> it = executors.iterator();
+      while (it.hasNext()) {
+        it.next().shutdownNow();
+      }
+      executors.clear();
+    }
+  }
+}
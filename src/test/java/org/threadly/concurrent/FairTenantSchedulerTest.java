@@ -0,0 +1,222 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+import org.threadly.BlockingTestRunnable;
+import org.threadly.OrderRecordingRunnable;
+import org.threadly.test.concurrent.TestCondition;
+import org.threadly.test.concurrent.TestRunnable;
+
+@SuppressWarnings("javadoc")
+public class FairTenantSchedulerTest extends SubmitterSchedulerInterfaceTest {
+  @Override
+  protected SubmitterSchedulerFactory getSubmitterSchedulerFactory() {
+    return new FairTenantSchedulerFactory();
+  }
+  
+  @SuppressWarnings("unused")
+  @Test
+  public void constructorFail() {
+    try {
+      new FairTenantScheduler(null, 1);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      new FairTenantScheduler(scheduler, 0);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void tenantWeightTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      FairTenantScheduler fts = new FairTenantScheduler(scheduler, 1);
+      
+      assertEquals(1, fts.getTenantWeight("foo"));
+      
+      fts.setTenantWeight("foo", 5);
+      
+      assertEquals(5, fts.getTenantWeight("foo"));
+      assertEquals(1, fts.getTenantWeight("bar"));
+      
+      fts.setTenantWeight("foo", 1);
+      
+      assertEquals(1, fts.getTenantWeight("foo"));
+      assertTrue(fts.tenantWeights.isEmpty());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void setTenantWeightFail() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      FairTenantScheduler fts = new FairTenantScheduler(scheduler, 1);
+      try {
+        fts.setTenantWeight(null, 1);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        fts.setTenantWeight("foo", 0);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void getSubmitterSchedulerForNullTenantFail() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      new FairTenantScheduler(scheduler, 1).getSubmitterSchedulerForTenant(null);
+      fail("Exception should have thrown");
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void queueDepthTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      final FairTenantScheduler fts = new FairTenantScheduler(scheduler, 1);
+      fts.getSubmitterSchedulerForTenant("blocker").execute(btr);
+      btr.blockTillStarted();
+      for (int i = 0; i < TEST_QTY; i++) {
+        fts.getSubmitterSchedulerForTenant("foo").execute(new TestRunnable());
+      }
+      fts.getSubmitterSchedulerForTenant("bar").execute(new TestRunnable());
+      
+      assertEquals(1, fts.getCurrentRunningCount());
+      assertEquals(TEST_QTY + 1, fts.getQueuedTaskCount());
+      assertEquals(TEST_QTY, fts.getTenantQueueDepth("foo"));
+      assertEquals(1, fts.getTenantQueueDepth("bar"));
+      assertEquals(0, fts.getTenantQueueDepth("blocker"));
+      assertEquals(2, fts.getActiveTenantCount());
+      
+      btr.unblock();
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return fts.getQueuedTaskCount() == 0 && fts.getCurrentRunningCount() == 0;
+        }
+      }.blockTillTrue();
+      
+      assertEquals(0, fts.getActiveTenantCount());
+    } finally {
+      btr.unblock();
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void floodingTenantTest() {
+    fairnessTest(1, 1);
+  }
+  
+  @Test
+  public void weightedTenantTest() {
+    fairnessTest(3, 1);
+  }
+  
+  private static void fairnessTest(int floodWeight, int otherWeight) {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      FairTenantScheduler fts = new FairTenantScheduler(scheduler, 1);
+      fts.setTenantWeight("flood", floodWeight);
+      fts.setTenantWeight("other", otherWeight);
+      fts.getSubmitterSchedulerForTenant("blocker").execute(btr);
+      btr.blockTillStarted();
+      
+      List<String> runOrder = Collections.synchronizedList(new ArrayList<String>());
+      SubmitterSchedulerInterface floodScheduler = fts.getSubmitterSchedulerForTenant("flood");
+      for (int i = 0; i < TEST_QTY * 10; i++) {
+        floodScheduler.execute(new OrderRecordingRunnable<String>(runOrder, "flood"));
+      }
+      SubmitterSchedulerInterface otherScheduler = fts.getSubmitterSchedulerForTenant("other");
+      for (int i = 0; i < TEST_QTY; i++) {
+        otherScheduler.execute(new OrderRecordingRunnable<String>(runOrder, "other"));
+      }
+      TestRunnable lastRunnable = new TestRunnable();
+      fts.getSubmitterSchedulerForTenant("flood").execute(lastRunnable);
+      
+      btr.unblock();
+      lastRunnable.blockTillFinished();
+      
+      // other tenant should get a turn after each turn of the flooding tenant
+      for (int i = 0; i < TEST_QTY; i++) {
+        int turnStart = i * (floodWeight + otherWeight);
+        for (int j = 0; j < floodWeight; j++) {
+          assertEquals("flood", runOrder.get(turnStart + j));
+        }
+        for (int j = 0; j < otherWeight; j++) {
+          assertEquals("other", runOrder.get(turnStart + floodWeight + j));
+        }
+      }
+    } finally {
+      btr.unblock();
+      scheduler.shutdownNow();
+    }
+  }
+  
+  private static class FairTenantSchedulerFactory implements SubmitterSchedulerFactory {
+    private final List<PriorityScheduler> executors;
+    
+    private FairTenantSchedulerFactory() {
+      executors = new LinkedList<PriorityScheduler>();
+    }
+    
+    @Override
+    public SubmitterExecutorInterface makeSubmitterExecutor(int poolSize, 
+                                                            boolean prestartIfAvailable) {
+      return makeSubmitterScheduler(poolSize, prestartIfAvailable);
+    }
+    
+    @Override
+    public SubmitterSchedulerInterface makeSubmitterScheduler(int poolSize, 
+                                                              boolean prestartIfAvailable) {
+      PriorityScheduler scheduler = new StrictPriorityScheduler(poolSize);
+      executors.add(scheduler);
+      if (prestartIfAvailable) {
+        scheduler.prestartAllThreads();
+      }
+      
+      FairTenantScheduler fts = new FairTenantScheduler(scheduler, poolSize);
+      
+      return fts.getSubmitterSchedulerForTenant(this, TaskPriority.Low);
+    }
+    
+    @Override
+    public void shutdown() {
+      Iterator<PriorityScheduler> it = executors.iterator();
+      while (it.hasNext()) {
+        it.next().shutdownNow();
+      }
+      executors.clear();
+    }
+  }
+}
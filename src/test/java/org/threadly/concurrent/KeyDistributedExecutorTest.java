@@ -27,6 +27,7 @@ import org.threadly.test.concurrent.TestRunnable;
 import org.threadly.test.concurrent.TestUtils;
 import org.threadly.util.ExceptionUtils;
 import org.threadly.util.TestExceptionHandler;
+import org.threadly.util.debug.RunningTaskRegistry;
 
 @SuppressWarnings("javadoc")
 public class KeyDistributedExecutorTest {
@@ -125,6 +126,35 @@ public class KeyDistributedExecutorTest {
     }
   }
   
+  @Test
+  public void runningTaskPublishedTest() {
+    final AtomicReference<Thread> runningThread = new AtomicReference<Thread>();
+    final AtomicReference<Object> runningTask = new AtomicReference<Object>();
+    TestRunnable tr = new TestRunnable() {
+      @Override
+      public void handleRunStart() {
+        runningThread.set(Thread.currentThread());
+        runningTask.set(RunningTaskRegistry.getRunningTask(Thread.currentThread()));
+      }
+    };
+    RunningTaskRegistry.setPublishingEnabled(true);
+    try {
+      distributor.addTask(this, tr);
+      tr.blockTillFinished();
+      
+      // the inner task should be published, rather than the worker running it
+      assertEquals(tr.getClass().getName(), RunningTaskRegistry.getTaskTag(runningTask.get()));
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return RunningTaskRegistry.getRunningTask(runningThread.get()) == null;
+        }
+      }.blockTillTrue();
+    } finally {
+      RunningTaskRegistry.setPublishingEnabled(false);
+    }
+  }
+  
   @Test
   public void getExecutorTest() {
     assertTrue(scheduler == distributor.getExecutor());
@@ -0,0 +1,161 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.threadly.OrderRecordingRunnable;
+import org.threadly.test.concurrent.TestRunnable;
+import org.threadly.test.concurrent.TestUtils;
+
+@SuppressWarnings("javadoc")
+public class NoThreadSchedulerBatchTicksTest extends NoThreadSchedulerTest {
+  @Override
+  protected NoThreadScheduler makeScheduler(boolean tickBlocksTillAvailable) {
+    return new NoThreadScheduler(tickBlocksTillAvailable, true);
+  }
+  
+  @Test
+  public void batchRunsInScheduledOrderTest() throws InterruptedException {
+    List<Integer> runOrder = new ArrayList<Integer>();
+    Runnable firstScheduled = new OrderRecordingRunnable<Integer>(runOrder, 0);
+    Runnable secondScheduled = new OrderRecordingRunnable<Integer>(runOrder, 1);
+    Runnable execute = new OrderRecordingRunnable<Integer>(runOrder, 2);
+    // delays are far enough apart that the clock advancing between calls will not reorder them
+    nonblockingScheduler.schedule(secondScheduled, DELAY_TIME);
+    nonblockingScheduler.schedule(firstScheduled, 1);
+    TestUtils.sleep(DELAY_TIME * 2);
+    nonblockingScheduler.execute(execute);
+    
+    assertEquals(3, nonblockingScheduler.tick(null));
+    
+    assertEquals(3, runOrder.size());
+    for (int i = 0; i < runOrder.size(); i++) {
+      assertEquals(i, runOrder.get(i).intValue());
+    }
+  }
+  
+  @Test
+  public void batchDrainsReadyScheduledTasksTest() throws InterruptedException {
+    List<TestRunnable> runnables = new ArrayList<TestRunnable>(TEST_QTY);
+    for (int i = 0; i < TEST_QTY; i++) {
+      TestRunnable tr = new TestRunnable();
+      runnables.add(tr);
+      nonblockingScheduler.schedule(tr, 1);
+    }
+    TestRunnable notReady = new TestRunnable();
+    nonblockingScheduler.schedule(notReady, 1000 * 15);
+    TestUtils.sleep(DELAY_TIME);
+    
+    assertEquals(TEST_QTY, nonblockingScheduler.tick(null));
+    
+    for (TestRunnable tr : runnables) {
+      assertEquals(1, tr.getRunCount());
+    }
+    assertEquals(0, notReady.getRunCount());
+    assertEquals(1, nonblockingScheduler.scheduledQueue.size());
+    assertTrue(nonblockingScheduler.scheduledQueue.getFirst().getContainedRunnable() == notReady);
+  }
+  
+  @Test
+  public void batchSkipsRemovedRecurringTaskTest() throws InterruptedException {
+    final TestRunnable removed = new TestRunnable();
+    nonblockingScheduler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        nonblockingScheduler.remove(removed);
+        nonblockingScheduler.remove(this);
+      }
+    }, 1, 1000 * 15);
+    nonblockingScheduler.scheduleWithFixedDelay(removed, DELAY_TIME, 1000 * 15);
+    TestUtils.sleep(DELAY_TIME * 2);
+    
+    assertEquals(1, nonblockingScheduler.tick(null));
+    
+    assertEquals(0, removed.getRunCount());
+    assertTrue(nonblockingScheduler.scheduledQueue.isEmpty());
+  }
+  
+  @Test
+  public void batchRepositionsRecurringTasksTest() throws InterruptedException {
+    TestRunnable rateTask = new TestRunnable();
+    TestRunnable delayTask = new TestRunnable();
+    TestRunnable oneTimeTask = new TestRunnable();
+    nonblockingScheduler.scheduleAtFixedRate(rateTask, 1, 1000 * 20);
+    nonblockingScheduler.scheduleWithFixedDelay(delayTask, 1, 1000 * 10);
+    nonblockingScheduler.schedule(oneTimeTask, 1000 * 15);
+    TestUtils.sleep(DELAY_TIME);
+    
+    assertEquals(2, nonblockingScheduler.tick(null));
+    
+    assertEquals(1, rateTask.getRunCount());
+    assertEquals(1, delayTask.getRunCount());
+    assertEquals(3, nonblockingScheduler.scheduledQueue.size());
+    assertTrue(nonblockingScheduler.scheduledQueue.get(0).getContainedRunnable() == delayTask);
+    assertTrue(nonblockingScheduler.scheduledQueue.get(1).getContainedRunnable() == oneTimeTask);
+    assertTrue(nonblockingScheduler.scheduledQueue.get(2).getContainedRunnable() == rateTask);
+  }
+  
+  @Test
+  public void batchRemoveRanRecurringTaskTest() throws InterruptedException {
+    final TestRunnable recurringTask = new TestRunnable();
+    nonblockingScheduler.scheduleWithFixedDelay(recurringTask, 1, 1000 * 15);
+    nonblockingScheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        nonblockingScheduler.remove(recurringTask);
+      }
+    }, DELAY_TIME);
+    TestUtils.sleep(DELAY_TIME * 2);
+    
+    assertEquals(2, nonblockingScheduler.tick(null));
+    
+    assertEquals(1, recurringTask.getRunCount());
+    assertTrue(nonblockingScheduler.scheduledQueue.isEmpty());
+  }
+  
+  @Test
+  public void batchFailureRequeuesDrainedTasksTest() throws InterruptedException {
+    RuntimeException failure = new RuntimeException();
+    TestRunnable tr = new TestRunnable();
+    nonblockingScheduler.schedule(new TestRuntimeFailureRunnable(failure), 1);
+    nonblockingScheduler.schedule(tr, DELAY_TIME);
+    TestUtils.sleep(DELAY_TIME * 2);
+    
+    try {
+      nonblockingScheduler.tick(null);
+      fail("Exception should have thrown");
+    } catch (RuntimeException e) {
+      assertTrue(e == failure);
+    }
+    
+    assertEquals(0, tr.getRunCount());
+    assertEquals(1, nonblockingScheduler.scheduledQueue.size());
+    
+    assertEquals(1, nonblockingScheduler.tick(null));
+    assertEquals(1, tr.getRunCount());
+    assertTrue(nonblockingScheduler.scheduledQueue.isEmpty());
+  }
+  
+  @Test
+  public void batchCancelTickRequeuesDrainedTasksTest() throws InterruptedException {
+    TestRunnable tr = new TestRunnable();
+    nonblockingScheduler.schedule(new Runnable() {
+      @Override
+      public void run() {
+        nonblockingScheduler.cancelTick();
+      }
+    }, 1);
+    nonblockingScheduler.schedule(tr, DELAY_TIME);
+    TestUtils.sleep(DELAY_TIME * 2);
+    
+    assertEquals(1, nonblockingScheduler.tick(null));
+    assertEquals(0, tr.getRunCount());
+    
+    assertEquals(1, nonblockingScheduler.tick(null));
+    assertEquals(1, tr.getRunCount());
+  }
+}
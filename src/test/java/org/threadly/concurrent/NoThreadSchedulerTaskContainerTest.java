@@ -105,5 +105,10 @@ public class NoThreadSchedulerTaskContainerTest {
     protected long getDelayInMillis() {
       return delay;
     }
+
+    @Override
+    protected long getRunTime() {
+      return delay;
+    }
   }
 }
@@ -19,18 +19,23 @@ import org.threadly.concurrent.NoThreadScheduler;
 import org.threadly.concurrent.future.ListenableFuture;
 import org.threadly.test.concurrent.AsyncVerifier;
 import org.threadly.test.concurrent.TestRunnable;
+import org.threadly.test.concurrent.TestUtils;
 import org.threadly.util.Clock;
 import org.threadly.util.ExceptionHandlerInterface;
 
 @SuppressWarnings("javadoc")
 public class NoThreadSchedulerTest {
-  private NoThreadScheduler blockingScheduler;
-  private NoThreadScheduler nonblockingScheduler;
+  protected NoThreadScheduler blockingScheduler;
+  protected NoThreadScheduler nonblockingScheduler;
   
   @Before
   public void setup() {
-    blockingScheduler = new NoThreadScheduler(true);
-    nonblockingScheduler = new NoThreadScheduler(false);
+    blockingScheduler = makeScheduler(true);
+    nonblockingScheduler = makeScheduler(false);
+  }
+  
+  protected NoThreadScheduler makeScheduler(boolean tickBlocksTillAvailable) {
+    return new NoThreadScheduler(tickBlocksTillAvailable);
   }
   
   @After
@@ -468,6 +473,81 @@ public class NoThreadSchedulerTest {
     assertFalse(scheduler.remove(tr));
   }
   
+  @Test
+  public void removeFutureTest() throws InterruptedException {
+    TestRunnable executeTask = new TestRunnable();
+    TestRunnable scheduledTask = new TestRunnable();
+    ListenableFuture<?> executeFuture = nonblockingScheduler.submit(executeTask);
+    ListenableFuture<?> scheduledFuture = nonblockingScheduler.submitScheduled(scheduledTask, DELAY_TIME);
+    
+    assertTrue(nonblockingScheduler.remove((Runnable)executeFuture));
+    assertTrue(nonblockingScheduler.remove((Runnable)scheduledFuture));
+    
+    assertTrue(executeFuture.isCancelled());
+    assertTrue(scheduledFuture.isCancelled());
+    assertFalse(nonblockingScheduler.remove((Runnable)executeFuture));
+    assertFalse(nonblockingScheduler.remove(executeTask));
+    assertFalse(nonblockingScheduler.remove((Runnable)scheduledFuture));
+    assertFalse(nonblockingScheduler.remove(scheduledTask));
+    assertFalse(nonblockingScheduler.hasTaskReadyToRun());
+    
+    TestUtils.sleep(DELAY_TIME);
+    
+    assertEquals(0, nonblockingScheduler.tick(null));
+    assertEquals(0, executeTask.getRunCount());
+    assertEquals(0, scheduledTask.getRunCount());
+    assertTrue(nonblockingScheduler.scheduledQueue.isEmpty());
+  }
+  
+  @Test
+  public void removeFutureAfterRunTest() throws InterruptedException {
+    TestRunnable tr = new TestRunnable();
+    ListenableFuture<?> future = nonblockingScheduler.submit(tr);
+    
+    assertEquals(1, nonblockingScheduler.tick(null));
+    
+    assertFalse(nonblockingScheduler.remove((Runnable)future));
+    assertFalse(future.cancel(false));
+    assertTrue(future.isDone());
+    assertFalse(future.isCancelled());
+  }
+  
+  @Test
+  public void cancelManyScheduledFuturesTest() throws InterruptedException {
+    List<ListenableFuture<?>> futures = new ArrayList<ListenableFuture<?>>();
+    for (int i = 0; i < NoThreadScheduler.CANCELED_TASK_COMPACTION_THRESHOLD * 2; i++) {
+      futures.add(nonblockingScheduler.submitScheduled(new TestRunnable(), 1000 * 10));
+    }
+    TestRunnable keptTask = new TestRunnable();
+    nonblockingScheduler.submitScheduled(keptTask, 1);
+    
+    Iterator<ListenableFuture<?>> it = futures.iterator();
+    while (it.hasNext()) {
+      assertTrue(it.next().cancel(false));
+    }
+    
+    // canceled tasks should have been removed from the queue in bulk
+    assertTrue(nonblockingScheduler.scheduledQueue.size() < 
+                 NoThreadScheduler.CANCELED_TASK_COMPACTION_THRESHOLD);
+    TestUtils.sleep(DELAY_TIME);
+    
+    assertEquals(1, nonblockingScheduler.tick(null));
+    assertEquals(1, keptTask.getRunCount());
+  }
+  
+  @Test
+  public void clearTasksSkipsCanceledTest() {
+    TestRunnable tr = new TestRunnable();
+    nonblockingScheduler.submit(new TestRunnable()).cancel(false);
+    nonblockingScheduler.submitScheduled(new TestRunnable(), DELAY_TIME).cancel(false);
+    nonblockingScheduler.execute(tr);
+    
+    List<Runnable> result = nonblockingScheduler.clearTasks();
+    
+    assertEquals(1, result.size());
+    assertTrue(result.get(0) == tr);
+  }
+  
   @Test
   public void removeRecurringRunnableTest() throws InterruptedException {
     TestRunnable immediateRun = new TestRunnable();
@@ -0,0 +1,252 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.BlockingTestRunnable;
+import org.threadly.concurrent.ParallelTasks.RangeFunction;
+import org.threadly.concurrent.ParallelTasks.RangeTask;
+import org.threadly.concurrent.ParallelTasks.Reducer;
+import org.threadly.test.concurrent.TestRunnable;
+
+@SuppressWarnings("javadoc")
+public class ParallelTasksTest {
+  private PriorityScheduler scheduler;
+  private ParallelTasks parallelTasks;
+  
+  @Before
+  public void setup() {
+    scheduler = new StrictPriorityScheduler(2);
+    parallelTasks = new ParallelTasks(scheduler, TaskPriority.Low);
+  }
+  
+  @After
+  public void cleanup() {
+    scheduler.shutdownNow();
+    scheduler = null;
+    parallelTasks = null;
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void constructorFail() {
+    new ParallelTasks(null);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void getPriorityTest() {
+    assertEquals(TaskPriority.Low, parallelTasks.getPriority());
+    assertEquals(scheduler.getDefaultPriority(), new ParallelTasks(scheduler).getPriority());
+  }
+  
+  @Test
+  public void invokeAllTest() throws InterruptedException, ExecutionException {
+    List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(TEST_QTY);
+    for (int i = 0; i < TEST_QTY; i++) {
+      final int value = i;
+      tasks.add(new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          return value;
+        }
+      });
+    }
+    
+    List<Integer> result = parallelTasks.invokeAll(tasks);
+    
+    assertEquals(TEST_QTY, result.size());
+    for (int i = 0; i < TEST_QTY; i++) {
+      assertEquals(i, result.get(i).intValue());
+    }
+  }
+  
+  @Test
+  public void invokeAllEmptyTest() throws InterruptedException, ExecutionException {
+    assertTrue(parallelTasks.invokeAll(new ArrayList<Callable<Object>>(0)).isEmpty());
+  }
+  
+  @Test
+  public void invokeAllFailureTest() throws InterruptedException {
+    final RuntimeException failure = new RuntimeException();
+    List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(2);
+    tasks.add(new Callable<Object>() {
+      @Override
+      public Object call() {
+        throw failure;
+      }
+    });
+    tasks.add(new Callable<Object>() {
+      @Override
+      public Object call() {
+        return null;
+      }
+    });
+    
+    try {
+      parallelTasks.invokeAll(tasks);
+      fail("Exception should have thrown");
+    } catch (ExecutionException e) {
+      assertTrue(failure == e.getCause());
+    }
+  }
+  
+  @Test
+  public void invokeAllRejectedTest() throws InterruptedException, ExecutionException {
+    final AtomicInteger submitCount = new AtomicInteger(0);
+    PriorityScheduler rejectingScheduler = new StrictPriorityScheduler(1) {
+      @Override
+      public void execute(Runnable task, TaskPriority priority) {
+        if (submitCount.incrementAndGet() > 2) {
+          throw new RejectedExecutionException();
+        }
+        super.execute(task, priority);
+      }
+    };
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      // block the only thread so that forked tasks stay queued
+      rejectingScheduler.execute(btr);
+      btr.blockTillStarted();
+      final AtomicInteger runCount = new AtomicInteger(0);
+      List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(TEST_QTY);
+      for (int i = 0; i < TEST_QTY; i++) {
+        tasks.add(new Callable<Object>() {
+          @Override
+          public Object call() {
+            runCount.incrementAndGet();
+            
+            return null;
+          }
+        });
+      }
+      
+      try {
+        new ParallelTasks(rejectingScheduler).invokeAll(tasks);
+        fail("Exception should have thrown");
+      } catch (RejectedExecutionException e) {
+        // expected
+      }
+      
+      btr.unblock();
+      // submit a task after the forked task, once it runs the forked task has been dequeued
+      rejectingScheduler.submit(new TestRunnable()).get();
+      assertEquals(0, runCount.get());
+    } finally {
+      btr.unblock();
+      rejectingScheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void parallelForTest() throws InterruptedException, ExecutionException {
+    final int[] values = new int[TEST_QTY * 10];
+    final AtomicInteger chunkCount = new AtomicInteger(0);
+    parallelTasks.parallelFor(0, values.length, 7, new RangeTask() {
+      @Override
+      public void run(int startInclusive, int endExclusive) {
+        assertTrue(endExclusive - startInclusive <= 7);
+        chunkCount.incrementAndGet();
+        for (int i = startInclusive; i < endExclusive; i++) {
+          values[i]++;
+        }
+      }
+    });
+    
+    assertEquals((values.length + 6) / 7, chunkCount.get());
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(1, values[i]);
+    }
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void parallelForInvalidRangeFail() throws InterruptedException, ExecutionException {
+    parallelTasks.parallelFor(10, 0, 1, new RangeTask() {
+      @Override
+      public void run(int startInclusive, int endExclusive) {
+        // ignored
+      }
+    });
+    fail("Exception should have thrown");
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void parallelForZeroChunkSizeFail() throws InterruptedException, ExecutionException {
+    parallelTasks.parallelFor(0, 10, 0, new RangeTask() {
+      @Override
+      public void run(int startInclusive, int endExclusive) {
+        // ignored
+      }
+    });
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void parallelReduceTest() throws InterruptedException, ExecutionException {
+    long result = parallelTasks.parallelReduce(1, 1001, 10, new RangeFunction<Long>() {
+      @Override
+      public Long apply(int startInclusive, int endExclusive) {
+        long sum = 0;
+        for (int i = startInclusive; i < endExclusive; i++) {
+          sum += i;
+        }
+        return sum;
+      }
+    }, new Reducer<Long>() {
+      @Override
+      public Long reduce(Long first, Long second) {
+        return first + second;
+      }
+    });
+    
+    assertEquals(500500, result);
+  }
+  
+  @Test
+  public void parallelReduceEmptyRangeTest() throws InterruptedException, ExecutionException {
+    assertNull(parallelTasks.parallelReduce(5, 5, 1, new RangeFunction<Object>() {
+      @Override
+      public Object apply(int startInclusive, int endExclusive) {
+        return new Object();
+      }
+    }, new Reducer<Object>() {
+      @Override
+      public Object reduce(Object first, Object second) {
+        return first;
+      }
+    }));
+  }
+  
+  @Test
+  public void nestedParallelForDoesNotDeadlockTest() throws InterruptedException, 
+                                                            ExecutionException {
+    // more nested forks than pool threads, would deadlock if waiting threads parked
+    final AtomicInteger count = new AtomicInteger(0);
+    parallelTasks.parallelFor(0, TEST_QTY, 1, new RangeTask() {
+      @Override
+      public void run(int startInclusive, int endExclusive) {
+        try {
+          parallelTasks.parallelFor(0, TEST_QTY, 1, new RangeTask() {
+            @Override
+            public void run(int startInclusive, int endExclusive) {
+              count.incrementAndGet();
+            }
+          });
+        } catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+    
+    assertEquals(TEST_QTY * TEST_QTY, count.get());
+  }
+}
@@ -0,0 +1,269 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.BlockingTestRunnable;
+import org.threadly.concurrent.PoolSizeController.Decision;
+import org.threadly.concurrent.PoolSizeController.Reason;
+import org.threadly.test.concurrent.TestCondition;
+
+@SuppressWarnings("javadoc")
+public class PoolSizeControllerTest {
+  private PriorityScheduler samplingScheduler;
+  private List<BlockingTestRunnable> blockingRunnables;
+  
+  @Before
+  public void setup() {
+    samplingScheduler = new StrictPriorityScheduler(1);
+    blockingRunnables = new ArrayList<BlockingTestRunnable>();
+  }
+  
+  @After
+  public void cleanup() {
+    for (BlockingTestRunnable btr : blockingRunnables) {
+      btr.unblock();
+    }
+    blockingRunnables = null;
+    samplingScheduler.shutdownNow();
+    samplingScheduler = null;
+  }
+  
+  private void executeBlockingRunnables(PriorityScheduler scheduler, int count) {
+    for (int i = 0; i < count; i++) {
+      BlockingTestRunnable btr = new BlockingTestRunnable();
+      blockingRunnables.add(btr);
+      scheduler.execute(btr);
+    }
+  }
+  
+  private static Decision sampleWhenBusy(PoolSizeController controller, 
+                                         final PriorityScheduler scheduler, 
+                                         final long minQueueDelay) {
+    new TestCondition() {
+      @Override
+      public boolean get() {
+        return scheduler.getCurrentRunningCount() == scheduler.getMaxPoolSize() && 
+                 scheduler.getQueueDelay() > minQueueDelay;
+      }
+    }.blockTillTrue();
+    
+    return controller.sample();
+  }
+  
+  @SuppressWarnings("unused")
+  @Test
+  public void constructorFail() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      try {
+        new PoolSizeController(null, samplingScheduler, 1, 2, 100, 10);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        new PoolSizeController(scheduler, null, 1, 2, 100, 10);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        new PoolSizeController(scheduler, samplingScheduler, 0, 2, 100, 10);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        new PoolSizeController(scheduler, samplingScheduler, 2, 1, 100, 10);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        new PoolSizeController(scheduler, samplingScheduler, 1, 2, 0, 10);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        new PoolSizeController(scheduler, samplingScheduler, 1, 2, 100, -1);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void growTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      PoolSizeController controller = new PoolSizeController(scheduler, samplingScheduler, 
+                                                             1, 4, 1000, 1);
+      // one running, one waiting for a worker, and the rest queued
+      executeBlockingRunnables(scheduler, 7);
+      
+      Decision decision = sampleWhenBusy(controller, scheduler, 1);
+      assertEquals(Reason.QueueDelayOverTarget, decision.getReason());
+      assertEquals(1, decision.getPreviousPoolSize());
+      assertEquals(2, decision.getNewPoolSize());
+      assertEquals(1, decision.getRunningCount());
+      assertEquals(1, decision.getBusyRatio(), 0);
+      assertTrue(decision.getQueueDelay() > 1);
+      assertEquals(-1, decision.getThroughput(), 0);
+      assertEquals(2, scheduler.getMaxPoolSize());
+      
+      // consecutive increases should double the step
+      decision = sampleWhenBusy(controller, scheduler, 1);
+      assertEquals(Reason.QueueDelayOverTarget, decision.getReason());
+      assertEquals(4, decision.getNewPoolSize());
+      assertEquals(4, scheduler.getMaxPoolSize());
+      
+      decision = sampleWhenBusy(controller, scheduler, 1);
+      assertEquals(Reason.AtMaxPoolSize, decision.getReason());
+      assertEquals(4, scheduler.getMaxPoolSize());
+      
+      assertTrue(controller.getLastDecision() == decision);
+      assertEquals(2, controller.getGrowCount());
+      assertEquals(0, controller.getShrinkCount());
+      assertEquals(2, controller.getRecentPoolSizeChanges().size());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void shrinkTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(4);
+    try {
+      PoolSizeController controller = new PoolSizeController(scheduler, samplingScheduler, 
+                                                             2, 4, 1000, 1);
+      
+      for (int size = 4; size > 2; size--) {
+        for (int i = 1; i < PoolSizeController.IDLE_SAMPLES_BEFORE_SHRINK; i++) {
+          assertEquals(Reason.WithinTarget, controller.sample().getReason());
+          assertEquals(size, scheduler.getMaxPoolSize());
+        }
+        Decision decision = controller.sample();
+        assertEquals(Reason.WorkersIdle, decision.getReason());
+        assertEquals(size - 1, decision.getNewPoolSize());
+        assertEquals(size - 1, scheduler.getMaxPoolSize());
+      }
+      
+      assertEquals(Reason.AtMinPoolSize, controller.sample().getReason());
+      assertEquals(2, scheduler.getMaxPoolSize());
+      assertEquals(0, controller.getGrowCount());
+      assertEquals(2, controller.getShrinkCount());
+      assertEquals(2, controller.getRecentPoolSizeChanges().size());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @SuppressWarnings("deprecation")
+  @Test
+  public void shrinkFromCoreSizeTest() {
+    PriorityScheduler scheduler = new PriorityScheduler(3, 8, 1000);
+    try {
+      PoolSizeController controller = new PoolSizeController(scheduler, samplingScheduler, 
+                                                             1, 8, 1000, 1);
+      
+      for (int i = 1; i < PoolSizeController.IDLE_SAMPLES_BEFORE_SHRINK; i++) {
+        assertEquals(Reason.WithinTarget, controller.sample().getReason());
+      }
+      Decision decision = controller.sample();
+      assertEquals(Reason.WorkersIdle, decision.getReason());
+      // decisions are made from the core size, not the max size
+      assertEquals(3, decision.getPreviousPoolSize());
+      assertEquals(2, decision.getNewPoolSize());
+      // the max size is reduced along with the core size so the pool is capped
+      assertEquals(2, scheduler.getCorePoolSize());
+      assertEquals(2, scheduler.getMaxPoolSize());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void noThroughputImprovementTest() {
+    PriorityScheduler scheduler = new PrioritySchedulerStatisticTracker(1);
+    try {
+      PoolSizeController controller = new PoolSizeController(scheduler, samplingScheduler, 
+                                                             1, 8, 1000, 1);
+      executeBlockingRunnables(scheduler, 7);
+      
+      // first sample has no throughput to compare against
+      Decision decision = sampleWhenBusy(controller, scheduler, 1);
+      assertEquals(Reason.QueueDelayOverTarget, decision.getReason());
+      assertEquals(2, scheduler.getMaxPoolSize());
+      decision = sampleWhenBusy(controller, scheduler, 1);
+      assertEquals(Reason.QueueDelayOverTarget, decision.getReason());
+      assertEquals(0, decision.getThroughput(), 0);
+      assertEquals(4, scheduler.getMaxPoolSize());
+      
+      // no tasks completed after growing, so growing more will not help
+      for (int i = 0; i <= PoolSizeController.GROWTH_BACKOFF_SAMPLES; i++) {
+        decision = sampleWhenBusy(controller, scheduler, 1);
+        assertEquals(Reason.NoThroughputImprovement, decision.getReason());
+        assertEquals(4, scheduler.getMaxPoolSize());
+      }
+      
+      // once backed off it will attempt to grow again
+      decision = sampleWhenBusy(controller, scheduler, 1);
+      assertEquals(Reason.QueueDelayOverTarget, decision.getReason());
+      assertEquals(5, scheduler.getMaxPoolSize());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void startAndStopTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      final PoolSizeController controller = new PoolSizeController(scheduler, samplingScheduler, 
+                                                                   1, 2, 1, 1);
+      controller.start();
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return controller.getLastDecision() != null;
+        }
+      }.blockTillTrue();
+      
+      assertEquals(1, samplingScheduler.getScheduledTaskCount());
+      
+      controller.stop();
+      
+      assertEquals(0, samplingScheduler.getScheduledTaskCount());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void stopsAfterSchedulerShutdownTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    final PoolSizeController controller = new PoolSizeController(scheduler, samplingScheduler, 
+                                                                 1, 2, 1, 1);
+    controller.start();
+    scheduler.shutdown();
+    
+    new TestCondition() {
+      @Override
+      public boolean get() {
+        return controller.hasStopped();
+      }
+    }.blockTillTrue();
+    
+    assertEquals(0, samplingScheduler.getScheduledTaskCount());
+  }
+}
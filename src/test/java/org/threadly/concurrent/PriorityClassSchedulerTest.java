@@ -0,0 +1,272 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+import org.threadly.BlockingTestRunnable;
+import org.threadly.OrderRecordingRunnable;
+import org.threadly.concurrent.PriorityClassScheduler.PriorityClass;
+import org.threadly.test.concurrent.TestCondition;
+import org.threadly.test.concurrent.TestRunnable;
+import org.threadly.test.concurrent.TestUtils;
+
+@SuppressWarnings("javadoc")
+public class PriorityClassSchedulerTest extends SubmitterSchedulerInterfaceTest {
+  @Override
+  protected SubmitterSchedulerFactory getSubmitterSchedulerFactory() {
+    return new PriorityClassSchedulerFactory();
+  }
+  
+  @SuppressWarnings("unused")
+  @Test
+  public void constructorFail() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      try {
+        new PriorityClassScheduler(null, 1, new PriorityClass("foo", 1));
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        new PriorityClassScheduler(scheduler, 0, new PriorityClass("foo", 1));
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        new PriorityClassScheduler(scheduler, 1);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        new PriorityClassScheduler(scheduler, 1, new PriorityClass("foo", 1), null);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @SuppressWarnings("unused")
+  @Test
+  public void priorityClassConstructorFail() {
+    try {
+      new PriorityClass(null, 1);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new PriorityClass("foo", 0);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new PriorityClass("foo", 1, -1);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  @Test
+  public void getterTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      PriorityClass interactive = new PriorityClass("interactive", 8, DELAY_TIME);
+      PriorityClass background = new PriorityClass("background", 1);
+      PriorityClassScheduler pcs = new PriorityClassScheduler(scheduler, 2, interactive, background);
+      
+      assertEquals(2, pcs.getMaxConcurrency());
+      assertEquals(2, pcs.getPriorityClassCount());
+      assertTrue(pcs.getPriorityClass(0) == interactive);
+      assertTrue(pcs.getPriorityClass(1) == background);
+      assertEquals("interactive", interactive.getName());
+      assertEquals(8, interactive.getWeight());
+      assertEquals(DELAY_TIME, interactive.getMaxWaitInMs());
+      assertEquals(Long.MAX_VALUE, background.getMaxWaitInMs());
+      assertTrue(pcs.getSubmitterSchedulerForPriority(1) == pcs.getSubmitterSchedulerForPriority(1));
+      assertEquals(0, pcs.getCurrentRunningCount());
+      assertEquals(0, pcs.getQueuedTaskCount(0));
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void getSubmitterSchedulerForPriorityFail() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      PriorityClassScheduler pcs = new PriorityClassScheduler(scheduler, 1, new PriorityClass("foo", 1));
+      pcs.getSubmitterSchedulerForPriority(1);
+      fail("Exception should have thrown");
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void maxConcurrencyTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(4);
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      final PriorityClassScheduler pcs = new PriorityClassScheduler(scheduler, 2, 
+                                                                    new PriorityClass("high", 2), 
+                                                                    new PriorityClass("low", 1));
+      pcs.getSubmitterSchedulerForPriority(0).execute(btr);
+      pcs.getSubmitterSchedulerForPriority(1).execute(btr);
+      pcs.getSubmitterSchedulerForPriority(1).execute(btr);
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return pcs.getCurrentRunningCount() == 2;
+        }
+      }.blockTillTrue();
+      
+      TestUtils.sleep(DELAY_TIME);
+      assertEquals(2, pcs.getCurrentRunningCount());
+      assertEquals(1, pcs.getQueuedTaskCount(1));
+      
+      btr.unblock();
+      btr.blockTillFinished(1000 * 10, 3);
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return pcs.getCurrentRunningCount() == 0;
+        }
+      }.blockTillTrue();
+      assertEquals(0, pcs.getQueuedTaskCount(1));
+    } finally {
+      btr.unblock();
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void weightedShareTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      PriorityClassScheduler pcs = new PriorityClassScheduler(scheduler, 1, 
+                                                              new PriorityClass("high", 3), 
+                                                              new PriorityClass("low", 1));
+      pcs.getSubmitterSchedulerForPriority(0).execute(btr);
+      btr.blockTillStarted();
+      
+      List<Integer> runOrder = Collections.synchronizedList(new ArrayList<Integer>());
+      SubmitterSchedulerInterface highScheduler = pcs.getSubmitterSchedulerForPriority(0);
+      SubmitterSchedulerInterface lowScheduler = pcs.getSubmitterSchedulerForPriority(1);
+      for (int i = 0; i < TEST_QTY; i++) {
+        highScheduler.execute(new OrderRecordingRunnable<Integer>(runOrder, 0));
+        lowScheduler.execute(new OrderRecordingRunnable<Integer>(runOrder, 1));
+      }
+      TestRunnable lastRunnable = new TestRunnable();
+      pcs.getSubmitterSchedulerForPriority(1).execute(lastRunnable);
+      
+      btr.unblock();
+      lastRunnable.blockTillFinished();
+      
+      assertEquals(TEST_QTY * 2, runOrder.size());
+      // while both classes have tasks, the high class gets 3 of every 4 executions
+      for (int i = 0; i + 4 <= TEST_QTY; i += 4) {
+        int highCount = 0;
+        for (int j = i; j < i + 4; j++) {
+          if (runOrder.get(j) == 0) {
+            highCount++;
+          }
+        }
+        assertEquals(3, highCount);
+      }
+    } finally {
+      btr.unblock();
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void maxWaitTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      PriorityClassScheduler pcs = new PriorityClassScheduler(scheduler, 1, 
+                                                              new PriorityClass("high", 1000), 
+                                                              new PriorityClass("low", 1, DELAY_TIME));
+      pcs.getSubmitterSchedulerForPriority(0).execute(btr);
+      btr.blockTillStarted();
+      
+      final List<Integer> runOrder = Collections.synchronizedList(new ArrayList<Integer>());
+      SubmitterSchedulerInterface highScheduler = pcs.getSubmitterSchedulerForPriority(0);
+      for (int i = 0; i < TEST_QTY; i++) {
+        highScheduler.execute(new OrderRecordingRunnable<Integer>(runOrder, 0));
+      }
+      SubmitterSchedulerInterface lowScheduler = pcs.getSubmitterSchedulerForPriority(1);
+      lowScheduler.execute(new OrderRecordingRunnable<Integer>(runOrder, 1));
+      TestUtils.sleep(DELAY_TIME * 2);
+      
+      btr.unblock();
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return runOrder.size() == TEST_QTY + 1;
+        }
+      }.blockTillTrue();
+      
+      // low task was past its max wait, so it should run before the high tasks
+      assertEquals(1, runOrder.get(0).intValue());
+    } finally {
+      btr.unblock();
+      scheduler.shutdownNow();
+    }
+  }
+  
+  private static class PriorityClassSchedulerFactory implements SubmitterSchedulerFactory {
+    private final List<PriorityScheduler> executors;
+    
+    private PriorityClassSchedulerFactory() {
+      executors = new LinkedList<PriorityScheduler>();
+    }
+
+    @Override
+    public SubmitterExecutorInterface makeSubmitterExecutor(int poolSize,
+                                                            boolean prestartIfAvailable) {
+      return makeSubmitterScheduler(poolSize, prestartIfAvailable);
+    }
+    
+    @Override
+    public SubmitterSchedulerInterface makeSubmitterScheduler(int poolSize, 
+                                                              boolean prestartIfAvailable) {
+      PriorityScheduler scheduler = new StrictPriorityScheduler(poolSize);
+      executors.add(scheduler);
+      if (prestartIfAvailable) {
+        scheduler.prestartAllThreads();
+      }
+      
+      PriorityClassScheduler pcs = new PriorityClassScheduler(scheduler, poolSize, 
+                                                              new PriorityClass("high", 2), 
+                                                              new PriorityClass("low", 1));
+      
+      return pcs.getSubmitterSchedulerForPriority(1);
+    }
+    
+    @Override
+    public void shutdown() {
+      Iterator<PriorityScheduler> it = executors.iterator();
+      while (it.hasNext()) {
+        it.next().shutdownNow();
+      }
+      executors.clear();
+    }
+  }
+}
@@ -12,7 +12,6 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.threadly.concurrent.PriorityScheduler.OneTimeTaskWrapper;
-import org.threadly.concurrent.PriorityScheduler.QueueManager;
 import org.threadly.concurrent.PriorityScheduler.RecurringDelayTaskWrapper;
 import org.threadly.concurrent.PriorityScheduler.RecurringTaskWrapper;
 import org.threadly.concurrent.PriorityScheduler.TaskWrapper;
@@ -76,6 +75,7 @@ public class PrioritySchedulerQueueManagerTest {
     assertTrue(queueManager.remove(callable));
     assertFalse(queueManager.remove(callable));
     
+    task = new OneTimeTaskWrapper(new ListenableFutureTask<Object>(false, callable), 0);
     queueManager.scheduleQueue.addFirst(task);
 
     assertTrue(queueManager.remove(callable));
@@ -94,12 +94,40 @@ public class PrioritySchedulerQueueManagerTest {
     assertTrue(queueManager.remove(runnable));
     assertFalse(queueManager.remove(runnable));
     
+    task = new OneTimeTaskWrapper(runnable, 0);
     queueManager.scheduleQueue.addFirst(task);
 
     assertTrue(queueManager.remove(runnable));
     assertFalse(queueManager.remove(runnable));
   }
   
+  @Test
+  public void removeScheduledLeavesCanceledTaskTest() {
+    TestRunnable runnable = new TestRunnable();
+    OneTimeTaskWrapper task = new OneTimeTaskWrapper(runnable, 1000 * 10);
+    queueManager.addScheduled(task);
+    
+    assertTrue(queueManager.remove(runnable));
+    
+    // task is only marked as canceled, and no longer counted
+    assertTrue(task.canceled);
+    assertEquals(1, queueManager.scheduleQueue.size());
+    assertEquals(0, queueManager.queueSize());
+    assertFalse(queueManager.remove(runnable));
+  }
+  
+  @Test
+  public void removeScheduledRecurringTaskTest() {
+    TestRunnable runnable = new TestRunnable();
+    queueManager.addScheduled(new RecurringDelayTaskWrapper(runnable, queueManager, 1000 * 10, 1000));
+    
+    assertTrue(queueManager.remove(runnable));
+    
+    // recurring tasks are removed immediately
+    assertTrue(queueManager.scheduleQueue.isEmpty());
+    assertFalse(queueManager.remove(runnable));
+  }
+  
   @Test
   public void addExecuteTest() {
     OneTimeTaskWrapper task = new OneTimeTaskWrapper(new TestRunnable(), 0);
@@ -154,6 +182,94 @@ public class PrioritySchedulerQueueManagerTest {
     assertEquals(1, queueManager.scheduleQueue.size());
   }
   
+  @Test
+  public void getNextTaskSkipsCanceledTest() throws InterruptedException {
+    OneTimeTaskWrapper canceledTask = new OneTimeTaskWrapper(new TestRunnable(), 0);
+    OneTimeTaskWrapper task = new OneTimeTaskWrapper(new TestRunnable(), 0);
+    queueManager.addExecute(canceledTask);
+    queueManager.addExecute(task);
+    canceledTask.canceled = true;
+    queueManager.taskCanceled(false);
+    
+    assertTrue(task == queueManager.getNextTask());
+    assertTrue(queueManager.executeQueue.isEmpty());
+    assertEquals(0, queueManager.canceledExecuteTaskCount.get());
+  }
+  
+  @Test
+  public void taskCanceledCompactsScheduleQueueTest() {
+    List<TaskWrapper> tasks = new ArrayList<TaskWrapper>();
+    for (int i = 0; i < PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD * 2; i++) {
+      TaskWrapper task = new OneTimeTaskWrapper(new TestRunnable(), 1000 * 10);
+      tasks.add(task);
+      queueManager.addScheduled(task);
+    }
+    
+    Iterator<TaskWrapper> it = tasks.iterator();
+    for (int i = 0; i < PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD - 1; i++) {
+      it.next().canceled = true;
+      queueManager.taskCanceled(true);
+    }
+    // threshold not reached yet, canceled tasks should remain
+    assertEquals(tasks.size(), queueManager.scheduleQueue.size());
+    
+    it.next().canceled = true;
+    queueManager.taskCanceled(true);
+    
+    assertEquals(tasks.size() - PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD, 
+                 queueManager.scheduleQueue.size());
+    Iterator<TaskWrapper> queueIt = queueManager.scheduleQueue.iterator();
+    while (queueIt.hasNext()) {
+      assertFalse(queueIt.next().canceled);
+    }
+  }
+  
+  @Test
+  public void taskCanceledCompactsExecuteQueueTest() {
+    List<OneTimeTaskWrapper> tasks = new ArrayList<OneTimeTaskWrapper>();
+    for (int i = 0; i < PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD * 2; i++) {
+      OneTimeTaskWrapper task = new OneTimeTaskWrapper(new TestRunnable(), 0);
+      tasks.add(task);
+      queueManager.addExecute(task);
+    }
+    
+    Iterator<OneTimeTaskWrapper> it = tasks.iterator();
+    for (int i = 0; i < PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD - 1; i++) {
+      it.next().canceled = true;
+      queueManager.taskCanceled(false);
+    }
+    // threshold not reached yet, canceled tasks should remain
+    assertEquals(tasks.size(), queueManager.executeQueue.size());
+    
+    it.next().canceled = true;
+    queueManager.taskCanceled(false);
+    
+    assertEquals(tasks.size() - PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD, 
+                 queueManager.executeQueue.size());
+    assertEquals(0, queueManager.canceledExecuteTaskCount.get());
+    Iterator<OneTimeTaskWrapper> queueIt = queueManager.executeQueue.iterator();
+    while (queueIt.hasNext()) {
+      assertFalse(queueIt.next().canceled);
+    }
+  }
+  
+  @Test
+  public void removeThenStopAndDrainQueueTest() {
+    TestRunnable executeRunnable = new TestRunnable();
+    TestRunnable scheduleRunnable = new TestRunnable();
+    queueManager.addExecute(new OneTimeTaskWrapper(executeRunnable, 0));
+    queueManager.addScheduled(new OneTimeTaskWrapper(scheduleRunnable, 1000 * 10));
+    
+    assertTrue(queueManager.remove(executeRunnable));
+    assertTrue(queueManager.remove(scheduleRunnable));
+    
+    List<Runnable> removedTasks = new ArrayList<Runnable>();
+    queueManager.stopAndDrainQueueInto(removedTasks);
+    
+    // removed tasks should not be returned again
+    assertTrue(removedTasks.isEmpty());
+  }
+  
   @Test
   public void getNextTaskNotRunningTest() throws InterruptedException {
     assertNull(queueManager.getNextTask());
@@ -12,8 +12,11 @@ import java.util.concurrent.Callable;
 
 import org.junit.Test;
 import org.threadly.BlockingTestRunnable;
+import org.threadly.concurrent.statistics.LongRunningTaskHandler;
+import org.threadly.concurrent.statistics.SchedulerMetrics;
 import org.threadly.test.concurrent.TestCondition;
 import org.threadly.test.concurrent.TestRunnable;
+import org.threadly.test.concurrent.TestableScheduler;
 import org.threadly.test.concurrent.TestUtils;
 
 @SuppressWarnings("javadoc")
@@ -253,6 +256,35 @@ public class PrioritySchedulerStatisticTrackerTest extends PrioritySchedulerTest
     }
   }
   
+  @Test
+  public void schedulerMetricsTest() {
+    final PrioritySchedulerStatisticTracker scheduler = new PrioritySchedulerStatisticTracker(1);
+    try {
+      SchedulerMetrics metrics = scheduler;
+      assertEquals(-1, metrics.getQueueWaitTimePercentile(50));
+      
+      TestRunnable lastRunnable = null;
+      for (int i = 0; i < TEST_QTY; i++) {
+        lastRunnable = new TestRunnable();
+        scheduler.execute(lastRunnable, i % 2 == 0 ? TaskPriority.High : TaskPriority.Low);
+      }
+      lastRunnable.blockTillFinished();
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return scheduler.getCompletedTaskCount() == TEST_QTY;
+        }
+      }.blockTillTrue();
+      
+      assertEquals(TEST_QTY, metrics.getSubmittedTaskCount());
+      assertEquals(0, metrics.getQueuedTaskCount());
+      assertTrue(metrics.getAverageQueueWaitTime() >= 0);
+      assertTrue(metrics.getQueueWaitTimePercentile(99) >= 0);
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
   @SuppressWarnings("deprecation")
   @Test
   public void getThreadAvailablePercentTest() {
@@ -606,6 +638,86 @@ public class PrioritySchedulerStatisticTrackerTest extends PrioritySchedulerTest
     }
   }
   
+  @Test
+  public void watchForLongRunningTasksTest() {
+    final int checkTime = DELAY_TIME * 10;
+    final PrioritySchedulerStatisticTracker scheduler = new PrioritySchedulerStatisticTracker(1);
+    TestableScheduler watchdogScheduler = new TestableScheduler();
+    TestLongRunningTaskHandler handler = new TestLongRunningTaskHandler();
+    try {
+      scheduler.watchForLongRunningTasks(watchdogScheduler, 1, checkTime, handler);
+      BlockingTestRunnable br = new BlockingTestRunnable();
+      scheduler.execute(br);
+      
+      br.blockTillStarted();
+      assertEquals(1, watchdogScheduler.advance(1));
+      assertTrue(handler.tasks.isEmpty());
+      
+      TestUtils.sleep(checkTime + 1);
+      assertEquals(1, watchdogScheduler.advance(1));
+      
+      assertEquals(1, handler.tasks.size());
+      assertTrue(handler.tasks.get(0) == br);
+      assertTrue(handler.runTimes.get(0) >= checkTime);
+      assertTrue(handler.stacks.get(0).length > 0);
+      
+      // should not be reported again for the same execution
+      assertEquals(1, watchdogScheduler.advance(1));
+      assertEquals(1, handler.tasks.size());
+      
+      br.unblock();
+      blockTillSchedulerIdle(scheduler, 1);
+    } finally {
+      scheduler.shutdownNow();
+    }
+    new TestCondition() {
+      @Override
+      public boolean get() {
+        return scheduler.workerPool.isShutdownFinished();
+      }
+    }.blockTillTrue();
+    
+    // watchdog should remove itself once the scheduler is shutdown
+    assertEquals(1, watchdogScheduler.advance(1));
+    assertEquals(0, watchdogScheduler.advance(1));
+    assertEquals(1, handler.tasks.size());
+  }
+  
+  @Test
+  public void watchForLongRunningTasksFail() {
+    PrioritySchedulerStatisticTracker scheduler = new PrioritySchedulerStatisticTracker(1);
+    TestableScheduler watchdogScheduler = new TestableScheduler();
+    TestLongRunningTaskHandler handler = new TestLongRunningTaskHandler();
+    try {
+      try {
+        scheduler.watchForLongRunningTasks(null, 1, 1, handler);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        scheduler.watchForLongRunningTasks(watchdogScheduler, 0, 1, handler);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        scheduler.watchForLongRunningTasks(watchdogScheduler, 1, -1, handler);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        scheduler.watchForLongRunningTasks(watchdogScheduler, 1, 1, null);
+        fail("Exception should have thrown");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
   private class PrioritySchedulerStatisticTrackerTestFactory implements PrioritySchedulerFactory {
     private final List<PriorityScheduler> executors;
     
@@ -688,6 +800,20 @@ public class PrioritySchedulerStatisticTrackerTest extends PrioritySchedulerTest
     }
   }
   
+  private static class TestLongRunningTaskHandler implements LongRunningTaskHandler {
+    private final List<Object> tasks = new ArrayList<Object>();
+    private final List<Long> runTimes = new ArrayList<Long>();
+    private final List<StackTraceElement[]> stacks = new ArrayList<StackTraceElement[]>();
+    
+    @Override
+    public void handleLongRunningTask(Object task, Thread runningThread, 
+                                      long runTimeInMs, StackTraceElement[] stack) {
+      tasks.add(task);
+      runTimes.add(runTimeInMs);
+      stacks.add(stack);
+    }
+  }
+  
   private static class BlockCallable extends TestCondition implements Callable<Object> {
     private volatile boolean unblock = false;
     private volatile boolean started = false;
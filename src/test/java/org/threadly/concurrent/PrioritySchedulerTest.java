@@ -4,12 +4,14 @@ import static org.junit.Assert.*;
 import static org.threadly.TestConstants.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 import org.threadly.BlockingTestRunnable;
@@ -20,6 +22,7 @@ import org.threadly.test.concurrent.AsyncVerifier;
 import org.threadly.test.concurrent.TestCondition;
 import org.threadly.test.concurrent.TestRunnable;
 import org.threadly.test.concurrent.TestUtils;
+import org.threadly.util.debug.RunningTaskRegistry;
 
 @SuppressWarnings("javadoc")
 public class PrioritySchedulerTest extends SchedulerServiceInterfaceTest {
@@ -101,6 +104,59 @@ public class PrioritySchedulerTest extends SchedulerServiceInterfaceTest {
     }
   }
   
+  @Test
+  public void runningTaskPublishedTest() {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    RunningTaskRegistry.setPublishingEnabled(true);
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1, TaskPriority.High, 1000);
+      final AtomicReference<Thread> runningThread = new AtomicReference<Thread>();
+      final AtomicReference<Object> runningTask = new AtomicReference<Object>();
+      TestRunnable tr = new TestRunnable() {
+        @Override
+        public void handleRunStart() {
+          runningThread.set(Thread.currentThread());
+          runningTask.set(RunningTaskRegistry.getRunningTask(Thread.currentThread()));
+        }
+      };
+      scheduler.submit(tr);
+      tr.blockTillFinished();
+      
+      assertEquals(tr.getClass().getName(), RunningTaskRegistry.getTaskTag(runningTask.get()));
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return RunningTaskRegistry.getRunningTask(runningThread.get()) == null;
+        }
+      }.blockTillTrue();
+    } finally {
+      RunningTaskRegistry.setPublishingEnabled(false);
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void runningTaskNotPublishedTest() {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    RunningTaskRegistry.setPublishingEnabled(false);
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1, TaskPriority.High, 1000);
+      final AtomicReference<Object> runningTask = new AtomicReference<Object>();
+      TestRunnable tr = new TestRunnable() {
+        @Override
+        public void handleRunStart() {
+          runningTask.set(RunningTaskRegistry.getRunningTask(Thread.currentThread()));
+        }
+      };
+      scheduler.submit(tr);
+      tr.blockTillFinished();
+      
+      assertNull(runningTask.get());
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
   @Test
   public void constructorNullPriorityTest() {
     PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
@@ -856,6 +912,31 @@ public class PrioritySchedulerTest extends SchedulerServiceInterfaceTest {
     }
   }
   
+  @Test
+  public void cancelSubmittedScheduledTaskTest() {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      final PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      TestRunnable tr = new TestRunnable();
+      ListenableFuture<?> future = scheduler.submitScheduled(tr, DELAY_TIME);
+      
+      assertTrue(future.cancel(false));
+      assertTrue(future.isCancelled());
+      
+      // task is skipped, rather than run, once it reaches the head of the queue
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return scheduler.getScheduledTaskCount() == 0;
+        }
+      }.blockTillTrue();
+      
+      assertEquals(0, tr.getRunCount());
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
   @Test
   public void removeHighPriorityRunnableTest() {
     removeRunnableTest(TaskPriority.High);
@@ -881,6 +962,336 @@ public class PrioritySchedulerTest extends SchedulerServiceInterfaceTest {
     }
   }
   
+  @Test
+  public void removeHighPriorityFutureTest() {
+    removeFutureTest(TaskPriority.High);
+  }
+  
+  @Test
+  public void removeLowPriorityFutureTest() {
+    removeFutureTest(TaskPriority.Low);
+  }
+  
+  private void removeFutureTest(TaskPriority priority) {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1, priority, 200);
+      TestRunnable removedTask = new TestRunnable();
+      ListenableFuture<?> future = scheduler.submitScheduled(removedTask, 10 * 1000);
+      
+      assertTrue(scheduler.remove((Runnable)future));
+      
+      assertTrue(future.isCancelled());
+      assertEquals(0, scheduler.getScheduledTaskCount());
+      assertFalse(scheduler.remove((Runnable)future));
+      assertFalse(scheduler.remove(removedTask));
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void removeFutureAfterRunTest() throws InterruptedException, ExecutionException {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      TestRunnable tr = new TestRunnable();
+      ListenableFuture<?> future = scheduler.submit(tr);
+      future.get();
+      
+      assertFalse(scheduler.remove((Runnable)future));
+      assertFalse(future.isCancelled());
+      assertEquals(1, tr.getRunCount());
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void cancelManyScheduledTasksTest() {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      List<ListenableFuture<?>> futures = new ArrayList<ListenableFuture<?>>();
+      for (int i = 0; i < PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD * 2; i++) {
+        futures.add(scheduler.submitScheduled(new TestRunnable(), 1000 * 10));
+      }
+      TestRunnable keptTask = new TestRunnable();
+      scheduler.submitScheduled(keptTask, DELAY_TIME);
+      
+      Iterator<ListenableFuture<?>> it = futures.iterator();
+      while (it.hasNext()) {
+        assertTrue(it.next().cancel(false));
+      }
+      
+      assertEquals(1, scheduler.getScheduledTaskCount());
+      // canceled tasks should have been removed from the queue in bulk
+      assertTrue(scheduler.getQueueManager(scheduler.getDefaultPriority()).scheduleQueue.size() < 
+                   PriorityScheduler.CANCELED_TASK_COMPACTION_THRESHOLD);
+      keptTask.blockTillFinished();
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void getQueueDelayTest() {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      
+      assertEquals(0, scheduler.getQueueDelay());
+      
+      scheduler.execute(btr);
+      btr.blockTillStarted();
+      // first task will be taken from the queue to wait for a worker
+      scheduler.execute(new TestRunnable(), TaskPriority.High);
+      TestRunnable lastRunnable = new TestRunnable();
+      scheduler.execute(lastRunnable, TaskPriority.High);
+      TestUtils.sleep(DELAY_TIME);
+      
+      assertTrue(scheduler.getQueueDelay() >= DELAY_TIME);
+      
+      btr.unblock();
+      lastRunnable.blockTillFinished();
+      
+      assertEquals(0, scheduler.getQueueDelay());
+    } finally {
+      btr.unblock();
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void startWarmupFail() {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      
+      scheduler.startWarmup(-1);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void startWarmupNoTasksTest() throws InterruptedException, ExecutionException {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(TEST_QTY);
+      
+      ListenableFuture<Long> future = scheduler.startWarmup(0);
+      
+      assertTrue(future.get() >= 0);
+      assertEquals(TEST_QTY, scheduler.getCurrentPoolSize());
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void startWarmupTest() throws InterruptedException, ExecutionException {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(TEST_QTY);
+      
+      ListenableFuture<Long> future = scheduler.startWarmup(TEST_QTY * 10);
+      
+      assertTrue(future.get() >= 0);
+      assertEquals(TEST_QTY, scheduler.getCurrentPoolSize());
+      
+      // verify scheduler is still usable after the warmup
+      TestRunnable tr = new TestRunnable();
+      scheduler.execute(tr);
+      tr.blockTillFinished();
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void startWarmupShutdownTest() throws InterruptedException {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      scheduler.shutdown();
+      
+      ListenableFuture<Long> future = scheduler.startWarmup(TEST_QTY);
+      
+      future.get();
+      fail("Exception should have thrown");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void startWarmupShutdownNowTest() throws InterruptedException {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      final PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      scheduler.execute(btr);
+      btr.blockTillStarted();
+      
+      ListenableFuture<Long> future = scheduler.startWarmup(TEST_QTY);
+      // each consumer will hold one task while waiting for a worker...see issue #75
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return scheduler.getScheduledTaskCount() == TEST_QTY - 2;
+        }
+      }.blockTillTrue();
+      // warmup tasks are dropped, so the future must still complete
+      scheduler.shutdownNow();
+      
+      future.get();
+      fail("Exception should have thrown");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    } finally {
+      btr.unblock();
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void setControlledDelayPolicyTest() {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      ControlledDelayPolicy policy = new ControlledDelayPolicy(DELAY_TIME, DELAY_TIME);
+      
+      assertNull(scheduler.getControlledDelayPolicy());
+      assertFalse(scheduler.isOverloaded());
+      assertEquals(0, scheduler.getShedTaskCount());
+      
+      scheduler.setControlledDelayPolicy(policy);
+      
+      assertTrue(scheduler.getControlledDelayPolicy() == policy);
+      
+      scheduler.setControlledDelayPolicy(null);
+      
+      assertNull(scheduler.getControlledDelayPolicy());
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void controlledDelayShedHighPriorityTest() {
+    controlledDelayShedTest(TaskPriority.High);
+  }
+  
+  @Test
+  public void controlledDelayShedLowPriorityTest() {
+    controlledDelayShedTest(TaskPriority.Low);
+  }
+  
+  private void controlledDelayShedTest(TaskPriority priority) {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      scheduler.setControlledDelayPolicy(new ControlledDelayPolicy(DELAY_TIME, 1));
+      scheduler.execute(btr, priority);
+      btr.blockTillStarted();
+      
+      List<ListenableFuture<?>> futures = new ArrayList<ListenableFuture<?>>();
+      for (int i = 0; i < TEST_QTY * 2; i++) {
+        futures.add(scheduler.submit(new TestRunnable(2), priority));
+      }
+      // wait long enough that all waiting tasks should be shed once overloaded
+      TestUtils.sleep(DELAY_TIME * 3);
+      btr.unblock();
+      
+      int canceledCount = 0;
+      Iterator<ListenableFuture<?>> it = futures.iterator();
+      while (it.hasNext()) {
+        final ListenableFuture<?> future = it.next();
+        new TestCondition() {
+          @Override
+          public boolean get() {
+            return future.isDone();
+          }
+        }.blockTillTrue();
+        if (future.isCancelled()) {
+          canceledCount++;
+        }
+      }
+      
+      assertTrue(canceledCount > 0);
+      assertEquals(canceledCount, scheduler.getShedTaskCount());
+      assertEquals(canceledCount, scheduler.getShedTaskCount(priority));
+      assertEquals(0, scheduler.getScheduledTaskCount());
+    } finally {
+      btr.unblock();
+      factory.shutdown();
+    }
+  }
+  
+  @Test
+  public void controlledDelayLifoTest() {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      scheduler.setControlledDelayPolicy(new ControlledDelayPolicy(DELAY_TIME * 10, 1, true));
+      scheduler.execute(btr);
+      btr.blockTillStarted();
+      
+      final List<Integer> runOrder = Collections.synchronizedList(new ArrayList<Integer>());
+      List<ListenableFuture<?>> futures = new ArrayList<ListenableFuture<?>>();
+      for (int i = 0; i < TEST_QTY * 2; i++) {
+        final int index = i;
+        futures.add(scheduler.submit(new TestRunnable(2) {
+          @Override
+          public void handleRunStart() {
+            runOrder.add(index);
+          }
+        }));
+        if (i == TEST_QTY - 1) {
+          // old tasks are above the target delay, but not old enough to be shed
+          TestUtils.sleep(DELAY_TIME * 12);
+        }
+      }
+      btr.unblock();
+      
+      Iterator<ListenableFuture<?>> it = futures.iterator();
+      while (it.hasNext()) {
+        final ListenableFuture<?> future = it.next();
+        new TestCondition() {
+          @Override
+          public boolean get() {
+            return future.isDone();
+          }
+        }.blockTillTrue();
+      }
+      
+      // newer tasks should have run newest first
+      List<Integer> newTaskOrder = new ArrayList<Integer>(TEST_QTY);
+      for (Integer index : runOrder) {
+        if (index >= TEST_QTY) {
+          newTaskOrder.add(index);
+        }
+      }
+      assertEquals(TEST_QTY, newTaskOrder.size());
+      for (int i = 0; i < TEST_QTY; i++) {
+        assertEquals((TEST_QTY * 2) - 1 - i, newTaskOrder.get(i).intValue());
+      }
+      assertEquals(0, scheduler.getShedTaskCount());
+    } finally {
+      btr.unblock();
+      factory.shutdown();
+    }
+  }
+  
   @Test
   public void removeHighPriorityCallableTest() {
     removeCallableTest(TaskPriority.High);
@@ -1077,6 +1488,25 @@ public class PrioritySchedulerTest extends SchedulerServiceInterfaceTest {
     }
   }
   
+  @Test
+  public void removeThenShutdownNowTest() {
+    PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
+    try {
+      PriorityScheduler scheduler = factory.makePriorityScheduler(1);
+      TestRunnable removedTask1 = new TestRunnable();
+      TestRunnable removedTask2 = new TestRunnable();
+      scheduler.schedule(removedTask1, 1000 * 10);
+      scheduler.schedule(removedTask2, 1000 * 10);
+      
+      assertTrue(scheduler.remove(removedTask1));
+      assertTrue(scheduler.remove(removedTask2));
+      
+      assertTrue(scheduler.shutdownNow().isEmpty());
+    } finally {
+      factory.shutdown();
+    }
+  }
+  
   @Test
   public void shutdownNowFail() {
     PrioritySchedulerFactory factory = getPrioritySchedulerFactory();
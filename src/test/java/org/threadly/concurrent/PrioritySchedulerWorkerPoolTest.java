@@ -147,6 +147,41 @@ public class PrioritySchedulerWorkerPoolTest {
     fail("Exception should have been thrown");
   }
   
+  @Test
+  public void setFixedPoolSizeTest() {
+    workerPool.setFixedPoolSize(10);
+    
+    assertEquals(10, workerPool.corePoolSize);
+    assertEquals(10, workerPool.getMaxPoolSize());
+    
+    workerPool.setFixedPoolSize(2);
+    
+    assertEquals(2, workerPool.corePoolSize);
+    assertEquals(2, workerPool.getMaxPoolSize());
+  }
+  
+  @Test
+  public void lowerSetFixedPoolSizeCleansWorkerTest() {
+    workerPool.setKeepAliveTime(0);
+    
+    workerPool.setFixedPoolSize(5);
+    workerPool.prestartAllThreads();
+    // must allow core thread timeout for this to work
+    workerPool.allowCoreThreadTimeOut(true);
+    TestUtils.blockTillClockAdvances();
+    
+    workerPool.setFixedPoolSize(1);
+    
+    // verify worker was cleaned up
+    assertEquals(0, workerPool.getCurrentPoolSize());
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void setFixedPoolSizeFail() {
+    workerPool.setFixedPoolSize(0); // should throw exception for non-positive value
+    fail("Exception should have been thrown");
+  }
+  
   @Test
   public void getAndSetLowPriorityWaitTest() {
     assertEquals(PriorityScheduler.DEFAULT_LOW_PRIORITY_MAX_WAIT_IN_MS, workerPool.getMaxWaitForLowPriority());
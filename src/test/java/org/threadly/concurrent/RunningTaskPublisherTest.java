@@ -0,0 +1,85 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RunningTaskPublisherTest {
+  private TestSlot slot;
+  private RunningTaskPublisher.SlotProvider provider;
+  
+  @Before
+  public void setup() {
+    slot = new TestSlot();
+    provider = new RunningTaskPublisher.SlotProvider() {
+      @Override
+      public RunningTaskPublisher.TaskSlot getCurrentThreadSlot() {
+        return slot;
+      }
+    };
+  }
+  
+  @After
+  public void cleanup() {
+    RunningTaskPublisher.setSlotProvider(null);
+    slot = null;
+    provider = null;
+  }
+  
+  @Test
+  public void publishDisabledTest() {
+    RunningTaskPublisher.setSlotProvider(null);
+    RunningTaskPublisher publisher = new RunningTaskPublisher();
+    
+    assertNull(publisher.publish("foo"));
+    publisher.restore(null);
+    assertNull(slot.getTask());
+  }
+  
+  @Test
+  public void publishAndRestoreTest() {
+    RunningTaskPublisher.setSlotProvider(provider);
+    RunningTaskPublisher publisher = new RunningTaskPublisher();
+    
+    assertNull(publisher.publish("foo"));
+    assertEquals("foo", slot.getTask());
+    assertEquals("foo", publisher.publish("bar"));
+    assertEquals("bar", slot.getTask());
+    
+    publisher.restore("foo");
+    assertEquals("foo", slot.getTask());
+    publisher.restore(null);
+    assertNull(slot.getTask());
+  }
+  
+  @Test
+  public void restoreAfterDisableTest() {
+    RunningTaskPublisher.setSlotProvider(provider);
+    RunningTaskPublisher publisher = new RunningTaskPublisher();
+    
+    Object previousTask = publisher.publish("foo");
+    RunningTaskPublisher.setSlotProvider(null);
+    publisher.restore(previousTask);
+    
+    assertNull(slot.getTask());
+    assertNull(publisher.publish("bar"));
+    assertNull(slot.getTask());
+  }
+  
+  private static class TestSlot implements RunningTaskPublisher.TaskSlot {
+    private Object task = null;
+    
+    @Override
+    public void setTask(Object task) {
+      this.task = task;
+    }
+    
+    @Override
+    public Object getTask() {
+      return task;
+    }
+  }
+}
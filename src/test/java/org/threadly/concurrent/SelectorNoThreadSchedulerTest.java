@@ -0,0 +1,247 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.threadly.concurrent.SelectorNoThreadScheduler.SelectionHandler;
+import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.test.concurrent.AsyncVerifier;
+import org.threadly.test.concurrent.TestRunnable;
+
+@SuppressWarnings("javadoc")
+public class SelectorNoThreadSchedulerTest extends NoThreadSchedulerTest {
+  @Override
+  protected NoThreadScheduler makeScheduler(boolean tickBlocksTillAvailable) {
+    try {
+      return new SelectorNoThreadScheduler(Selector.open(), tickBlocksTillAvailable);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  @After
+  public void closeSelectors() throws IOException {
+    if (blockingScheduler != null) {
+      ((SelectorNoThreadScheduler)blockingScheduler).getSelector().close();
+    }
+    if (nonblockingScheduler != null) {
+      ((SelectorNoThreadScheduler)nonblockingScheduler).getSelector().close();
+    }
+  }
+  
+  @SuppressWarnings("unused")
+  @Test (expected = IllegalArgumentException.class)
+  public void constructorFail() {
+    new SelectorNoThreadScheduler(null, true);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void registerRunsOnTickTest() throws InterruptedException, ExecutionException, IOException {
+    SelectorNoThreadScheduler scheduler = (SelectorNoThreadScheduler)nonblockingScheduler;
+    Pipe pipe = Pipe.open();
+    try {
+      pipe.source().configureBlocking(false);
+      ListenableFuture<SelectionKey> future = scheduler.register(pipe.source(), SelectionKey.OP_READ, 
+                                                                 new CountingHandler());
+      
+      assertFalse(future.isDone());
+      
+      scheduler.tick(null);
+      
+      assertTrue(future.isDone());
+      assertTrue(future.get().selector() == scheduler.getSelector());
+      assertTrue(future.get().channel() == pipe.source());
+    } finally {
+      pipe.source().close();
+      pipe.sink().close();
+    }
+  }
+  
+  @Test
+  public void pipeReadTest() throws InterruptedException, ExecutionException, IOException {
+    SelectorNoThreadScheduler scheduler = (SelectorNoThreadScheduler)nonblockingScheduler;
+    Pipe pipe = Pipe.open();
+    try {
+      pipe.source().configureBlocking(false);
+      CountingHandler handler = new CountingHandler();
+      scheduler.register(pipe.source(), SelectionKey.OP_READ, handler);
+      scheduler.tick(null);
+      
+      assertEquals(0, scheduler.tick(null));  // nothing to read yet
+      
+      pipe.sink().write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+      
+      assertEquals(1, scheduler.tick(null));
+      assertEquals(1, handler.selections.get());
+      assertEquals(3, handler.bytesRead.get());
+    } finally {
+      pipe.source().close();
+      pipe.sink().close();
+    }
+  }
+  
+  @Test
+  public void blockTillIoReadyTest() throws InterruptedException, IOException, TimeoutException {
+    final SelectorNoThreadScheduler scheduler = (SelectorNoThreadScheduler)blockingScheduler;
+    Pipe pipe = Pipe.open();
+    try {
+      pipe.source().configureBlocking(false);
+      final CountingHandler handler = new CountingHandler();
+      scheduler.register(pipe.source(), SelectionKey.OP_READ, handler);
+      scheduler.tick(null);
+      
+      final AsyncVerifier av = new AsyncVerifier();
+      TestRunnable tickRunnable = new TestRunnable() {
+        @Override
+        public void handleRunStart() {
+          try {
+            int runCount = scheduler.tick(null);  // should block in select
+            av.assertEquals(1, runCount);
+            av.assertEquals(1, handler.selections.get());
+            av.signalComplete();
+          } catch (InterruptedException e) {
+            av.fail(e);
+          }
+        }
+      };
+      new Thread(tickRunnable).start();
+      
+      tickRunnable.blockTillStarted();
+      pipe.sink().write(ByteBuffer.wrap(new byte[] { 1 }));
+      
+      av.waitForTest();
+    } finally {
+      pipe.source().close();
+      pipe.sink().close();
+    }
+  }
+  
+  @Test
+  public void cancelTickWhileSelectingTest() throws InterruptedException, TimeoutException {
+    final AsyncVerifier av = new AsyncVerifier();
+    TestRunnable tickRunnable = new TestRunnable() {
+      @Override
+      public void handleRunStart() {
+        try {
+          av.assertEquals(0, blockingScheduler.tick(null));
+          av.signalComplete();
+        } catch (InterruptedException e) {
+          av.fail(e);
+        }
+      }
+    };
+    new Thread(tickRunnable).start();
+    
+    tickRunnable.blockTillStarted();
+    blockingScheduler.cancelTick();
+    
+    av.waitForTest();
+  }
+  
+  @Test
+  public void loopbackSocketTest() throws InterruptedException, IOException {
+    final SelectorNoThreadScheduler scheduler = (SelectorNoThreadScheduler)nonblockingScheduler;
+    final ServerSocketChannel server = ServerSocketChannel.open();
+    SocketChannel client = null;
+    final SocketChannel[] accepted = new SocketChannel[1];
+    final ByteBuffer received = ByteBuffer.allocate(8);
+    try {
+      server.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      server.configureBlocking(false);
+      scheduler.register(server, SelectionKey.OP_ACCEPT, new SelectionHandler() {
+        @Override
+        public void handleSelection(SelectionKey key) throws IOException {
+          accepted[0] = server.accept();
+          accepted[0].configureBlocking(false);
+          accepted[0].register(key.selector(), SelectionKey.OP_READ, new SelectionHandler() {
+            @Override
+            public void handleSelection(SelectionKey key) throws IOException {
+              accepted[0].read(received);
+            }
+          });
+        }
+      });
+      scheduler.tick(null);
+      
+      client = SocketChannel.open(server.socket().getLocalSocketAddress());
+      client.write(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4 }));
+      
+      long start = System.currentTimeMillis();
+      while (received.position() < 4) {
+        scheduler.tick(null);
+        if (System.currentTimeMillis() - start > 10 * 1000) {
+          fail("Timeout waiting for data");
+        }
+      }
+      
+      assertEquals(4, received.position());
+    } finally {
+      if (client != null) {
+        client.close();
+      }
+      if (accepted[0] != null) {
+        accepted[0].close();
+      }
+      server.close();
+    }
+  }
+  
+  @Test
+  public void handlerExceptionTest() throws InterruptedException, IOException {
+    SelectorNoThreadScheduler scheduler = (SelectorNoThreadScheduler)nonblockingScheduler;
+    final RuntimeException failure = new RuntimeException();
+    Pipe pipe = Pipe.open();
+    try {
+      pipe.source().configureBlocking(false);
+      scheduler.register(pipe.source(), SelectionKey.OP_READ, new SelectionHandler() {
+        @Override
+        public void handleSelection(SelectionKey key) {
+          key.cancel();
+          throw failure;
+        }
+      });
+      scheduler.tick(null);
+      pipe.sink().write(ByteBuffer.wrap(new byte[] { 1 }));
+      
+      try {
+        scheduler.tick(null);
+        fail("Exception should have thrown");
+      } catch (RuntimeException e) {
+        assertTrue(e == failure);
+      }
+    } finally {
+      pipe.source().close();
+      pipe.sink().close();
+    }
+  }
+  
+  private static class CountingHandler implements SelectionHandler {
+    private final AtomicInteger selections = new AtomicInteger();
+    private final AtomicInteger bytesRead = new AtomicInteger();
+    
+    @Override
+    public void handleSelection(SelectionKey key) throws IOException {
+      selections.incrementAndGet();
+      ByteBuffer buffer = ByteBuffer.allocate(16);
+      int read = ((Pipe.SourceChannel)key.channel()).read(buffer);
+      if (read > 0) {
+        bytesRead.addAndGet(read);
+      }
+    }
+  }
+}
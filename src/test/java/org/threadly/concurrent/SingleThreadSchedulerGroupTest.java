@@ -0,0 +1,205 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.BlockingTestRunnable;
+import org.threadly.test.concurrent.TestRunnable;
+
+@SuppressWarnings("javadoc")
+public class SingleThreadSchedulerGroupTest {
+  private static final int LOOP_COUNT = 4;
+  
+  private SingleThreadSchedulerGroup group;
+  
+  @Before
+  public void setup() {
+    group = new SingleThreadSchedulerGroup(LOOP_COUNT, "testLoop-", true);
+  }
+  
+  @After
+  public void cleanup() {
+    group.shutdownNow();
+    group = null;
+  }
+  
+  @SuppressWarnings("unused")
+  @Test
+  public void constructorFail() {
+    try {
+      new SingleThreadSchedulerGroup(0);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new SingleThreadSchedulerGroup(1, (String)null, true);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new SingleThreadSchedulerGroup(1, (ConfigurableThreadFactory)null);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  @Test
+  public void getLoopCountTest() {
+    assertEquals(LOOP_COUNT, group.getLoopCount());
+  }
+  
+  @Test
+  public void getSubmitterSchedulerForKeyTest() {
+    Set<SubmitterSchedulerInterface> schedulers = new HashSet<SubmitterSchedulerInterface>();
+    for (int i = 0; i < LOOP_COUNT * 10; i++) {
+      Integer key = i;
+      SubmitterSchedulerInterface scheduler = group.getSubmitterSchedulerForKey(key);
+      assertTrue(scheduler == group.getSubmitterSchedulerForKey(key));
+      int loopIndex = group.getLoopIndexForKey(key);
+      assertTrue(loopIndex >= 0 && loopIndex < LOOP_COUNT);
+      schedulers.add(scheduler);
+    }
+    
+    assertEquals(LOOP_COUNT, schedulers.size());
+  }
+  
+  @Test
+  public void getLoopIndexForNegativeHashTest() {
+    Object key = new Object() {
+      @Override
+      public int hashCode() {
+        return Integer.MIN_VALUE;
+      }
+    };
+    
+    int loopIndex = group.getLoopIndexForKey(key);
+    assertTrue(loopIndex >= 0 && loopIndex < LOOP_COUNT);
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void getSubmitterSchedulerForNullKeyFail() {
+    group.getSubmitterSchedulerForKey(null);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void keyOrderAndThreadTest() throws InterruptedException {
+    final List<List<Integer>> runOrders = new ArrayList<List<Integer>>(LOOP_COUNT);
+    final List<Set<Thread>> runThreads = new ArrayList<Set<Thread>>(LOOP_COUNT);
+    List<TestRunnable> lastRunnables = new ArrayList<TestRunnable>(LOOP_COUNT);
+    for (int key = 0; key < LOOP_COUNT; key++) {
+      runOrders.add(Collections.synchronizedList(new ArrayList<Integer>()));
+      runThreads.add(Collections.synchronizedSet(new HashSet<Thread>()));
+    }
+    for (int i = 0; i < TEST_QTY; i++) {
+      for (int key = 0; key < LOOP_COUNT; key++) {
+        final int fKey = key;
+        final int fIndex = i;
+        TestRunnable tr = new TestRunnable() {
+          @Override
+          public void handleRunStart() {
+            runOrders.get(fKey).add(fIndex);
+            runThreads.get(fKey).add(Thread.currentThread());
+          }
+        };
+        if (i == TEST_QTY - 1) {
+          lastRunnables.add(tr);
+        }
+        group.getSubmitterSchedulerForKey(key).execute(tr);
+      }
+    }
+    
+    for (TestRunnable tr : lastRunnables) {
+      tr.blockTillFinished();
+    }
+    for (int key = 0; key < LOOP_COUNT; key++) {
+      List<Integer> runOrder = runOrders.get(key);
+      assertEquals(TEST_QTY, runOrder.size());
+      for (int i = 0; i < TEST_QTY; i++) {
+        assertEquals(i, runOrder.get(i).intValue());
+      }
+      assertEquals(1, runThreads.get(key).size());
+      Thread t = runThreads.get(key).iterator().next();
+      assertEquals("testLoop-" + group.getLoopIndexForKey(key), t.getName());
+      assertTrue(t.isDaemon());
+    }
+  }
+  
+  @Test
+  public void scheduleTest() {
+    TestRunnable tr = new TestRunnable();
+    group.getSubmitterSchedulerForKey("foo").schedule(tr, DELAY_TIME);
+    
+    tr.blockTillFinished();
+    assertTrue(tr.getDelayTillFirstRun() >= DELAY_TIME);
+  }
+  
+  @Test
+  public void getSubmitterSchedulerForKeyCanNotShutdownTest() {
+    SubmitterSchedulerInterface scheduler = group.getSubmitterSchedulerForKey("foo");
+    
+    assertFalse(scheduler instanceof SingleThreadScheduler);
+    assertFalse(scheduler instanceof SchedulerServiceInterface);
+  }
+  
+  @Test
+  public void isShutdownChecksAllLoopsTest() {
+    group.loops[0].shutdown();
+    
+    assertFalse(group.isShutdown());
+    
+    group.shutdown();
+    
+    assertTrue(group.isShutdown());
+  }
+  
+  @Test
+  public void shutdownTest() {
+    assertFalse(group.isShutdown());
+    
+    group.shutdown();
+    
+    assertTrue(group.isShutdown());
+    for (int i = 0; i < LOOP_COUNT; i++) {
+      try {
+        group.getSubmitterSchedulerForKey(i).execute(new TestRunnable());
+        fail("Exception should have thrown");
+      } catch (RejectedExecutionException e) {
+        // expected
+      }
+    }
+  }
+  
+  @Test
+  public void shutdownNowTest() {
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      SubmitterSchedulerInterface scheduler = group.getSubmitterSchedulerForKey("foo");
+      scheduler.execute(btr);
+      btr.blockTillStarted();
+      TestRunnable queued = new TestRunnable();
+      scheduler.execute(queued);
+      
+      List<Runnable> result = group.shutdownNow();
+      
+      assertTrue(group.isShutdown());
+      assertEquals(1, result.size());
+      assertTrue(result.get(0) == queued);
+    } finally {
+      btr.unblock();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package org.threadly.concurrent;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.BlockingTestRunnable;
+import org.threadly.ThreadlyTestUtil;
+import org.threadly.concurrent.future.ListenableFuture;
+import org.threadly.test.concurrent.TestCondition;
+import org.threadly.test.concurrent.TestRunnable;
+import org.threadly.test.concurrent.TestableScheduler;
+
+@SuppressWarnings("javadoc")
+public class TaskScopeTest {
+  private TestableScheduler scheduler;
+  private TaskScope scope;
+  
+  @Before
+  public void setup() {
+    scheduler = new TestableScheduler();
+    scope = new TaskScope(scheduler);
+  }
+  
+  @After
+  public void cleanup() {
+    scheduler = null;
+    scope = null;
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void constructorFail() {
+    new TaskScope(null);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void executeTest() {
+    TestRunnable tr = new TestRunnable();
+    scope.execute(tr);
+    
+    assertEquals(1, scope.getActiveCount());
+    assertEquals(1, scheduler.tick());
+    assertEquals(1, tr.getRunCount());
+    assertEquals(0, scope.getActiveCount());
+  }
+  
+  @Test
+  public void submitTest() {
+    TestRunnable tr = new TestRunnable();
+    ListenableFuture<?> future = scope.submit(tr);
+    
+    assertFalse(future.isDone());
+    assertEquals(1, scheduler.tick());
+    assertTrue(future.isDone());
+    assertEquals(1, tr.getRunCount());
+  }
+  
+  @Test
+  public void closeCancelsPendingTest() {
+    List<TestRunnable> runnables = new ArrayList<TestRunnable>(TEST_QTY);
+    List<ListenableFuture<?>> futures = new ArrayList<ListenableFuture<?>>(TEST_QTY);
+    for (int i = 0; i < TEST_QTY; i++) {
+      TestRunnable tr = new TestRunnable();
+      runnables.add(tr);
+      futures.add(scope.submit(tr));
+    }
+    
+    scope.close();
+    
+    assertTrue(scope.isClosed());
+    assertEquals(0, scope.getActiveCount());
+    for (ListenableFuture<?> f : futures) {
+      assertTrue(f.isCancelled());
+    }
+    // tasks are still dequeued, but do nothing
+    assertEquals(TEST_QTY, scheduler.tick());
+    for (TestRunnable tr : runnables) {
+      assertEquals(0, tr.getRunCount());
+    }
+  }
+  
+  @Test (expected = RejectedExecutionException.class)
+  public void submitAfterCloseFail() {
+    scope.close();
+    scope.submit(new TestRunnable());
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void failureClosesScopeTest() {
+    ThreadlyTestUtil.setIgnoreExceptionHandler();
+    TestRunnable sibling = new TestRunnable();
+    RuntimeException failure = new RuntimeException();
+    scope.execute(new TestRuntimeFailureRunnable(failure));
+    ListenableFuture<?> siblingFuture = scope.submit(sibling);
+    
+    scheduler.tick();
+    
+    assertTrue(scope.isClosed());
+    assertTrue(failure == scope.getFailure());
+    assertTrue(siblingFuture.isCancelled());
+    assertEquals(0, sibling.getRunCount());
+  }
+  
+  @Test
+  public void failureWithoutCancelOnFailureTest() {
+    scope = new TaskScope(scheduler, false);
+    TestRunnable sibling = new TestRunnable();
+    RuntimeException failure = new RuntimeException();
+    ListenableFuture<?> failureFuture = scope.submit(new TestRuntimeFailureRunnable(failure));
+    ListenableFuture<?> siblingFuture = scope.submit(sibling);
+    
+    scheduler.tick();
+    
+    assertFalse(scope.isClosed());
+    assertTrue(failure == scope.getFailure());
+    assertTrue(failureFuture.isDone());
+    assertFalse(siblingFuture.isCancelled());
+    assertEquals(1, sibling.getRunCount());
+  }
+  
+  @Test
+  public void closeInterruptsRunningTest() {
+    PriorityScheduler ps = new StrictPriorityScheduler(1);
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    try {
+      scope = new TaskScope(ps);
+      final ListenableFuture<?> future = scope.submit(btr);
+      btr.blockTillStarted();
+      
+      scope.close();
+      
+      assertTrue(future.isCancelled());
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return scope.getActiveCount() == 0;
+        }
+      }.blockTillTrue();
+    } finally {
+      btr.unblock();
+      ps.shutdownNow();
+    }
+  }
+}
@@ -15,7 +15,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.threadly.concurrent.collections.ConcurrentArrayList;
+import org.threadly.concurrent.collections.ConcurrentArrayList.BatchUpdater;
 import org.threadly.concurrent.collections.ConcurrentArrayList.DataSet;
+import org.threadly.concurrent.collections.ConcurrentArrayList.MutableView;
 import org.threadly.util.StringUtils;
 
 @SuppressWarnings("javadoc")
@@ -723,4 +725,161 @@ public class ConcurrentArrayListTest {
   public void makeEmptyDataSetRearFail() {
     ConcurrentArrayList.makeEmptyDataSet(0, -1);
   }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void batchUpdateFail() {
+    testList.batchUpdate(null);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void batchUpdateTest() {
+    for (int i = 0; i < TEST_QTY; i++) {
+      testList.add(Integer.toString(i));
+    }
+    final DataSet<String> originalSet = testList.currentData;
+    
+    testList.batchUpdate(new BatchUpdater<String>() {
+      @Override
+      public void update(MutableView<String> view) {
+        assertEquals(TEST_QTY, view.size());
+        view.add(0, "foo");
+        view.add("bar");
+        view.add(2, "baz");
+        view.remove(1);
+        view.set(0, "first");
+        // changes should not be visible till after update
+        assertTrue(originalSet == testList.currentData);
+      }
+    });
+    
+    assertEquals(TEST_QTY + 2, testList.size());
+    assertEquals("first", testList.getFirst());
+    assertEquals("baz", testList.get(1));
+    for (int i = 1; i < TEST_QTY; i++) {
+      assertEquals(Integer.toString(i), testList.get(i + 1));
+    }
+    assertEquals("bar", testList.getLast());
+  }
+  
+  @Test
+  public void batchUpdateTrimTest() {
+    int testQty = TEST_QTY * 10;
+    for (int i = 0; i < testQty; i++) {
+      testList.add(Integer.toString(i));
+    }
+    
+    testList.batchUpdate(new BatchUpdater<String>() {
+      @Override
+      public void update(MutableView<String> view) {
+        view.subList(0, view.size() - TEST_QTY).clear();
+      }
+    });
+    
+    assertEquals(TEST_QTY, testList.size());
+    for (int i = 0; i < TEST_QTY; i++) {
+      assertEquals(Integer.toString(testQty - TEST_QTY + i), testList.get(i));
+    }
+    // verify list can still be modified normally
+    testList.addFirst("foo");
+    testList.addLast("bar");
+    assertEquals("foo", testList.getFirst());
+    assertEquals("bar", testList.getLast());
+  }
+  
+  @Test
+  public void batchUpdateGrowTest() {
+    testList.setRearPadding(2);
+    testList.add("foo");
+    
+    testList.batchUpdate(new BatchUpdater<String>() {
+      @Override
+      public void update(MutableView<String> view) {
+        for (int i = 0; i < TEST_QTY * 10; i++) {
+          view.add(Integer.toString(i));
+        }
+      }
+    });
+    
+    assertEquals((TEST_QTY * 10) + 1, testList.size());
+    assertEquals("foo", testList.getFirst());
+    assertEquals(Integer.toString((TEST_QTY * 10) - 1), testList.getLast());
+  }
+  
+  @Test
+  public void batchUpdateNoModificationTest() {
+    testList.add("foo");
+    DataSet<String> originalSet = testList.currentData;
+    
+    testList.batchUpdate(new BatchUpdater<String>() {
+      @Override
+      public void update(MutableView<String> view) {
+        assertEquals("foo", view.get(0));
+      }
+    });
+    
+    assertTrue(originalSet == testList.currentData);
+  }
+  
+  @Test
+  public void batchUpdateExceptionTest() {
+    testList.add("foo");
+    DataSet<String> originalSet = testList.currentData;
+    
+    try {
+      testList.batchUpdate(new BatchUpdater<String>() {
+        @Override
+        public void update(MutableView<String> view) {
+          view.clear();
+          throw new SuiteException();
+        }
+      });
+      fail("Exception should have thrown");
+    } catch (SuiteException e) {
+      // expected
+    }
+    
+    assertTrue(originalSet == testList.currentData);
+  }
+  
+  @Test (expected = IllegalStateException.class)
+  public void batchUpdateViewClosedFail() {
+    final List<MutableView<String>> viewHolder = new ArrayList<MutableView<String>>(1);
+    testList.batchUpdate(new BatchUpdater<String>() {
+      @Override
+      public void update(MutableView<String> view) {
+        viewHolder.add(view);
+      }
+    });
+    
+    viewHolder.get(0).add("foo");
+    fail("Exception should have thrown");
+  }
+  
+  @Test (expected = UnsupportedOperationException.class)
+  public void batchUpdateAddNullFail() {
+    testList.batchUpdate(new BatchUpdater<String>() {
+      @Override
+      public void update(MutableView<String> view) {
+        view.add(null);
+      }
+    });
+    fail("Exception should have thrown");
+  }
+  
+  @Test (expected = UnsupportedOperationException.class)
+  public void batchUpdateSetNullFail() {
+    testList.add("foo");
+    testList.batchUpdate(new BatchUpdater<String>() {
+      @Override
+      public void update(MutableView<String> view) {
+        view.set(0, null);
+      }
+    });
+    fail("Exception should have thrown");
+  }
+  
+  private static class SuiteException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+  }
 }
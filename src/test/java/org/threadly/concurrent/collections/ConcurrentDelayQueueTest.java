@@ -0,0 +1,310 @@
+package org.threadly.concurrent.collections;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.concurrent.TestDelayed;
+import org.threadly.util.Clock;
+
+@SuppressWarnings("javadoc")
+public class ConcurrentDelayQueueTest {
+  private ConcurrentDelayQueue<TestDelayed> testQueue;
+  
+  @Before
+  public void setup() {
+    testQueue = new ConcurrentDelayQueue<TestDelayed>();
+  }
+  
+  @After
+  public void cleanup() {
+    testQueue = null;
+  }
+  
+  private void populateNegative() {
+    for (int i = TEST_QTY * -1; i < 0; i++) {
+      testQueue.add(new TestDelayed(i));
+    }
+  }
+  
+  @Test
+  public void sizeTest() {
+    for (int i = 0; i < TEST_QTY; i++) {
+      testQueue.add(new TestDelayed(i));
+      assertEquals(i + 1, testQueue.size());
+    }
+  }
+  
+  @Test
+  public void isEmptyTest() throws InterruptedException {
+    assertTrue(testQueue.isEmpty());
+    testQueue.add(new TestDelayed(0));
+    assertFalse(testQueue.isEmpty());
+    
+    testQueue.take();
+    
+    assertTrue(testQueue.isEmpty());
+  }
+  
+  @Test
+  public void addNullTest() {
+    assertFalse(testQueue.add(null));
+    assertTrue(testQueue.isEmpty());
+  }
+  
+  @Test
+  public void addDuplicateTest() {
+    TestDelayed td = new TestDelayed(0);
+    assertTrue(testQueue.add(td));
+    assertFalse(testQueue.add(td));
+    
+    assertEquals(1, testQueue.size());
+  }
+  
+  @Test
+  public void containsTest() {
+    TestDelayed td = new TestDelayed(10);
+    assertFalse(testQueue.contains(td));
+    assertFalse(testQueue.contains(null));
+    
+    testQueue.add(td);
+    
+    assertTrue(testQueue.contains(td));
+  }
+  
+  @Test
+  public void peekTest() {
+    assertNull(testQueue.peek());
+    
+    TestDelayed future = new TestDelayed(1000 * 10);
+    testQueue.add(future);
+    assertNull(testQueue.peek());
+    
+    TestDelayed ready = new TestDelayed(-10);
+    testQueue.add(ready);
+    assertTrue(testQueue.peek() == ready);
+    // peek should not remove
+    assertEquals(2, testQueue.size());
+  }
+  
+  @Test
+  public void pollTest() {
+    assertNull(testQueue.poll());
+    populateNegative();
+    
+    for (int i = TEST_QTY * -1; i < 0; i++) {
+      assertEquals(i, testQueue.poll().getDelay(TimeUnit.MILLISECONDS));
+    }
+    
+    assertNull(testQueue.poll());
+    assertTrue(testQueue.isEmpty());
+  }
+  
+  @Test
+  public void pollNotReadyTest() {
+    testQueue.add(new TestDelayed(1000 * 10));
+    
+    assertNull(testQueue.poll());
+    assertEquals(1, testQueue.size());
+  }
+  
+  @Test
+  public void pollTimeoutTest() throws InterruptedException {
+    TestDelayed td = new TestDelayed(DELAY_TIME);
+    testQueue.add(td);
+    
+    long startTime = Clock.accurateForwardProgressingMillis();
+    assertTrue(td == testQueue.poll(1000 * 10, TimeUnit.MILLISECONDS));
+    long endTime = Clock.accurateForwardProgressingMillis();
+    
+    assertTrue(endTime - startTime >= DELAY_TIME);
+  }
+  
+  @Test
+  public void pollTimeoutFail() throws InterruptedException {
+    testQueue.add(new TestDelayed(1000 * 10));
+    
+    long startTime = Clock.accurateForwardProgressingMillis();
+    assertNull(testQueue.poll(DELAY_TIME, TimeUnit.MILLISECONDS));
+    long endTime = Clock.accurateForwardProgressingMillis();
+    
+    assertTrue(endTime - startTime >= DELAY_TIME);
+  }
+  
+  @Test
+  public void takeBlocksTillReadyTest() throws InterruptedException {
+    TestDelayed td = new TestDelayed(DELAY_TIME);
+    
+    long startTime = Clock.accurateForwardProgressingMillis();
+    testQueue.put(td);
+    assertTrue(td == testQueue.take());
+    long endTime = Clock.accurateForwardProgressingMillis();
+    
+    assertTrue(endTime - startTime >= DELAY_TIME);
+  }
+  
+  @Test
+  public void takeWakesOnNewHeadTest() throws InterruptedException {
+    testQueue.add(new TestDelayed(1000 * 10));
+    final TestDelayed ready = new TestDelayed(-1);
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(DELAY_TIME);
+        } catch (InterruptedException e) {
+          // ignored
+        }
+        testQueue.add(ready);
+      }
+    }).start();
+    
+    assertTrue(ready == testQueue.take());
+  }
+  
+  @Test
+  public void repositionTest() {
+    TestDelayed first = new TestDelayed(-2);
+    TestDelayed second = new TestDelayed(-1);
+    testQueue.add(first);
+    testQueue.add(second);
+    
+    assertTrue(testQueue.reposition(first, 1000 * 10));
+    
+    assertEquals(2, testQueue.size());
+    assertTrue(second == testQueue.poll());
+    assertNull(testQueue.poll());
+    
+    assertTrue(testQueue.reposition(first, -1));
+    assertTrue(first == testQueue.poll());
+    assertTrue(testQueue.isEmpty());
+  }
+  
+  @Test
+  public void repositionMissingTest() {
+    assertFalse(testQueue.reposition(null, 0));
+    assertFalse(testQueue.reposition(new TestDelayed(0), 0));
+  }
+  
+  @Test
+  public void repositionWakesTakeTest() throws InterruptedException {
+    final TestDelayed td = new TestDelayed(1000 * 10);
+    testQueue.add(td);
+    new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(DELAY_TIME);
+        } catch (InterruptedException e) {
+          // ignored
+        }
+        testQueue.reposition(td, 0);
+      }
+    }).start();
+    
+    assertTrue(td == testQueue.take());
+  }
+  
+  @Test
+  public void removeObjectTest() {
+    TestDelayed td = new TestDelayed(10);
+    assertFalse(testQueue.remove(td));
+    assertFalse(testQueue.remove(null));
+    
+    testQueue.add(td);
+    
+    assertTrue(testQueue.remove(td));
+    assertFalse(testQueue.contains(td));
+    assertTrue(testQueue.isEmpty());
+    assertFalse(testQueue.reposition(td, 0));
+  }
+  
+  @Test
+  public void clearTest() {
+    populateNegative();
+    
+    testQueue.clear();
+    
+    assertTrue(testQueue.isEmpty());
+    assertNull(testQueue.poll());
+  }
+  
+  @Test
+  public void drainToTest() {
+    populateNegative();
+    testQueue.add(new TestDelayed(1000 * 10));
+    List<TestDelayed> result = new ArrayList<TestDelayed>();
+    
+    assertEquals(TEST_QTY, testQueue.drainTo(result));
+    
+    assertEquals(TEST_QTY, result.size());
+    for (int i = 0; i < TEST_QTY; i++) {
+      assertEquals(i - TEST_QTY, result.get(i).getDelay(TimeUnit.MILLISECONDS));
+    }
+    assertEquals(1, testQueue.size());
+  }
+  
+  @Test
+  public void drainToMaxTest() {
+    populateNegative();
+    List<TestDelayed> result = new ArrayList<TestDelayed>();
+    
+    assertEquals(1, testQueue.drainTo(result, 1));
+    
+    assertEquals(1, result.size());
+    assertEquals(TEST_QTY - 1, testQueue.size());
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void drainToSelfFail() {
+    testQueue.drainTo(testQueue);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void remainingCapacityTest() {
+    assertEquals(Integer.MAX_VALUE, testQueue.remainingCapacity());
+  }
+  
+  @Test
+  public void iteratorTest() {
+    // delays spaced out so clock progression while adding does not change the order
+    for (int i = TEST_QTY - 1; i >= 0; i--) {
+      testQueue.add(new TestDelayed(i * 1000));
+    }
+    
+    Iterator<TestDelayed> it = testQueue.iterator();
+    for (int i = 0; i < TEST_QTY; i++) {
+      assertTrue(it.hasNext());
+      assertEquals(i * 1000, it.next().getDelay(TimeUnit.MILLISECONDS));
+    }
+    assertFalse(it.hasNext());
+  }
+  
+  @Test
+  public void iteratorRemoveTest() {
+    TestDelayed td = new TestDelayed(0);
+    testQueue.add(td);
+    
+    Iterator<TestDelayed> it = testQueue.iterator();
+    it.next();
+    it.remove();
+    
+    assertTrue(testQueue.isEmpty());
+    assertFalse(testQueue.contains(td));
+  }
+  
+  @Test (expected = IllegalStateException.class)
+  public void iteratorRemoveFail() {
+    testQueue.add(new TestDelayed(0));
+    testQueue.iterator().remove();
+    fail("Exception should have thrown");
+  }
+}
@@ -0,0 +1,209 @@
+package org.threadly.concurrent.event;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+import org.threadly.concurrent.SameThreadSubmitterExecutor;
+import org.threadly.test.concurrent.TestableScheduler;
+
+@SuppressWarnings("javadoc")
+public class CoalescingListenerHelperTest extends ListenerHelperTest {
+  @Override
+  protected <T> ListenerHelper<T> makeListenerHelper(Class<T> listenerInterface) {
+    return CoalescingListenerHelper.build(listenerInterface, SameThreadSubmitterExecutor.instance(), 
+                                          10, false);
+  }
+  
+  @Test
+  @Override
+  @SuppressWarnings({ "unused", "unchecked", "rawtypes" })
+  public void constructorFail() {
+    try {
+      new CoalescingListenerHelper(null, SameThreadSubmitterExecutor.instance(), 10, false);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new CoalescingListenerHelper(ArrayList.class, SameThreadSubmitterExecutor.instance(), 10, false);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new CoalescingListenerHelper(TestInterface.class, null, 10, false);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new CoalescingListenerHelper(TestInterface.class, SameThreadSubmitterExecutor.instance(), 0, false);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  @Test
+  public void singleDrainTaskTest() {
+    TestableScheduler scheduler = new TestableScheduler();
+    CoalescingListenerHelper<IntListener> clh = 
+        CoalescingListenerHelper.build(IntListener.class, scheduler, 10, false);
+    RecordingIntListener listener = new RecordingIntListener();
+    clh.addListener(listener);
+    
+    for (int i = 0; i < 5; i++) {
+      clh.call().event(i);
+    }
+    
+    assertEquals(5, clh.getQueuedEventCount(listener));
+    assertEquals(1, scheduler.tick());
+    assertEquals(0, clh.getQueuedEventCount(listener));
+    assertEquals(5, listener.values.size());
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, listener.values.get(i).intValue());
+    }
+  }
+  
+  @Test
+  public void batchSizeTest() {
+    TestableScheduler scheduler = new TestableScheduler();
+    CoalescingListenerHelper<IntListener> clh = 
+        CoalescingListenerHelper.build(IntListener.class, scheduler, 2, false);
+    RecordingIntListener listener = new RecordingIntListener();
+    clh.addListener(listener);
+    
+    for (int i = 0; i < 5; i++) {
+      clh.call().event(i);
+    }
+    
+    // each drain task re-submits itself after the batch, which will run on the same tick
+    assertEquals(3, scheduler.tick());
+    assertEquals(5, listener.values.size());
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, listener.values.get(i).intValue());
+    }
+  }
+  
+  @Test
+  public void conflateEventsTest() {
+    TestableScheduler scheduler = new TestableScheduler();
+    CoalescingListenerHelper<IntListener> clh = 
+        CoalescingListenerHelper.build(IntListener.class, scheduler, 10, true);
+    RecordingIntListener listener = new RecordingIntListener();
+    clh.addListener(listener);
+    
+    for (int i = 0; i < 5; i++) {
+      clh.call().event(i);
+    }
+    clh.call().otherEvent();
+    
+    assertEquals(2, clh.getQueuedEventCount(listener));
+    assertEquals(1, scheduler.tick());
+    assertEquals(1, listener.values.size());
+    assertEquals(4, listener.values.get(0).intValue());
+    assertEquals(1, listener.otherCallCount);
+  }
+  
+  @Test
+  public void removeListenerDropsQueuedEventsTest() {
+    TestableScheduler scheduler = new TestableScheduler();
+    CoalescingListenerHelper<IntListener> clh = 
+        CoalescingListenerHelper.build(IntListener.class, scheduler, 10, false);
+    RecordingIntListener listener = new RecordingIntListener();
+    clh.addListener(listener);
+    
+    clh.call().event(1);
+    assertTrue(clh.removeListener(listener));
+    scheduler.tick();
+    
+    assertTrue(listener.values.isEmpty());
+    assertEquals(0, clh.getQueuedEventCount(listener));
+  }
+  
+  @Test
+  public void listenerExecutorTest() {
+    TestableScheduler scheduler = new TestableScheduler();
+    TestableScheduler listenerScheduler = new TestableScheduler();
+    CoalescingListenerHelper<IntListener> clh = 
+        CoalescingListenerHelper.build(IntListener.class, scheduler, 10, false);
+    RecordingIntListener listener = new RecordingIntListener();
+    clh.addListener(listener, listenerScheduler);
+    
+    clh.call().event(1);
+    
+    assertEquals(0, scheduler.tick());
+    assertEquals(1, listenerScheduler.tick());
+    assertEquals(1, listener.values.size());
+  }
+  
+  @Test
+  public void drainRejectedTest() {
+    RejectingExecutor executor = new RejectingExecutor();
+    CoalescingListenerHelper<IntListener> clh = 
+        CoalescingListenerHelper.build(IntListener.class, executor, 1, false);
+    RecordingIntListener listener = new RecordingIntListener();
+    clh.addListener(listener);
+    
+    clh.call().event(1);
+    clh.call().event(2);
+    assertEquals(1, executor.tasks.size());
+    
+    executor.reject = true;
+    try {
+      executor.tasks.remove(0).run();
+      fail("Exception should have thrown");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+    assertEquals(1, listener.values.size());
+    
+    executor.reject = false;
+    clh.call().event(3);
+    assertEquals(1, executor.tasks.size());
+    while (! executor.tasks.isEmpty()) {
+      executor.tasks.remove(0).run();
+    }
+    
+    assertEquals(3, listener.values.size());
+    assertEquals(3, listener.values.get(2).intValue());
+  }
+  
+  protected static class RejectingExecutor implements Executor {
+    private final List<Runnable> tasks = new ArrayList<Runnable>();
+    private boolean reject = false;
+    
+    @Override
+    public void execute(Runnable task) {
+      if (reject) {
+        throw new RejectedExecutionException();
+      }
+      tasks.add(task);
+    }
+  }
+  
+  protected interface IntListener {
+    public void event(int i);
+    public void otherEvent();
+  }
+  
+  protected static class RecordingIntListener implements IntListener {
+    private final List<Integer> values = new ArrayList<Integer>();
+    private int otherCallCount = 0;
+    
+    @Override
+    public void event(int i) {
+      values.add(i);
+    }
+    
+    @Override
+    public void otherEvent() {
+      otherCallCount++;
+    }
+  }
+}
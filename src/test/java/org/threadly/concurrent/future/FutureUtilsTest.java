@@ -11,6 +11,7 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -617,4 +618,142 @@ public class FutureUtilsTest {
     
     ImmediateListenableFutureTest.failureAddCallbackTest(testFuture, failure);
   }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void withTimeoutNegativeTimeoutFail() {
+    FutureUtils.withTimeout(new SettableListenableFuture<Object>(), -1, scheduler);
+    fail("Exception should have thrown");
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void withDeadlineNullFutureFail() {
+    FutureUtils.withDeadline(null, 0, scheduler);
+    fail("Exception should have thrown");
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void withDeadlineNullSchedulerFail() {
+    FutureUtils.withDeadline(new SettableListenableFuture<Object>(), 0, null);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void withTimeoutCompletesTest() throws InterruptedException, ExecutionException {
+    SettableListenableFuture<String> slf = new SettableListenableFuture<String>();
+    DeadlineListenableFuture<String> dlf = FutureUtils.withTimeout(slf, 1000 * 10, scheduler);
+    
+    assertFalse(dlf.isDone());
+    assertTrue(dlf.getRemainingTimeInMs() > 0);
+    
+    String result = StringUtils.randomString(5);
+    slf.setResult(result);
+    
+    assertTrue(dlf.isDone());
+    assertEquals(result, dlf.get());
+    assertFalse(dlf.isTimedOut());
+  }
+  
+  @Test
+  public void withTimeoutDelegateFailureTest() throws InterruptedException {
+    SettableListenableFuture<String> slf = new SettableListenableFuture<String>();
+    DeadlineListenableFuture<String> dlf = FutureUtils.withTimeout(slf, 1000 * 10, scheduler);
+    Exception failure = new Exception();
+    slf.setFailure(failure);
+    
+    try {
+      dlf.get();
+      fail("Exception should have thrown");
+    } catch (ExecutionException e) {
+      assertTrue(failure == e.getCause());
+    }
+    assertFalse(dlf.isTimedOut());
+  }
+  
+  @Test
+  public void withTimeoutTimesOutTest() throws InterruptedException {
+    ListenableFutureTask<String> lft = new ListenableFutureTask<String>(false, new TestRunnable());
+    DeadlineListenableFuture<String> dlf = FutureUtils.withTimeout(lft, DELAY_TIME, scheduler);
+    
+    try {
+      dlf.get();
+      fail("Exception should have thrown");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof DeadlineListenableFuture.DeadlineTimeoutException);
+    }
+    assertTrue(dlf.isTimedOut());
+    assertTrue(lft.isCancelled());
+    assertEquals(0, dlf.getRemainingTimeInMs());
+  }
+  
+  @Test
+  public void withTimeoutCancelTest() throws InterruptedException, ExecutionException {
+    SettableListenableFuture<String> slf = new SettableListenableFuture<String>();
+    DeadlineListenableFuture<String> dlf = FutureUtils.withTimeout(slf, 1000 * 10, scheduler);
+    TestRunnable listener = new TestRunnable();
+    dlf.addListener(listener);
+    
+    assertTrue(dlf.cancel(false));
+    
+    assertTrue(dlf.isDone());
+    assertTrue(dlf.isCancelled());
+    assertFalse(dlf.isTimedOut());
+    assertTrue(listener.ranOnce());
+    assertFalse(dlf.cancel(false));
+    try {
+      dlf.get();
+      fail("Exception should have thrown");
+    } catch (CancellationException e) {
+      // expected
+    }
+    
+    // delegate completing after cancel should have no impact
+    slf.setResult(StringUtils.randomString(5));
+    assertTrue(dlf.isCancelled());
+  }
+  
+  @Test
+  public void withTimeoutNotCancelledBeforeDoneTest() {
+    ListenableFutureTask<String> lft = new ListenableFutureTask<String>(false, new TestRunnable());
+    final DeadlineListenableFuture<String> dlf = 
+        FutureUtils.withTimeout(lft, 1000 * 10, scheduler);
+    final AtomicBoolean cancelledBeforeDone = new AtomicBoolean(false);
+    // invoked while the delegate is canceled, before the cancel has completed
+    lft.addListener(new Runnable() {
+      @Override
+      public void run() {
+        if (dlf.isCancelled() && ! dlf.isDone()) {
+          cancelledBeforeDone.set(true);
+        }
+      }
+    });
+    
+    assertTrue(dlf.cancel(false));
+    
+    assertFalse(cancelledBeforeDone.get());
+    assertTrue(dlf.isDone());
+    assertTrue(dlf.isCancelled());
+  }
+  
+  @Test
+  public void withTimeoutCancelAfterDoneTest() throws InterruptedException, ExecutionException {
+    SettableListenableFuture<String> slf = new SettableListenableFuture<String>();
+    DeadlineListenableFuture<String> dlf = FutureUtils.withTimeout(slf, 1000 * 10, scheduler);
+    String result = StringUtils.randomString(5);
+    slf.setResult(result);
+    
+    assertFalse(dlf.cancel(false));
+    assertFalse(dlf.isCancelled());
+    assertEquals(result, dlf.get());
+  }
+  
+  @Test
+  public void withDeadlineAlreadyDoneTest() throws InterruptedException, ExecutionException {
+    String result = StringUtils.randomString(5);
+    DeadlineListenableFuture<String> dlf = 
+        FutureUtils.withDeadline(FutureUtils.immediateResultFuture(result), 0, scheduler);
+    
+    assertTrue(dlf.isDone());
+    assertEquals(result, dlf.get());
+    assertFalse(dlf.isTimedOut());
+  }
 }
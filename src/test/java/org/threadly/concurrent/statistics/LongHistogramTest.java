@@ -0,0 +1,124 @@
+package org.threadly.concurrent.statistics;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LongHistogramTest {
+  private LongHistogram histogram;
+  
+  @Before
+  public void setup() {
+    histogram = new LongHistogram();
+  }
+  
+  @After
+  public void cleanup() {
+    histogram = null;
+  }
+  
+  @Test
+  public void bucketIndexRoundTripTest() {
+    for (int i = 0; i < LongHistogram.BUCKET_COUNT; i++) {
+      assertEquals(i, LongHistogram.bucketIndex(LongHistogram.bucketLowestValue(i)));
+    }
+    assertEquals(LongHistogram.BUCKET_COUNT - 1, LongHistogram.bucketIndex(Long.MAX_VALUE));
+  }
+  
+  @Test
+  public void bucketPrecisionTest() {
+    Random r = new Random(1);
+    for (int i = 0; i < 10000; i++) {
+      long value = Math.abs(r.nextLong() >>> r.nextInt(63));
+      long lowest = LongHistogram.bucketLowestValue(LongHistogram.bucketIndex(value));
+      
+      assertTrue(lowest <= value);
+      assertTrue(value - lowest <= value / 64);
+    }
+  }
+  
+  @Test
+  public void emptyTest() {
+    assertEquals(0, histogram.getCount());
+    assertEquals(-1, histogram.getValueAtPercentile(50));
+  }
+  
+  @Test
+  public void exactMedianTest() {
+    List<Long> values = new ArrayList<Long>();
+    Random r = new Random(1);
+    for (int i = 0; i < 101; i++) {
+      long value = r.nextInt(LongHistogram.EXACT_VALUE_LIMIT);
+      values.add(value);
+      histogram.add(value);
+    }
+    Collections.sort(values);
+    
+    assertEquals(values.size(), histogram.getCount());
+    assertEquals(values.get(values.size() / 2).longValue(), histogram.getValueAtPercentile(50));
+    assertEquals(values.get(0).longValue(), histogram.getValueAtPercentile(0));
+    assertEquals(values.get(values.size() - 1).longValue(), histogram.getValueAtPercentile(100));
+  }
+  
+  @Test
+  public void largeValuePercentileTest() {
+    for (int i = 1; i <= 1000; i++) {
+      histogram.add(i * 1000L);
+    }
+    
+    long p99 = histogram.getValueAtPercentile(99);
+    assertTrue(p99 <= 991000);
+    assertTrue(p99 >= 991000 - (991000 / 64));
+  }
+  
+  @Test
+  public void removeTest() {
+    histogram.add(10);
+    histogram.add(20);
+    histogram.remove(10);
+    
+    assertEquals(1, histogram.getCount());
+    assertEquals(20, histogram.getValueAtPercentile(0));
+  }
+  
+  @Test
+  public void resetTest() {
+    histogram.add(10);
+    histogram.add(1000 * 1000);
+    histogram.reset();
+    
+    assertEquals(0, histogram.getCount());
+  }
+  
+  @Test
+  public void mergedPercentileTest() {
+    LongHistogram other = new LongHistogram();
+    histogram.add(1);
+    histogram.add(2);
+    other.add(3);
+    other.add(4);
+    other.add(5);
+    
+    assertEquals(3, LongHistogram.getValueAtPercentile(50, histogram, other));
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void addNegativeFail() {
+    histogram.add(-1);
+    fail("Exception should have thrown");
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void percentileOutOfRangeFail() {
+    histogram.getValueAtPercentile(101);
+    fail("Exception should have thrown");
+  }
+}
@@ -0,0 +1,151 @@
+package org.threadly.concurrent.statistics;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RollingLongWindowTest {
+  private RollingLongWindow window;
+  
+  @Before
+  public void setup() {
+    window = new RollingLongWindow(TEST_QTY, true);
+  }
+  
+  @After
+  public void cleanup() {
+    window = null;
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void constructorWindowSizeFail() {
+    new RollingLongWindow(0, true);
+    fail("Exception should have thrown");
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void constructorStripeCountFail() {
+    new RollingLongWindow(1, 0, true);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void stripeCountRoundedTest() {
+    assertEquals(1, window.getStripeCount());
+    assertEquals(4, new RollingLongWindow(1, 3, false).getStripeCount());
+    assertEquals(8, new RollingLongWindow(1, 8, false).getStripeCount());
+  }
+  
+  @Test
+  public void emptyTest() {
+    assertEquals(0, window.getCount());
+    assertEquals(0, window.getSum());
+    assertEquals(-1, window.getAverage());
+    assertEquals(-1, window.getValueAtPercentile(50));
+    assertTrue(window.getSamples().isEmpty());
+  }
+  
+  @Test
+  public void recordTest() {
+    for (int i = 0; i < TEST_QTY; i++) {
+      window.record(i);
+    }
+    
+    assertEquals(TEST_QTY, window.getCount());
+    assertEquals((TEST_QTY * (TEST_QTY - 1)) / 2, window.getSum());
+    assertEquals(TEST_QTY / 2, window.getValueAtPercentile(50));
+    List<Long> samples = window.getSamples();
+    for (int i = 0; i < TEST_QTY; i++) {
+      assertEquals(i, samples.get(i).longValue());
+    }
+  }
+  
+  @Test
+  public void windowRollsTest() {
+    for (int i = 0; i < TEST_QTY * 3; i++) {
+      window.record(i);
+    }
+    
+    assertEquals(TEST_QTY, window.getCount());
+    List<Long> samples = window.getSamples();
+    assertEquals(TEST_QTY, samples.size());
+    long expectedSum = 0;
+    for (int i = 0; i < TEST_QTY; i++) {
+      long expected = (TEST_QTY * 2) + i;
+      expectedSum += expected;
+      assertEquals(expected, samples.get(i).longValue());
+    }
+    assertEquals(expectedSum, window.getSum());
+    assertEquals(TEST_QTY * 2, window.getValueAtPercentile(0));
+  }
+  
+  @Test
+  public void recordBooleanTest() {
+    window.record(true);
+    window.record(false);
+    window.record(true);
+    window.record(true);
+    
+    assertEquals(75, window.getAverage(100), 0);
+  }
+  
+  @Test
+  public void resetTest() {
+    for (int i = 0; i < TEST_QTY; i++) {
+      window.record(i);
+    }
+    
+    window.reset();
+    
+    assertEquals(0, window.getCount());
+    assertEquals(0, window.getSum());
+    assertEquals(-1, window.getValueAtPercentile(50));
+    
+    window.record(10);
+    assertEquals(10, window.getAverage());
+  }
+  
+  @Test (expected = UnsupportedOperationException.class)
+  public void percentileNotTrackedFail() {
+    new RollingLongWindow(1, false).getValueAtPercentile(50);
+    fail("Exception should have thrown");
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void recordNegativeFail() {
+    window.record(-1);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void concurrentRecordTest() throws InterruptedException {
+    final RollingLongWindow window = new RollingLongWindow(1000, 4, true);
+    Thread[] threads = new Thread[TEST_QTY];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 1000; j++) {
+            window.record(1);
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    
+    // every sample is 1, so the count and sum must always agree
+    assertTrue(window.getCount() > 0);
+    assertEquals(window.getCount(), window.getSum());
+    assertEquals(window.getCount(), window.getSamples().size());
+    assertEquals(1, window.getValueAtPercentile(99.9));
+  }
+}
@@ -0,0 +1,178 @@
+package org.threadly.concurrent.statistics;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.concurrent.PriorityScheduler;
+import org.threadly.concurrent.StrictPriorityScheduler;
+import org.threadly.concurrent.SubmitterExecutorInterface;
+import org.threadly.concurrent.SubmitterExecutorInterfaceTest;
+import org.threadly.test.concurrent.TestRunnable;
+import org.threadly.test.concurrent.TestableScheduler;
+
+@SuppressWarnings("javadoc")
+public class StatisticExecutorTest extends SubmitterExecutorInterfaceTest {
+  private TestableScheduler scheduler;
+  private StatisticExecutor statisticExecutor;
+  
+  @Before
+  public void setup() {
+    scheduler = new TestableScheduler();
+    statisticExecutor = new StatisticExecutor(scheduler);
+  }
+  
+  @After
+  public void cleanup() {
+    scheduler = null;
+    statisticExecutor = null;
+  }
+  
+  @Override
+  protected SubmitterExecutorFactory getSubmitterExecutorFactory() {
+    return new StatisticExecutorFactory();
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void constructorFail() {
+    new StatisticExecutor(null);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void noStatisticsTest() {
+    assertEquals(-1, statisticExecutor.getAverageQueueWaitTime());
+    assertEquals(-1, statisticExecutor.getQueueWaitTimePercentile(99));
+    assertEquals(-1, statisticExecutor.getAverageTaskRunTime());
+    assertEquals(-1, statisticExecutor.getTaskRunTimePercentile(99));
+    assertEquals(0, statisticExecutor.getQueuedTaskCount());
+    assertEquals(0, statisticExecutor.getCurrentRunningCount());
+    assertEquals(0, statisticExecutor.getSubmittedTaskCount());
+    assertEquals(0, statisticExecutor.getCompletedTaskCount());
+  }
+  
+  @Test
+  public void taskCountsTest() {
+    for (int i = 0; i < TEST_QTY; i++) {
+      statisticExecutor.execute(new TestRunnable());
+      statisticExecutor.submit(new TestRunnable());
+    }
+    
+    assertEquals(TEST_QTY * 2, statisticExecutor.getQueuedTaskCount());
+    assertEquals(TEST_QTY * 2, statisticExecutor.getSubmittedTaskCount());
+    assertEquals(0, statisticExecutor.getCompletedTaskCount());
+    
+    assertEquals(TEST_QTY * 2, scheduler.tick());
+    
+    assertEquals(0, statisticExecutor.getQueuedTaskCount());
+    assertEquals(0, statisticExecutor.getCurrentRunningCount());
+    assertEquals(TEST_QTY * 2, statisticExecutor.getSubmittedTaskCount());
+    assertEquals(TEST_QTY * 2, statisticExecutor.getCompletedTaskCount());
+    assertTrue(statisticExecutor.getAverageQueueWaitTime() >= 0);
+    assertTrue(statisticExecutor.getTaskRunTimePercentile(50) >= 0);
+  }
+  
+  @Test
+  public void runningCountTest() {
+    final StatisticExecutor[] holder = new StatisticExecutor[1];
+    final int[] runningCount = new int[1];
+    holder[0] = statisticExecutor;
+    statisticExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        runningCount[0] = holder[0].getCurrentRunningCount();
+      }
+    });
+    
+    scheduler.tick();
+    
+    assertEquals(1, runningCount[0]);
+    assertEquals(0, statisticExecutor.getCurrentRunningCount());
+  }
+  
+  @Test
+  public void runTimePercentileTest() {
+    statisticExecutor.execute(new TestRunnable(DELAY_TIME));
+    statisticExecutor.execute(new TestRunnable());
+    scheduler.tick();
+    
+    assertTrue(statisticExecutor.getTaskRunTimePercentile(100) >= DELAY_TIME);
+    assertTrue(statisticExecutor.getTaskRunTimePercentile(0) < DELAY_TIME);
+  }
+  
+  @Test
+  public void queueWaitTimeTest() throws InterruptedException {
+    statisticExecutor.execute(new TestRunnable());
+    Thread.sleep(DELAY_TIME);
+    scheduler.tick();
+    
+    assertTrue(statisticExecutor.getQueueWaitTimePercentile(50) >= DELAY_TIME);
+    assertTrue(statisticExecutor.getAverageQueueWaitTime() >= DELAY_TIME);
+  }
+  
+  @Test
+  public void rejectedTaskNotCountedTest() {
+    statisticExecutor = new StatisticExecutor(new Executor() {
+      @Override
+      public void execute(Runnable command) {
+        throw new RejectedExecutionException();
+      }
+    });
+    
+    try {
+      statisticExecutor.execute(new TestRunnable());
+      fail("Exception should have thrown");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+    
+    assertEquals(0, statisticExecutor.getQueuedTaskCount());
+    assertEquals(0, statisticExecutor.getSubmittedTaskCount());
+  }
+  
+  @Test
+  public void resetCollectedStatsTest() {
+    statisticExecutor.execute(new TestRunnable());
+    scheduler.tick();
+    
+    statisticExecutor.resetCollectedStats();
+    
+    assertEquals(-1, statisticExecutor.getAverageQueueWaitTime());
+    assertEquals(-1, statisticExecutor.getTaskRunTimePercentile(50));
+    // totals are not reset
+    assertEquals(1, statisticExecutor.getCompletedTaskCount());
+  }
+  
+  private static class StatisticExecutorFactory implements SubmitterExecutorFactory {
+    private final List<PriorityScheduler> executors = new ArrayList<PriorityScheduler>(1);
+    
+    @Override
+    public SubmitterExecutorInterface makeSubmitterExecutor(int poolSize, 
+                                                            boolean prestartIfAvailable) {
+      PriorityScheduler executor = new StrictPriorityScheduler(poolSize);
+      if (prestartIfAvailable) {
+        executor.prestartAllThreads();
+      }
+      executors.add(executor);
+      
+      return new StatisticExecutor(executor);
+    }
+    
+    @Override
+    public void shutdown() {
+      Iterator<PriorityScheduler> it = executors.iterator();
+      while (it.hasNext()) {
+        it.next().shutdownNow();
+        it.remove();
+      }
+    }
+  }
+}
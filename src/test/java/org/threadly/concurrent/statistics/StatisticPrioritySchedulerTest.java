@@ -0,0 +1,188 @@
+package org.threadly.concurrent.statistics;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+import org.threadly.concurrent.PriorityScheduler;
+import org.threadly.concurrent.SchedulerServiceInterface;
+import org.threadly.concurrent.SchedulerServiceInterfaceTest;
+import org.threadly.concurrent.StrictPriorityScheduler;
+import org.threadly.concurrent.SubmitterExecutorInterface;
+import org.threadly.concurrent.SubmitterSchedulerInterface;
+import org.threadly.concurrent.TaskPriority;
+import org.threadly.concurrent.TestCallable;
+import org.threadly.test.concurrent.TestCondition;
+import org.threadly.test.concurrent.TestRunnable;
+
+@SuppressWarnings("javadoc")
+public class StatisticPrioritySchedulerTest extends SchedulerServiceInterfaceTest {
+  @Override
+  protected SchedulerServiceFactory getSchedulerServiceFactory() {
+    return new StatisticPrioritySchedulerFactory();
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void constructorFail() {
+    new StatisticPriorityScheduler(null);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void getDefaultPriorityTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1, TaskPriority.Low, 100);
+    try {
+      assertEquals(TaskPriority.Low, 
+                   new StatisticPriorityScheduler(scheduler).getDefaultPriority());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void priorityExecutionStatisticsTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      final StatisticPriorityScheduler statisticScheduler =
+          new StatisticPriorityScheduler(scheduler);
+      List<TestRunnable> runnables = new ArrayList<TestRunnable>(TEST_QTY * 2);
+      for (int i = 0; i < TEST_QTY; i++) {
+        TestRunnable highTR = new TestRunnable();
+        runnables.add(highTR);
+        statisticScheduler.execute(highTR, TaskPriority.High);
+        TestRunnable lowTR = new TestRunnable();
+        runnables.add(lowTR);
+        statisticScheduler.submit(lowTR, TaskPriority.Low);
+      }
+      
+      for (TestRunnable tr : runnables) {
+        tr.blockTillFinished();
+      }
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return statisticScheduler.getCompletedTaskCount() == TEST_QTY * 2;
+        }
+      }.blockTillTrue();
+      
+      assertEquals(TEST_QTY * 2, statisticScheduler.getSubmittedTaskCount());
+      assertEquals(0, statisticScheduler.getQueuedTaskCount());
+      assertTrue(statisticScheduler.getQueueWaitTimePercentile(99) >= 0);
+      assertTrue(statisticScheduler.getTaskRunTimePercentile(99) >= 0);
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void scheduledQueueWaitExcludesDelayTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      StatisticPriorityScheduler statisticScheduler = new StatisticPriorityScheduler(scheduler);
+      TestRunnable tr = new TestRunnable();
+      statisticScheduler.schedule(tr, DELAY_TIME * 10, TaskPriority.High);
+      
+      tr.blockTillFinished();
+      
+      // the task was delayed, but it should not have waited much past when it was ready
+      assertTrue(statisticScheduler.getQueueWaitTimePercentile(100) < DELAY_TIME * 10);
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void recurringTaskCountsTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      final StatisticPriorityScheduler statisticScheduler =
+          new StatisticPriorityScheduler(scheduler);
+      TestRunnable tr = new TestRunnable();
+      statisticScheduler.scheduleWithFixedDelay(tr, 0, 1, TaskPriority.Low);
+      
+      tr.blockTillFinished(1000 * 10, 2);
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return statisticScheduler.getCompletedTaskCount() >= 2;
+        }
+      }.blockTillTrue();
+      
+      assertEquals(1, statisticScheduler.getSubmittedTaskCount());
+      
+      assertTrue(statisticScheduler.remove(tr));
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return statisticScheduler.getCurrentRunningCount() == 0 && 
+                   statisticScheduler.getQueuedTaskCount() == 0;
+        }
+      }.blockTillTrue();
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  @Test
+  public void removeReducesQueuedCountTest() {
+    PriorityScheduler scheduler = new StrictPriorityScheduler(1);
+    try {
+      StatisticPriorityScheduler statisticScheduler = new StatisticPriorityScheduler(scheduler);
+      TestRunnable tr = new TestRunnable();
+      TestCallable tc = new TestCallable();
+      statisticScheduler.schedule(tr, 1000 * 10, TaskPriority.Low);
+      statisticScheduler.submitScheduled(tc, 1000 * 10, TaskPriority.High);
+      
+      assertEquals(2, statisticScheduler.getQueuedTaskCount());
+      assertTrue(statisticScheduler.remove(tr));
+      assertEquals(1, statisticScheduler.getQueuedTaskCount());
+      assertTrue(statisticScheduler.remove(tc));
+      assertEquals(0, statisticScheduler.getQueuedTaskCount());
+      assertFalse(statisticScheduler.remove(tr));
+      assertEquals(0, statisticScheduler.getQueuedTaskCount());
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
+  private static class StatisticPrioritySchedulerFactory implements SchedulerServiceFactory {
+    private final List<PriorityScheduler> executors = new ArrayList<PriorityScheduler>(1);
+    
+    @Override
+    public SubmitterExecutorInterface makeSubmitterExecutor(int poolSize, 
+                                                            boolean prestartIfAvailable) {
+      return makeSchedulerService(poolSize, prestartIfAvailable);
+    }
+    
+    @Override
+    public SubmitterSchedulerInterface makeSubmitterScheduler(int poolSize, 
+                                                              boolean prestartIfAvailable) {
+      return makeSchedulerService(poolSize, prestartIfAvailable);
+    }
+    
+    @Override
+    public SchedulerServiceInterface makeSchedulerService(int poolSize, 
+                                                          boolean prestartIfAvailable) {
+      PriorityScheduler executor = new StrictPriorityScheduler(poolSize);
+      if (prestartIfAvailable) {
+        executor.prestartAllThreads();
+      }
+      executors.add(executor);
+      
+      return new StatisticPriorityScheduler(executor);
+    }
+    
+    @Override
+    public void shutdown() {
+      Iterator<PriorityScheduler> it = executors.iterator();
+      while (it.hasNext()) {
+        it.next().shutdownNow();
+        it.remove();
+      }
+    }
+  }
+}
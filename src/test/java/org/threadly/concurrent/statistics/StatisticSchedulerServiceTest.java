@@ -0,0 +1,74 @@
+package org.threadly.concurrent.statistics;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.test.concurrent.TestRunnable;
+import org.threadly.test.concurrent.TestableScheduler;
+
+@SuppressWarnings("javadoc")
+public class StatisticSchedulerServiceTest {
+  private TestableScheduler scheduler;
+  private StatisticSchedulerService statisticScheduler;
+  
+  @Before
+  public void setup() {
+    scheduler = new TestableScheduler();
+    statisticScheduler = new StatisticSchedulerService(scheduler);
+  }
+  
+  @After
+  public void cleanup() {
+    scheduler = null;
+    statisticScheduler = null;
+  }
+  
+  @Test
+  public void removeScheduledTaskTest() {
+    TestRunnable tr = new TestRunnable();
+    statisticScheduler.schedule(tr, DELAY_TIME);
+    assertEquals(1, statisticScheduler.getQueuedTaskCount());
+    
+    assertTrue(statisticScheduler.remove(tr));
+    assertEquals(0, statisticScheduler.getQueuedTaskCount());
+    assertFalse(statisticScheduler.remove(tr));
+    assertEquals(0, statisticScheduler.getQueuedTaskCount());
+  }
+  
+  @Test
+  public void removeRecurringTaskTest() {
+    TestRunnable tr = new TestRunnable();
+    statisticScheduler.scheduleWithFixedDelay(tr, 0, DELAY_TIME);
+    assertEquals(1, scheduler.tick());
+    assertEquals(1, statisticScheduler.getQueuedTaskCount());
+    
+    assertTrue(statisticScheduler.remove(tr));
+    assertEquals(0, statisticScheduler.getQueuedTaskCount());
+    assertTrue(statisticScheduler.recurringTasks.isEmpty());
+  }
+  
+  @Test
+  public void removeRecurringTaskWhileRunningTest() {
+    TestRunnable tr = new TestRunnable() {
+      @Override
+      public void handleRunStart() {
+        assertTrue(statisticScheduler.remove(this));
+        // a running task is not queued, so removing it should not change the count
+        assertEquals(0, statisticScheduler.getQueuedTaskCount());
+      }
+    };
+    statisticScheduler.scheduleAtFixedRate(tr, 0, DELAY_TIME);
+    
+    assertEquals(1, scheduler.tick());
+    assertEquals(0, statisticScheduler.getQueuedTaskCount());
+    assertEquals(0, statisticScheduler.getCurrentRunningCount());
+    
+    // the task should not run again, or be counted as queued
+    assertEquals(0, scheduler.advance(DELAY_TIME * 2));
+    assertEquals(0, statisticScheduler.getQueuedTaskCount());
+    assertEquals(1, tr.getRunCount());
+  }
+}
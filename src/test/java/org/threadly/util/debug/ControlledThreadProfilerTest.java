@@ -185,6 +185,22 @@ public class ControlledThreadProfilerTest extends ProfilerTest {
     super.resetTest();
   }
   
+  @Test
+  @Override
+  public void getSamplesTest() {
+    ctProfiler.addProfiledThread(Thread.currentThread());
+    
+    super.getSamplesTest();
+  }
+  
+  @Test
+  @Override
+  public void taskAttributionTest() {
+    ctProfiler.addProfiledThread(Thread.currentThread());
+    
+    super.taskAttributionTest();
+  }
+  
   @Test
   public void dumpStoppedStringEmptyTest() {
     profiler.start();
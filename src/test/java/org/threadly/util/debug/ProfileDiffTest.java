@@ -0,0 +1,168 @@
+package org.threadly.util.debug;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ProfileDiffTest {
+  private static final StackTraceElement RUN_FRAME =
+      new StackTraceElement("java.lang.Thread", "run", "Thread.java", 1);
+  private static final StackTraceElement OUTER_FRAME =
+      new StackTraceElement("foo.Bar", "outer", "Bar.java", 10);
+  private static final StackTraceElement FAST_FRAME =
+      new StackTraceElement("foo.Bar", "fast", "Bar.java", 20);
+  private static final StackTraceElement SLOW_FRAME =
+      new StackTraceElement("foo.Bar", "slow", "Bar.java", 30);
+  private static final double DELTA = .0001;
+  
+  private StackTrie baseline;
+  private StackTrie current;
+  
+  @Before
+  public void setup() {
+    baseline = new StackTrie(100);
+    current = new StackTrie(100);
+    // baseline: 75% fast, 25% slow
+    baseline.addSample(StackTrie.ROOT_NODE, 
+                       new StackTraceElement[] { FAST_FRAME, OUTER_FRAME, RUN_FRAME }, 3);
+    baseline.addSample(StackTrie.ROOT_NODE, 
+                       new StackTraceElement[] { SLOW_FRAME, OUTER_FRAME, RUN_FRAME }, 1);
+    // current: 25% fast, 75% slow, with twice the samples
+    current.addSample(StackTrie.ROOT_NODE, 
+                      new StackTraceElement[] { FAST_FRAME, OUTER_FRAME, RUN_FRAME }, 2);
+    current.addSample(StackTrie.ROOT_NODE, 
+                      new StackTraceElement[] { SLOW_FRAME, OUTER_FRAME, RUN_FRAME }, 6);
+  }
+  
+  private static ProfileDiff.FunctionDelta findDelta(List<ProfileDiff.FunctionDelta> deltas, 
+                                                     String function) {
+    for (ProfileDiff.FunctionDelta delta : deltas) {
+      if (delta.getFunctionName().equals(function)) {
+        return delta;
+      }
+    }
+    
+    fail("Function not found: " + function);
+    return null;
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void constructorFail() {
+    new ProfileDiff(baseline, null);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void getFunctionDeltasTest() {
+    List<ProfileDiff.FunctionDelta> deltas = new ProfileDiff(baseline, current).getFunctionDeltas();
+    
+    assertEquals(4, deltas.size());
+    // largest regression first, largest improvement last
+    assertEquals("slow", deltas.get(0).getFunctionName());
+    assertEquals("fast", deltas.get(deltas.size() - 1).getFunctionName());
+    
+    ProfileDiff.FunctionDelta slow = deltas.get(0);
+    assertEquals("foo.Bar", slow.getClassName());
+    assertEquals(25, slow.getBaselineSelfPercent(), DELTA);
+    assertEquals(75, slow.getCurrentSelfPercent(), DELTA);
+    assertEquals(50, slow.getSelfPercentChange(), DELTA);
+    assertEquals(50, slow.getTotalPercentChange(), DELTA);
+    
+    ProfileDiff.FunctionDelta outer = findDelta(deltas, "outer");
+    assertEquals(0, outer.getSelfPercentChange(), DELTA);
+    assertEquals(100, outer.getBaselineTotalPercent(), DELTA);
+    assertEquals(100, outer.getCurrentTotalPercent(), DELTA);
+  }
+  
+  @Test
+  public void recursiveTotalPercentTest() {
+    current = new StackTrie(100);
+    current.addSample(new StackTraceElement[] { OUTER_FRAME, OUTER_FRAME, RUN_FRAME });
+    current.addSample(new StackTraceElement[] { FAST_FRAME, RUN_FRAME });
+    ProfileDiff.FunctionDelta outer =
+        findDelta(new ProfileDiff(baseline, current).getFunctionDeltas(), "outer");
+    
+    assertEquals(50, outer.getCurrentSelfPercent(), DELTA);
+    // recursive call should not be counted twice
+    assertEquals(50, outer.getCurrentTotalPercent(), DELTA);
+  }
+  
+  @Test
+  public void emptyBaselineTest() {
+    List<ProfileDiff.FunctionDelta> deltas =
+        new ProfileDiff(new StackTrie(10), current).getFunctionDeltas();
+    
+    ProfileDiff.FunctionDelta slow = findDelta(deltas, "slow");
+    assertEquals(0, slow.getBaselineSelfPercent(), DELTA);
+    assertEquals(75, slow.getCurrentSelfPercent(), DELTA);
+  }
+  
+  @Test
+  public void getRegressionsTest() {
+    ProfileDiff diff = new ProfileDiff(baseline, current);
+    
+    List<ProfileDiff.FunctionDelta> regressions = diff.getRegressions(10);
+    assertEquals(1, regressions.size());
+    assertEquals("slow", regressions.get(0).getFunctionName());
+    assertTrue(diff.getRegressions(60).isEmpty());
+    assertTrue(new ProfileDiff(baseline, baseline).getRegressions(0).isEmpty());
+  }
+  
+  @Test
+  public void dumpTest() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ProfileDiff(baseline, current).dump(new PrintStream(out));
+    String result = out.toString();
+    
+    assertTrue(result.contains("+50.00%"));
+    assertTrue(result.contains("-50.00%"));
+    assertTrue(result.indexOf("foo.Bar.slow") < result.indexOf("foo.Bar.fast"));
+  }
+  
+  @Test
+  public void writeCollapsedDiffTest() throws IOException {
+    StackTraceElement removedFrame = new StackTraceElement("foo.Bar", "removed", "Bar.java", 40);
+    StackTraceElement addedFrame = new StackTraceElement("foo.Bar", "added", "Bar.java", 50);
+    baseline.addSample(new StackTraceElement[] { removedFrame, RUN_FRAME });
+    current.addSample(new StackTraceElement[] { addedFrame, RUN_FRAME });
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ProfileDiff(baseline, current).writeCollapsedDiff(out);
+    
+    Set<String> expected = new HashSet<String>();
+    expected.add("java.lang.Thread.run;foo.Bar.outer;foo.Bar.fast 3 2");
+    expected.add("java.lang.Thread.run;foo.Bar.outer;foo.Bar.slow 1 6");
+    expected.add("java.lang.Thread.run;foo.Bar.added 0 1");
+    expected.add("java.lang.Thread.run;foo.Bar.removed 1 0");
+    assertEquals(expected, 
+                 new HashSet<String>(Arrays.asList(out.toString(ProfileUtils.CHARSET).split("\n"))));
+  }
+  
+  @Test
+  public void writeCollapsedDiffDeepStackTest() throws IOException {
+    StackTraceElement[] stack = new StackTraceElement[20];
+    for (int i = 0; i < stack.length; i++) {
+      stack[i] = new StackTraceElement("foo.Deep", "depth" + i, "Deep.java", i + 1);
+    }
+    baseline = new StackTrie(100);
+    current = new StackTrie(100);
+    baseline.addSample(StackTrie.ROOT_NODE, stack, 7);
+    current.addSample(StackTrie.ROOT_NODE, stack, 7);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new ProfileDiff(baseline, current).writeCollapsedDiff(out);
+    
+    String[] lines = out.toString(ProfileUtils.CHARSET).split("\n");
+    assertEquals(1, lines.length);
+    assertTrue(lines[0].startsWith("foo.Deep.depth19;"));
+    assertTrue(lines[0].endsWith(";foo.Deep.depth0 7 7"));
+  }
+}
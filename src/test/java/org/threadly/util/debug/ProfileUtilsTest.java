@@ -0,0 +1,117 @@
+package org.threadly.util.debug;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class ProfileUtilsTest {
+  private static final StackTraceElement RUN_FRAME =
+      new StackTraceElement("java.lang.Thread", "run", "Thread.java", 1);
+  private static final StackTraceElement OUTER_FRAME =
+      new StackTraceElement("foo.Bar", "outer", "Bar.java", 10);
+  private static final StackTraceElement INNER_FRAME =
+      new StackTraceElement("foo.Bar", "inner", null, -1);
+  private static final StackTraceElement NATIVE_FRAME =
+      new StackTraceElement("foo.Baz", "nativeCall", "Baz.java", -2);
+  
+  private StackTrie trie;
+  
+  @Before
+  public void setup() {
+    trie = new StackTrie(100);
+    trie.addSample(new StackTraceElement[] { INNER_FRAME, OUTER_FRAME, RUN_FRAME });
+    trie.addSample(new StackTraceElement[] { INNER_FRAME, OUTER_FRAME, RUN_FRAME });
+    trie.addSample(new StackTraceElement[] { OUTER_FRAME, RUN_FRAME });
+    trie.addSample(new StackTraceElement[] { NATIVE_FRAME, RUN_FRAME });
+  }
+  
+  private static Set<String> lines(ByteArrayOutputStream out) throws IOException {
+    return new HashSet<String>(Arrays.asList(out.toString(ProfileUtils.CHARSET).split("\n")));
+  }
+  
+  @Test
+  public void writeCollapsedStacksTest() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProfileUtils.writeCollapsedStacks(trie, out);
+    
+    Set<String> expected = new HashSet<String>();
+    expected.add("java.lang.Thread.run;foo.Bar.outer;foo.Bar.inner 2");
+    expected.add("java.lang.Thread.run;foo.Bar.outer 1");
+    expected.add("java.lang.Thread.run;foo.Baz.nativeCall 1");
+    assertEquals(expected, lines(out));
+  }
+  
+  @Test
+  public void writeCollapsedStacksEmptyTest() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProfileUtils.writeCollapsedStacks(new StackTrie(10), out);
+    
+    assertEquals(0, out.size());
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void writeCollapsedStacksFail() throws IOException {
+    ProfileUtils.writeCollapsedStacks(trie, null);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void binaryRoundTripTest() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProfileUtils.writeBinary(trie, out);
+    StackTrie result = ProfileUtils.readBinary(new ByteArrayInputStream(out.toByteArray()));
+    
+    assertEquals(trie.getMaxNodes(), result.getMaxNodes());
+    assertEquals(trie.getNodeCount(), result.getNodeCount());
+    assertEquals(trie.getFrameCount(), result.getFrameCount());
+    assertEquals(trie.getSampleCount(), result.getSampleCount());
+    for (int node = StackTrie.ROOT_NODE + 1; node < trie.getNodeCount(); node++) {
+      assertArrayEquals(trie.getStack(node), result.getStack(node));
+      assertEquals(trie.getSelfCount(node), result.getSelfCount(node));
+      assertEquals(trie.getTotalCount(node), result.getTotalCount(node));
+    }
+    
+    ByteArrayOutputStream collapsedExpected = new ByteArrayOutputStream();
+    ProfileUtils.writeCollapsedStacks(trie, collapsedExpected);
+    ByteArrayOutputStream collapsedResult = new ByteArrayOutputStream();
+    ProfileUtils.writeCollapsedStacks(result, collapsedResult);
+    assertEquals(lines(collapsedExpected), lines(collapsedResult));
+  }
+  
+  @Test
+  public void binaryRoundTripTruncatedTest() throws IOException {
+    trie = new StackTrie(2);
+    trie.addSample(new StackTraceElement[] { OUTER_FRAME, RUN_FRAME });
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProfileUtils.writeBinary(trie, out);
+    StackTrie result = ProfileUtils.readBinary(new ByteArrayInputStream(out.toByteArray()));
+    
+    assertEquals(2, result.getNodeCount());
+    assertEquals(1, result.getSampleCount());
+    assertEquals(1, result.getTruncatedSampleCount());
+  }
+  
+  @Test (expected = IOException.class)
+  public void readBinaryBadMagicFail() throws IOException {
+    ProfileUtils.readBinary(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6 }));
+    fail("Exception should have thrown");
+  }
+  
+  @Test (expected = IOException.class)
+  public void readBinaryTruncatedFail() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ProfileUtils.writeBinary(trie, out);
+    byte[] data = Arrays.copyOf(out.toByteArray(), out.size() - 2);
+    ProfileUtils.readBinary(new ByteArrayInputStream(data));
+    fail("Exception should have thrown");
+  }
+}
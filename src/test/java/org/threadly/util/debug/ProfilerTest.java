@@ -188,6 +188,44 @@ public class ProfilerTest {
     assertEquals(0, profiler.getCollectedSampleQty());
   }
   
+  @Test
+  public void getSamplesTest() {
+    assertEquals(0, profiler.getSamples().getSampleCount());
+    
+    profiler.start();
+    blockForProfilerSample();
+    profiler.stop();
+    
+    StackTrie samples = profiler.getSamples();
+    assertTrue(samples.getSampleCount() > 0);
+    assertEquals(0, samples.getTruncatedSampleCount());
+  }
+  
+  @Test
+  public void taskAttributionTest() {
+    assertFalse(profiler.isTaskAttributionEnabled());
+    profiler.setTaskAttributionEnabled(true);
+    assertTrue(profiler.isTaskAttributionEnabled());
+    
+    RunningTaskRegistry.Slot slot = RunningTaskRegistry.getCurrentThreadSlot();
+    slot.setTask("profiledTask");
+    try {
+      profiler.start();
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return profiler.pStore.threadTraces.containsKey(Profiler.TASK_IDENTIFIER_PREFIX + 
+                                                            "profiledTask");
+        }
+      }.blockTillTrue(1000 * 20);
+    } finally {
+      slot.setTask(null);
+    }
+    profiler.stop();
+    
+    assertTrue(profiler.dump().contains("Profile for task: profiledTask"));
+  }
+  
   @Test
   public void dumpStoppedStringTest() {
     profiler.start();
@@ -0,0 +1,231 @@
+package org.threadly.util.debug;
+
+import static org.junit.Assert.*;
+import static org.threadly.TestConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.util.StringUtils;
+
+@SuppressWarnings("javadoc")
+public class RingBufferDebugLoggerTest {
+  private RingBufferDebugLogger logger;
+  
+  @Before
+  public void setup() {
+    logger = new RingBufferDebugLogger();
+  }
+  
+  @Test
+  public void constructorTest() {
+    assertEquals(RingBufferDebugLogger.DEFAULT_PER_THREAD_CAPACITY, logger.getPerThreadCapacity());
+    assertEquals(RingBufferDebugLogger.OverflowPolicy.OverwriteOldest, logger.getOverflowPolicy());
+    
+    logger = new RingBufferDebugLogger(3, RingBufferDebugLogger.OverflowPolicy.DropNewest);
+    // rounded up to power of two
+    assertEquals(4, logger.getPerThreadCapacity());
+    assertEquals(RingBufferDebugLogger.OverflowPolicy.DropNewest, logger.getOverflowPolicy());
+  }
+  
+  @SuppressWarnings("unused")
+  @Test
+  public void constructorFail() {
+    try {
+      new RingBufferDebugLogger(0, RingBufferDebugLogger.OverflowPolicy.OverwriteOldest);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new RingBufferDebugLogger(1, null);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  @Test
+  public void getCurrentMessageQtyTest() {
+    assertEquals(0, logger.getCurrentMessageQty());
+    
+    logger.log("testMsg");
+    
+    assertEquals(1, logger.getCurrentMessageQty());
+    
+    logger.getAllStoredMessages();
+    
+    assertEquals(0, logger.getCurrentMessageQty());
+  }
+  
+  @Test
+  public void getAllSingleTest() {
+    String testStr = StringUtils.randomString(5);
+    logger.log(testStr);
+    
+    assertEquals(testStr, logger.getAllStoredMessages());
+    assertEquals(0, logger.getAllStoredMessages().length());
+  }
+  
+  @Test
+  public void getAllOrderedTest() {
+    List<String> expected = new ArrayList<String>();
+    for (int i = 0; i < TEST_QTY; i++) {
+      String msg = StringUtils.randomString(5);
+      expected.add(msg);
+      logger.log(msg);
+    }
+    
+    String[] result = logger.getAllStoredMessages().split(StringUtils.NEW_LINE);
+    assertEquals(expected.size(), result.length);
+    for (int i = 0; i < result.length; i++) {
+      assertEquals(expected.get(i), result[i]);
+    }
+  }
+  
+  @Test
+  public void getAllIncludeTimesTest() {
+    String testStr = StringUtils.randomString(5);
+    logger.log(testStr);
+    
+    String result = logger.getAllStoredMessages(true);
+    
+    assertTrue(result.endsWith(RingBufferDebugLogger.TIME_DELIM + testStr));
+    Long.parseLong(result.substring(0, result.indexOf(RingBufferDebugLogger.TIME_DELIM)));
+  }
+  
+  @Test
+  public void getAllMultipleThreadsOrderedTest() throws InterruptedException {
+    logger.log("0");
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        logger.log("1");
+      }
+    });
+    t.start();
+    t.join();
+    logger.log("2");
+    
+    assertEquals("0" + StringUtils.NEW_LINE + "1" + StringUtils.NEW_LINE + "2", 
+                 logger.getAllStoredMessages());
+    assertEquals(0, logger.getCurrentMessageQty());
+    // buffer for dead thread should be removed once drained
+    assertEquals(1, logger.buffers.size());
+  }
+  
+  @Test
+  public void getQtyLimitedTest() throws InterruptedException {
+    logger.log("0");
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        logger.log("1");
+        logger.log("2");
+      }
+    });
+    t.start();
+    t.join();
+    logger.log("3");
+    
+    assertEquals("0" + StringUtils.NEW_LINE + "1", logger.getOldestLogMessages(2));
+    assertEquals(2, logger.getCurrentMessageQty());
+    assertEquals("2" + StringUtils.NEW_LINE + "3", logger.getOldestLogMessages(10));
+    assertEquals(0, logger.getOldestLogMessages(10).length());
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void getQtyFail() {
+    logger.getOldestLogMessages(-1);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void overwriteOldestTest() {
+    logger = new RingBufferDebugLogger(2, RingBufferDebugLogger.OverflowPolicy.OverwriteOldest);
+    logger.log("0");
+    logger.log("1");
+    logger.log("2");
+    
+    assertEquals(2, logger.getCurrentMessageQty());
+    assertEquals(1, logger.getOverwrittenMessageQty());
+    assertEquals(0, logger.getDroppedMessageQty());
+    assertEquals("1" + StringUtils.NEW_LINE + "2", logger.getAllStoredMessages());
+    
+    // space is available again once drained
+    logger.log("3");
+    logger.log("4");
+    assertEquals(1, logger.getOverwrittenMessageQty());
+    assertEquals("3" + StringUtils.NEW_LINE + "4", logger.getAllStoredMessages());
+  }
+  
+  @Test
+  public void dropNewestTest() {
+    logger = new RingBufferDebugLogger(2, RingBufferDebugLogger.OverflowPolicy.DropNewest);
+    logger.log("0");
+    logger.log("1");
+    logger.log("2");
+    
+    assertEquals(2, logger.getCurrentMessageQty());
+    assertEquals(0, logger.getOverwrittenMessageQty());
+    assertEquals(1, logger.getDroppedMessageQty());
+    assertEquals("0" + StringUtils.NEW_LINE + "1", logger.getAllStoredMessages());
+    
+    logger.log("3");
+    assertEquals("3", logger.getAllStoredMessages());
+  }
+  
+  @Test
+  public void concurrentLogAndDrainTest() throws InterruptedException {
+    final int threadCount = TEST_QTY;
+    final int logsPerThread = TEST_QTY * 100;
+    logger = new RingBufferDebugLogger(logsPerThread, RingBufferDebugLogger.OverflowPolicy.DropNewest);
+    List<Thread> threads = new ArrayList<Thread>(threadCount);
+    for (int i = 0; i < threadCount; i++) {
+      final String prefix = i + ":";
+      Thread t = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < logsPerThread; j++) {
+            logger.log(prefix + j);
+          }
+        }
+      });
+      threads.add(t);
+      t.start();
+    }
+    
+    List<String> results = new ArrayList<String>();
+    boolean running = true;
+    while (running) {
+      running = false;
+      for (Thread t : threads) {
+        running = running || t.isAlive();
+      }
+      String result = logger.getAllStoredMessages();
+      if (result.length() > 0) {
+        for (String s : result.split(StringUtils.NEW_LINE)) {
+          results.add(s);
+        }
+      }
+    }
+    String result = logger.getAllStoredMessages();
+    if (result.length() > 0) {
+      for (String s : result.split(StringUtils.NEW_LINE)) {
+        results.add(s);
+      }
+    }
+    
+    // every message should be retrieved exactly once, in order for each thread
+    assertEquals(0, logger.getDroppedMessageQty());
+    assertEquals(threadCount * logsPerThread, results.size());
+    int[] nextExpected = new int[threadCount];
+    for (String s : results) {
+      int delim = s.indexOf(':');
+      int thread = Integer.parseInt(s.substring(0, delim));
+      assertEquals(nextExpected[thread]++, Integer.parseInt(s.substring(delim + 1)));
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package org.threadly.util.debug;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+
+import org.junit.After;
+import org.junit.Test;
+import org.threadly.concurrent.future.ListenableFutureTask;
+import org.threadly.test.concurrent.TestRunnable;
+import org.threadly.test.concurrent.TestUtils;
+import org.threadly.util.Clock;
+
+@SuppressWarnings("javadoc")
+public class RunningTaskRegistryTest {
+  @After
+  public void cleanup() {
+    RunningTaskRegistry.getCurrentThreadSlot().setTask(null);
+  }
+  
+  @Test
+  public void getCurrentThreadSlotTest() {
+    RunningTaskRegistry.Slot slot = RunningTaskRegistry.getCurrentThreadSlot();
+    
+    assertNotNull(slot);
+    assertTrue(slot == RunningTaskRegistry.getCurrentThreadSlot());
+    assertNull(slot.getTask());
+  }
+  
+  @Test
+  public void getCurrentThreadSlotDifferentThreadTest() throws InterruptedException {
+    final RunningTaskRegistry.Slot[] otherSlot = new RunningTaskRegistry.Slot[1];
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        otherSlot[0] = RunningTaskRegistry.getCurrentThreadSlot();
+      }
+    });
+    t.start();
+    t.join();
+    
+    assertNotNull(otherSlot[0]);
+    assertFalse(otherSlot[0] == RunningTaskRegistry.getCurrentThreadSlot());
+  }
+  
+  @Test
+  public void getRunningTaskTest() {
+    Thread currentThread = Thread.currentThread();
+    assertNull(RunningTaskRegistry.getRunningTask(currentThread));
+    
+    Runnable task = new TestRunnable();
+    RunningTaskRegistry.getCurrentThreadSlot().setTask(task);
+    
+    assertTrue(task == RunningTaskRegistry.getRunningTask(currentThread));
+    assertTrue(task == RunningTaskRegistry.getRunningTask(currentThread.getId()));
+    
+    RunningTaskRegistry.getCurrentThreadSlot().setTask(null);
+    
+    assertNull(RunningTaskRegistry.getRunningTask(currentThread));
+  }
+  
+  @Test
+  public void setPublishingEnabledTest() {
+    try {
+      RunningTaskRegistry.setPublishingEnabled(true);
+      
+      assertTrue(RunningTaskRegistry.isPublishingEnabled());
+      
+      RunningTaskRegistry.setPublishingEnabled(false);
+      
+      assertFalse(RunningTaskRegistry.isPublishingEnabled());
+    } finally {
+      RunningTaskRegistry.setPublishingEnabled(false);
+    }
+  }
+  
+  @Test
+  public void purgeDeadSlotsIfDueTest() throws InterruptedException {
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        RunningTaskRegistry.getCurrentThreadSlot().setTask(new TestRunnable());
+      }
+    });
+    t.start();
+    t.join();
+    
+    assertTrue(RunningTaskRegistry.SLOTS.containsKey(t.getId()));
+    
+    TestUtils.sleep(RunningTaskRegistry.PURGE_INTERVAL_IN_MS);
+    Clock.accurateForwardProgressingMillis();
+    RunningTaskRegistry.purgeDeadSlotsIfDue();
+    
+    assertFalse(RunningTaskRegistry.SLOTS.containsKey(t.getId()));
+  }
+  
+  @Test
+  public void getRunningTaskUnregisteredThreadTest() {
+    Thread t = new Thread();
+    
+    assertNull(RunningTaskRegistry.getRunningTask(t));
+    assertNull(RunningTaskRegistry.getRunningTask(t.getId()));
+  }
+  
+  @Test
+  public void getTaskTagTest() {
+    assertNull(RunningTaskRegistry.getTaskTag(null));
+    assertEquals("tag", RunningTaskRegistry.getTaskTag("tag"));
+    assertEquals(TestRunnable.class.getName(), RunningTaskRegistry.getTaskTag(new TestRunnable()));
+  }
+  
+  @Test
+  public void getTaskTagUnwrapTest() {
+    TestRunnable tr = new TestRunnable();
+    ListenableFutureTask<?> runnableFuture = new ListenableFutureTask<Object>(false, tr);
+    
+    assertEquals(TestRunnable.class.getName(), RunningTaskRegistry.getTaskTag(runnableFuture));
+    
+    Callable<Object> callable = new Callable<Object>() {
+      @Override
+      public Object call() {
+        return null;
+      }
+    };
+    ListenableFutureTask<?> callableFuture = new ListenableFutureTask<Object>(false, callable);
+    
+    assertEquals(callable.getClass().getName(), RunningTaskRegistry.getTaskTag(callableFuture));
+  }
+}
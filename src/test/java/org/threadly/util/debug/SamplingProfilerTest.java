@@ -0,0 +1,191 @@
+package org.threadly.util.debug;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threadly.BlockingTestRunnable;
+import org.threadly.test.concurrent.TestCondition;
+
+@SuppressWarnings("javadoc")
+public class SamplingProfilerTest {
+  private static final int POLL_INTERVAL = 1;
+  
+  private SamplingProfiler profiler;
+  
+  @Before
+  public void setup() {
+    profiler = new SamplingProfiler(POLL_INTERVAL);
+  }
+  
+  @After
+  public void cleanup() {
+    profiler.stop();
+    profiler = null;
+  }
+  
+  private void blockForProfilerSamples(final int sampleQty) {
+    new TestCondition() {
+      @Override
+      public boolean get() {
+        return profiler.getCollectedSampleQty() >= sampleQty;
+      }
+    }.blockTillTrue(1000 * 20);
+  }
+  
+  @Test
+  public void constructorFail() {
+    try {
+      new SamplingProfiler(-1);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new SamplingProfiler(POLL_INTERVAL, 0, 100);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new SamplingProfiler(POLL_INTERVAL, 10, 0);
+      fail("Exception should have thrown");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  @Test
+  public void getAndSetPollIntervalTest() {
+    assertEquals(POLL_INTERVAL, profiler.getPollInterval());
+    profiler.setPollInterval(10);
+    assertEquals(10, profiler.getPollInterval());
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void setPollIntervalFail() {
+    profiler.setPollInterval(-1);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void startStopTest() {
+    assertFalse(profiler.isRunning());
+    profiler.start();
+    assertTrue(profiler.isRunning());
+    // second start is a no-op
+    profiler.start();
+    assertTrue(profiler.isRunning());
+    
+    profiler.stop();
+    assertFalse(profiler.isRunning());
+  }
+  
+  @Test
+  public void collectSamplesTest() {
+    BlockingTestRunnable btr = new BlockingTestRunnable();
+    Thread t = new Thread(btr);
+    t.start();
+    try {
+      btr.blockTillStarted();
+      profiler.start();
+      blockForProfilerSamples(2);
+      profiler.stop();
+      
+      StackTrie samples = profiler.getSamples();
+      assertTrue(samples.getSampleCount() >= 2);
+      
+      boolean foundBlockingRunnable = false;
+      for (int node = StackTrie.ROOT_NODE + 1; node < samples.getNodeCount(); node++) {
+        StackTraceElement frame = samples.getFrame(node);
+        if (frame.getClassName().equals(BlockingTestRunnable.class.getName())) {
+          foundBlockingRunnable = true;
+          break;
+        }
+      }
+      assertTrue(foundBlockingRunnable);
+      
+      // collector thread should not sample itself
+      for (int node = StackTrie.ROOT_NODE + 1; node < samples.getNodeCount(); node++) {
+        assertFalse(samples.getFrame(node).getClassName()
+                           .startsWith(SamplingProfiler.SampleCollector.class.getName()));
+      }
+    } finally {
+      btr.unblock();
+    }
+  }
+  
+  @Test
+  public void boundedMemoryTest() {
+    int maxNodes = 10;
+    profiler = new SamplingProfiler(POLL_INTERVAL, 
+                                    SamplingProfiler.DEFAULT_MAX_STACK_DEPTH, maxNodes);
+    profiler.start();
+    blockForProfilerSamples(2);
+    profiler.stop();
+    
+    StackTrie samples = profiler.getSamples();
+    assertTrue(samples.getNodeCount() <= maxNodes);
+    assertTrue(samples.getTruncatedSampleCount() > 0);
+  }
+  
+  @Test
+  public void resetTest() {
+    profiler.start();
+    blockForProfilerSamples(1);
+    profiler.stop();
+    
+    profiler.reset();
+    
+    assertEquals(0, profiler.getCollectedSampleQty());
+    assertEquals(0, profiler.getSamples().getSampleCount());
+  }
+  
+  @Test
+  public void dumpTest() {
+    profiler.start();
+    blockForProfilerSamples(1);
+    profiler.stop();
+    
+    String result = profiler.dump();
+    
+    assertTrue(result.contains("total samples"));
+    assertTrue(result.contains(Profiler.FUNCTION_BY_NET_HEADER));
+    assertTrue(result.contains(Profiler.FUNCTION_BY_COUNT_HEADER));
+    assertFalse(result.contains(SamplingProfiler.TASKS_BY_COUNT_HEADER));
+  }
+  
+  @Test
+  public void taskAttributionTest() {
+    assertFalse(profiler.isTaskAttributionEnabled());
+    profiler.setTaskAttributionEnabled(true);
+    assertTrue(profiler.isTaskAttributionEnabled());
+    
+    RunningTaskRegistry.Slot slot = RunningTaskRegistry.getCurrentThreadSlot();
+    slot.setTask("profiledTask");
+    try {
+      profiler.start();
+      new TestCondition() {
+        @Override
+        public boolean get() {
+          return profiler.getTaskSampleCounts().containsKey("profiledTask");
+        }
+      }.blockTillTrue(1000 * 20);
+    } finally {
+      slot.setTask(null);
+    }
+    profiler.stop();
+    
+    StackTrie samples = profiler.getSamples();
+    int taskNode = samples.getChild(StackTrie.ROOT_NODE, 
+                                    new StackTraceElement("profiledTask", 
+                                                          SamplingProfiler.TASK_FRAME_METHOD_NAME, 
+                                                          null, -1));
+    assertTrue(taskNode != StackTrie.NO_NODE);
+    assertTrue(samples.getTotalCount(taskNode) > 0);
+    String result = profiler.dump();
+    assertTrue(result.contains(SamplingProfiler.TASKS_BY_COUNT_HEADER));
+    assertTrue(result.contains("profiledTask"));
+  }
+}
@@ -0,0 +1,193 @@
+package org.threadly.util.debug;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class StackTrieTest {
+  private static final StackTraceElement RUN_FRAME =
+      new StackTraceElement("java.lang.Thread", "run", "Thread.java", 1);
+  private static final StackTraceElement OUTER_FRAME =
+      new StackTraceElement("foo.Bar", "outer", "Bar.java", 10);
+  private static final StackTraceElement INNER_FRAME_A =
+      new StackTraceElement("foo.Bar", "innerA", "Bar.java", 20);
+  private static final StackTraceElement INNER_FRAME_B =
+      new StackTraceElement("foo.Bar", "innerB", "Bar.java", 30);
+  
+  private StackTrie trie;
+  
+  @Before
+  public void setup() {
+    trie = new StackTrie(100);
+  }
+  
+  private static StackTraceElement[] stack(StackTraceElement ... frames) {
+    return frames;
+  }
+  
+  @Test (expected = IllegalArgumentException.class)
+  public void constructorFail() {
+    new StackTrie(0);
+    fail("Exception should have thrown");
+  }
+  
+  @Test
+  public void emptyTest() {
+    assertEquals(1, trie.getNodeCount());
+    assertEquals(0, trie.getFrameCount());
+    assertEquals(0, trie.getSampleCount());
+    assertNull(trie.getFrame(StackTrie.ROOT_NODE));
+    assertEquals(StackTrie.NO_NODE, trie.getFirstChild(StackTrie.ROOT_NODE));
+    assertEquals(StackTrie.NO_NODE, trie.getParent(StackTrie.ROOT_NODE));
+  }
+  
+  @Test
+  public void addSampleTest() {
+    trie.addSample(stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME));
+    
+    assertEquals(4, trie.getNodeCount());
+    assertEquals(1, trie.getSampleCount());
+    int runNode = trie.getFirstChild(StackTrie.ROOT_NODE);
+    assertEquals(RUN_FRAME, trie.getFrame(runNode));
+    assertEquals(1, trie.getTotalCount(runNode));
+    assertEquals(0, trie.getSelfCount(runNode));
+    int outerNode = trie.getFirstChild(runNode);
+    assertEquals(OUTER_FRAME, trie.getFrame(outerNode));
+    int innerNode = trie.getFirstChild(outerNode);
+    assertEquals(INNER_FRAME_A, trie.getFrame(innerNode));
+    assertEquals(1, trie.getSelfCount(innerNode));
+    assertEquals(3, trie.getDepth(innerNode));
+    assertArrayEquals(stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME), trie.getStack(innerNode));
+  }
+  
+  @Test
+  public void sharedPrefixTest() {
+    for (int i = 0; i < 3; i++) {
+      trie.addSample(stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME));
+    }
+    trie.addSample(stack(INNER_FRAME_B, OUTER_FRAME, RUN_FRAME));
+    trie.addSample(stack(OUTER_FRAME, RUN_FRAME));
+    
+    // root, run, outer, innerA, innerB
+    assertEquals(5, trie.getNodeCount());
+    assertEquals(4, trie.getFrameCount());
+    assertEquals(5, trie.getSampleCount());
+    int outerNode = trie.getFirstChild(trie.getFirstChild(StackTrie.ROOT_NODE));
+    assertEquals(5, trie.getTotalCount(outerNode));
+    assertEquals(1, trie.getSelfCount(outerNode));
+    
+    long childSelfCount = 0;
+    int childCount = 0;
+    int child = trie.getFirstChild(outerNode);
+    while (child != StackTrie.NO_NODE) {
+      assertEquals(outerNode, trie.getParent(child));
+      childSelfCount += trie.getSelfCount(child);
+      childCount++;
+      child = trie.getNextSibling(child);
+    }
+    assertEquals(2, childCount);
+    assertEquals(4, childSelfCount);
+  }
+  
+  @Test
+  public void sameFrameDifferentPathTest() {
+    trie.addSample(stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME));
+    trie.addSample(stack(INNER_FRAME_A, RUN_FRAME));
+    
+    assertEquals(5, trie.getNodeCount());
+    // frames are interned, so only stored once
+    assertEquals(3, trie.getFrameCount());
+  }
+  
+  @Test
+  public void addSampleWithCountTest() {
+    trie.addSample(StackTrie.ROOT_NODE, stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME), 5);
+    
+    assertEquals(5, trie.getSampleCount());
+    int outerNode = trie.getFirstChild(trie.getFirstChild(StackTrie.ROOT_NODE));
+    assertEquals(5, trie.getTotalCount(outerNode));
+    assertEquals(5, trie.getSelfCount(trie.getFirstChild(outerNode)));
+    
+    trie.addSamples(outerNode, 2);
+    assertEquals(7, trie.getSampleCount());
+    assertEquals(7, trie.getTotalCount(outerNode));
+    assertEquals(2, trie.getSelfCount(outerNode));
+  }
+  
+  @Test
+  public void getChildTest() {
+    trie.addSample(stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME));
+    int runNode = trie.getFirstChild(StackTrie.ROOT_NODE);
+    
+    assertEquals(runNode, trie.getChild(StackTrie.ROOT_NODE, RUN_FRAME));
+    assertEquals(StackTrie.NO_NODE, trie.getChild(StackTrie.ROOT_NODE, OUTER_FRAME));
+    // lookups do not add nodes
+    assertEquals(4, trie.getNodeCount());
+  }
+  
+  @Test
+  public void getFrameByIdTest() {
+    trie.addSample(stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME));
+    int runNode = trie.getFirstChild(StackTrie.ROOT_NODE);
+    
+    assertEquals(RUN_FRAME, trie.getFrameById(trie.getFrameId(runNode)));
+  }
+  
+  @Test
+  public void maxNodesTruncatesTest() {
+    trie = new StackTrie(3);
+    trie.addSample(stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME));
+    
+    assertEquals(3, trie.getNodeCount());
+    assertEquals(1, trie.getSampleCount());
+    assertEquals(1, trie.getTruncatedSampleCount());
+    int outerNode = trie.getFirstChild(trie.getFirstChild(StackTrie.ROOT_NODE));
+    assertEquals(1, trie.getSelfCount(outerNode));
+    
+    // existing paths can still be counted without truncation
+    trie.addSample(stack(OUTER_FRAME, RUN_FRAME));
+    assertEquals(2, trie.getSelfCount(outerNode));
+    assertEquals(1, trie.getTruncatedSampleCount());
+  }
+  
+  @Test
+  public void growTest() {
+    trie = new StackTrie(StackTrie.INITIAL_NODE_CAPACITY * 4);
+    for (int i = 0; i < StackTrie.INITIAL_NODE_CAPACITY * 2; i++) {
+      trie.addSample(stack(new StackTraceElement("foo.Bar", "method" + i, "Bar.java", i), 
+                           RUN_FRAME));
+    }
+    
+    assertEquals(StackTrie.INITIAL_NODE_CAPACITY * 2 + 2, trie.getNodeCount());
+    assertEquals(StackTrie.INITIAL_NODE_CAPACITY * 2, trie.getSampleCount());
+    assertEquals(0, trie.getTruncatedSampleCount());
+  }
+  
+  @Test
+  public void copyTest() {
+    trie.addSample(stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME));
+    StackTrie copy = trie.copy();
+    trie.addSample(stack(INNER_FRAME_B, OUTER_FRAME, RUN_FRAME));
+    
+    assertEquals(4, copy.getNodeCount());
+    assertEquals(1, copy.getSampleCount());
+    assertEquals(5, trie.getNodeCount());
+    
+    // copy can still be added to
+    copy.addSample(stack(INNER_FRAME_B, RUN_FRAME));
+    assertEquals(2, copy.getSampleCount());
+  }
+  
+  @Test
+  public void resetTest() {
+    trie.addSample(stack(INNER_FRAME_A, OUTER_FRAME, RUN_FRAME));
+    trie.reset();
+    
+    assertEquals(1, trie.getNodeCount());
+    assertEquals(0, trie.getFrameCount());
+    assertEquals(0, trie.getSampleCount());
+    assertEquals(StackTrie.NO_NODE, trie.getFirstChild(StackTrie.ROOT_NODE));
+  }
+}